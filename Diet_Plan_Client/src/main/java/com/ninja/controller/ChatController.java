@@ -29,8 +29,10 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.ninja.pool.McpServerPool;
 import com.ninja.service.ChatServiceImpl;
 import com.ninja.service.CustomGeminiService;
+import com.ninja.service.MealPlanService;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 
@@ -56,6 +58,36 @@ public class ChatController {
 		return customGeminiService.processPrompt(query);
 	}
 
+	@Autowired
+	MealPlanService mealPlanService;
+
+	@GetMapping("/meal-plan")
+	public ResponseEntity<?> mealPlan(@RequestParam String diet, @RequestParam(required = false) Integer calories,
+			@RequestParam(required = false) List<String> exclude,
+			@RequestParam(required = false) List<String> excludeFoods,
+			@RequestParam(required = false) Integer variant)
+	{
+		try {
+			return ResponseEntity.ok(mealPlanService.generateMealPlan(diet, calories, exclude, excludeFoods, variant));
+		}
+		catch (Exception e) {
+			return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+		}
+	}
+
+	@Autowired(required = false)
+	McpServerPool mcpServerPool;
+
+	@GetMapping("/pool")
+	public ResponseEntity<?> pool()
+	{
+		if (mcpServerPool == null) {
+			return ResponseEntity.badRequest()
+					.body(Map.of("error", "The MCP server pool is not enabled, run with the pool profile"));
+		}
+		return ResponseEntity.ok(Map.of("servers", mcpServerPool.stats()));
+	}
+
 	@Autowired
 	OpenAiChatModel chatModel;
 	
@@ -0,0 +1,39 @@
+package com.ninja.pool;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * With diet.mcp.pool.enabled=true (the "pool" profile), tools are called
+ * through an {@link McpServerPool} instead of Spring AI's single connection
+ * per configured server, whose client autoconfiguration the profile turns
+ * off so the pool is the only ToolCallbackProvider.
+ */
+@Configuration
+@EnableConfigurationProperties(McpPoolProperties.class)
+@ConditionalOnProperty(prefix = "diet.mcp.pool", name = "enabled", havingValue = "true")
+public class McpPoolConfig
+{
+
+	@Bean
+	public McpServerPool mcpServerPool(McpPoolProperties properties, MeterRegistry registry)
+	{
+		return new McpServerPool(properties, registry);
+	}
+
+	/**
+	 * Up while at least one server of the pool answers, with every server's
+	 * stats as details
+	 */
+	@Bean
+	public HealthIndicator mcpPoolHealthIndicator(McpServerPool pool)
+	{
+		return () -> (pool.isAnyHealthy() ? Health.up() : Health.down()).withDetail("servers", pool.stats()).build();
+	}
+}
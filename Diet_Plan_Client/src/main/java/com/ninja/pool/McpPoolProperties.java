@@ -0,0 +1,153 @@
+package com.ninja.pool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Servers of the MCP pool: stdio.instances children started with
+ * stdio.command and stdio.args, plus one connection to each HTTP/SSE server
+ * in urls (see the server's "http" profile). retryOnTimeout lets a call that
+ * timed out run again on another server, for pools whose tools are all safe
+ * to repeat. A server whose restarts keep failing is restarted after
+ * restartBackoff, doubling up to maxRestartBackoff.
+ */
+@ConfigurationProperties(prefix = "diet.mcp.pool")
+public class McpPoolProperties
+{
+
+	private boolean enabled;
+	private Stdio stdio = new Stdio();
+	private List<String> urls = new ArrayList<>();
+	private String sseEndpoint = "/sse";
+	private Duration requestTimeout = Duration.ofSeconds(60);
+	private Duration healthCheckInterval = Duration.ofSeconds(10);
+	private Duration healthCheckTimeout = Duration.ofSeconds(5);
+	private boolean retryOnTimeout;
+	private Duration restartBackoff = Duration.ofSeconds(1);
+	private Duration maxRestartBackoff = Duration.ofMinutes(1);
+
+	public static class Stdio
+	{
+		private int instances;
+		private String command = "java";
+		private List<String> args = new ArrayList<>();
+		private Map<String, String> env = new LinkedHashMap<>();
+
+		public int getInstances() {
+			return instances;
+		}
+
+		public void setInstances(int instances) {
+			this.instances = instances;
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		public void setCommand(String command) {
+			this.command = command;
+		}
+
+		public List<String> getArgs() {
+			return args;
+		}
+
+		public void setArgs(List<String> args) {
+			this.args = args;
+		}
+
+		public Map<String, String> getEnv() {
+			return env;
+		}
+
+		public void setEnv(Map<String, String> env) {
+			this.env = env;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Stdio getStdio() {
+		return stdio;
+	}
+
+	public void setStdio(Stdio stdio) {
+		this.stdio = stdio;
+	}
+
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	public void setUrls(List<String> urls) {
+		this.urls = urls;
+	}
+
+	public String getSseEndpoint() {
+		return sseEndpoint;
+	}
+
+	public void setSseEndpoint(String sseEndpoint) {
+		this.sseEndpoint = sseEndpoint;
+	}
+
+	public Duration getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public void setRequestTimeout(Duration requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	public Duration getHealthCheckInterval() {
+		return healthCheckInterval;
+	}
+
+	public void setHealthCheckInterval(Duration healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	public Duration getHealthCheckTimeout() {
+		return healthCheckTimeout;
+	}
+
+	public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+		this.healthCheckTimeout = healthCheckTimeout;
+	}
+
+	public boolean isRetryOnTimeout() {
+		return retryOnTimeout;
+	}
+
+	public void setRetryOnTimeout(boolean retryOnTimeout) {
+		this.retryOnTimeout = retryOnTimeout;
+	}
+
+	public Duration getRestartBackoff() {
+		return restartBackoff;
+	}
+
+	public void setRestartBackoff(Duration restartBackoff) {
+		this.restartBackoff = restartBackoff;
+	}
+
+	public Duration getMaxRestartBackoff() {
+		return maxRestartBackoff;
+	}
+
+	public void setMaxRestartBackoff(Duration maxRestartBackoff) {
+		this.maxRestartBackoff = maxRestartBackoff;
+	}
+}
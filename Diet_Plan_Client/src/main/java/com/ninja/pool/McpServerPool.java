@@ -0,0 +1,762 @@
+package com.ninja.pool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpClientTransport;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+/**
+ * A pool of MCP server connections (stdio children and HTTP/SSE servers)
+ * offering their tools as one set of tool callbacks. Every call goes to the
+ * healthy server with the fewest calls in flight, so a slow call only holds up
+ * its own server. A call that could not be sent marks its server unhealthy
+ * and is retried on another. One that timed out is not retried unless asked,
+ * as the server may have run it, and an error answered by the server is
+ * returned as is. Each server is pinged every health-check interval, and one
+ * that does not answer is reconnected, which starts a new child for a stdio
+ * server. A stdio child that exits is taken out of rotation at once, the calls
+ * waiting on it fail over instead of timing out, and it is restarted. Restarts
+ * that fail, or whose connection dies before answering, back off: the delay
+ * doubles from restart-backoff up to max-restart-backoff.
+ *
+ * Per server, Micrometer records mcp.pool.calls (a timer tagged with the
+ * outcome: success, tool_error or failure), mcp.pool.outstanding,
+ * mcp.pool.healthy and mcp.pool.restarts.
+ */
+public class McpServerPool implements ToolCallbackProvider, DisposableBean
+{
+
+	private static final Logger log = LoggerFactory.getLogger(McpServerPool.class);
+
+	private final List<PooledServer> servers = new ArrayList<>();
+	private final ScheduledExecutorService healthChecks;
+	private final ExecutorService pings;
+	private final ExecutorService calls;
+	private final ExecutorService watchers;
+	private final Duration healthCheckTimeout;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicInteger nextStart = new AtomicInteger();
+	private final boolean retryOnTimeout;
+
+	private volatile ToolCallback[] toolCallbacks = new ToolCallback[0];
+
+	public McpServerPool(McpPoolProperties properties, MeterRegistry registry)
+	{
+		this(properties, registry, connections(properties));
+	}
+
+	/**
+	 * A pool of the given servers, each named and opened by its connection
+	 * supplier
+	 */
+	McpServerPool(McpPoolProperties properties, MeterRegistry registry,
+			List<Map.Entry<String, Supplier<Connection>>> connections)
+	{
+		if (connections.isEmpty()) {
+			throw new IllegalArgumentException(
+					"The MCP server pool has no servers, set diet.mcp.pool.stdio.instances or diet.mcp.pool.urls");
+		}
+		for (Map.Entry<String, Supplier<Connection>> connection : connections) {
+			servers.add(new PooledServer(connection.getKey(), connection.getValue(), properties.getRestartBackoff(),
+					properties.getMaxRestartBackoff(), registry));
+		}
+		this.healthCheckTimeout = properties.getHealthCheckTimeout();
+		this.retryOnTimeout = properties.isRetryOnTimeout();
+
+		CustomizableThreadFactory checkThreads = new CustomizableThreadFactory("mcp-pool-check-");
+		checkThreads.setDaemon(true);
+		// One thread per server, so a slow restart does not delay the others' checks
+		this.healthChecks = Executors.newScheduledThreadPool(servers.size(), checkThreads);
+		CustomizableThreadFactory pingThreads = new CustomizableThreadFactory("mcp-pool-ping-");
+		pingThreads.setDaemon(true);
+		this.pings = Executors.newCachedThreadPool(pingThreads);
+		CustomizableThreadFactory callThreads = new CustomizableThreadFactory("mcp-pool-call-");
+		callThreads.setDaemon(true);
+		this.calls = Executors.newCachedThreadPool(callThreads);
+		CustomizableThreadFactory watchThreads = new CustomizableThreadFactory("mcp-pool-watch-");
+		watchThreads.setDaemon(true);
+		this.watchers = Executors.newCachedThreadPool(watchThreads);
+
+		// Connect every server in parallel before the first call
+		CompletableFuture.allOf(servers.stream()
+				.map(server -> CompletableFuture.runAsync(() -> reconnect(server), healthChecks))
+				.toArray(CompletableFuture[]::new)).join();
+		long interval = properties.getHealthCheckInterval().toMillis();
+		for (PooledServer server : servers) {
+			healthChecks.scheduleWithFixedDelay(() -> check(server), interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * The tools of the pool's servers, listed by the first healthy one; empty
+	 * until a server is reachable
+	 */
+	@Override
+	public ToolCallback[] getToolCallbacks()
+	{
+		ToolCallback[] callbacks = toolCallbacks;
+		return callbacks.length > 0 ? callbacks : loadTools();
+	}
+
+	/**
+	 * Call a tool on the least busy healthy server, trying the others in turn
+	 * while calls fail in transport. Returns the result content as JSON, as the
+	 * Spring AI MCP tool callbacks do. A call that times out is retried only
+	 * when diet.mcp.pool.retry-on-timeout is set, see
+	 * {@link #call(String, String, boolean)}.
+	 */
+	public String call(String toolName, String arguments)
+	{
+		return call(toolName, arguments, retryOnTimeout);
+	}
+
+	/**
+	 * As {@link #call(String, String)}; a timed out call may still have run on
+	 * its server, so it goes to another server only if retryOnTimeout says the
+	 * tool is safe to run twice. Calls that could not be sent are always
+	 * retried.
+	 */
+	public String call(String toolName, String arguments, boolean retryOnTimeout)
+	{
+		McpSchema.CallToolRequest request = new McpSchema.CallToolRequest(toolName, arguments);
+		List<PooledServer> tried = new ArrayList<>();
+		RuntimeException failure = null;
+		for (PooledServer server = pick(tried); server != null; server = pick(tried)) {
+			tried.add(server);
+			McpSyncClient client = server.client;
+			if (client == null) {
+				continue;
+			}
+			long start = System.nanoTime();
+			server.outstanding.incrementAndGet();
+			McpSchema.CallToolResult result;
+			try {
+				result = callTool(server, client, request);
+			} catch (McpError e) {
+				// Answered by the server, and any other server would answer the same
+				server.markAnswered();
+				server.toolErrors.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				throw e;
+			} catch (RuntimeException e) {
+				server.failures.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				if (Thread.currentThread().isInterrupted()) {
+					// The caller gave up, the server did not fail
+					throw e;
+				}
+				if (isTimeout(e)) {
+					// Slow is not dead: the health check decides whether to restart it
+					if (!retryOnTimeout) {
+						throw e;
+					}
+				} else {
+					markUnhealthy(server, client, e);
+				}
+				failure = e;
+				continue;
+			} finally {
+				server.outstanding.decrementAndGet();
+			}
+			server.markAnswered();
+			boolean error = Boolean.TRUE.equals(result.isError());
+			(error ? server.toolErrors : server.successes).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (error) {
+				throw new IllegalStateException("Error calling tool: " + result.content());
+			}
+			return toJson(result.content());
+		}
+		throw new IllegalStateException("No healthy MCP server could call " + toolName, failure);
+	}
+
+	/**
+	 * Per server: health, calls in flight, restarts, and the count and
+	 * latency of successful calls
+	 */
+	public List<Map<String, Object>> stats()
+	{
+		List<Map<String, Object>> stats = new ArrayList<>(servers.size());
+		for (PooledServer server : servers) {
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("server", server.name);
+			entry.put("healthy", server.healthy);
+			entry.put("outstanding", server.outstanding.get());
+			entry.put("restarts", (long) server.restarts.count());
+			entry.put("calls", server.successes.count());
+			entry.put("toolErrors", server.toolErrors.count());
+			entry.put("failures", server.failures.count());
+			entry.put("meanMs", round(server.successes.mean(TimeUnit.MILLISECONDS)));
+			for (ValueAtPercentile percentile : server.successes.takeSnapshot().percentileValues()) {
+				entry.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+						round(percentile.value(TimeUnit.MILLISECONDS)));
+			}
+			stats.add(entry);
+		}
+		return stats;
+	}
+
+	public boolean isAnyHealthy()
+	{
+		return servers.stream().anyMatch(server -> server.healthy);
+	}
+
+	@Override
+	public void destroy()
+	{
+		// Stop restarts first, then the servers, so that their exits are not taken for failures
+		healthChecks.shutdownNow();
+		for (PooledServer server : servers) {
+			server.close();
+		}
+		pings.shutdownNow();
+		calls.shutdownNow();
+		watchers.shutdownNow();
+	}
+
+	/**
+	 * Send the call from a pool thread and wait for its answer, or for the
+	 * connection to close under it: a call on a stdio child that exited fails
+	 * at once instead of when the request times out
+	 */
+	private McpSchema.CallToolResult callTool(PooledServer server, McpSyncClient client,
+			McpSchema.CallToolRequest request)
+	{
+		PendingCall call = new PendingCall(client, new CompletableFuture<>());
+		server.pending.add(call);
+		try {
+			// Checked after registering, so a close either sees the call or the call sees the close
+			if (!server.healthy || server.client != client) {
+				throw new ConnectionClosedException(server.name);
+			}
+			calls.execute(() -> {
+				try {
+					call.result().complete(client.callTool(request));
+				} catch (Throwable e) {
+					call.result().completeExceptionally(e);
+				}
+			});
+			return call.result().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while calling " + request.name(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			server.pending.remove(call);
+		}
+	}
+
+	/**
+	 * The healthy server with the fewest calls in flight, not yet tried; the
+	 * scan starts one server further each time, so ties take turns
+	 */
+	private PooledServer pick(List<PooledServer> tried)
+	{
+		int size = servers.size();
+		int start = Math.floorMod(nextStart.getAndIncrement(), size);
+		PooledServer best = null;
+		for (int i = 0; i < size; i++) {
+			PooledServer server = servers.get((start + i) % size);
+			if (server.healthy && !tried.contains(server)
+					&& (best == null || server.outstanding.get() < best.outstanding.get())) {
+				best = server;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Ping a healthy server; reconnect one that is down once its restart is
+	 * due
+	 */
+	private void check(PooledServer server)
+	{
+		if (server.healthy && ping(server)) {
+			return;
+		}
+		reconnect(server);
+	}
+
+	private boolean ping(PooledServer server)
+	{
+		McpSyncClient client = server.client;
+		if (client == null) {
+			return false;
+		}
+		try {
+			CompletableFuture.runAsync(client::ping, pings)
+					.get(healthCheckTimeout.toMillis(), TimeUnit.MILLISECONDS);
+			server.markAnswered();
+			return true;
+		} catch (Exception e) {
+			markUnhealthy(server, client, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Connect a server that is down and due for a restart, and watch the new
+	 * connection for closing where its transport can tell
+	 */
+	private void reconnect(PooledServer server)
+	{
+		Connection connection;
+		try {
+			connection = server.connectIfDue();
+		} catch (RuntimeException e) {
+			log.warn("Could not connect to MCP server {}: {}", server.name, e.getMessage());
+			scheduleRestart(server);
+			return;
+		}
+		if (connection == null) {
+			return;
+		}
+		log.info("Connected to MCP server {}", server.name);
+		if (connection.awaitClosed() != null) {
+			watchers.execute(() -> watch(server, connection));
+		}
+	}
+
+	private void watch(PooledServer server, Connection connection)
+	{
+		try {
+			connection.awaitClosed().run();
+		} catch (RuntimeException e) {
+			// Interrupted: the pool is shutting down
+			return;
+		}
+		markUnhealthy(server, connection.client(), new ConnectionClosedException(server.name));
+		server.failPending(connection.client());
+	}
+
+	private void scheduleRestart(PooledServer server)
+	{
+		try {
+			healthChecks.schedule(() -> reconnect(server), server.restartDelayNanos(), TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			// The pool is shutting down
+		}
+	}
+
+	/**
+	 * The request timeout of the SDK client, as opposed to a send that failed
+	 */
+	private static boolean isTimeout(Throwable e)
+	{
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Take the server out of rotation after its client failed, unless the
+	 * server has been reconnected since the failed client was taken, which a
+	 * call outliving its timeout often sees
+	 */
+	private void markUnhealthy(PooledServer server, McpSyncClient failed, Exception cause)
+	{
+		if (server.markDown(failed)) {
+			log.warn("MCP server {} is unhealthy: {}", server.name, cause.toString());
+			scheduleRestart(server);
+		}
+	}
+
+	private static List<Map.Entry<String, Supplier<Connection>>> connections(McpPoolProperties properties)
+	{
+		Duration requestTimeout = properties.getRequestTimeout();
+		List<Map.Entry<String, Supplier<Connection>>> connections = new ArrayList<>();
+		McpPoolProperties.Stdio stdio = properties.getStdio();
+		for (int i = 0; i < stdio.getInstances(); i++) {
+			ServerParameters parameters = ServerParameters.builder(stdio.getCommand())
+					.args(stdio.getArgs())
+					.env(stdio.getEnv())
+					.build();
+			connections.add(Map.entry("stdio-" + i, () -> {
+				StdioClientTransport transport = new StdioClientTransport(parameters);
+				McpSyncClient client = initialized(new SerializedTransport(transport), requestTimeout);
+				return new Connection(client, transport::awaitForExit);
+			}));
+		}
+		for (String url : properties.getUrls()) {
+			// Only the health check tells that an HTTP/SSE server went away
+			connections.add(Map.entry(url, () -> new Connection(initialized(
+					HttpClientSseClientTransport.builder(url).sseEndpoint(properties.getSseEndpoint()).build(),
+					requestTimeout), null)));
+		}
+		return connections;
+	}
+
+	private static McpSyncClient initialized(McpClientTransport transport, Duration requestTimeout)
+	{
+		McpSyncClient client = McpClient.sync(transport)
+				.requestTimeout(requestTimeout)
+				.initializationTimeout(requestTimeout)
+				.build();
+		try {
+			client.initialize();
+		} catch (RuntimeException e) {
+			client.close();
+			throw e;
+		}
+		return client;
+	}
+
+	private synchronized ToolCallback[] loadTools()
+	{
+		if (toolCallbacks.length > 0) {
+			return toolCallbacks;
+		}
+		PooledServer server = pick(List.of());
+		McpSyncClient client = server == null ? null : server.client;
+		if (client == null) {
+			return toolCallbacks;
+		}
+		try {
+			List<ToolCallback> callbacks = new ArrayList<>();
+			String cursor = null;
+			do {
+				McpSchema.ListToolsResult page = client.listTools(cursor);
+				for (McpSchema.Tool tool : page.tools()) {
+					callbacks.add(new PooledToolCallback(ToolDefinition.builder()
+							.name(tool.name())
+							.description(tool.description())
+							.inputSchema(toJson(tool.inputSchema()))
+							.build()));
+				}
+				cursor = page.nextCursor();
+			} while (cursor != null);
+			toolCallbacks = callbacks.toArray(new ToolCallback[0]);
+		} catch (RuntimeException e) {
+			markUnhealthy(server, client, e);
+		}
+		return toolCallbacks;
+	}
+
+	private String toJson(Object value)
+	{
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not write " + value + " as JSON", e);
+		}
+	}
+
+	private static double round(double millis)
+	{
+		return Math.round(millis * 100) / 100.0;
+	}
+
+	private final class PooledToolCallback implements ToolCallback
+	{
+		private final ToolDefinition definition;
+
+		PooledToolCallback(ToolDefinition definition)
+		{
+			this.definition = definition;
+		}
+
+		@Override
+		public ToolDefinition getToolDefinition()
+		{
+			return definition;
+		}
+
+		@Override
+		public String call(String toolInput)
+		{
+			return McpServerPool.this.call(definition.name(), toolInput);
+		}
+	}
+
+	/**
+	 * An initialized client of one server and, where its transport can tell,
+	 * a wait that returns once the connection has closed (for stdio, when the
+	 * child exits); null where only the health check can tell
+	 */
+	record Connection(McpSyncClient client, Runnable awaitClosed)
+	{
+	}
+
+	/**
+	 * A call waiting on a client's answer
+	 */
+	private record PendingCall(McpSyncClient client, CompletableFuture<McpSchema.CallToolResult> result)
+	{
+	}
+
+	/**
+	 * The connection a call was sent on closed before it answered
+	 */
+	private static final class ConnectionClosedException extends IllegalStateException
+	{
+		private static final long serialVersionUID = 1L;
+
+		ConnectionClosedException(String server)
+		{
+			super("The connection to MCP server " + server + " closed");
+		}
+	}
+
+	/**
+	 * The SDK's stdio client transport queues outgoing messages in a sink that
+	 * rejects a message sent while another thread is sending, so concurrent
+	 * calls on one connection take turns to enqueue
+	 */
+	private static final class SerializedTransport implements McpClientTransport
+	{
+		private final McpClientTransport delegate;
+
+		SerializedTransport(McpClientTransport delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Mono<Void> connect(Function<Mono<McpSchema.JSONRPCMessage>, Mono<McpSchema.JSONRPCMessage>> handler)
+		{
+			return delegate.connect(handler);
+		}
+
+		@Override
+		public synchronized Mono<Void> sendMessage(McpSchema.JSONRPCMessage message)
+		{
+			// Enqueues before returning
+			return delegate.sendMessage(message);
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> type)
+		{
+			return delegate.unmarshalFrom(data, type);
+		}
+
+		@Override
+		public Mono<Void> closeGracefully()
+		{
+			return delegate.closeGracefully();
+		}
+
+		@Override
+		public void close()
+		{
+			delegate.close();
+		}
+	}
+
+	/**
+	 * One server of the pool: its current connection, restart backoff and
+	 * metrics
+	 */
+	private static final class PooledServer
+	{
+		final String name;
+		final Supplier<Connection> connections;
+		final Duration restartBackoff;
+		final Duration maxRestartBackoff;
+		final AtomicInteger outstanding = new AtomicInteger();
+		final Set<PendingCall> pending = ConcurrentHashMap.newKeySet();
+		final Timer successes;
+		final Timer toolErrors;
+		final Timer failures;
+		final Counter restarts;
+
+		volatile McpSyncClient client;
+		volatile boolean healthy;
+		// The current client has answered a call or a ping
+		volatile boolean answered;
+		boolean connectedBefore;
+		// Restarts in a row that failed or died before answering, and when the next may start
+		int failedRestarts;
+		long restartDue = System.nanoTime();
+
+		PooledServer(String name, Supplier<Connection> connections, Duration restartBackoff,
+				Duration maxRestartBackoff, MeterRegistry registry)
+		{
+			this.name = name;
+			this.connections = connections;
+			this.restartBackoff = restartBackoff;
+			this.maxRestartBackoff = maxRestartBackoff;
+			this.successes = timer(registry, "success");
+			this.toolErrors = timer(registry, "tool_error");
+			this.failures = timer(registry, "failure");
+			this.restarts = Counter.builder("mcp.pool.restarts")
+					.description("Reconnections of an MCP server after it stopped answering")
+					.tag("server", name)
+					.register(registry);
+			Gauge.builder("mcp.pool.outstanding", outstanding, AtomicInteger::get)
+					.description("Tool calls in flight on an MCP server")
+					.tag("server", name)
+					.register(registry);
+			Gauge.builder("mcp.pool.healthy", this, server -> server.healthy ? 1 : 0)
+					.description("1 while an MCP server answers its health checks")
+					.tag("server", name)
+					.register(registry);
+		}
+
+		private Timer timer(MeterRegistry registry, String outcome)
+		{
+			return Timer.builder("mcp.pool.calls")
+					.description("Tool calls routed to an MCP server")
+					.tag("server", name)
+					.tag("outcome", outcome)
+					.publishPercentiles(0.5, 0.99)
+					.register(registry);
+		}
+
+		void markAnswered()
+		{
+			if (!answered) {
+				answered = true;
+			}
+		}
+
+		/**
+		 * Replace the connection with a new, initialized one if the server is
+		 * down and its restart is due; for stdio this starts a new child, and
+		 * closing the old connection stops the old one. Returns the new
+		 * connection, or null when none was due.
+		 */
+		synchronized Connection connectIfDue()
+		{
+			if (healthy || System.nanoTime() - restartDue < 0) {
+				return null;
+			}
+			McpSyncClient old = client;
+			client = null;
+			try {
+				Connection created = connections.get();
+				if (connectedBefore) {
+					restarts.increment();
+				}
+				connectedBefore = true;
+				answered = false;
+				client = created.client();
+				healthy = true;
+				return created;
+			} catch (RuntimeException e) {
+				failedRestarts++;
+				restartDue = System.nanoTime() + backoffNanos();
+				throw e;
+			} finally {
+				// After the new client is in place, so a call failing on the old one cannot take it down
+				close(old);
+			}
+		}
+
+		/**
+		 * Take the server down if failed is still its client; true when this
+		 * call did
+		 */
+		synchronized boolean markDown(McpSyncClient failed)
+		{
+			if (!healthy || client != failed) {
+				return false;
+			}
+			healthy = false;
+			failedRestarts = answered ? 0 : failedRestarts + 1;
+			restartDue = System.nanoTime() + backoffNanos();
+			return true;
+		}
+
+		synchronized long restartDelayNanos()
+		{
+			return Math.max(0, restartDue - System.nanoTime());
+		}
+
+		/**
+		 * None after a connection that answered, then restart-backoff doubling
+		 * up to max-restart-backoff
+		 */
+		private long backoffNanos()
+		{
+			if (failedRestarts == 0) {
+				return 0;
+			}
+			long max = maxRestartBackoff.toNanos();
+			long backoff = restartBackoff.toNanos();
+			for (int i = 1; i < failedRestarts && backoff < max; i++) {
+				backoff *= 2;
+			}
+			return Math.min(backoff, max);
+		}
+
+		void failPending(McpSyncClient closed)
+		{
+			for (PendingCall call : pending) {
+				if (call.client() == closed) {
+					call.result().completeExceptionally(new ConnectionClosedException(name));
+				}
+			}
+		}
+
+		synchronized void close()
+		{
+			healthy = false;
+			McpSyncClient old = client;
+			client = null;
+			close(old);
+		}
+
+		private void close(McpSyncClient old)
+		{
+			if (old == null) {
+				return;
+			}
+			failPending(old);
+			try {
+				old.closeGracefully();
+			} catch (RuntimeException e) {
+				old.close();
+			}
+		}
+	}
+}
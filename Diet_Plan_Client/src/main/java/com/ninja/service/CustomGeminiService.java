@@ -5,18 +5,18 @@ import java.util.Map;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CustomGeminiService 
 {
-	private final SyncMcpToolCallbackProvider toolCallbackProvider;
+	private final ToolCallbackProvider toolCallbackProvider;
 	private final ChatClient chatClient;
 	
-	public CustomGeminiService(SyncMcpToolCallbackProvider toolCallbackProvider, ChatClient.Builder chatclientBuilder) {
+	public CustomGeminiService(ToolCallbackProvider toolCallbackProvider, ChatClient.Builder chatclientBuilder) {
 		this.toolCallbackProvider = toolCallbackProvider;
 		this.chatClient = chatclientBuilder
 									.defaultAdvisors(MessageChatMemoryAdvisor
@@ -0,0 +1,105 @@
+package com.ninja.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninja.utilities.Meal;
+import com.ninja.utilities.MealPlan;
+import com.ninja.utilities.Nutrients;
+
+/**
+ * Fast path for meal plans: the MCP server's generateMealPlan tool picks the
+ * foods and portions from its nutrient data and diet allow-lists in
+ * milliseconds, so no LLM round trip is needed for the numbers. The LLM is
+ * left for naming and recipes, on top of the plan returned here.
+ */
+@Service
+public class MealPlanService
+{
+
+	private static final String TOOL = "generateMealPlan";
+
+	private final ToolCallbackProvider tools;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public MealPlanService(ToolCallbackProvider tools)
+	{
+		this.tools = tools;
+	}
+
+	/**
+	 * Plan a day for the diet (LFV or LCHF) at the calorie target, leaving out
+	 * the allergens and foods given. Another variant gives an alternative plan.
+	 */
+	public MealPlan generateMealPlan(String dietType, Integer calories, List<String> excludeAllergens,
+			List<String> excludeFoods, Integer variant) throws Exception
+	{
+		Map<String, Object> arguments = new LinkedHashMap<>();
+		arguments.put("dietType", dietType);
+		arguments.put("calories", calories);
+		arguments.put("excludeAllergens", excludeAllergens);
+		arguments.put("excludeFoods", excludeFoods);
+		arguments.put("variant", variant);
+		String result = findTool().call(objectMapper.writeValueAsString(arguments));
+		return toMealPlan(unwrap(objectMapper.readTree(result)));
+	}
+
+	private ToolCallback findTool()
+	{
+		// MCP tool names are prefixed with the client and server names
+		return Arrays.stream(tools.getToolCallbacks())
+				.filter(tool -> tool.getToolDefinition().name().endsWith(TOOL))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("The MCP server does not offer the " + TOOL + " tool"));
+	}
+
+	/**
+	 * The tool result is the list of MCP content items; the plan is the JSON
+	 * text of the first one
+	 */
+	private JsonNode unwrap(JsonNode result) throws Exception
+	{
+		if (result.isArray() && result.size() > 0 && result.get(0).has("text")) {
+			return objectMapper.readTree(result.get(0).get("text").asText());
+		}
+		if (result.isTextual()) {
+			return objectMapper.readTree(result.asText());
+		}
+		return result;
+	}
+
+	private MealPlan toMealPlan(JsonNode plan)
+	{
+		Map<String, Meal> meals = new LinkedHashMap<>();
+		for (JsonNode meal : plan.path("meals")) {
+			meals.put(meal.path("meal").asText(), toMeal(meal));
+		}
+		return new MealPlan(meals.get("breakfast"), meals.get("lunch"), meals.get("dinner"), meals.get("snacks"));
+	}
+
+	private Meal toMeal(JsonNode meal)
+	{
+		JsonNode preMeal = meal.path("preMeal");
+		JsonNode mainMeal = meal.path("mainMeal");
+		return new Meal(preMeal.path("name").asText(), meal.path("preMealTime").asText(),
+				round(preMeal, "calories"), mainMeal.path("name").asText(),
+				round(mainMeal, "grams") + " g", meal.path("mainMealTime").asText(), round(mainMeal, "calories"),
+				round(meal, "calories"),
+				new Nutrients(round(mainMeal, "carbsG") + "g", round(mainMeal, "proteinG") + "g",
+						round(mainMeal, "fatG") + "g", round(mainMeal, "fiberG") + "g"),
+				round(meal, "carbsG"), round(meal, "proteinG"), round(meal, "fatG"), round(meal, "fiberG"));
+	}
+
+	private static int round(JsonNode node, String field)
+	{
+		return (int) Math.round(node.path(field).asDouble());
+	}
+}
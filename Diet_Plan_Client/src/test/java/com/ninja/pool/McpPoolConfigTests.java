@@ -0,0 +1,62 @@
+package com.ninja.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class McpPoolConfigTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withUserConfiguration(McpPoolConfig.class)
+			.withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+	@Test
+	void poolIsOffUnlessEnabled() {
+		contextRunner.run(context -> assertThat(context).hasNotFailed().doesNotHaveBean(McpServerPool.class));
+	}
+
+	@Test
+	void enabledPoolWithoutServersFailsToStart() {
+		contextRunner.withPropertyValues("diet.mcp.pool.enabled=true")
+				.run(context -> assertThat(context).hasFailed()
+						.getFailure()
+						.rootCause()
+						.hasMessageContaining("has no servers"));
+	}
+
+	@Test
+	void bindsThePoolProfileSettings() {
+		McpPoolProperties properties = new Binder(new MapConfigurationPropertySource(Map.of(
+				"diet.mcp.pool.stdio.instances", "2",
+				"diet.mcp.pool.stdio.args", "-Dspring.ai.mcp.server.stdio=true,-jar,server.jar",
+				"diet.mcp.pool.urls", "http://localhost:8090",
+				"diet.mcp.pool.request-timeout", "30s",
+				"diet.mcp.pool.retry-on-timeout", "true",
+				"diet.mcp.pool.restart-backoff", "500ms",
+				"diet.mcp.pool.max-restart-backoff", "2m")))
+				.bind("diet.mcp.pool", McpPoolProperties.class)
+				.get();
+
+		assertThat(properties.getStdio().getInstances()).isEqualTo(2);
+		assertThat(properties.getStdio().getArgs()).containsExactly("-Dspring.ai.mcp.server.stdio=true", "-jar",
+				"server.jar");
+		assertThat(properties.getUrls()).isEqualTo(List.of("http://localhost:8090"));
+		assertThat(properties.getRequestTimeout()).isEqualTo(Duration.ofSeconds(30));
+		assertThat(properties.isRetryOnTimeout()).isTrue();
+		assertThat(properties.getRestartBackoff()).isEqualTo(Duration.ofMillis(500));
+		assertThat(properties.getMaxRestartBackoff()).isEqualTo(Duration.ofMinutes(2));
+		// Unset: the defaults
+		assertThat(properties.getHealthCheckInterval()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(properties.getSseEndpoint()).isEqualTo("/sse");
+	}
+}
@@ -0,0 +1,289 @@
+package com.ninja.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ninja.pool.McpServerPool.Connection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.Exceptions;
+
+/**
+ * Routing, failover, health and restarts of the pool over mocked clients. The
+ * first call of a new pool goes to its first server, which the failover tests
+ * rely on. Health checks run hourly unless a test needs them sooner.
+ */
+class McpServerPoolTests {
+
+	private final List<McpServerPool> pools = new ArrayList<>();
+	private final List<CountDownLatch> blocked = new ArrayList<>();
+
+	@AfterEach
+	void closePools() {
+		blocked.forEach(CountDownLatch::countDown);
+		pools.forEach(McpServerPool::destroy);
+	}
+
+	@Test
+	void callsSkipAnUnhealthyServer() throws Exception {
+		McpPoolProperties properties = properties();
+		properties.setHealthCheckInterval(Duration.ofMillis(20));
+		// Long enough that "a" stays down for the rest of the test
+		properties.setRestartBackoff(Duration.ofHours(1));
+		McpSyncClient a = answering("a");
+		when(a.ping()).thenThrow(new IllegalStateException("no answer"));
+		McpSyncClient b = answering("b");
+		McpServerPool pool = pool(properties, server("a", a), server("b", b));
+
+		await(() -> !healthy(pool, "a"));
+		for (int i = 0; i < 10; i++) {
+			assertThat(pool.call("tool", "{}")).contains("\"text\":\"b\"");
+		}
+
+		verify(a, never()).callTool(any());
+		verify(b, times(10)).callTool(any());
+	}
+
+	@Test
+	void sendFailureFailsOverAndMarksTheServerUnhealthy() {
+		McpPoolProperties properties = properties();
+		properties.setRestartBackoff(Duration.ofHours(1));
+		McpSyncClient a = mock(McpSyncClient.class);
+		when(a.callTool(any())).thenThrow(new IllegalStateException("Failed to enqueue message"));
+		McpSyncClient b = answering("b");
+		McpServerPool pool = pool(properties, server("a", a), server("b", b));
+
+		assertThat(pool.call("tool", "{}")).contains("\"text\":\"b\"");
+
+		verify(a).callTool(any());
+		assertThat(healthy(pool, "a")).isFalse();
+		assertThat(healthy(pool, "b")).isTrue();
+	}
+
+	@Test
+	void timeoutIsNotRetriedByDefault() {
+		McpSyncClient a = mock(McpSyncClient.class);
+		when(a.callTool(any())).thenThrow(Exceptions.propagate(new TimeoutException("Did not observe any item")));
+		McpSyncClient b = answering("b");
+		McpServerPool pool = pool(properties(), server("a", a), server("b", b));
+
+		assertThatThrownBy(() -> pool.call("tool", "{}")).hasRootCauseInstanceOf(TimeoutException.class);
+
+		verify(a).callTool(any());
+		verify(b, never()).callTool(any());
+		// Slow is not dead
+		assertThat(healthy(pool, "a")).isTrue();
+	}
+
+	@Test
+	void timeoutIsRetriedWhenAsked() {
+		McpSyncClient a = mock(McpSyncClient.class);
+		when(a.callTool(any())).thenThrow(Exceptions.propagate(new TimeoutException("Did not observe any item")));
+		McpSyncClient b = answering("b");
+		McpServerPool pool = pool(properties(), server("a", a), server("b", b));
+
+		assertThat(pool.call("tool", "{}", true)).contains("\"text\":\"b\"");
+		assertThat(healthy(pool, "a")).isTrue();
+	}
+
+	@Test
+	void staleClientFailureDoesNotTakeDownTheReconnectedServer() throws Exception {
+		McpPoolProperties properties = properties();
+		properties.setHealthCheckInterval(Duration.ofMillis(20));
+		CountDownLatch started = block();
+		CountDownLatch release = block();
+		McpSyncClient stale = mock(McpSyncClient.class);
+		when(stale.callTool(any())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			throw new IllegalStateException("Failed to enqueue message");
+		});
+		// Stops answering pings once the call is in flight, so the health check reconnects
+		when(stale.ping()).thenAnswer(invocation -> {
+			if (started.getCount() == 0) {
+				throw new IllegalStateException("no answer");
+			}
+			return null;
+		});
+		McpSyncClient fresh = answering("a");
+		McpServerPool pool = pool(properties, server("a", stale, fresh), server("b", answering("b")));
+
+		CompletableFuture<String> call = CompletableFuture.supplyAsync(() -> pool.call("tool", "{}"));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Reconnecting fails the call on the stale client, after the fresh one is in place
+		assertThat(call.get(5, TimeUnit.SECONDS)).contains("\"text\":\"b\"");
+		verify(stale, timeout(5000)).closeGracefully();
+		assertThat(stat(pool, "a", "restarts")).isEqualTo(1L);
+		assertThat(healthy(pool, "a")).isTrue();
+	}
+
+	@Test
+	void exitedChildFailsOverItsCallsAtOnceAndRestarts() throws Exception {
+		// Default config: 60 s request timeout, no retry after a timeout
+		McpPoolProperties properties = properties();
+		properties.setRestartBackoff(Duration.ofMillis(10));
+		CountDownLatch started = block();
+		CountDownLatch exited = block();
+		CountDownLatch answer = block();
+		McpSyncClient dying = mock(McpSyncClient.class);
+		when(dying.callTool(any())).thenAnswer(invocation -> {
+			started.countDown();
+			answer.await();
+			return new McpSchema.CallToolResult("a", false);
+		});
+		Iterator<Connection> connections = List.of(new Connection(dying, awaiting(exited)),
+				new Connection(answering("a"), null)).iterator();
+		Supplier<Connection> exitingOnce = connections::next;
+		McpServerPool pool = pool(properties, Map.entry("a", exitingOnce), server("b", answering("b")));
+
+		CompletableFuture<String> call = CompletableFuture.supplyAsync(() -> pool.call("tool", "{}"));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		exited.countDown();
+
+		assertThat(call.get(5, TimeUnit.SECONDS)).contains("\"text\":\"b\"");
+		await(() -> stat(pool, "a", "restarts").equals(1L) && healthy(pool, "a"));
+	}
+
+	@Test
+	void failedRestartsBackOff() throws Exception {
+		McpPoolProperties properties = properties();
+		properties.setRestartBackoff(Duration.ofMillis(100));
+		properties.setMaxRestartBackoff(Duration.ofMillis(300));
+		List<Long> attempts = Collections.synchronizedList(new ArrayList<>());
+		McpSyncClient a = answering("a");
+		Supplier<Connection> failingThrice = () -> {
+			attempts.add(System.nanoTime());
+			if (attempts.size() <= 3) {
+				throw new IllegalStateException("Could not start the child");
+			}
+			return new Connection(a, null);
+		};
+		McpServerPool pool = pool(properties, Map.entry("a", failingThrice), server("b", answering("b")));
+
+		await(() -> healthy(pool, "a"));
+
+		assertThat(attempts).hasSize(4);
+		// 100 ms, doubled to 200 ms, then capped at 300 ms
+		long[] expectedMillis = { 100, 200, 300 };
+		for (int i = 0; i < expectedMillis.length; i++) {
+			assertThat(TimeUnit.NANOSECONDS.toMillis(attempts.get(i + 1) - attempts.get(i)))
+					.as("wait before restart %d", i + 1)
+					.isGreaterThanOrEqualTo(expectedMillis[i]);
+		}
+	}
+
+	@Test
+	void restartAfterAnAnsweringConnectionIsImmediate() throws Exception {
+		McpPoolProperties properties = properties();
+		properties.setRestartBackoff(Duration.ofHours(1));
+		CountDownLatch exited = block();
+		Iterator<Connection> connections = List.of(new Connection(answering("a"), awaiting(exited)),
+				new Connection(answering("a"), null)).iterator();
+		Supplier<Connection> exitingOnce = connections::next;
+		McpServerPool pool = pool(properties, Map.entry("a", exitingOnce));
+
+		assertThat(pool.call("tool", "{}")).contains("\"text\":\"a\"");
+		exited.countDown();
+
+		await(() -> stat(pool, "a", "restarts").equals(1L) && healthy(pool, "a"));
+	}
+
+	@Test
+	void poolWithoutServersIsRejected() {
+		assertThatThrownBy(() -> new McpServerPool(properties(), new SimpleMeterRegistry()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("no servers");
+	}
+
+	private static McpPoolProperties properties() {
+		McpPoolProperties properties = new McpPoolProperties();
+		properties.setHealthCheckInterval(Duration.ofHours(1));
+		return properties;
+	}
+
+	@SafeVarargs
+	private McpServerPool pool(McpPoolProperties properties, Map.Entry<String, Supplier<Connection>>... servers) {
+		McpServerPool pool = new McpServerPool(properties, new SimpleMeterRegistry(), List.of(servers));
+		pools.add(pool);
+		return pool;
+	}
+
+	/**
+	 * A server connected to each client in turn, the last one for good
+	 */
+	private static Map.Entry<String, Supplier<Connection>> server(String name, McpSyncClient... clients) {
+		AtomicInteger connects = new AtomicInteger();
+		return Map.entry(name,
+				() -> new Connection(clients[Math.min(connects.getAndIncrement(), clients.length - 1)], null));
+	}
+
+	private static McpSyncClient answering(String text) {
+		McpSyncClient client = mock(McpSyncClient.class);
+		when(client.callTool(any())).thenReturn(new McpSchema.CallToolResult(text, false));
+		return client;
+	}
+
+	private CountDownLatch block() {
+		CountDownLatch latch = new CountDownLatch(1);
+		blocked.add(latch);
+		return latch;
+	}
+
+	private static Runnable awaiting(CountDownLatch latch) {
+		return () -> {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	private static boolean healthy(McpServerPool pool, String server) {
+		return (Boolean) stat(pool, server, "healthy");
+	}
+
+	private static Object stat(McpServerPool pool, String server, String key) {
+		return pool.stats().stream()
+				.filter(entry -> entry.get("server").equals(server))
+				.findFirst()
+				.orElseThrow()
+				.get(key);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition within 5 s").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
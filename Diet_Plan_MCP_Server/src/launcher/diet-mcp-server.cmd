@@ -0,0 +1,12 @@
+@echo off
+rem Starts the MCP server from a "mvn -Pstartup package" build: the AOT-processed
+rem context plus the class-data-sharing archive from the training run. Point the
+rem client's mcp-servers-config.json "command" at this script. The server runs
+rem in this directory, so the snapshot profile reads diet.snapshot here unless an
+rem extra argument such as --diet.snapshot.path=C:/data/diet.snapshot says
+rem otherwise.
+cd /d "%~dp0"
+java -XX:SharedArchiveFile=application.jsa -Xshare:auto ^
+	-Dspring.aot.enabled=true ^
+	-jar @project.build.finalName@.jar ^
+	--spring.profiles.active=@startup.profiles@ %*
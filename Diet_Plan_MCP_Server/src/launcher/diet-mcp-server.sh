@@ -0,0 +1,11 @@
+#!/bin/sh
+# Starts the MCP server from a "mvn -Pstartup package" build: the AOT-processed
+# context plus the class-data-sharing archive from the training run. Point the
+# client's mcp-servers-config.json "command" at this script. The server runs in
+# this directory, so the snapshot profile reads ./diet.snapshot unless an extra
+# argument such as --diet.snapshot.path=/data/diet.snapshot says otherwise.
+cd "$(dirname "$0")" || exit 1
+exec java -XX:SharedArchiveFile=application.jsa -Xshare:auto \
+	-Dspring.aot.enabled=true \
+	-jar @project.build.finalName@.jar \
+	--spring.profiles.active=@startup.profiles@ "$@"
@@ -8,6 +8,8 @@ import org.springframework.context.annotation.Bean;
 
 import com.ninja.service.LfvAndLchfBasedDietService;
 import com.ninja.service.MealPlanningService;
+import com.ninja.tool.CompactToolResults;
+import com.ninja.tool.IndexWarmup;
 
 
 @SpringBootApplication
@@ -20,13 +22,18 @@ public class DietPlanMcpServerApplication {
 	/**
 	 * Configure the MCP tool callback provider. This bean automatically discovers
 	 * and registers all @Tool annotated methods in the application context as MCP
-	 * tools.
+	 * tools. List tools additionally accept "fields" and "format" arguments for
+	 * compact results (see CompactToolResults), and once the first call returns
+	 * the store indexes deferred at startup are built (see IndexWarmup).
 	 * 
-	 * @return MethodToolCallbackProvider for automatic tool registration
+	 * @return tool callback provider for automatic tool registration
 	 */
 	@Bean
-	public ToolCallbackProvider mealPlanTools(MealPlanningService mealPlanningService, LfvAndLchfBasedDietService lfvAndLchService) {
-		return MethodToolCallbackProvider.builder().toolObjects(mealPlanningService, lfvAndLchService).build();
+	public ToolCallbackProvider mealPlanTools(MealPlanningService mealPlanningService, LfvAndLchfBasedDietService lfvAndLchService,
+			CompactToolResults compactToolResults, IndexWarmup indexWarmup) {
+		return indexWarmup.wrap(compactToolResults.wrap(
+				MethodToolCallbackProvider.builder().toolObjects(mealPlanningService, lfvAndLchService).build(),
+				mealPlanningService, lfvAndLchService));
 	}
 
 }
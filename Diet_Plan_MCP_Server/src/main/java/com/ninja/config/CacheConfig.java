@@ -0,0 +1,77 @@
+package com.ninja.config;
+
+import static java.util.Map.entry;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caffeine caches for tool results that only change when the diet tables are
+ * reloaded. Every cache is bounded and has its own Caffeine spec, which can be
+ * overridden with diet.cache.spec.&lt;name&gt; (e.g.
+ * diet.cache.spec.lfvAllowedFoods=maximumSize=100,expireAfterWrite=5m).
+ * Statistics are always recorded, so Micrometer publishes cache.gets
+ * (hit/miss) and cache.evictions for each cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String FOOD_CATEGORIES = "foodCategories";
+	public static final String LFV_ALLOWED = "lfvAllowedFoods";
+	public static final String LFV_RESTRICTED = "lfvRestrictedFoods";
+	public static final String LFV_CATEGORIES = "lfvCategories";
+	public static final String LFV_LIMITATIONS = "lfvLimitations";
+	public static final String LCHF_ALLOWED = "lchfAllowedFoods";
+	public static final String LCHF_RECOMMENDED = "lchfRecommendedFoods";
+	public static final String LCHF_RESTRICTED = "lchfRestrictedFoods";
+	public static final String LCHF_AVOID = "lchfFoodsToAvoid";
+	public static final String LCHF_CATEGORIES = "lchfCategories";
+	public static final String LCHF_LIMITATIONS = "lchfLimitations";
+	public static final String NUTRITION_STATISTICS = "nutritionStatistics";
+
+	// Food lists are keyed by (limit, cursor), so they hold a few pages each;
+	// the distinct-value lists have a single entry
+	private static final String LIST_SPEC = "maximumSize=200,expireAfterWrite=30m";
+	private static final String DISTINCT_SPEC = "maximumSize=1,expireAfterWrite=6h";
+	// JPA-mode statistics summaries, one per category asked for (see
+	// NutrientStatisticsStore)
+	private static final String STATISTICS_SPEC = "maximumSize=100,expireAfterWrite=6h";
+
+	private static final Map<String, String> DEFAULT_SPECS = Map.ofEntries(
+			entry(FOOD_CATEGORIES, DISTINCT_SPEC),
+			entry(LFV_ALLOWED, LIST_SPEC),
+			entry(LFV_RESTRICTED, LIST_SPEC),
+			entry(LFV_CATEGORIES, DISTINCT_SPEC),
+			entry(LFV_LIMITATIONS, DISTINCT_SPEC),
+			entry(LCHF_ALLOWED, LIST_SPEC),
+			entry(LCHF_RECOMMENDED, LIST_SPEC),
+			entry(LCHF_RESTRICTED, LIST_SPEC),
+			entry(LCHF_AVOID, LIST_SPEC),
+			entry(LCHF_CATEGORIES, DISTINCT_SPEC),
+			entry(LCHF_LIMITATIONS, DISTINCT_SPEC),
+			entry(NUTRITION_STATISTICS, STATISTICS_SPEC));
+
+	@Bean
+	public CacheManager cacheManager(Environment environment) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.setAllowNullValues(false);
+		// Static mode: an unknown cache name fails instead of creating an
+		// unbounded cache on the fly
+		cacheManager.setCacheNames(List.of());
+		DEFAULT_SPECS.forEach((name, defaultSpec) -> {
+			String spec = environment.getProperty("diet.cache.spec." + name, defaultSpec);
+			cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+		});
+		return cacheManager;
+	}
+}
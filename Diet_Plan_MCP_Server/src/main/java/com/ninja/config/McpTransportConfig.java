@@ -0,0 +1,65 @@
+package com.ninja.config;
+
+import org.springframework.ai.mcp.server.autoconfigure.McpServerProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninja.transport.PipelinedStdioServerTransportProvider;
+import com.ninja.transport.SerializedStdioServerTransportProvider;
+import com.ninja.transport.SseServerTransportProvider;
+
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+
+/**
+ * MCP server transports. Spring AI backs off its own stdio transport when one
+ * of these beans is present.
+ *
+ * Over stdio, independent requests run concurrently, up to
+ * diet.mcp.stdio.max-concurrency at a time (see
+ * PipelinedStdioServerTransportProvider); diet.mcp.stdio.pipelined=false
+ * brings the SDK's request handling back, for comparison, with its sends
+ * serialized so that no response is lost. The "http" profile runs the
+ * server as a web application instead and serves the same tools over HTTP/SSE
+ * on server.port, at spring.ai.mcp.server.sse-endpoint and
+ * sse-message-endpoint, to any number of clients.
+ */
+@Configuration
+public class McpTransportConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "spring.ai.mcp.server.stdio", havingValue = "true")
+	public McpServerTransportProvider stdioServerTransport(
+			@Value("${diet.mcp.stdio.pipelined:true}") boolean pipelined,
+			@Value("${diet.mcp.stdio.max-concurrency:16}") int maxConcurrency) {
+		// A plain mapper, as the SDK's own stdio transport uses
+		if (!pipelined) {
+			return new SerializedStdioServerTransportProvider(new ObjectMapper());
+		}
+		return new PipelinedStdioServerTransportProvider(new ObjectMapper(), maxConcurrency);
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnProperty(name = "spring.ai.mcp.server.stdio", havingValue = "false")
+	public SseServerTransportProvider sseServerTransport(McpServerProperties properties) {
+		return new SseServerTransportProvider(new ObjectMapper(), properties.getBaseUrl(),
+				properties.getSseMessageEndpoint(), properties.getSseEndpoint());
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnProperty(name = "spring.ai.mcp.server.stdio", havingValue = "false")
+	public ServletRegistrationBean<SseServerTransportProvider> sseServlet(SseServerTransportProvider transport,
+			McpServerProperties properties) {
+		ServletRegistrationBean<SseServerTransportProvider> registration = new ServletRegistrationBean<>(transport,
+				properties.getSseEndpoint(), properties.getSseMessageEndpoint());
+		registration.setName("mcp");
+		registration.setAsyncSupported(true);
+		return registration;
+	}
+}
@@ -0,0 +1,54 @@
+package com.ninja.config;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * With spring.threads.virtual.enabled=true on Java 21+, Spring Boot already
+ * moves the servlet container, the application task executor and scheduling
+ * onto virtual threads. MCP tool calls are dispatched by the MCP server on
+ * Reactor's bounded-elastic scheduler instead, which is capped at ten platform
+ * threads per core; this switches that scheduler to one virtual thread per
+ * task as well. It runs before the context is created, because Reactor reads
+ * the flag once when its Schedulers class is initialized.
+ *
+ * Virtual threads need a Java 21 runtime, and the build targets 17: on an
+ * older runtime the flag is turned off again with a warning, so nothing runs
+ * as if it were on.
+ */
+public class VirtualThreadsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	static final String ENABLED = "spring.threads.virtual.enabled";
+
+	static final String REACTOR_VIRTUAL_THREADS = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+	private final Log log;
+
+	public VirtualThreadsEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+		this.log = logFactory.getLog(VirtualThreadsEnvironmentPostProcessor.class);
+	}
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		if (!environment.getProperty(ENABLED, Boolean.class, false)) {
+			return;
+		}
+		JavaVersion runtime = JavaVersion.getJavaVersion();
+		if (!runtime.isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+			log.warn(ENABLED + "=true needs Java 21 or later, running on platform threads on Java " + runtime);
+			environment.getPropertySources()
+					.addFirst(new MapPropertySource("dietVirtualThreads", Map.of(ENABLED, "false")));
+			return;
+		}
+		if (System.getProperty(REACTOR_VIRTUAL_THREADS) == null) {
+			System.setProperty(REACTOR_VIRTUAL_THREADS, "true");
+		}
+	}
+}
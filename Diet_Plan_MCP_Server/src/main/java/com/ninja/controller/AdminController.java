@@ -0,0 +1,88 @@
+package com.ninja.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ninja.service.CacheAdminService;
+import com.ninja.snapshot.DietSnapshot;
+import com.ninja.snapshot.SnapshotExporter;
+import com.ninja.snapshot.SnapshotFile;
+
+/**
+ * Admin endpoints for use after a data load. Not exposed as MCP tools. Only
+ * served with a web server (the "http" profile); in the default stdio mode
+ * the cache and reload operations are JMX operations of CacheAdminService.
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+
+	private final CacheAdminService cacheAdminService;
+	private final SnapshotExporter snapshotExporter;
+	private final SnapshotFile snapshotFile;
+
+	@Autowired
+	public AdminController(CacheAdminService cacheAdminService, SnapshotExporter snapshotExporter,
+			SnapshotFile snapshotFile) {
+		this.cacheAdminService = cacheAdminService;
+		this.snapshotExporter = snapshotExporter;
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * Cache statistics GET /api/v1/admin/caches
+	 */
+	@GetMapping("/caches")
+	public ResponseEntity<Map<String, Map<String, Long>>> getCacheStatistics() {
+		return ResponseEntity.ok(cacheAdminService.statistics());
+	}
+
+	/**
+	 * Invalidate every cache DELETE /api/v1/admin/caches
+	 */
+	@DeleteMapping("/caches")
+	public ResponseEntity<List<String>> clearCaches() {
+		return ResponseEntity.ok(cacheAdminService.clearAll());
+	}
+
+	/**
+	 * Invalidate one cache DELETE /api/v1/admin/caches/lfvAllowedFoods
+	 */
+	@DeleteMapping("/caches/{name}")
+	public ResponseEntity<Void> clearCache(@PathVariable String name) {
+		return cacheAdminService.clear(name) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+	}
+
+	/**
+	 * Reload the in-memory stores and invalidate every cache POST
+	 * /api/v1/admin/reload
+	 */
+	@PostMapping("/reload")
+	public ResponseEntity<List<String>> reload() {
+		return ResponseEntity.ok(cacheAdminService.reload());
+	}
+
+	/**
+	 * Export the database to the configured snapshot file POST
+	 * /api/v1/admin/snapshot
+	 */
+	@PostMapping("/snapshot")
+	public ResponseEntity<Map<String, Object>> exportSnapshot() {
+		if (!snapshotFile.isConfigured()) {
+			throw new IllegalArgumentException("diet.snapshot.path is not set");
+		}
+		DietSnapshot snapshot = snapshotExporter.export(snapshotFile.getPath());
+		return ResponseEntity.ok(Map.of("path", snapshotFile.getPath().toString(), "foods", snapshot.getFoods().size(),
+				"nutrients", snapshot.getNutrients().size(), "lfvFoods", snapshot.getLfvFoods().size(), "lchfFoods",
+				snapshot.getLchfFoods().size()));
+	}
+}
@@ -0,0 +1,84 @@
+package com.ninja.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes rows to the response as they are produced, through one Jackson
+ * generator, instead of collecting them into a list first. The body is a JSON
+ * array, or newline-delimited JSON (one object per line) when the client
+ * accepts application/x-ndjson. No Content-Length is known up front, so the
+ * container sends it chunked; the first row is flushed immediately and then
+ * every FLUSH_EVERY rows, so clients can start parsing before the last row is
+ * read. Memory use depends on the buffer sizes, not on the number of rows.
+ */
+@Component
+class JsonRowStream {
+
+	static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private static final int FLUSH_EVERY = 500;
+
+	private final ObjectMapper objectMapper;
+
+	JsonRowStream(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Streaming response for the rows the source hands to its consumer, in the
+	 * format the Accept header asks for
+	 */
+	ResponseEntity<StreamingResponseBody> body(String accept, Consumer<Consumer<Object>> source) {
+		boolean ndjson = accept != null
+				&& MediaType.parseMediaTypes(accept).stream().anyMatch(NDJSON::equalsTypeAndSubtype);
+		return ResponseEntity.ok()
+				.contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+				.body(out -> write(out, ndjson, source));
+	}
+
+	private void write(OutputStream out, boolean ndjson, Consumer<Consumer<Object>> source) throws IOException {
+		// Left open after an error: a JSON array closed then would pass for the
+		// whole result
+		try (JsonGenerator generator = objectMapper.createGenerator(out)
+				.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+				.configure(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT, false)) {
+			// NDJSON separates root values itself, with a newline after each one
+			generator.setRootValueSeparator(null);
+			if (!ndjson) {
+				generator.writeStartArray();
+			}
+			int[] written = { 0 };
+			try {
+				source.accept(row -> {
+					try {
+						generator.writeObject(row);
+						if (ndjson) {
+							generator.writeRaw('\n');
+						}
+						if (written[0]++ % FLUSH_EVERY == 0) {
+							generator.flush();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			if (!ndjson) {
+				generator.writeEndArray();
+			}
+		}
+	}
+}
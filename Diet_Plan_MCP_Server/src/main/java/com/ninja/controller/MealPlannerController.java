@@ -1,20 +1,37 @@
 package com.ninja.controller;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.dto.FdcIdLookup;
+import com.ninja.dto.FoodNutrition;
+import com.ninja.dto.GeneratedMealPlan;
+import com.ninja.dto.NutrientRange;
+import com.ninja.dto.NutritionStatistics;
+import com.ninja.dto.SimilarFood;
 import com.ninja.entity.Food;
 import com.ninja.entity.Nutrient;
+import com.ninja.projection.FoodSummary;
+import com.ninja.projection.NutrientSummary;
 import com.ninja.service.MealPlanningService;
 
 /**
@@ -28,10 +45,12 @@ import com.ninja.service.MealPlanningService;
 public class MealPlannerController {
 
 	private final MealPlanningService mealPlanningService;
+	private final JsonRowStream rowStream;
 
 	@Autowired
-	public MealPlannerController(MealPlanningService mealPlanningService) {
+	public MealPlannerController(MealPlanningService mealPlanningService, JsonRowStream rowStream) {
 		this.mealPlanningService = mealPlanningService;
+		this.rowStream = rowStream;
 	}
 
 	/**
@@ -49,11 +68,11 @@ public class MealPlannerController {
 	 * /api/v1/meal-planner/foods/search?q=chicken&page=0&size=10
 	 */
 	@GetMapping("/foods/search")
-	public ResponseEntity<Page<Food>> searchFoods(@RequestParam(value = "q", required = false) String searchTerm,
+	public ResponseEntity<Slice<FoodSummary>> searchFoods(@RequestParam(value = "q", required = false) String searchTerm,
 			@RequestParam(value = "page", defaultValue = "0") int page,
 			@RequestParam(value = "size", defaultValue = "20") int size) {
 
-		Page<Food> foods = mealPlanningService.searchFoodsPaginated(searchTerm, page, size);
+		Slice<FoodSummary> foods = mealPlanningService.searchFoodsPaginated(searchTerm, page, size);
 		return ResponseEntity.ok(foods);
 	}
 
@@ -81,8 +100,10 @@ public class MealPlannerController {
 	 * /api/v1/meal-planner/foods/categories/Dairy%20and%20Egg%20Products
 	 */
 	@GetMapping("/foods/categories/{category}")
-	public ResponseEntity<List<Food>> getFoodsByCategory(@PathVariable String category) {
-		List<Food> foods = mealPlanningService.getFoodsByCategory(category);
+	public ResponseEntity<CursorPage<Food>> getFoodsByCategory(@PathVariable String category,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Food> foods = mealPlanningService.getFoodsByCategory(category, limit, cursor);
 		return ResponseEntity.ok(foods);
 	}
 
@@ -90,17 +111,70 @@ public class MealPlannerController {
 	 * Get foods without allergens GET /api/v1/meal-planner/foods/allergen-free
 	 */
 	@GetMapping("/foods/allergen-free")
-	public ResponseEntity<List<Food>> getFoodsWithoutAllergens() {
-		List<Food> foods = mealPlanningService.findFoodsWithoutAllergens();
+	public ResponseEntity<CursorPage<Food>> getFoodsWithoutAllergens(
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Food> foods = mealPlanningService.findFoodsWithoutAllergens(limit, cursor);
 		return ResponseEntity.ok(foods);
 	}
 
+	/**
+	 * Stream every food without allergens GET
+	 * /api/v1/meal-planner/foods/allergen-free/stream (JSON array, or NDJSON
+	 * with Accept: application/x-ndjson)
+	 */
+	@GetMapping("/foods/allergen-free/stream")
+	public ResponseEntity<StreamingResponseBody> streamFoodsWithoutAllergens(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return rowStream.body(accept, rows -> mealPlanningService.forEachFoodByAllergens(false, rows));
+	}
+
 	/**
 	 * Get foods with allergens GET /api/v1/meal-planner/foods/with-allergens
 	 */
 	@GetMapping("/foods/with-allergens")
-	public ResponseEntity<List<Food>> getFoodsWithAllergens() {
-		List<Food> foods = mealPlanningService.findFoodsWithAllergens();
+	public ResponseEntity<CursorPage<Food>> getFoodsWithAllergens(
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Food> foods = mealPlanningService.findFoodsWithAllergens(limit, cursor);
+		return ResponseEntity.ok(foods);
+	}
+
+	/**
+	 * Get foods free of the given allergens GET
+	 * /api/v1/meal-planner/foods/allergen-safe?exclude=Dairy,PEANUTS&category=Snacks
+	 */
+	@GetMapping("/foods/allergen-safe")
+	public ResponseEntity<CursorPage<Food>> getFoodsExcludingAllergens(
+			@RequestParam("exclude") List<String> allergens,
+			@RequestParam(value = "category", required = false) String category,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Food> foods = mealPlanningService.findFoodsExcludingAllergens(allergens, category, limit, cursor);
+		return ResponseEntity.ok(foods);
+	}
+
+	/**
+	 * Stream every food with allergens GET
+	 * /api/v1/meal-planner/foods/with-allergens/stream
+	 */
+	@GetMapping("/foods/with-allergens/stream")
+	public ResponseEntity<StreamingResponseBody> streamFoodsWithAllergens(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return rowStream.body(accept, rows -> mealPlanningService.forEachFoodByAllergens(true, rows));
+	}
+
+	/**
+	 * Search foods with their nutrients GET
+	 * /api/v1/meal-planner/foods/with-nutrients?q=lentil&nutrients=proteinG,fiberG
+	 */
+	@GetMapping("/foods/with-nutrients")
+	public ResponseEntity<CursorPage<FoodNutrition>> searchFoodsWithNutrients(@RequestParam(value = "q") String searchTerm,
+			@RequestParam(value = "nutrients", required = false) List<String> nutrients,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<FoodNutrition> foods = mealPlanningService.searchFoodsWithNutrients(searchTerm, nutrients, limit,
+				cursor);
 		return ResponseEntity.ok(foods);
 	}
 
@@ -111,12 +185,12 @@ public class MealPlannerController {
 	 * /api/v1/meal-planner/nutrients/search?q=apple&page=0&size=10
 	 */
 	@GetMapping("/nutrients/search")
-	public ResponseEntity<Page<Nutrient>> searchNutrients(
+	public ResponseEntity<Slice<NutrientSummary>> searchNutrients(
 			@RequestParam(value = "q", required = false) String searchTerm,
 			@RequestParam(value = "page", defaultValue = "0") int page,
 			@RequestParam(value = "size", defaultValue = "20") int size) {
 
-		Page<Nutrient> nutrients = mealPlanningService.searchNutrientsPaginated(searchTerm, page, size);
+		Slice<NutrientSummary> nutrients = mealPlanningService.searchNutrientsPaginated(searchTerm, page, size);
 		return ResponseEntity.ok(nutrients);
 	}
 
@@ -129,14 +203,52 @@ public class MealPlannerController {
 		return nutrient.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
 	}
 
+	/**
+	 * Generate a day meal plan without the LLM GET
+	 * /api/v1/meal-planner/meal-plan?diet=LCHF&calories=1800&exclude=milk
+	 */
+	@GetMapping("/meal-plan")
+	public ResponseEntity<GeneratedMealPlan> generateMealPlan(@RequestParam("diet") String dietType,
+			@RequestParam(value = "calories", required = false) Integer calories,
+			@RequestParam(value = "exclude", required = false) List<String> allergens,
+			@RequestParam(value = "excludeFoods", required = false) List<String> foods,
+			@RequestParam(value = "variant", required = false) Integer variant) {
+		return ResponseEntity.ok(mealPlanningService.generateMealPlan(dietType, calories, allergens, foods, variant));
+	}
+
+	/**
+	 * Find substitutes with the closest nutrient profile GET
+	 * /api/v1/meal-planner/nutrients/171705/similar?k=5&exclude=milk&diet=LFV&restriction=low_sodium
+	 */
+	@GetMapping("/nutrients/{fdcId}/similar")
+	public ResponseEntity<List<SimilarFood>> getSimilarFoods(@PathVariable Long fdcId,
+			@RequestParam(value = "k", required = false) Integer k,
+			@RequestParam(value = "exclude", required = false) List<String> allergens,
+			@RequestParam(value = "diet", required = false) String dietType,
+			@RequestParam(value = "restriction", required = false) String restriction) {
+		return ResponseEntity.ok(mealPlanningService.findSimilarFoods(fdcId, k, allergens, dietType, restriction));
+	}
+
+	/**
+	 * Get nutrient information for several FDC IDs POST
+	 * /api/v1/diet_plan/nutrients/batch with a JSON array of ids, e.g.
+	 * [171705, 173944]. Results follow the request order.
+	 */
+	@PostMapping("/nutrients/batch")
+	public ResponseEntity<List<FdcIdLookup<Nutrient>>> getNutrientsByIds(@RequestBody List<Long> fdcIds) {
+		return ResponseEntity.ok(mealPlanningService.getNutrientsByFdcIds(fdcIds));
+	}
+
 	/**
 	 * Find high protein foods GET
 	 * /api/v1/meal-planner/nutrients/high-protein?min=15.0
 	 */
 	@GetMapping("/nutrients/high-protein")
-	public ResponseEntity<List<Nutrient>> getHighProteinFoods(
-			@RequestParam(value = "min", defaultValue = "10.0") Double minProtein) {
-		List<Nutrient> nutrients = mealPlanningService.findHighProteinFoods(minProtein);
+	public ResponseEntity<CursorPage<Nutrient>> getHighProteinFoods(
+			@RequestParam(value = "min", defaultValue = "10.0") Double minProtein,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findHighProteinFoods(minProtein, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
@@ -145,21 +257,37 @@ public class MealPlannerController {
 	 * /api/v1/meal-planner/nutrients/low-calorie?max=100.0
 	 */
 	@GetMapping("/nutrients/low-calorie")
-	public ResponseEntity<List<Nutrient>> getLowCalorieFoods(
-			@RequestParam(value = "max", defaultValue = "100.0") Double maxCalories) {
-		List<Nutrient> nutrients = mealPlanningService.findLowCalorieFoods(maxCalories);
+	public ResponseEntity<CursorPage<Nutrient>> getLowCalorieFoods(
+			@RequestParam(value = "max", defaultValue = "100.0") Double maxCalories,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findLowCalorieFoods(maxCalories, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
+	/**
+	 * Stream every low calorie food GET
+	 * /api/v1/meal-planner/nutrients/low-calorie/stream?max=100.0
+	 */
+	@GetMapping("/nutrients/low-calorie/stream")
+	public ResponseEntity<StreamingResponseBody> streamLowCalorieFoods(
+			@RequestParam(value = "max", defaultValue = "100.0") Double maxCalories,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return rowStream.body(accept, rows -> mealPlanningService.forEachLowCalorieFood(maxCalories, rows));
+	}
+
 	/**
 	 * Find foods in calorie range GET
 	 * /api/v1/meal-planner/nutrients/calorie-range?min=50&max=200
 	 */
 	@GetMapping("/nutrients/calorie-range")
-	public ResponseEntity<List<Nutrient>> getFoodsInCalorieRange(
+	public ResponseEntity<CursorPage<Nutrient>> getFoodsInCalorieRange(
 			@RequestParam(value = "min", defaultValue = "0") Double minCalories,
-			@RequestParam(value = "max", defaultValue = "500") Double maxCalories) {
-		List<Nutrient> nutrients = mealPlanningService.findFoodsInCalorieRange(minCalories, maxCalories);
+			@RequestParam(value = "max", defaultValue = "500") Double maxCalories,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findFoodsInCalorieRange(minCalories, maxCalories, limit,
+				cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
@@ -167,9 +295,11 @@ public class MealPlannerController {
 	 * Find high fiber foods GET /api/v1/meal-planner/nutrients/high-fiber?min=5.0
 	 */
 	@GetMapping("/nutrients/high-fiber")
-	public ResponseEntity<List<Nutrient>> getHighFiberFoods(
-			@RequestParam(value = "min", defaultValue = "3.0") Double minFiber) {
-		List<Nutrient> nutrients = mealPlanningService.findHighFiberFoods(minFiber);
+	public ResponseEntity<CursorPage<Nutrient>> getHighFiberFoods(
+			@RequestParam(value = "min", defaultValue = "3.0") Double minFiber,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findHighFiberFoods(minFiber, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
@@ -177,9 +307,11 @@ public class MealPlannerController {
 	 * Find low sodium foods GET /api/v1/meal-planner/nutrients/low-sodium?max=140.0
 	 */
 	@GetMapping("/nutrients/low-sodium")
-	public ResponseEntity<List<Nutrient>> getLowSodiumFoods(
-			@RequestParam(value = "max", defaultValue = "140.0") Double maxSodium) {
-		List<Nutrient> nutrients = mealPlanningService.findLowSodiumFoods(maxSodium);
+	public ResponseEntity<CursorPage<Nutrient>> getLowSodiumFoods(
+			@RequestParam(value = "max", defaultValue = "140.0") Double maxSodium,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findLowSodiumFoods(maxSodium, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
@@ -188,11 +320,13 @@ public class MealPlannerController {
 	 * /api/v1/meal-planner/nutrients/vitamin-rich?type=C&min=10.0
 	 */
 	@GetMapping("/nutrients/vitamin-rich")
-	public ResponseEntity<List<Nutrient>> getVitaminRichFoods(@RequestParam(value = "type") String vitaminType,
-			@RequestParam(value = "min", required = false) Double minAmount) {
+	public ResponseEntity<CursorPage<Nutrient>> getVitaminRichFoods(@RequestParam(value = "type") String vitaminType,
+			@RequestParam(value = "min", required = false) Double minAmount,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
 
 		try {
-			List<Nutrient> nutrients = mealPlanningService.findVitaminRichFoods(vitaminType, minAmount);
+			CursorPage<Nutrient> nutrients = mealPlanningService.findVitaminRichFoods(vitaminType, minAmount, limit, cursor);
 			return ResponseEntity.ok(nutrients);
 		} catch (IllegalArgumentException e) {
 			return ResponseEntity.badRequest().build();
@@ -201,37 +335,115 @@ public class MealPlannerController {
 
 	/**
 	 * Find foods for dietary restrictions GET
-	 * /api/v1/meal-planner/nutrients/dietary?lowSodium=true&highFiber=true
+	 * /api/v1/meal-planner/nutrients/dietary?lowSodium=true&highFiber=true&maxSodium=100
 	 */
 	@GetMapping("/nutrients/dietary")
-	public ResponseEntity<List<Nutrient>> getFoodsForDiet(
+	public ResponseEntity<CursorPage<Nutrient>> getFoodsForDiet(
 			@RequestParam(value = "lowSodium", required = false) Boolean lowSodium,
 			@RequestParam(value = "lowFat", required = false) Boolean lowFat,
 			@RequestParam(value = "highFiber", required = false) Boolean highFiber,
-			@RequestParam(value = "lowSugar", required = false) Boolean lowSugar) {
-
-		List<Nutrient> nutrients = mealPlanningService.findFoodsForDiet(lowSodium, lowFat, highFiber, lowSugar);
+			@RequestParam(value = "lowSugar", required = false) Boolean lowSugar,
+			@RequestParam(value = "maxSodium", required = false) Double maxSodium,
+			@RequestParam(value = "maxFat", required = false) Double maxFat,
+			@RequestParam(value = "minFiber", required = false) Double minFiber,
+			@RequestParam(value = "maxSugar", required = false) Double maxSugar,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+
+		CursorPage<Nutrient> nutrients = mealPlanningService.findFoodsForDietWithThresholds(lowSodium, lowFat, highFiber,
+				lowSugar, maxSodium, maxFat, minFiber, maxSugar, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
+	/**
+	 * Find foods within several nutrient ranges GET
+	 * /api/v1/meal-planner/nutrients/range?energyKcalMin=100&energyKcalMax=300&proteinGMin=15&sodiumMgMax=200&limit=50
+	 */
+	@GetMapping("/nutrients/range")
+	public ResponseEntity<CursorPage<Nutrient>> getFoodsInNutrientRanges(@RequestParam Map<String, String> params) {
+		try {
+			Map<String, NutrientRange> ranges = new LinkedHashMap<>();
+			Integer limit = null;
+			String cursor = null;
+			for (Map.Entry<String, String> param : params.entrySet()) {
+				String key = param.getKey();
+				if (key.equals("limit")) {
+					limit = Integer.valueOf(param.getValue());
+				} else if (key.equals("cursor")) {
+					cursor = param.getValue();
+				} else if (key.endsWith("Min") || key.endsWith("Max")) {
+					String nutrient = key.substring(0, key.length() - 3);
+					NutrientRange range = ranges.computeIfAbsent(nutrient, n -> new NutrientRange(n, null, null));
+					double value = Double.parseDouble(param.getValue());
+					if (key.endsWith("Min")) {
+						range.setMin(value);
+					} else {
+						range.setMax(value);
+					}
+				} else {
+					throw new IllegalArgumentException("Unknown parameter: " + key);
+				}
+			}
+			CursorPage<Nutrient> nutrients = mealPlanningService.findFoodsByNutrientRanges(new ArrayList<>(ranges.values()),
+					limit, cursor);
+			return ResponseEntity.ok(nutrients);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
 	/**
 	 * Find foods with balanced macronutrients GET
 	 * /api/v1/meal-planner/nutrients/balanced
 	 */
 	@GetMapping("/nutrients/balanced")
-	public ResponseEntity<List<Nutrient>> getBalancedFoods() {
-		List<Nutrient> nutrients = mealPlanningService.findBalancedFoods();
+	public ResponseEntity<CursorPage<Nutrient>> getBalancedFoods(
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findBalancedFoods(limit, cursor);
+		return ResponseEntity.ok(nutrients);
+	}
+
+	/**
+	 * Stream every food with balanced macronutrients GET
+	 * /api/v1/meal-planner/nutrients/balanced/stream
+	 */
+	@GetMapping("/nutrients/balanced/stream")
+	public ResponseEntity<StreamingResponseBody> streamBalancedFoods(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return rowStream.body(accept, rows -> mealPlanningService.forEachBalancedFood(rows));
+	}
+
+	/**
+	 * Find foods by % of calories from protein, fat and carbs GET
+	 * /api/v1/meal-planner/nutrients/energy-ratios?maxFatPct=5
+	 */
+	@GetMapping("/nutrients/energy-ratios")
+	public ResponseEntity<CursorPage<Nutrient>> getFoodsByEnergyRatios(
+			@RequestParam(value = "minProteinPct", required = false) Double minProteinPct,
+			@RequestParam(value = "maxProteinPct", required = false) Double maxProteinPct,
+			@RequestParam(value = "minFatPct", required = false) Double minFatPct,
+			@RequestParam(value = "maxFatPct", required = false) Double maxFatPct,
+			@RequestParam(value = "minCarbPct", required = false) Double minCarbPct,
+			@RequestParam(value = "maxCarbPct", required = false) Double maxCarbPct,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "cursor", required = false) String cursor) {
+		CursorPage<Nutrient> nutrients = mealPlanningService.findFoodsByEnergyRatios(minProteinPct, maxProteinPct,
+				minFatPct, maxFatPct, minCarbPct, maxCarbPct, limit, cursor);
 		return ResponseEntity.ok(nutrients);
 	}
 
 	// STATISTICS ENDPOINTS
 
 	/**
-	 * Get nutritional statistics GET /api/v1/meal-planner/stats/nutrition
+	 * Get nutrient statistics GET
+	 * /api/v1/meal-planner/stats/nutrition?category=Legumes&nutrients=energyKcal,proteinG
 	 */
 	@GetMapping("/stats/nutrition")
-	public ResponseEntity<Object[]> getNutritionalStats() {
-		Object[] stats = mealPlanningService.getNutritionalStatistics();
+	public ResponseEntity<NutritionStatistics> getNutritionalStats(
+			@RequestParam(value = "category", required = false) String category,
+			@RequestParam(value = "nutrients", required = false) List<String> nutrients) {
+		NutritionStatistics stats = mealPlanningService.getNutritionStatistics(category, nutrients);
 		return ResponseEntity.ok(stats);
 	}
 
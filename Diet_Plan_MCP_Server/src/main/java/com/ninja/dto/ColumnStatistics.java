@@ -0,0 +1,26 @@
+package com.ninja.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of one nutrient column over a set of foods. count is the number of
+ * non-null values; the other fields are null when it is 0. p10, p50 and p90
+ * are percentiles. Answered from memory, percentiles are estimated within 1%
+ * and every figure is rounded to 4 significant digits.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnStatistics 
+{
+	private String nutrient;
+	private long count;
+	private Double mean;
+	private Double min;
+	private Double max;
+	private Double p10;
+	private Double p50;
+	private Double p90;
+}
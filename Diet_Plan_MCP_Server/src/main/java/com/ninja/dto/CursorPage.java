@@ -0,0 +1,30 @@
+package com.ninja.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated result. nextCursor is an opaque token to pass
+ * back for the following page, or null when this is the last page. A name
+ * search that found nothing as typed answers with the closest spellings
+ * instead and lists them in didYouMean; it is absent otherwise.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> 
+{
+	private List<T> items;
+	private String nextCursor;
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<String> didYouMean;
+
+	public CursorPage(List<T> items, String nextCursor) {
+		this(items, nextCursor, null);
+	}
+}
@@ -0,0 +1,19 @@
+package com.ninja.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a batch lookup, in the position of the requested fdcId. found
+ * is false (and item null) when no row has that fdcId.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FdcIdLookup<T> 
+{
+	private Long fdcId;
+	private boolean found;
+	private T item;
+}
@@ -0,0 +1,25 @@
+package com.ninja.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A food joined with its nutrient row on fdcId. nutrients maps the requested
+ * Nutrient property names (e.g. proteinG) to their values per 100g, a value
+ * being null when unknown; the map itself is null when the food has no
+ * nutrient row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoodNutrition 
+{
+	private Integer fdcId;
+	private String foodName;
+	private String foodCategory;
+	private String allergenFlags;
+	private Map<String, Double> nutrients;
+}
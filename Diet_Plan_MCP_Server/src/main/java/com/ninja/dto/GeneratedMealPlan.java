@@ -0,0 +1,31 @@
+package com.ninja.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A day of meals picked from a diet's allow-list by the meal planner, with the
+ * day's totals and energy ratios. constraintsMet is false when no combination
+ * of the available foods came within 5% of targetCalories while keeping the
+ * diet's energy ratio cap; the plan is then the closest one found.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneratedMealPlan 
+{
+	private String dietType;
+	private Integer targetCalories;
+	private Double calories;
+	private Double carbsG;
+	private Double proteinG;
+	private Double fatG;
+	private Double fiberG;
+	private Double fatEnergyPct;
+	private Double carbEnergyPct;
+	private Boolean constraintsMet;
+	private List<PlannedMeal> meals;
+}
@@ -0,0 +1,20 @@
+package com.ninja.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bound on one nutrient column for multi-nutrient range queries. nutrient is
+ * the Nutrient property name (e.g. energyKcal, proteinG); min and max are
+ * inclusive and either may be omitted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NutrientRange 
+{
+	private String nutrient;
+	private Double min;
+	private Double max;
+}
@@ -0,0 +1,21 @@
+package com.ninja.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-nutrient statistics of the foods in a category, or of every food when
+ * category is null. foods is the number of nutrient rows summarized.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NutritionStatistics 
+{
+	private String category;
+	private long foods;
+	private List<ColumnStatistics> nutrients;
+}
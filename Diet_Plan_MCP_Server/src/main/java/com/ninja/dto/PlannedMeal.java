@@ -0,0 +1,27 @@
+package com.ninja.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A meal of a generated meal plan, a pre-meal (salad, fruit or vegetable
+ * when the allow-list has them) followed by a main meal, with the totals of
+ * both
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlannedMeal 
+{
+	private String meal;
+	private String preMealTime;
+	private PlannedPortion preMeal;
+	private String mainMealTime;
+	private PlannedPortion mainMeal;
+	private Double calories;
+	private Double carbsG;
+	private Double proteinG;
+	private Double fatG;
+	private Double fiberG;
+}
@@ -0,0 +1,27 @@
+package com.ninja.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One food of a generated meal plan: the allow-list entry (name, category),
+ * the nutrient row it was matched to (fdcId, foodName), the portion in grams
+ * and what the portion provides
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlannedPortion 
+{
+	private String name;
+	private String category;
+	private Integer fdcId;
+	private String foodName;
+	private Integer grams;
+	private Double calories;
+	private Double carbsG;
+	private Double proteinG;
+	private Double fatG;
+	private Double fiberG;
+}
@@ -0,0 +1,27 @@
+package com.ninja.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A food with a nutrient profile close to another one. distance is the
+ * Euclidean distance between the standardized profiles (0 for identical
+ * ones); nutrients maps the profile's Nutrient property names to their values
+ * per 100g, null when unknown. foodCategory and allergenFlags are null when
+ * the nutrient row has no food row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarFood 
+{
+	private Integer fdcId;
+	private String foodName;
+	private String foodCategory;
+	private String allergenFlags;
+	private Double distance;
+	private Map<String, Double> nutrients;
+}
@@ -0,0 +1,18 @@
+package com.ninja.entity;
+
+/**
+ * Common shape of the LFV and LCHF diet food lists, which share the same
+ * columns in separate tables
+ */
+public interface DietFood {
+
+    Long getId();
+
+    String getName();
+
+    String getCategory();
+
+    String getLimitation();
+
+    String getNotes();
+}
@@ -8,7 +8,7 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "lchf_tbl")
-public class LchfFood {
+public class LchfFood implements DietFood {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -8,7 +8,7 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "lfv_tbl")
-public class LfvFood {
+public class LfvFood implements DietFood {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -141,6 +141,26 @@ public class Nutrient {
 	@Column(name = "magnesium_mg")
 	private Double magnesiumMg;
 
+	// Energy ratios - generated by the database from the gram columns, never written
+	/**
+	 * Share of energy from protein in percent (proteinG * 4 / energyKcal)
+	 */
+	@Column(name = "protein_energy_pct", insertable = false, updatable = false)
+	private Double proteinEnergyPct;
+
+	/**
+	 * Share of energy from fat in percent (totalFatG * 9 / energyKcal)
+	 */
+	@Column(name = "fat_energy_pct", insertable = false, updatable = false)
+	private Double fatEnergyPct;
+
+	/**
+	 * Share of energy from carbohydrate in percent (carbohydrateG * 4 /
+	 * energyKcal)
+	 */
+	@Column(name = "carb_energy_pct", insertable = false, updatable = false)
+	private Double carbEnergyPct;
+
 	// Constructors
 	public Nutrient() {
 	}
@@ -306,6 +326,30 @@ public class Nutrient {
 		this.magnesiumMg = magnesiumMg;
 	}
 
+	public Double getProteinEnergyPct() {
+		return proteinEnergyPct;
+	}
+
+	public void setProteinEnergyPct(Double proteinEnergyPct) {
+		this.proteinEnergyPct = proteinEnergyPct;
+	}
+
+	public Double getFatEnergyPct() {
+		return fatEnergyPct;
+	}
+
+	public void setFatEnergyPct(Double fatEnergyPct) {
+		this.fatEnergyPct = fatEnergyPct;
+	}
+
+	public Double getCarbEnergyPct() {
+		return carbEnergyPct;
+	}
+
+	public void setCarbEnergyPct(Double carbEnergyPct) {
+		this.carbEnergyPct = carbEnergyPct;
+	}
+
 	@Override
 	public String toString() {
 		return "Nutrient{" + "fdcId=" + fdcId + ", foodName='" + foodName + '\'' + ", energyKcal=" + energyKcal
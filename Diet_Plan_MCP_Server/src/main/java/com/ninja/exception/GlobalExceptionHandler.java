@@ -41,6 +41,20 @@ public class GlobalExceptionHandler
 	}
 	
 	
+	/**
+	 * Handles invalid arguments rejected by the service layer, e.g. a malformed
+	 * paging cursor
+	 * @param exception
+	 * @return Request Error
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<RequestError> handleIllegalArgumentException(IllegalArgumentException exception)
+	{
+		RequestError errorResponse = new RequestError(LocalDateTime.now(),HttpStatus.BAD_REQUEST.toString(),exception.getMessage(), List.of());
+		return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+	
+	
 	/**
 	 * Handles Database side exceptions
 	 * @param exception
@@ -0,0 +1,396 @@
+package com.ninja.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant word index over one or more text fields per document. Every
+ * lower-cased field is split into words (runs of letters and digits); each
+ * distinct word keeps a sorted int[] posting list of document ordinals.
+ *
+ * A query word of length n matches the indexed words within
+ * {@link #tolerance(int)} Levenshtein edits of it. Those are found with a
+ * symmetric-delete index: two words within k edits share a string reachable
+ * from each by at most k deletions (a substitution deletes on both sides), so
+ * every variant of every indexed word with up to {@value #MAX_TOLERANCE}
+ * characters deleted is hashed and stored, packed with its word id, in one
+ * sorted long[]. A query looks up the hashes of its own deletion variants by
+ * binary search and verifies the candidates with the exact distance, so the
+ * cost depends on the query length rather than on the vocabulary size.
+ *
+ * A document matches when every query word matches one of its words; it is
+ * ranked by the summed distance, then by ordinal.
+ */
+public final class FuzzyIndex {
+
+	private static final int MAX_TOLERANCE = 2;
+	private static final int MAX_SUGGESTIONS = 5;
+	// Longer words are indexed for exact matches only, bounding the variants per word
+	private static final int MAX_VARIANT_LENGTH = 24;
+
+	private final char[][] words;
+	private final int[][] postings;
+	// (variant hash << 32 | word id), sorted
+	private final long[] variants;
+	private final int documents;
+
+	private FuzzyIndex(char[][] words, int[][] postings, long[] variants, int documents) {
+		this.words = words;
+		this.postings = postings;
+		this.variants = variants;
+		this.documents = documents;
+	}
+
+	/**
+	 * Build an index where fields[ordinal] holds the searchable texts of one
+	 * document. Null texts are ignored.
+	 */
+	public static FuzzyIndex build(String[][] fields) {
+		Map<String, PostingBuilder> builders = new HashMap<>();
+		for (int doc = 0; doc < fields.length; doc++) {
+			for (String text : fields[doc]) {
+				if (text == null) {
+					continue;
+				}
+				for (String word : words(text)) {
+					builders.computeIfAbsent(word, key -> new PostingBuilder()).add(doc);
+				}
+			}
+		}
+
+		String[] sorted = builders.keySet().toArray(new String[0]);
+		Arrays.sort(sorted);
+		char[][] words = new char[sorted.length][];
+		int[][] postings = new int[sorted.length][];
+		VariantCollector variants = new VariantCollector();
+		for (int id = 0; id < sorted.length; id++) {
+			words[id] = sorted[id].toCharArray();
+			postings[id] = builders.get(sorted[id]).toArray();
+			int deletions = words[id].length > MAX_VARIANT_LENGTH ? 0 : MAX_TOLERANCE;
+			int word = id;
+			forEachVariant(words[id], deletions, hash -> variants.add(((long) hash << 32) | word));
+		}
+		return new FuzzyIndex(words, postings, variants.toSortedArray(), fields.length);
+	}
+
+	/**
+	 * Number of distinct words
+	 */
+	public int vocabularySize() {
+		return words.length;
+	}
+
+	/**
+	 * Edits tolerated for a query word of this length: none up to 2 characters,
+	 * one up to 4, two beyond ("moong" finds "mung", "brocoli" finds "broccoli")
+	 */
+	public static int tolerance(int length) {
+		return length <= 2 ? 0 : length <= 4 ? 1 : MAX_TOLERANCE;
+	}
+
+	/**
+	 * Documents matching every word of the query within tolerance, packed as
+	 * (distance &lt;&lt; 32 | ordinal) and sorted best first like
+	 * {@link TrigramIndex#searchRanked(String)}, together with corrected
+	 * spellings of the query built from the closest indexed words
+	 */
+	public Matches search(String query) {
+		List<String> queryWords = words(query);
+		if (queryWords.isEmpty() || words.length == 0 || queryWords.size() > Short.MAX_VALUE) {
+			return Matches.NONE;
+		}
+
+		// scores[doc] is (query words matched so far << 16 | summed distance).
+		// Neighbours come closest first, so the first word of a document to
+		// match a query word has the least distance.
+		int[] scores = new int[documents];
+		int maxTotal = 0;
+		List<List<Neighbour>> neighbours = new ArrayList<>(queryWords.size());
+		for (int i = 0; i < queryWords.size(); i++) {
+			String queryWord = queryWords.get(i);
+			int tolerance = tolerance(queryWord.length());
+			List<Neighbour> close = neighbours(queryWord.toCharArray(), tolerance);
+			if (close.isEmpty()) {
+				return Matches.NONE;
+			}
+			neighbours.add(close);
+			maxTotal += tolerance;
+			for (Neighbour neighbour : close) {
+				for (int doc : postings[neighbour.word]) {
+					int score = scores[doc];
+					if (score >>> 16 == i) {
+						scores[doc] = ((i + 1) << 16) | ((score & 0xFFFF) + neighbour.distance);
+					}
+				}
+			}
+		}
+
+		// Counting sort by distance; ordinals are already ascending within each
+		int matched = queryWords.size();
+		int[] starts = new int[maxTotal + 2];
+		for (int doc = 0; doc < documents; doc++) {
+			if (scores[doc] >>> 16 == matched) {
+				starts[(scores[doc] & 0xFFFF) + 1]++;
+			}
+		}
+		for (int distance = 1; distance < starts.length; distance++) {
+			starts[distance] += starts[distance - 1];
+		}
+		long[] ranked = new long[starts[starts.length - 1]];
+		if (ranked.length == 0) {
+			return Matches.NONE;
+		}
+		for (int doc = 0; doc < documents; doc++) {
+			if (scores[doc] >>> 16 == matched) {
+				int distance = scores[doc] & 0xFFFF;
+				ranked[starts[distance]++] = ((long) distance << 32) | doc;
+			}
+		}
+		return new Matches(ranked, suggestions(neighbours));
+	}
+
+	/**
+	 * Indexed words within maxDistance edits of word (at most
+	 * {@value #MAX_TOLERANCE}), closest first, then most frequent
+	 */
+	public List<String> similarWords(String word, int maxDistance) {
+		if (maxDistance < 0 || maxDistance > MAX_TOLERANCE) {
+			throw new IllegalArgumentException("Distance must be between 0 and " + MAX_TOLERANCE);
+		}
+		List<String> similar = new ArrayList<>();
+		for (Neighbour neighbour : neighbours(normalize(word).toCharArray(), maxDistance)) {
+			similar.add(new String(words[neighbour.word]));
+		}
+		return similar;
+	}
+
+	/**
+	 * Up to MAX_SUGGESTIONS phrases: the i-th phrase takes each query word's
+	 * i-th closest word, or its closest when it has fewer
+	 */
+	private List<String> suggestions(List<List<Neighbour>> neighbours) {
+		Set<String> phrases = new LinkedHashSet<>();
+		for (int i = 0; i < MAX_SUGGESTIONS; i++) {
+			StringBuilder phrase = new StringBuilder();
+			boolean any = false;
+			for (List<Neighbour> close : neighbours) {
+				any |= i < close.size();
+				if (!phrase.isEmpty()) {
+					phrase.append(' ');
+				}
+				phrase.append(words[close.get(i < close.size() ? i : 0).word]);
+			}
+			if (!any) {
+				break;
+			}
+			phrases.add(phrase.toString());
+		}
+		return List.copyOf(phrases);
+	}
+
+	/**
+	 * Words within maxDistance of the query: candidates sharing a deletion
+	 * variant, verified with the exact distance
+	 */
+	private List<Neighbour> neighbours(char[] query, int maxDistance) {
+		int[][] candidates = { new int[16] };
+		int[] count = { 0 };
+		forEachVariant(query, Math.min(maxDistance, Math.max(query.length - 1, 0)), hash -> {
+			long key = (long) hash << 32;
+			for (int i = lowerBound(key); i < variants.length && (variants[i] & 0xFFFFFFFF00000000L) == key; i++) {
+				if (count[0] == candidates[0].length) {
+					candidates[0] = Arrays.copyOf(candidates[0], count[0] * 2);
+				}
+				candidates[0][count[0]++] = (int) variants[i];
+			}
+		});
+		int[] ids = candidates[0];
+		Arrays.sort(ids, 0, count[0]);
+
+		List<Neighbour> found = new ArrayList<>();
+		int[] previous = new int[query.length + 1];
+		int[] current = new int[query.length + 1];
+		for (int i = 0; i < count[0]; i++) {
+			if (i > 0 && ids[i] == ids[i - 1]) {
+				continue;
+			}
+			char[] word = words[ids[i]];
+			if (Math.abs(word.length - query.length) > maxDistance) {
+				continue;
+			}
+			int distance = distance(query, word, previous, current);
+			if (distance <= maxDistance) {
+				found.add(new Neighbour(ids[i], distance));
+			}
+		}
+		found.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+				: postings[a.word].length != postings[b.word].length
+						? Integer.compare(postings[b.word].length, postings[a.word].length)
+						: Integer.compare(a.word, b.word));
+		return found;
+	}
+
+	private int lowerBound(long key) {
+		int low = 0;
+		int high = variants.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (variants[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Hash of the word with up to maxDeletions characters removed, for every
+	 * choice of positions; duplicates (e.g. from repeated letters) are not
+	 * suppressed
+	 */
+	private static void forEachVariant(char[] word, int maxDeletions, HashConsumer consumer) {
+		consumer.accept(hash(word, -1, -1));
+		if (maxDeletions >= 1) {
+			for (int i = 0; i < word.length; i++) {
+				consumer.accept(hash(word, i, -1));
+				if (maxDeletions >= 2) {
+					for (int j = i + 1; j < word.length; j++) {
+						consumer.accept(hash(word, i, j));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hash of the word without the characters at positions skip1 and skip2
+	 * (-1 for none)
+	 */
+	private static int hash(char[] word, int skip1, int skip2) {
+		int hash = 0;
+		for (int i = 0; i < word.length; i++) {
+			if (i != skip1 && i != skip2) {
+				hash = hash * 31 + word[i];
+			}
+		}
+		// Murmur3 finalizer, so nearby variants spread over the key space
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Levenshtein distance with two rows of scratch space sized a.length + 1
+	 */
+	static int distance(char[] a, char[] b, int[] previous, int[] current) {
+		for (int i = 0; i <= a.length; i++) {
+			previous[i] = i;
+		}
+		for (int j = 1; j <= b.length; j++) {
+			current[0] = j;
+			char c = b[j - 1];
+			for (int i = 1; i <= a.length; i++) {
+				current[i] = Math.min(previous[i - 1] + (a[i - 1] == c ? 0 : 1),
+						Math.min(previous[i], current[i - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[a.length];
+	}
+
+	private static List<String> words(String text) {
+		String lower = normalize(text);
+		List<String> words = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				words.add(lower.substring(start, i));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	private static String normalize(String text) {
+		return text.trim().toLowerCase(Locale.ROOT);
+	}
+
+	@FunctionalInterface
+	private interface HashConsumer {
+		void accept(int hash);
+	}
+
+	private record Neighbour(int word, int distance) {
+	}
+
+	private static final class PostingBuilder {
+		private int[] docs = new int[2];
+		private int size;
+
+		void add(int doc) {
+			if (size > 0 && docs[size - 1] == doc) {
+				return;
+			}
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+			}
+			docs[size++] = doc;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(docs, size);
+		}
+	}
+
+	private static final class VariantCollector {
+		private long[] keys = new long[1024];
+		private int size;
+
+		void add(long key) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			keys[size++] = key;
+		}
+
+		/**
+		 * Sorted keys without duplicates
+		 */
+		long[] toSortedArray() {
+			Arrays.sort(keys, 0, size);
+			int distinct = 0;
+			for (int i = 0; i < size; i++) {
+				if (distinct == 0 || keys[i] != keys[distinct - 1]) {
+					keys[distinct++] = keys[i];
+				}
+			}
+			return Arrays.copyOf(keys, distinct);
+		}
+	}
+
+	/**
+	 * Ranked documents and "did you mean" spellings of a fuzzy search
+	 */
+	public record Matches(long[] ranked, List<String> suggestions) {
+
+		static final Matches NONE = new Matches(new long[0], List.of());
+
+		public boolean isEmpty() {
+			return ranked.length == 0;
+		}
+	}
+}
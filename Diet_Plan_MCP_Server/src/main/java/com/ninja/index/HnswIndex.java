@@ -0,0 +1,417 @@
+package com.ninja.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Approximate nearest-neighbour index over float vectors under Euclidean
+ * distance: a hierarchical navigable small world graph (Malkov and Yashunin).
+ * Every vector is a node on layer 0 and, with geometrically decreasing
+ * probability, on higher layers; each layer links a node to at most m close
+ * nodes (2m on layer 0), chosen with the diversity heuristic so links also
+ * reach other clusters. A search descends greedily from the top layer's entry
+ * point and then runs a best-first search of breadth ef on layer 0, so it
+ * compares the query with a small part of the data.
+ *
+ * Searches take a filter: rejected nodes are still traversed but never
+ * returned. Nodes and their neighbour lists are plain arrays; distances and
+ * node ids are packed into longs (non-negative float bits sort like the
+ * floats) so the queues are primitive heaps. Built once, then read-only and
+ * safe for concurrent searches.
+ */
+public final class HnswIndex {
+
+	private final float[][] vectors;
+	private final int m;
+	private final int efConstruction;
+	// links[node][layer] is {count, neighbour...}
+	private final int[][][] links;
+	private int entryPoint = -1;
+	private int topLayer = -1;
+
+	private HnswIndex(float[][] vectors, int m, int efConstruction) {
+		this.vectors = vectors;
+		this.m = m;
+		this.efConstruction = efConstruction;
+		this.links = new int[vectors.length][][];
+	}
+
+	/**
+	 * Build an index over vectors (all of the same length). m is the number of
+	 * links per node and layer, efConstruction the search breadth used while
+	 * linking; seed makes the layer assignment reproducible.
+	 */
+	public static HnswIndex build(float[][] vectors, int m, int efConstruction, long seed) {
+		if (m < 2) {
+			throw new IllegalArgumentException("m must be at least 2");
+		}
+		HnswIndex index = new HnswIndex(vectors, m, efConstruction);
+		Random random = new Random(seed);
+		double levelFactor = 1 / Math.log(m);
+		Visited visited = new Visited(vectors.length);
+		for (int node = 0; node < vectors.length; node++) {
+			int layer = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+			index.insert(node, layer, visited);
+		}
+		return index;
+	}
+
+	public int size() {
+		return vectors.length;
+	}
+
+	/**
+	 * The k accepted nodes closest to query, closest first, found with search
+	 * breadth ef (raised to k when smaller). May return fewer than k when the
+	 * filter rejects most of the graph.
+	 */
+	public int[] search(float[] query, int k, int ef, IntPredicate accept) {
+		if (entryPoint < 0 || k <= 0) {
+			return new int[0];
+		}
+		int current = entryPoint;
+		float currentDistance = distance(query, vectors[current]);
+		for (int layer = topLayer; layer > 0; layer--) {
+			long closest = greedy(query, current, currentDistance, layer);
+			current = node(closest);
+			currentDistance = Float.intBitsToFloat((int) (closest >>> 32));
+		}
+		BitSet visited = new BitSet(vectors.length);
+		Heap results = searchLayer(query, current, Math.max(ef, k), 0, accept, node -> {
+			if (visited.get(node)) {
+				return false;
+			}
+			visited.set(node);
+			return true;
+		});
+		while (results.size() > k) {
+			results.poll();
+		}
+		int[] nearest = new int[results.size()];
+		for (int i = nearest.length - 1; i >= 0; i--) {
+			nearest[i] = node(results.poll());
+		}
+		return nearest;
+	}
+
+	/**
+	 * The k accepted nodes closest to query by comparing with every vector;
+	 * the exact answer search approximates
+	 */
+	public int[] exactSearch(float[] query, int k, IntPredicate accept) {
+		return exactSearch(vectors, query, k, accept);
+	}
+
+	/**
+	 * The k accepted indexes of vectors closest to query, closest first, by
+	 * comparing with every vector; needs no index
+	 */
+	public static int[] exactSearch(float[][] vectors, float[] query, int k, IntPredicate accept) {
+		Heap results = new Heap(true);
+		for (int node = 0; node < vectors.length; node++) {
+			if (!accept.test(node)) {
+				continue;
+			}
+			long entry = pack(distance(query, vectors[node]), node);
+			if (results.size() < k) {
+				results.add(entry);
+			} else if (entry < results.peek()) {
+				results.poll();
+				results.add(entry);
+			}
+		}
+		int[] nearest = new int[results.size()];
+		for (int i = nearest.length - 1; i >= 0; i--) {
+			nearest[i] = node(results.poll());
+		}
+		return nearest;
+	}
+
+	/**
+	 * Squared Euclidean distance
+	 */
+	public static float distance(float[] a, float[] b) {
+		float sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			float difference = a[i] - b[i];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+
+	private void insert(int node, int layer, Visited visited) {
+		links[node] = new int[layer + 1][];
+		for (int l = 0; l <= layer; l++) {
+			links[node][l] = new int[capacity(l) + 1];
+		}
+		if (entryPoint < 0) {
+			entryPoint = node;
+			topLayer = layer;
+			return;
+		}
+
+		float[] vector = vectors[node];
+		int current = entryPoint;
+		float currentDistance = distance(vector, vectors[current]);
+		for (int l = topLayer; l > layer; l--) {
+			long closest = greedy(vector, current, currentDistance, l);
+			current = node(closest);
+			currentDistance = Float.intBitsToFloat((int) (closest >>> 32));
+		}
+		for (int l = Math.min(layer, topLayer); l >= 0; l--) {
+			Heap found = searchLayer(vector, current, efConstruction, l, null, visited.cleared());
+			long[] candidates = found.sortedAscending();
+			int[] selected = selectNeighbours(candidates, m);
+			int[] list = links[node][l];
+			for (int neighbour : selected) {
+				list[++list[0]] = neighbour;
+				link(neighbour, node, l);
+			}
+			current = node(candidates[0]);
+		}
+		if (layer > topLayer) {
+			topLayer = layer;
+			entryPoint = node;
+		}
+	}
+
+	/**
+	 * Add node to the neighbour list of target. When the list is full, node is
+	 * dropped if it is farther than every listed neighbour, and otherwise the
+	 * list is pruned back to its capacity with the same heuristic.
+	 */
+	private void link(int target, int node, int layer) {
+		int[] list = links[target][layer];
+		int capacity = list.length - 1;
+		if (list[0] < capacity) {
+			list[++list[0]] = node;
+			return;
+		}
+		float[] vector = vectors[target];
+		long[] candidates = new long[capacity + 1];
+		long farthest = 0;
+		for (int i = 0; i < capacity; i++) {
+			candidates[i] = pack(distance(vector, vectors[list[i + 1]]), list[i + 1]);
+			farthest = Math.max(farthest, candidates[i]);
+		}
+		candidates[capacity] = pack(distance(vector, vectors[node]), node);
+		if (candidates[capacity] > farthest) {
+			return;
+		}
+		Arrays.sort(candidates);
+		int[] kept = selectNeighbours(candidates, capacity);
+		list[0] = kept.length;
+		System.arraycopy(kept, 0, list, 1, kept.length);
+	}
+
+	/**
+	 * Diversity heuristic: take candidates closest first, skipping one that is
+	 * closer to an already selected neighbour than to the base node, then fill
+	 * up with the skipped ones. candidates are sorted ascending.
+	 */
+	private int[] selectNeighbours(long[] candidates, int count) {
+		int[] selected = new int[Math.min(count, candidates.length)];
+		int size = 0;
+		long[] skipped = new long[candidates.length];
+		int skippedCount = 0;
+		for (long candidate : candidates) {
+			if (size == selected.length) {
+				break;
+			}
+			int node = node(candidate);
+			float toBase = Float.intBitsToFloat((int) (candidate >>> 32));
+			boolean diverse = true;
+			for (int i = 0; i < size && diverse; i++) {
+				diverse = distance(vectors[node], vectors[selected[i]]) >= toBase;
+			}
+			if (diverse) {
+				selected[size++] = node;
+			} else {
+				skipped[skippedCount++] = candidate;
+			}
+		}
+		for (int i = 0; i < skippedCount && size < selected.length; i++) {
+			selected[size++] = node(skipped[i]);
+		}
+		return size == selected.length ? selected : Arrays.copyOf(selected, size);
+	}
+
+	/**
+	 * Move to the closest neighbour on one layer until none is closer
+	 */
+	private long greedy(float[] query, int start, float startDistance, int layer) {
+		int current = start;
+		float currentDistance = startDistance;
+		boolean moved = true;
+		while (moved) {
+			moved = false;
+			int[] list = links[current][layer];
+			for (int i = 1; i <= list[0]; i++) {
+				float distance = distance(query, vectors[list[i]]);
+				if (distance < currentDistance) {
+					currentDistance = distance;
+					current = list[i];
+					moved = true;
+				}
+			}
+		}
+		return pack(currentDistance, current);
+	}
+
+	/**
+	 * Best-first search of one layer; returns a max-heap of the ef closest
+	 * accepted nodes (every node when accept is null)
+	 */
+	private Heap searchLayer(float[] query, int start, int ef, int layer, IntPredicate accept,
+			IntPredicate firstVisit) {
+		Heap candidates = new Heap(false);
+		Heap results = new Heap(true);
+		long first = pack(distance(query, vectors[start]), start);
+		firstVisit.test(start);
+		candidates.add(first);
+		if (accept == null || accept.test(start)) {
+			results.add(first);
+		}
+		while (candidates.size() > 0) {
+			long closest = candidates.poll();
+			if (results.size() >= ef && closest > results.peek()) {
+				break;
+			}
+			int[] list = links[node(closest)][layer];
+			for (int i = 1; i <= list[0]; i++) {
+				int neighbour = list[i];
+				if (!firstVisit.test(neighbour)) {
+					continue;
+				}
+				long entry = pack(distance(query, vectors[neighbour]), neighbour);
+				if (results.size() < ef || entry < results.peek()) {
+					candidates.add(entry);
+					if (accept == null || accept.test(neighbour)) {
+						results.add(entry);
+						if (results.size() > ef) {
+							results.poll();
+						}
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	private int capacity(int layer) {
+		return layer == 0 ? 2 * m : m;
+	}
+
+	private static long pack(float distance, int node) {
+		return ((long) Float.floatToIntBits(distance) << 32) | node;
+	}
+
+	private static int node(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * Visited nodes of the build's searches, reused from one to the next and
+	 * cleared in constant time: a node
+	 * was visited when its mark equals the current epoch. test marks the node
+	 * and tells whether it is its first visit.
+	 */
+	private static final class Visited implements IntPredicate {
+
+		private final int[] marks;
+		private int epoch;
+
+		Visited(int size) {
+			this.marks = new int[size];
+		}
+
+		Visited cleared() {
+			if (++epoch == 0) {
+				Arrays.fill(marks, 0);
+				epoch = 1;
+			}
+			return this;
+		}
+
+		@Override
+		public boolean test(int node) {
+			if (marks[node] == epoch) {
+				return false;
+			}
+			marks[node] = epoch;
+			return true;
+		}
+	}
+
+	/**
+	 * Binary heap of packed (distance, node) entries, smallest or largest on top
+	 */
+	private static final class Heap {
+
+		private final boolean max;
+		private long[] entries = new long[16];
+		private int size;
+
+		Heap(boolean max) {
+			this.max = max;
+		}
+
+		int size() {
+			return size;
+		}
+
+		long peek() {
+			return entries[0];
+		}
+
+		void add(long entry) {
+			if (size == entries.length) {
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!before(entry, entries[parent])) {
+					break;
+				}
+				entries[i] = entries[parent];
+				i = parent;
+			}
+			entries[i] = entry;
+		}
+
+		long poll() {
+			long top = entries[0];
+			long last = entries[--size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && before(entries[child + 1], entries[child])) {
+					child++;
+				}
+				if (!before(entries[child], last)) {
+					break;
+				}
+				entries[i] = entries[child];
+				i = child;
+			}
+			entries[i] = last;
+			return top;
+		}
+
+		long[] sortedAscending() {
+			long[] sorted = Arrays.copyOf(entries, size);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+
+		private boolean before(long a, long b) {
+			return max ? a > b : a < b;
+		}
+	}
+}
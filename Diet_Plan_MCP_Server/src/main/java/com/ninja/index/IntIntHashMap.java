@@ -0,0 +1,85 @@
+package com.ninja.index;
+
+import java.util.Arrays;
+
+/**
+ * Immutable int to non-negative int map with open addressing and linear
+ * probing, for point lookups of row ordinals by fdcId without boxing the key.
+ *
+ * Keys and values sit in two parallel int[] of a power-of-two capacity at most
+ * half full, so a miss ends within a few slots of its home. Empty slots hold
+ * the value -1, which is also what {@link #get(int)} returns for an absent key.
+ */
+public final class IntIntHashMap {
+
+	private static final int MISSING = -1;
+
+	private final int[] keys;
+	private final int[] values;
+	private final int mask;
+	private final int size;
+
+	private IntIntHashMap(int[] keys, int[] values, int size) {
+		this.keys = keys;
+		this.values = values;
+		this.mask = keys.length - 1;
+		this.size = size;
+	}
+
+	/**
+	 * Map keys[i] to i. Keys must be distinct.
+	 */
+	public static IntIntHashMap ofOrdinals(int[] keys) {
+		int capacity = Integer.highestOneBit(Math.max(2, keys.length) * 2 - 1) << 1;
+		int[] slotKeys = new int[capacity];
+		int[] slotValues = new int[capacity];
+		Arrays.fill(slotValues, MISSING);
+		int mask = capacity - 1;
+
+		for (int ordinal = 0; ordinal < keys.length; ordinal++) {
+			int key = keys[ordinal];
+			int slot = hash(key) & mask;
+			while (slotValues[slot] != MISSING) {
+				if (slotKeys[slot] == key) {
+					throw new IllegalArgumentException("Duplicate key " + key);
+				}
+				slot = (slot + 1) & mask;
+			}
+			slotKeys[slot] = key;
+			slotValues[slot] = ordinal;
+		}
+		return new IntIntHashMap(slotKeys, slotValues, keys.length);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Value for the key, or -1 when absent
+	 */
+	public int get(int key) {
+		int slot = hash(key) & mask;
+		while (true) {
+			int value = values[slot];
+			if (value == MISSING || keys[slot] == key) {
+				return value;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Murmur3 finalizer: fdcIds are dense in places, so the low bits need
+	 * mixing before masking
+	 */
+	private static int hash(int key) {
+		int h = key;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
@@ -0,0 +1,279 @@
+package com.ninja.index;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree over the rows of a set of parallel double[] columns, for
+ * orthogonal range queries ("every column within [min, max]").
+ *
+ * The tree is implicit: build() permutes an ordinal array so that every
+ * subrange [lo, hi) is split at its midpoint along the dimension with the
+ * widest normalized spread, with smaller values on the left. Ranges of at most
+ * {@value #LEAF_SIZE} rows are scanned linearly. NaN (SQL NULL) sorts after
+ * every number, so it only ever reaches the right-hand side and fails any
+ * bound on its dimension, just like a NULL comparison in SQL.
+ */
+public final class KdTree {
+
+	private static final int LEAF_SIZE = 16;
+
+	private final double[][] columns;
+	private final int[] order;
+	private final byte[] splitDims;
+
+	private KdTree(double[][] columns, int[] order, byte[] splitDims) {
+		this.columns = columns;
+		this.order = order;
+		this.splitDims = splitDims;
+	}
+
+	/**
+	 * Build a tree over columns[dimension][row]; every column must have the same
+	 * length and there may be at most 127 dimensions
+	 */
+	public static KdTree build(double[][] columns) {
+		int size = columns.length == 0 ? 0 : columns[0].length;
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		double[] globalSpread = new double[columns.length];
+		for (int dim = 0; dim < columns.length; dim++) {
+			globalSpread[dim] = spread(columns[dim], order, 0, size);
+		}
+
+		byte[] splitDims = new byte[size];
+		build(columns, globalSpread, order, splitDims, 0, size);
+		return new KdTree(columns, order, splitDims);
+	}
+
+	private static void build(double[][] columns, double[] globalSpread, int[] order, byte[] splitDims, int lo,
+			int hi) {
+		if (hi - lo <= LEAF_SIZE) {
+			return;
+		}
+		int dim = widestDimension(columns, globalSpread, order, lo, hi);
+		int mid = (lo + hi) >>> 1;
+		select(columns[dim], order, lo, hi - 1, mid);
+		splitDims[mid] = (byte) dim;
+		build(columns, globalSpread, order, splitDims, lo, mid);
+		build(columns, globalSpread, order, splitDims, mid + 1, hi);
+	}
+
+	public int size() {
+		return order.length;
+	}
+
+	/**
+	 * Ordinals of rows with min[d] &lt;= value &lt;= max[d] for every dimension
+	 * d where constrained[d] is set, in tree order. Unconstrained dimensions
+	 * accept NULLs. At most out.length ordinals are written; the return value
+	 * is the total number of matches, which may be larger.
+	 */
+	public int search(double[] min, double[] max, boolean[] constrained, int[] out) {
+		return search(min, max, constrained, out, 0, 0, order.length);
+	}
+
+	private int search(double[] min, double[] max, boolean[] constrained, int[] out, int count, int lo, int hi) {
+		if (hi - lo <= LEAF_SIZE) {
+			for (int i = lo; i < hi; i++) {
+				count = collect(min, max, constrained, out, count, order[i]);
+			}
+			return count;
+		}
+		int mid = (lo + hi) >>> 1;
+		int dim = splitDims[mid];
+		double split = columns[dim][order[mid]];
+
+		count = collect(min, max, constrained, out, count, order[mid]);
+		// Left holds values <= split, right holds values >= split; a NaN split
+		// means the right-hand side is all NaN
+		boolean nanSplit = Double.isNaN(split);
+		if (!constrained[dim] || nanSplit || min[dim] <= split) {
+			count = search(min, max, constrained, out, count, lo, mid);
+		}
+		if (!constrained[dim] || (!nanSplit && max[dim] >= split)) {
+			count = search(min, max, constrained, out, count, mid + 1, hi);
+		}
+		return count;
+	}
+
+	private int collect(double[] min, double[] max, boolean[] constrained, int[] out, int count, int row) {
+		if (!matches(min, max, constrained, row)) {
+			return count;
+		}
+		if (count < out.length) {
+			out[count] = row;
+		}
+		return count + 1;
+	}
+
+	/**
+	 * The out.length smallest ordinals greater than after among the rows
+	 * {@link #search} matches, ascending; returns how many were written. The
+	 * tree is still walked over every match, but memory is out alone, so a
+	 * page of a broad query costs no table-sized buffer.
+	 */
+	public int searchAfter(double[] min, double[] max, boolean[] constrained, int after, int[] out) {
+		int count = searchAfter(min, max, constrained, after, out, 0, 0, order.length);
+		Arrays.sort(out, 0, count);
+		return count;
+	}
+
+	private int searchAfter(double[] min, double[] max, boolean[] constrained, int after, int[] out, int count,
+			int lo, int hi) {
+		if (hi - lo <= LEAF_SIZE) {
+			for (int i = lo; i < hi; i++) {
+				count = keepSmallest(min, max, constrained, after, out, count, order[i]);
+			}
+			return count;
+		}
+		int mid = (lo + hi) >>> 1;
+		int dim = splitDims[mid];
+		double split = columns[dim][order[mid]];
+
+		count = keepSmallest(min, max, constrained, after, out, count, order[mid]);
+		boolean nanSplit = Double.isNaN(split);
+		if (!constrained[dim] || nanSplit || min[dim] <= split) {
+			count = searchAfter(min, max, constrained, after, out, count, lo, mid);
+		}
+		if (!constrained[dim] || (!nanSplit && max[dim] >= split)) {
+			count = searchAfter(min, max, constrained, after, out, count, mid + 1, hi);
+		}
+		return count;
+	}
+
+	/**
+	 * Offer a matching row to out[0..count), a max-heap of the smallest
+	 * ordinals seen so far that holds at most out.length of them
+	 */
+	private int keepSmallest(double[] min, double[] max, boolean[] constrained, int after, int[] out, int count,
+			int row) {
+		if (row <= after || !matches(min, max, constrained, row)) {
+			return count;
+		}
+		if (count < out.length) {
+			int child = count;
+			while (child > 0 && out[(child - 1) >>> 1] < row) {
+				out[child] = out[(child - 1) >>> 1];
+				child = (child - 1) >>> 1;
+			}
+			out[child] = row;
+			return count + 1;
+		}
+		if (count > 0 && row < out[0]) {
+			int parent = 0;
+			while (true) {
+				int child = 2 * parent + 1;
+				if (child >= count) {
+					break;
+				}
+				if (child + 1 < count && out[child + 1] > out[child]) {
+					child++;
+				}
+				if (out[child] <= row) {
+					break;
+				}
+				out[parent] = out[child];
+				parent = child;
+			}
+			out[parent] = row;
+		}
+		return count;
+	}
+
+	private boolean matches(double[] min, double[] max, boolean[] constrained, int row) {
+		for (int dim = 0; dim < constrained.length; dim++) {
+			if (constrained[dim]) {
+				double value = columns[dim][row];
+				if (!(value >= min[dim] && value <= max[dim])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int widestDimension(double[][] columns, double[] globalSpread, int[] order, int lo, int hi) {
+		int best = 0;
+		double bestSpread = -1;
+		for (int dim = 0; dim < columns.length; dim++) {
+			if (globalSpread[dim] <= 0) {
+				continue;
+			}
+			double normalized = spread(columns[dim], order, lo, hi) / globalSpread[dim];
+			if (normalized > bestSpread) {
+				bestSpread = normalized;
+				best = dim;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * max - min of the non-NaN values, 0 when there are none
+	 */
+	private static double spread(double[] values, int[] order, int lo, int hi) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = lo; i < hi; i++) {
+			double value = values[order[i]];
+			if (value < min) {
+				min = value;
+			}
+			if (value > max) {
+				max = value;
+			}
+		}
+		return max >= min ? max - min : 0;
+	}
+
+	/**
+	 * Quickselect with a three-way partition, so columns with many equal values
+	 * (zeros are common) stay linear: rearrange order[lo..hi] so that order[k]
+	 * holds the k-th smallest value, everything left of it is &lt;= and
+	 * everything right of it is &gt;=
+	 */
+	private static void select(double[] values, int[] order, int lo, int hi, int k) {
+		while (hi > lo) {
+			double pivot = values[order[medianOfThree(values, order, lo, (lo + hi) >>> 1, hi)]];
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i <= gt) {
+				int cmp = Double.compare(values[order[i]], pivot);
+				if (cmp < 0) {
+					swap(order, lt++, i++);
+				} else if (cmp > 0) {
+					swap(order, i, gt--);
+				} else {
+					i++;
+				}
+			}
+			if (k < lt) {
+				hi = lt - 1;
+			} else if (k > gt) {
+				lo = gt + 1;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private static int medianOfThree(double[] values, int[] order, int a, int b, int c) {
+		double va = values[order[a]];
+		double vb = values[order[b]];
+		double vc = values[order[c]];
+		if (Double.compare(va, vb) < 0) {
+			return Double.compare(vb, vc) < 0 ? b : (Double.compare(va, vc) < 0 ? c : a);
+		}
+		return Double.compare(va, vc) < 0 ? a : (Double.compare(vb, vc) < 0 ? c : b);
+	}
+
+	private static void swap(int[] order, int i, int j) {
+		int tmp = order[i];
+		order[i] = order[j];
+		order[j] = tmp;
+	}
+}
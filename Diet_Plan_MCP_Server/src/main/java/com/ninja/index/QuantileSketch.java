@@ -0,0 +1,184 @@
+package com.ninja.index;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (the DDSketch
+ * scheme). Every value v &gt; 0 is counted in bucket ceil(log(v) / log(gamma))
+ * with gamma = (1 + a) / (1 - a), so a quantile is answered within relative
+ * accuracy a of a value of the right rank. Values below
+ * {@value #MIN_INDEXABLE} in magnitude are counted as zero, and negative values
+ * in a mirrored set of buckets.
+ *
+ * Because a sketch is only bucket counts, two sketches with the same accuracy
+ * merge by adding counts, and a value is removed by decrementing its bucket,
+ * so a sketch can follow updates without seeing the other values again.
+ * Counts are held in int arrays covering only the buckets in use.
+ */
+public final class QuantileSketch {
+
+	private static final double MIN_INDEXABLE = 1e-9;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+	private final Buckets positive = new Buckets();
+	private final Buckets negative = new Buckets();
+	private long zeroCount;
+	private long count;
+
+	public QuantileSketch(double relativeAccuracy) {
+		if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+			throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	public double relativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Count a value; NaN (SQL NULL) is ignored
+	 */
+	public void add(double value) {
+		update(value, 1);
+	}
+
+	/**
+	 * Uncount a value previously added
+	 *
+	 * @throws IllegalStateException when no such value was counted
+	 */
+	public void remove(double value) {
+		update(value, -1);
+	}
+
+	/**
+	 * Add every count of other to this sketch
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Sketches with different accuracy cannot be merged");
+		}
+		positive.merge(other.positive);
+		negative.merge(other.negative);
+		zeroCount += other.zeroCount;
+		count += other.count;
+	}
+
+	/**
+	 * Estimate of the q-quantile (0 &lt;= q &lt;= 1), NaN when the sketch is
+	 * empty
+	 */
+	public double quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1");
+		}
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) (q * (count - 1));
+		long seen = 0;
+		// Most negative first: the highest negative bucket index
+		for (int i = negative.counts.length - 1; i >= 0; i--) {
+			seen += negative.counts[i];
+			if (seen > rank) {
+				return -value(negative.offset + i);
+			}
+		}
+		seen += zeroCount;
+		if (seen > rank) {
+			return 0;
+		}
+		for (int i = 0; i < positive.counts.length; i++) {
+			seen += positive.counts[i];
+			if (seen > rank) {
+				return value(positive.offset + i);
+			}
+		}
+		// Unreachable while the counts are consistent
+		return value(positive.offset + positive.counts.length - 1);
+	}
+
+	private void update(double value, int delta) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		if (Math.abs(value) < MIN_INDEXABLE) {
+			if (zeroCount + delta < 0) {
+				throw new IllegalStateException("Value " + value + " was not counted");
+			}
+			zeroCount += delta;
+		} else if (value > 0) {
+			positive.add(index(value), delta, value);
+		} else {
+			negative.add(index(-value), delta, value);
+		}
+		count += delta;
+	}
+
+	private int index(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	/**
+	 * Representative value of a bucket: the point with equal relative error to
+	 * both of its bounds
+	 */
+	private double value(int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+	/**
+	 * Counts for a contiguous range of bucket indexes, starting at offset
+	 */
+	private static final class Buckets {
+
+		private int offset;
+		private int[] counts = new int[0];
+
+		void add(int index, int delta, double value) {
+			if (delta > 0) {
+				cover(index, index);
+			} else if (index < offset || index >= offset + counts.length || counts[index - offset] == 0) {
+				throw new IllegalStateException("Value " + value + " was not counted");
+			}
+			counts[index - offset] += delta;
+		}
+
+		void merge(Buckets other) {
+			if (other.counts.length == 0) {
+				return;
+			}
+			cover(other.offset, other.offset + other.counts.length - 1);
+			for (int i = 0; i < other.counts.length; i++) {
+				counts[other.offset + i - offset] += other.counts[i];
+			}
+		}
+
+		/**
+		 * Grow the array so that buckets low..high are covered
+		 */
+		private void cover(int low, int high) {
+			if (counts.length == 0) {
+				offset = low;
+				counts = new int[high - low + 1];
+				return;
+			}
+			int newOffset = Math.min(offset, low);
+			int newEnd = Math.max(offset + counts.length - 1, high);
+			if (newOffset == offset && newEnd == offset + counts.length - 1) {
+				return;
+			}
+			int[] grown = new int[newEnd - newOffset + 1];
+			System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+			offset = newOffset;
+			counts = grown;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package com.ninja.index;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed bitmap over row ordinals, laid out like a Roaring
+ * bitmap: the ordinal space is cut into chunks of 65536 rows, and each chunk
+ * keeps whichever is smallest of a sorted array of its set rows, a list of
+ * runs, or a plain 1024-word bitmap. A chunk with no rows set keeps nothing.
+ *
+ * Filters are combined a chunk at a time: each bitmap is ANDed into a
+ * caller-owned block of 1024 words, so a query over n rows is still n/64 word
+ * operations, and it stops at the chunk that fills the caller's page.
+ */
+public final class RowBitmap {
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+
+	private final Container[] chunks;
+	private final int size;
+	private final int cardinality;
+
+	private RowBitmap(Container[] chunks, int size, int cardinality) {
+		this.chunks = chunks;
+		this.size = size;
+		this.cardinality = cardinality;
+	}
+
+	/**
+	 * Bitmap over size rows with the given ordinals set, in any order
+	 */
+	public static RowBitmap of(int size, int[] ordinals, int count) {
+		Container[] chunks = new Container[chunkCount(size)];
+		long[] words = new long[CHUNK_WORDS];
+		int[] sorted = Arrays.copyOf(ordinals, count);
+		Arrays.sort(sorted);
+		int cardinality = 0;
+		for (int i = 0; i < count;) {
+			int chunk = sorted[i] >>> CHUNK_SHIFT;
+			Arrays.fill(words, 0);
+			for (; i < count && sorted[i] >>> CHUNK_SHIFT == chunk; i++) {
+				int row = sorted[i];
+				words[(row >>> 6) & (CHUNK_WORDS - 1)] |= 1L << row;
+			}
+			int rows = Math.min(size - (chunk << CHUNK_SHIFT), CHUNK_WORDS << 6);
+			chunks[chunk] = compress(words, (rows + 63) >>> 6);
+			cardinality += chunks[chunk].cardinality();
+		}
+		return new RowBitmap(chunks, size, cardinality);
+	}
+
+	public static RowBitmap of(int size, int[] ordinals) {
+		return of(size, ordinals, ordinals.length);
+	}
+
+	/**
+	 * Smallest container for a chunk's words, choosing by encoded size as
+	 * Roaring does: 2 bytes per set row, 4 per run, or 8 per word of the chunk
+	 * (a table's last chunk is usually partial, so its bitmap is shorter)
+	 */
+	private static Container compress(long[] words, int wordCount) {
+		int cardinality = 0;
+		int runs = 0;
+		long carry = 0;
+		for (long word : words) {
+			cardinality += Long.bitCount(word);
+			// a run starts at every set bit whose lower neighbour is clear
+			runs += Long.bitCount(word & ~(word << 1 | carry));
+			carry = word >>> 63;
+		}
+		int arrayBytes = cardinality * Character.BYTES;
+		int runBytes = runs * 2 * Character.BYTES;
+		int bitmapBytes = wordCount * Long.BYTES;
+		if (runBytes < arrayBytes && runBytes < bitmapBytes) {
+			return RunContainer.of(words, runs, cardinality);
+		}
+		if (arrayBytes < bitmapBytes) {
+			return ArrayContainer.of(words, cardinality);
+		}
+		return new BitmapContainer(Arrays.copyOf(words, wordCount), cardinality);
+	}
+
+	/**
+	 * Up to out.length ordinals set in every one of the bitmaps and greater
+	 * than after, ascending; returns how many were written. With no bitmaps
+	 * every row of a size-row table matches. Chunks are combined only until
+	 * out is full, so a page costs the chunks it spans rather than the table.
+	 */
+	public static int firstAfter(int size, RowBitmap[] bitmaps, int after, int[] out) {
+		long[] block = new long[CHUNK_WORDS];
+		int from = Math.max(after + 1, 0);
+		int count = 0;
+		for (int chunk = from >>> CHUNK_SHIFT; chunk < chunkCount(size) && count < out.length; chunk++) {
+			allRows(block, chunk, size);
+			for (RowBitmap bitmap : bitmaps) {
+				Container container = bitmap.chunks[chunk];
+				if (container == null) {
+					Arrays.fill(block, 0);
+					break;
+				}
+				container.andInto(block);
+			}
+			count = collect(block, chunk, from, out, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Every row of the chunk that lies within a size-row table
+	 */
+	private static void allRows(long[] block, int chunk, int size) {
+		int rows = Math.min(size - (chunk << CHUNK_SHIFT), CHUNK_WORDS << 6);
+		int full = rows >>> 6;
+		Arrays.fill(block, 0, full, -1L);
+		Arrays.fill(block, full, CHUNK_WORDS, 0);
+		if ((rows & 63) != 0) {
+			block[full] = (1L << rows) - 1;
+		}
+	}
+
+	private static int collect(long[] block, int chunk, int from, int[] out, int count) {
+		int base = chunk << CHUNK_SHIFT;
+		for (int i = 0; i < CHUNK_WORDS && count < out.length; i++) {
+			long word = block[i];
+			int first = base + (i << 6);
+			if (first + 63 < from) {
+				continue;
+			}
+			if (first < from) {
+				word &= -1L << (from - first);
+			}
+			while (word != 0 && count < out.length) {
+				out[count++] = first + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return count;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int cardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Approximate heap footprint of the containers, for cache weighing
+	 */
+	public int sizeInBytes() {
+		int bytes = 16 + chunks.length * 4;
+		for (Container container : chunks) {
+			if (container != null) {
+				bytes += container.sizeInBytes();
+			}
+		}
+		return bytes;
+	}
+
+	private static int chunkCount(int size) {
+		return (size + (1 << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT;
+	}
+
+	/**
+	 * Bits a..b (inclusive) of a word
+	 */
+	private static long bits(int a, int b) {
+		return (-1L >>> (63 - b)) & (-1L << a);
+	}
+
+	private interface Container {
+
+		/**
+		 * block &amp;= this chunk's words
+		 */
+		void andInto(long[] block);
+
+		int cardinality();
+
+		int sizeInBytes();
+	}
+
+	/**
+	 * Set rows of a sparse chunk, as sorted offsets within the chunk
+	 */
+	private record ArrayContainer(char[] rows) implements Container {
+
+		static ArrayContainer of(long[] words, int cardinality) {
+			char[] rows = new char[cardinality];
+			int count = 0;
+			for (int i = 0; i < words.length; i++) {
+				for (long word = words[i]; word != 0; word &= word - 1) {
+					rows[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+				}
+			}
+			return new ArrayContainer(rows);
+		}
+
+		@Override
+		public void andInto(long[] block) {
+			int next = 0;
+			for (int i = 0; i < block.length; i++) {
+				long mask = 0;
+				for (; next < rows.length && rows[next] >>> 6 == i; next++) {
+					mask |= 1L << rows[next];
+				}
+				block[i] &= mask;
+			}
+		}
+
+		@Override
+		public int cardinality() {
+			return rows.length;
+		}
+
+		@Override
+		public int sizeInBytes() {
+			return 16 + rows.length * Character.BYTES;
+		}
+	}
+
+	/**
+	 * Set rows of a chunk as runs [starts[r], ends[r]], inclusive and ascending
+	 */
+	private record RunContainer(char[] starts, char[] ends, int cardinality) implements Container {
+
+		static RunContainer of(long[] words, int runs, int cardinality) {
+			char[] starts = new char[runs];
+			char[] ends = new char[runs];
+			int count = 0;
+			boolean inRun = false;
+			for (int row = 0; row < words.length << 6; row++) {
+				boolean set = (words[row >>> 6] & (1L << row)) != 0;
+				if (set && !inRun) {
+					starts[count] = (char) row;
+				} else if (!set && inRun) {
+					ends[count++] = (char) (row - 1);
+				}
+				inRun = set;
+			}
+			if (inRun) {
+				ends[count] = (char) ((words.length << 6) - 1);
+			}
+			return new RunContainer(starts, ends, cardinality);
+		}
+
+		@Override
+		public void andInto(long[] block) {
+			int run = 0;
+			for (int i = 0; i < block.length; i++) {
+				int lo = i << 6;
+				int hi = lo + 63;
+				while (run < ends.length && ends[run] < lo) {
+					run++;
+				}
+				long mask = 0;
+				for (int r = run; r < starts.length && starts[r] <= hi; r++) {
+					mask |= bits(Math.max(starts[r], lo) - lo, Math.min(ends[r], hi) - lo);
+				}
+				block[i] &= mask;
+			}
+		}
+
+		@Override
+		public int sizeInBytes() {
+			return 32 + starts.length * 2 * Character.BYTES;
+		}
+	}
+
+	/**
+	 * A dense chunk, one bit per row; words past the end of the table are not
+	 * stored, and are already clear in the block
+	 */
+	private record BitmapContainer(long[] words, int cardinality) implements Container {
+
+		@Override
+		public void andInto(long[] block) {
+			for (int i = 0; i < words.length; i++) {
+				block[i] &= words[i];
+			}
+		}
+
+		@Override
+		public int sizeInBytes() {
+			return 32 + words.length * Long.BYTES;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package com.ninja.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive substring index over one or more text fields per document.
+ * Every lower-cased field is split into overlapping 3-character grams, and each
+ * gram maps to a sorted int[] posting list of document ordinals.
+ *
+ * A query intersects the posting lists of its grams (smallest list first, with
+ * galloping search into the longer ones), then verifies every candidate
+ * against the original strings, because sharing all grams does not guarantee
+ * the term occurs contiguously. Matches are ranked by the earliest position of
+ * the term, then by field order, then by ordinal.
+ */
+public final class TrigramIndex {
+
+	private final String[][] fields;
+	private final Map<Long, int[]> postings;
+
+	private TrigramIndex(String[][] fields, Map<Long, int[]> postings) {
+		this.fields = fields;
+		this.postings = postings;
+	}
+
+	/**
+	 * Build an index where fields[ordinal] holds the searchable texts of one
+	 * document, most important field first. Null texts are ignored.
+	 */
+	public static TrigramIndex build(String[][] fields) {
+		String[][] normalized = new String[fields.length][];
+		Map<Long, PostingBuilder> builders = new HashMap<>();
+
+		for (int doc = 0; doc < fields.length; doc++) {
+			normalized[doc] = new String[fields[doc].length];
+			for (int field = 0; field < fields[doc].length; field++) {
+				String text = fields[doc][field];
+				if (text == null) {
+					continue;
+				}
+				String lower = normalize(text);
+				normalized[doc][field] = lower;
+				for (int i = 0; i + 3 <= lower.length(); i++) {
+					builders.computeIfAbsent(trigram(lower, i), key -> new PostingBuilder()).add(doc);
+				}
+			}
+		}
+
+		Map<Long, int[]> postings = new HashMap<>(builders.size() * 2);
+		builders.forEach((gram, builder) -> postings.put(gram, builder.toArray()));
+		return new TrigramIndex(normalized, postings);
+	}
+
+	public int size() {
+		return fields.length;
+	}
+
+	/**
+	 * Ordinals of documents where any field contains the term, best match first
+	 */
+	public int[] search(String term) {
+		long[] ranked = searchRanked(term);
+		int[] result = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			result[i] = document(ranked[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Matches packed as (rank &lt;&lt; 32 | ordinal), sorted best first. Use
+	 * {@link #rank(long)} and {@link #document(long)} to unpack.
+	 */
+	public long[] searchRanked(String term) {
+		String needle = normalize(term);
+		if (needle.isEmpty()) {
+			return new long[0];
+		}
+
+		int[] candidates = needle.length() < 3 ? null : candidates(needle);
+		int candidateCount = candidates == null ? fields.length : candidates.length;
+
+		// Pack (position, field, ordinal) into one long so ranking is a primitive sort
+		long[] ranked = new long[candidateCount];
+		int count = 0;
+		for (int i = 0; i < candidateCount; i++) {
+			int doc = candidates == null ? i : candidates[i];
+			long rank = matchRank(doc, needle);
+			if (rank >= 0) {
+				ranked[count++] = (rank << 32) | doc;
+			}
+		}
+		Arrays.sort(ranked, 0, count);
+		return count == ranked.length ? ranked : Arrays.copyOf(ranked, count);
+	}
+
+	public static long rank(long match) {
+		return match >>> 32;
+	}
+
+	public static int document(long match) {
+		return (int) match;
+	}
+
+	/**
+	 * Intersection of the posting lists of every gram in the needle, or an empty
+	 * array as soon as one gram is unknown
+	 */
+	private int[] candidates(String needle) {
+		int gramCount = needle.length() - 2;
+		int[][] lists = new int[gramCount][];
+		for (int i = 0; i < gramCount; i++) {
+			int[] list = postings.get(trigram(needle, i));
+			if (list == null) {
+				return new int[0];
+			}
+			lists[i] = list;
+		}
+		Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+
+		int[] result = lists[0];
+		int size = result.length;
+		for (int i = 1; i < lists.length && size > 0; i++) {
+			if (lists[i] == lists[i - 1]) {
+				continue; // repeated gram, e.g. "aaaa"
+			}
+			int[] next = new int[size];
+			size = intersect(result, size, lists[i], next);
+			result = next;
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * Galloping intersection of small[0..smallSize) with the sorted large list
+	 */
+	static int intersect(int[] small, int smallSize, int[] large, int[] out) {
+		int count = 0;
+		int low = 0;
+		for (int i = 0; i < smallSize && low < large.length; i++) {
+			int key = small[i];
+			// Exponential probe to bracket the key, then binary search the bracket
+			int step = 1;
+			int high = low;
+			while (high < large.length && large[high] < key) {
+				low = high + 1;
+				high += step;
+				step <<= 1;
+			}
+			high = Math.min(high, large.length - 1);
+			int found = Arrays.binarySearch(large, low, high + 1, key);
+			if (found >= 0) {
+				out[count++] = key;
+				low = found + 1;
+			} else {
+				low = -found - 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * (position &lt;&lt; 8 | field) of the earliest occurrence, or -1 when no
+	 * field contains the needle
+	 */
+	private long matchRank(int doc, String needle) {
+		long best = -1;
+		String[] texts = fields[doc];
+		for (int field = 0; field < texts.length; field++) {
+			String text = texts[field];
+			if (text == null) {
+				continue;
+			}
+			int position = text.indexOf(needle);
+			if (position >= 0) {
+				long rank = ((long) position << 8) | field;
+				if (best < 0 || rank < best) {
+					best = rank;
+				}
+			}
+		}
+		return best;
+	}
+
+	private static String normalize(String text) {
+		return text.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static long trigram(String text, int offset) {
+		return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+	}
+
+	private static final class PostingBuilder {
+		private int[] docs = new int[4];
+		private int size;
+
+		void add(int doc) {
+			if (size > 0 && docs[size - 1] == doc) {
+				return;
+			}
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+			}
+			docs[size++] = doc;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(docs, size);
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package com.ninja.paging;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninja.dto.CursorPage;
+
+/**
+ * Opaque continuation cursors for keyset pagination. A cursor is the sort key
+ * values of the last row of a page (e.g. {"proteinG": 25.0, "fdcId": 171705})
+ * as URL-safe Base64 JSON, so the next page is "rows after this key" rather
+ * than an OFFSET. A cursor is only meaningful for the query that produced it.
+ */
+public final class KeysetCursor {
+
+	public static final int DEFAULT_LIMIT = 50;
+	public static final int MAX_LIMIT = 500;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TypeReference<LinkedHashMap<String, Object>> KEYS = new TypeReference<>() {
+	};
+
+	private KeysetCursor() {
+	}
+
+	/**
+	 * Page size for a requested limit: DEFAULT_LIMIT when absent or not
+	 * positive, capped at MAX_LIMIT
+	 */
+	public static int limit(Integer requested) {
+		return requested == null || requested <= 0 ? DEFAULT_LIMIT : Math.min(requested, MAX_LIMIT);
+	}
+
+	public static String encode(Map<String, ?> keys) {
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(keys));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot encode cursor", e);
+		}
+	}
+
+	/**
+	 * Sort key values of a cursor; empty for a null or blank cursor (first page)
+	 */
+	public static Map<String, Object> decode(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return Map.of();
+		}
+		try {
+			return MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.trim()), KEYS);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+	}
+
+	/**
+	 * The cursor if it holds exactly these keys, else null so paging starts
+	 * over. For a query answered in memory or from the database in different
+	 * orders, e.g. a name search ranked by match position ({"rank", "fdcId"})
+	 * in memory and ordered by fdcId ({"fdcId"}) in SQL: a cursor issued
+	 * before the column stores loaded or fell back then restarts the search
+	 * instead of failing as invalid or resuming at an unrelated row.
+	 */
+	public static String ifKeyedBy(String cursor, String... keys) {
+		Map<String, Object> after = decode(cursor);
+		return after.isEmpty() || after.keySet().equals(Set.of(keys)) ? cursor : null;
+	}
+
+	/**
+	 * Scroll position for Spring Data keyset scrolling. JSON loses the Java
+	 * number types, so the id keys are restored to the entity id types (fdcId
+	 * Integer, id Long) and every other numeric key to Double.
+	 */
+	public static KeysetScrollPosition position(String cursor) {
+		Map<String, Object> keys = new LinkedHashMap<>(decode(cursor));
+		if (keys.isEmpty()) {
+			return ScrollPosition.keyset();
+		}
+		keys.replaceAll((property, value) -> {
+			if (!(value instanceof Number number)) {
+				return value;
+			}
+			return switch (property) {
+			case "fdcId" -> number.intValue();
+			case "id" -> number.longValue();
+			default -> number.doubleValue();
+			};
+		});
+		return ScrollPosition.forward(keys);
+	}
+
+	/**
+	 * Page of an in-memory result. ordinals[0..count) must already be ordered by
+	 * (key, fdcId), ascending or descending; keyAt gives the key of the row at a
+	 * result position, and a null keyProperty means the order is by fdcId alone.
+	 * The cursor is located by binary search, so no OFFSET walk is needed.
+	 */
+	public static <T> CursorPage<T> page(int[] ordinals, int count, String keyProperty, IntToDoubleFunction keyAt,
+			boolean descending, IntUnaryOperator fdcIdOf, IntFunction<T> rowOf, String cursor, int limit) {
+		return page(ordinals, count, keyProperty, keyAt, descending, "fdcId", fdcIdOf::applyAsInt, rowOf, cursor,
+				limit);
+	}
+
+	/**
+	 * Same as
+	 * {@link #page(int[], int, String, IntToDoubleFunction, boolean, IntUnaryOperator, IntFunction, String, int)}
+	 * for rows whose ties are broken by another unique key, e.g. "id"
+	 */
+	public static <T> CursorPage<T> page(int[] ordinals, int count, String keyProperty, IntToDoubleFunction keyAt,
+			boolean descending, String idProperty, IntToLongFunction idOf, IntFunction<T> rowOf, String cursor,
+			int limit) {
+		return page(count, i -> ordinals[i], keyProperty, keyAt, descending, idProperty, idOf, rowOf, cursor, limit);
+	}
+
+	/**
+	 * Same as
+	 * {@link #page(int[], int, String, IntToDoubleFunction, boolean, String, IntToLongFunction, IntFunction, String, int)}
+	 * for a result read in place, e.g. a slice of a sorted index: ordinalAt
+	 * gives the ordinal at each result position, so the matches need not be
+	 * copied into an array first
+	 */
+	public static <T> CursorPage<T> page(int count, IntUnaryOperator ordinalAt, String keyProperty,
+			IntToDoubleFunction keyAt, boolean descending, String idProperty, IntToLongFunction idOf,
+			IntFunction<T> rowOf, String cursor, int limit) {
+		Map<String, Object> after = decode(cursor);
+		int start = 0;
+		if (!after.isEmpty()) {
+			double afterKey = keyProperty == null ? 0 : number(after, keyProperty).doubleValue();
+			long afterId = number(after, idProperty).longValue();
+			int high = count;
+			while (start < high) {
+				int mid = (start + high) >>> 1;
+				double key = keyProperty == null ? 0 : keyAt.applyAsDouble(mid);
+				long id = idOf.applyAsLong(ordinalAt.applyAsInt(mid));
+				int cmp = key != afterKey ? Double.compare(key, afterKey) : Long.compare(id, afterId);
+				if ((descending ? -cmp : cmp) > 0) {
+					high = mid;
+				} else {
+					start = mid + 1;
+				}
+			}
+		}
+
+		int end = (int) Math.min(count, (long) start + limit);
+		List<T> items = new ArrayList<>(end - start);
+		for (int i = start; i < end; i++) {
+			items.add(rowOf.apply(ordinalAt.applyAsInt(i)));
+		}
+		String next = null;
+		if (end < count && end > start) {
+			Map<String, Object> keys = new LinkedHashMap<>();
+			if (keyProperty != null) {
+				keys.put(keyProperty, keyAt.applyAsDouble(end - 1));
+			}
+			keys.put(idProperty, idOf.applyAsLong(ordinalAt.applyAsInt(end - 1)));
+			next = encode(keys);
+		}
+		return new CursorPage<>(items, next);
+	}
+
+	/**
+	 * Page of a filtered scan over rows stored in fdcId order (ordinals
+	 * 0..size). The scan starts right after the cursor's fdcId, found by binary
+	 * search, and stops at the first match past the page, so a page costs the
+	 * rows it skips rather than the whole table.
+	 */
+	public static <T> CursorPage<T> scan(int size, IntUnaryOperator fdcIdOf, IntPredicate matches,
+			IntFunction<T> rowOf, String cursor, int limit) {
+		return scan("fdcId", size, fdcIdOf::applyAsInt, matches, rowOf, cursor, limit);
+	}
+
+	/**
+	 * Same as {@link #scan(int, IntUnaryOperator, IntPredicate, IntFunction, String, int)}
+	 * for rows stored in ascending order of another unique key, e.g. "id"
+	 */
+	public static <T> CursorPage<T> scan(String keyProperty, int size, IntToLongFunction keyOf,
+			IntPredicate matches, IntFunction<T> rowOf, String cursor, int limit) {
+		int start = start(keyProperty, size, keyOf, cursor);
+		List<T> items = new ArrayList<>(Math.min(limit, 64));
+		int last = -1;
+		for (int row = start; row < size; row++) {
+			if (!matches.test(row)) {
+				continue;
+			}
+			if (items.size() == limit) {
+				return new CursorPage<>(items, encode(Map.of(keyProperty, keyOf.applyAsLong(last))));
+			}
+			items.add(rowOf.apply(row));
+			last = row;
+		}
+		return new CursorPage<>(items, null);
+	}
+
+	/**
+	 * Matches of a query over rows stored in fdcId order, found without
+	 * collecting them all
+	 */
+	@FunctionalInterface
+	public interface OrdinalSearch {
+
+		/**
+		 * Write the out.length smallest matching ordinals greater than after to
+		 * out, ascending, and return how many were written
+		 */
+		int firstAfter(int after, int[] out);
+	}
+
+	/**
+	 * Page of a query over rows stored in fdcId order (ordinals 0..size) that
+	 * can seek past the cursor itself, e.g. a k-d tree search keeping the
+	 * smallest ordinals: the only buffer is the page plus one row, however
+	 * many rows match
+	 */
+	public static <T> CursorPage<T> seek(int size, IntUnaryOperator fdcIdOf, OrdinalSearch matches,
+			IntFunction<T> rowOf, String cursor, int limit) {
+		int start = start("fdcId", size, fdcIdOf::applyAsInt, cursor);
+		int[] found = new int[limit + 1];
+		int count = matches.firstAfter(start - 1, found);
+		List<T> items = new ArrayList<>(Math.min(count, limit));
+		for (int i = 0; i < count && i < limit; i++) {
+			items.add(rowOf.apply(found[i]));
+		}
+		String next = count > limit ? encode(Map.of("fdcId", fdcIdOf.applyAsInt(found[limit - 1]))) : null;
+		return new CursorPage<>(items, next);
+	}
+
+	/**
+	 * First ordinal whose key is past the cursor's, by binary search over rows
+	 * stored in ascending key order; 0 for the first page
+	 */
+	private static int start(String keyProperty, int size, IntToLongFunction keyOf, String cursor) {
+		Map<String, Object> after = decode(cursor);
+		int start = 0;
+		if (!after.isEmpty()) {
+			long afterKey = number(after, keyProperty).longValue();
+			int high = size;
+			while (start < high) {
+				int mid = (start + high) >>> 1;
+				if (keyOf.applyAsLong(mid) > afterKey) {
+					high = mid;
+				} else {
+					start = mid + 1;
+				}
+			}
+		}
+		return start;
+	}
+
+	private static Number number(Map<String, Object> keys, String property) {
+		if (keys.get(property) instanceof Number number) {
+			return number;
+		}
+		throw new IllegalArgumentException("Invalid cursor");
+	}
+
+	/**
+	 * Page of a Spring Data window, with a cursor for the position after its last
+	 * row when there are more
+	 */
+	public static <T> CursorPage<T> page(Window<T> window) {
+		List<T> items = window.getContent();
+		String next = null;
+		if (window.hasNext() && !items.isEmpty()
+				&& window.positionAt(items.size() - 1) instanceof KeysetScrollPosition keyset) {
+			next = encode(keyset.getKeys());
+		}
+		return new CursorPage<>(items, next);
+	}
+}
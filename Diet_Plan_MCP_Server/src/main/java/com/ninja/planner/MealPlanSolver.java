@@ -0,0 +1,316 @@
+package com.ninja.planner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks a food and a portion for the pre-meal and the main meal of every
+ * {@link MealTime}, using each food at most once a day, so that the day meets
+ * a calorie target and caps on the share of energy from fat and from
+ * carbohydrate.
+ *
+ * A slot's portion is the one that serves the slot's share of the calories,
+ * rounded and clamped to sensible gram limits, so a plan is just a choice of
+ * foods and its cost a sum over eight slots: the relative calorie deviation of
+ * the day and of each meal, plus a heavy penalty for energy ratios above
+ * their caps. A greedy pass builds a first plan, a best-improvement local
+ * search over replacements and swaps refines it, and seeded random restarts
+ * from perturbed plans continue until a feasible plan is within about 1% of
+ * every target or the time budget runs out; the same foods and seed give the
+ * same plan unless the budget cuts the restarts short.
+ */
+public final class MealPlanSolver {
+
+	public static final int SLOTS = MealTime.values().length * 2;
+
+	// Share of a meal's calories served as its pre-meal
+	static final double PRE_MEAL_SHARE = 0.2;
+	// A plan within this fraction of the calorie target meets it
+	static final double CALORIE_TOLERANCE = 0.05;
+
+	private static final int MIN_GRAMS = 20;
+	private static final int MAX_PRE_MEAL_GRAMS = 250;
+	private static final int MAX_MAIN_GRAMS = 400;
+	private static final int GRAM_STEP = 5;
+	private static final int RESTARTS = 200;
+	private static final int PERTURBED_SLOTS = 2;
+	private static final double MEAL_WEIGHT = 0.5;
+	private static final double RATIO_WEIGHT = 10;
+	// Restarts stop once a feasible plan costs less than this
+	private static final double GOOD_ENOUGH = 0.01;
+
+	/**
+	 * Daily calories and the caps, in percent of calories, on energy from fat
+	 * and from carbohydrate; a cap of 100 or more is no cap
+	 */
+	public record Targets(double calories, double maxFatEnergyPct, double maxCarbEnergyPct) {
+	}
+
+	/**
+	 * The food index and grams of every slot, slot = 2 * meal ordinal for the
+	 * pre-meal and one more for the main meal. feasible is set when the day is
+	 * within 5% of the calorie target and no energy ratio is above its cap.
+	 */
+	public record Solution(int[] foods, int[] grams, boolean feasible) {
+	}
+
+	private final Targets targets;
+	private final int foodCount;
+	private final double[] slotTargets = new double[SLOTS];
+	// Per slot and food: the portion and the calories, fat and carbs it serves
+	private final int[][] grams;
+	private final double[][] kcal;
+	private final double[][] fat;
+	private final double[][] carbs;
+	private final boolean[][] allowed;
+
+	private MealPlanSolver(List<PlannerFood> foods, Targets targets) {
+		this.targets = targets;
+		this.foodCount = foods.size();
+		this.grams = new int[SLOTS][foodCount];
+		this.kcal = new double[SLOTS][foodCount];
+		this.fat = new double[SLOTS][foodCount];
+		this.carbs = new double[SLOTS][foodCount];
+		this.allowed = new boolean[SLOTS][foodCount];
+
+		int sides = (int) foods.stream().filter(PlannerFood::side).count();
+		boolean sidesOnly = sides >= MealTime.values().length;
+		boolean mainsOnly = foodCount - sides >= MealTime.values().length;
+		for (int slot = 0; slot < SLOTS; slot++) {
+			boolean preMeal = slot % 2 == 0;
+			double mealTarget = targets.calories() * MealTime.values()[slot / 2].getShare();
+			slotTargets[slot] = mealTarget * (preMeal ? PRE_MEAL_SHARE : 1 - PRE_MEAL_SHARE);
+			for (int f = 0; f < foodCount; f++) {
+				PlannerFood food = foods.get(f);
+				allowed[slot][f] = preMeal ? !sidesOnly || food.side() : !mainsOnly || !food.side();
+				int portion = portion(slotTargets[slot], food.kcal(), preMeal ? MAX_PRE_MEAL_GRAMS : MAX_MAIN_GRAMS);
+				grams[slot][f] = portion;
+				kcal[slot][f] = food.kcal() * portion / 100;
+				fat[slot][f] = food.fatG() * portion / 100;
+				carbs[slot][f] = food.carbsG() * portion / 100;
+			}
+		}
+	}
+
+	/**
+	 * Plan a day from foods with positive calories; at least {@link #SLOTS}
+	 * foods are needed. Seed 0 refines the greedy plan and other seeds a
+	 * randomly altered one, so they give alternative plans. budgetNanos bounds
+	 * the random restarts.
+	 */
+	public static Solution solve(List<PlannerFood> foods, Targets targets, long seed, long budgetNanos) {
+		if (foods.size() < SLOTS) {
+			throw new IllegalArgumentException(
+					"At least " + SLOTS + " distinct foods are needed for a day plan, found " + foods.size());
+		}
+		return new MealPlanSolver(foods, targets).search(seed, System.nanoTime() + budgetNanos);
+	}
+
+	private static int portion(double targetKcal, double kcalPer100g, int maxGrams) {
+		double exact = kcalPer100g <= 0 ? maxGrams : targetKcal * 100 / kcalPer100g;
+		int rounded = (int) Math.round(exact / GRAM_STEP) * GRAM_STEP;
+		return Math.max(MIN_GRAMS, Math.min(maxGrams, rounded));
+	}
+
+	private Solution search(long seed, long deadline) {
+		int[] plan = new int[SLOTS];
+		boolean[] used = new boolean[foodCount];
+		greedy(plan, used);
+		Random random = new Random(seed);
+		if (seed != 0) {
+			// Other seeds start from a shuffled greedy plan, for alternative plans
+			for (int i = 0; i < SLOTS / PERTURBED_SLOTS; i++) {
+				perturb(plan, used, random);
+			}
+		}
+		climb(plan, used);
+		int[] best = plan.clone();
+		double bestCost = cost(best);
+
+		for (int restart = 0; restart < RESTARTS && System.nanoTime() < deadline
+				&& !(bestCost < GOOD_ENOUGH && isFeasible(best)); restart++) {
+			perturb(plan, used, random);
+			climb(plan, used);
+			double cost = cost(plan);
+			if (cost < bestCost) {
+				bestCost = cost;
+				best = plan.clone();
+			} else {
+				System.arraycopy(best, 0, plan, 0, SLOTS);
+				Arrays.fill(used, false);
+				for (int food : plan) {
+					used[food] = true;
+				}
+			}
+		}
+
+		int[] portions = new int[SLOTS];
+		for (int slot = 0; slot < SLOTS; slot++) {
+			portions[slot] = grams[slot][best[slot]];
+		}
+		return new Solution(best, portions, isFeasible(best));
+	}
+
+	/**
+	 * Fill the slots in order, each with the unused food that keeps the partial
+	 * plan cheapest
+	 */
+	private void greedy(int[] plan, boolean[] used) {
+		Arrays.fill(plan, -1);
+		for (int slot = 0; slot < SLOTS; slot++) {
+			int bestFood = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int f = 0; f < foodCount; f++) {
+				if (!allowed[slot][f] || used[f]) {
+					continue;
+				}
+				plan[slot] = f;
+				double cost = cost(plan);
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestFood = f;
+				}
+			}
+			if (bestFood < 0) {
+				throw new IllegalArgumentException("Not enough distinct foods to fill every meal");
+			}
+			plan[slot] = bestFood;
+			used[bestFood] = true;
+		}
+	}
+
+	/**
+	 * Apply the best replacement of one slot's food or swap of two slots' foods
+	 * until none lowers the cost
+	 */
+	private void climb(int[] plan, boolean[] used) {
+		double current = cost(plan);
+		while (true) {
+			double bestCost = current;
+			int bestSlot = -1;
+			int bestOther = -1;
+			boolean swap = false;
+			for (int slot = 0; slot < SLOTS; slot++) {
+				int old = plan[slot];
+				for (int f = 0; f < foodCount; f++) {
+					if (!allowed[slot][f] || used[f]) {
+						continue;
+					}
+					plan[slot] = f;
+					double cost = cost(plan);
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestSlot = slot;
+						bestOther = f;
+						swap = false;
+					}
+				}
+				plan[slot] = old;
+				for (int other = slot + 1; other < SLOTS; other++) {
+					if (!allowed[slot][plan[other]] || !allowed[other][old]) {
+						continue;
+					}
+					plan[slot] = plan[other];
+					plan[other] = old;
+					double cost = cost(plan);
+					plan[other] = plan[slot];
+					plan[slot] = old;
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestSlot = slot;
+						bestOther = other;
+						swap = true;
+					}
+				}
+			}
+			if (bestSlot < 0) {
+				return;
+			}
+			if (swap) {
+				int food = plan[bestSlot];
+				plan[bestSlot] = plan[bestOther];
+				plan[bestOther] = food;
+			} else {
+				used[plan[bestSlot]] = false;
+				plan[bestSlot] = bestOther;
+				used[bestOther] = true;
+			}
+			current = bestCost;
+		}
+	}
+
+	/**
+	 * Give a few random slots a random unused food they allow
+	 */
+	private void perturb(int[] plan, boolean[] used, Random random) {
+		for (int i = 0; i < PERTURBED_SLOTS; i++) {
+			int slot = random.nextInt(SLOTS);
+			int start = random.nextInt(foodCount);
+			for (int step = 0; step < foodCount; step++) {
+				int f = (start + step) % foodCount;
+				if (allowed[slot][f] && !used[f]) {
+					used[plan[slot]] = false;
+					plan[slot] = f;
+					used[f] = true;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cost of a plan; slots holding -1 are left out, with their calorie targets
+	 */
+	private double cost(int[] plan) {
+		double total = 0;
+		double target = 0;
+		double fatG = 0;
+		double carbsG = 0;
+		double mealDeviation = 0;
+		for (int meal = 0; meal < SLOTS; meal += 2) {
+			double mealKcal = 0;
+			double mealTarget = 0;
+			for (int slot = meal; slot < meal + 2; slot++) {
+				int f = plan[slot];
+				if (f >= 0) {
+					mealKcal += kcal[slot][f];
+					mealTarget += slotTargets[slot];
+					fatG += fat[slot][f];
+					carbsG += carbs[slot][f];
+				}
+			}
+			mealDeviation += Math.abs(mealKcal - mealTarget);
+			total += mealKcal;
+			target += mealTarget;
+		}
+		double calories = targets.calories();
+		return Math.abs(total - target) / calories + MEAL_WEIGHT * mealDeviation / calories
+				+ RATIO_WEIGHT * ratioExcess(total, fatG, carbsG);
+	}
+
+	/**
+	 * How far, as fractions of the energy, fat and carbohydrate go over their
+	 * caps
+	 */
+	private double ratioExcess(double total, double fatG, double carbsG) {
+		if (total <= 0) {
+			return 0;
+		}
+		return Math.max(0, fatG * 9 / total - targets.maxFatEnergyPct() / 100)
+				+ Math.max(0, carbsG * 4 / total - targets.maxCarbEnergyPct() / 100);
+	}
+
+	private boolean isFeasible(int[] plan) {
+		double total = 0;
+		double fatG = 0;
+		double carbsG = 0;
+		for (int slot = 0; slot < SLOTS; slot++) {
+			total += kcal[slot][plan[slot]];
+			fatG += fat[slot][plan[slot]];
+			carbsG += carbs[slot][plan[slot]];
+		}
+		return Math.abs(total - targets.calories()) <= CALORIE_TOLERANCE * targets.calories()
+				&& ratioExcess(total, fatG, carbsG) == 0;
+	}
+}
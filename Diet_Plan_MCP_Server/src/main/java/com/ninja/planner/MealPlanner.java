@@ -0,0 +1,327 @@
+package com.ninja.planner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.dto.GeneratedMealPlan;
+import com.ninja.dto.PlannedMeal;
+import com.ninja.dto.PlannedPortion;
+import com.ninja.entity.DietFood;
+import com.ninja.entity.Food;
+import com.ninja.entity.Nutrient;
+import com.ninja.repository.FoodRepository;
+import com.ninja.repository.LchfFoodRepository;
+import com.ninja.repository.LfvFoodRepository;
+import com.ninja.repository.NutrientRepository;
+import com.ninja.store.Allergen;
+import com.ninja.store.DietFoodStore;
+import com.ninja.store.DietFoodTable;
+import com.ninja.store.FoodColumnStore;
+import com.ninja.store.FoodTable;
+import com.ninja.store.NutrientColumnStore;
+import com.ninja.store.NutrientTable;
+
+/**
+ * Day meal plans computed locally with {@link MealPlanSolver}. The foods are
+ * the allowed entries of the diet's allow-list, each matched by name to the
+ * nutrient row whose food name contains it earliest and is shortest, among
+ * the rows that have the macros the diet caps. With the
+ * in-memory stores loaded the matched foods are kept per loaded tables, so a
+ * plan costs only the solver's search; in JPA mode they are matched with one
+ * query per allow-list entry.
+ */
+@Component
+public class MealPlanner {
+
+	private static final Logger log = LoggerFactory.getLogger(MealPlanner.class);
+
+	// Time allowed for the solver's restarts
+	private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	// Ranked name matches compared when matching an allow-list entry
+	private static final int MATCHES_COMPARED = 50;
+	private static final List<String> SIDE_CATEGORY_WORDS = List.of("vegetable", "fruit", "green", "salad", "leaf",
+			"berr");
+
+	/**
+	 * Diets with an allow-list, the limitations of the entries they allow and
+	 * the caps on energy from fat and carbohydrate, in percent
+	 */
+	public enum Diet {
+
+		LFV(List.of("OK", "MODERATION"), 5, 100),
+		LCHF(List.of("OK", "RECOMMENDED"), 100, 20);
+
+		private final List<String> allowedLimitations;
+		private final double maxFatEnergyPct;
+		private final double maxCarbEnergyPct;
+
+		Diet(List<String> allowedLimitations, double maxFatEnergyPct, double maxCarbEnergyPct) {
+			this.allowedLimitations = allowedLimitations;
+			this.maxFatEnergyPct = maxFatEnergyPct;
+			this.maxCarbEnergyPct = maxCarbEnergyPct;
+		}
+
+		/**
+		 * The diet named LFV or LCHF, or by the names the client uses for them
+		 * ("low fat vegan", "vegan", "vegetarian", "low carb high fat",
+		 * "meat-based")
+		 *
+		 * @throws IllegalArgumentException for any other name
+		 */
+		public static Diet of(String name) {
+			String key = name.trim().toLowerCase(Locale.ROOT).replace('-', ' ');
+			return switch (key) {
+			case "lfv", "low fat vegan", "low fat vegetarian", "vegan", "vegetarian" -> LFV;
+			case "lchf", "low carb high fat", "meat based" -> LCHF;
+			default -> throw new IllegalArgumentException("Unknown diet type '" + name + "', expected LFV or LCHF");
+			};
+		}
+
+		public double getMaxFatEnergyPct() {
+			return maxFatEnergyPct;
+		}
+
+		public double getMaxCarbEnergyPct() {
+			return maxCarbEnergyPct;
+		}
+
+		/**
+		 * Whether a nutrient row has energy and values for the macros the diet
+		 * caps; an unknown capped macro would count as zero and look ideal
+		 */
+		boolean canPlan(Nutrient nutrient) {
+			return nutrient.getEnergyKcal() != null && nutrient.getEnergyKcal() > 0
+					&& (maxFatEnergyPct >= 100 || nutrient.getTotalFatG() != null)
+					&& (maxCarbEnergyPct >= 100 || nutrient.getCarbohydrateG() != null);
+		}
+
+		boolean allows(DietFood food) {
+			return food.getLimitation() != null
+					&& allowedLimitations.contains(food.getLimitation().trim().toUpperCase(Locale.ROOT));
+		}
+	}
+
+	private final DietFoodStore dietFoodStore;
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final LfvFoodRepository lfvFoodRepository;
+	private final LchfFoodRepository lchfFoodRepository;
+	private final NutrientRepository nutrientRepository;
+	private final FoodRepository foodRepository;
+	private final TransactionTemplate readOnlyTransaction;
+
+	private volatile Matched lfvFoods;
+	private volatile Matched lchfFoods;
+
+	private record Matched(DietFoodTable<?> dietTable, NutrientTable nutrients, FoodTable foods,
+			List<PlannerFood> planned) {
+	}
+
+	@Autowired
+	public MealPlanner(DietFoodStore dietFoodStore, NutrientColumnStore nutrientStore, FoodColumnStore foodStore,
+			LfvFoodRepository lfvFoodRepository, LchfFoodRepository lchfFoodRepository,
+			NutrientRepository nutrientRepository, FoodRepository foodRepository,
+			PlatformTransactionManager transactionManager) {
+		this.dietFoodStore = dietFoodStore;
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.lfvFoodRepository = lfvFoodRepository;
+		this.lchfFoodRepository = lchfFoodRepository;
+		this.nutrientRepository = nutrientRepository;
+		this.foodRepository = foodRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * A day plan of about calories kcal for the diet, leaving out foods flagged
+	 * with an excluded allergen (and, when allergens are excluded, foods
+	 * without allergen flags) and foods whose allow-list or nutrient name is in
+	 * excludedFoods (lower case). variant seeds the search, so another variant
+	 * may give another plan for the same request.
+	 */
+	public GeneratedMealPlan plan(Diet diet, int calories, long excludedAllergens, Set<String> excludedFoods,
+			long variant) {
+		List<PlannerFood> foods = new ArrayList<>();
+		for (PlannerFood food : foods(diet)) {
+			if ((food.allergenMask() & excludedAllergens) == 0
+					&& !excludedFoods.contains(food.name().toLowerCase(Locale.ROOT))
+					&& !excludedFoods.contains(food.foodName().toLowerCase(Locale.ROOT))) {
+				foods.add(food);
+			}
+		}
+		MealPlanSolver.Targets targets = new MealPlanSolver.Targets(calories, diet.maxFatEnergyPct,
+				diet.maxCarbEnergyPct);
+		MealPlanSolver.Solution solution = MealPlanSolver.solve(foods, targets, variant, BUDGET_NANOS);
+		return result(diet, calories, foods, solution);
+	}
+
+	/**
+	 * fdcIds of the nutrient rows the diet's allow-list is matched to, the
+	 * foods plan chooses from, ascending
+	 */
+	public int[] allowedFdcIds(Diet diet) {
+		return foods(diet).stream().mapToInt(PlannerFood::fdcId).sorted().toArray();
+	}
+
+	private List<PlannerFood> foods(Diet diet) {
+		NutrientTable nutrients = nutrientStore.table();
+		FoodTable foodTable = foodStore.table();
+		DietFoodTable<? extends DietFood> dietTable = diet == Diet.LFV ? dietFoodStore.lfv() : dietFoodStore.lchf();
+		if (nutrients == null || dietTable == null) {
+			return readOnlyTransaction.execute(status -> query(diet));
+		}
+		Matched matched = diet == Diet.LFV ? lfvFoods : lchfFoods;
+		if (matched != null && matched.dietTable() == dietTable && matched.nutrients() == nutrients
+				&& matched.foods() == foodTable) {
+			return matched.planned();
+		}
+		long started = System.nanoTime();
+		List<PlannerFood> planned = match(diet, dietTable, nutrients, foodTable);
+		Matched loaded = new Matched(dietTable, nutrients, foodTable, planned);
+		if (diet == Diet.LFV) {
+			lfvFoods = loaded;
+		} else {
+			lchfFoods = loaded;
+		}
+		log.info("Matched {} {} allow-list foods to nutrient rows in {} ms", planned.size(), diet,
+				(System.nanoTime() - started) / 1_000_000);
+		return planned;
+	}
+
+	/**
+	 * The diet's allowed entries, each with its closest nutrient row that has
+	 * energy and the macros the diet caps; a food matched by two entries is
+	 * kept once
+	 */
+	static List<PlannerFood> match(Diet diet, DietFoodTable<? extends DietFood> dietTable, NutrientTable nutrients,
+			FoodTable foodTable) {
+		List<PlannerFood> planned = new ArrayList<>();
+		Set<Integer> seen = new HashSet<>();
+		for (DietFood entry : dietTable.rows()) {
+			if (!diet.allows(entry)) {
+				continue;
+			}
+			Comparator<Nutrient> closeness = closeness(entry.getName());
+			Nutrient best = null;
+			long[] ranked = nutrients.searchByNameRanked(entry.getName());
+			for (int i = 0; i < ranked.length && i < MATCHES_COMPARED; i++) {
+				Nutrient candidate = nutrients.row((int) ranked[i]);
+				if (diet.canPlan(candidate) && (best == null || closeness.compare(candidate, best) < 0)) {
+					best = candidate;
+				}
+			}
+			if (best != null && seen.add(best.getFdcId())) {
+				int ordinal = foodTable == null ? -1 : foodTable.ordinalOf(best.getFdcId());
+				planned.add(plannerFood(entry, best, ordinal < 0 ? -1L : foodTable.allergenMask(ordinal)));
+			}
+		}
+		return List.copyOf(planned);
+	}
+
+	/**
+	 * JPA mode: the same matching with a name query per allow-list entry
+	 */
+	private List<PlannerFood> query(Diet diet) {
+		List<? extends DietFood> entries = diet == Diet.LFV ? lfvFoodRepository.findAllowedFoods()
+				: lchfFoodRepository.findAllowedFoods();
+		List<DietFood> allowed = new ArrayList<>();
+		List<Nutrient> matches = new ArrayList<>();
+		Set<Integer> seen = new HashSet<>();
+		for (DietFood entry : entries) {
+			nutrientRepository.searchFoodsByAllNames(entry.getName()).stream()
+					.filter(diet::canPlan)
+					.min(closeness(entry.getName()))
+					.filter(best -> seen.add(best.getFdcId()))
+					.ifPresent(best -> {
+						allowed.add(entry);
+						matches.add(best);
+					});
+		}
+		Map<Integer, Food> foods = foodRepository.findByFdcIdIn(seen).stream()
+				.collect(Collectors.toMap(Food::getFdcId, Function.identity()));
+		List<PlannerFood> planned = new ArrayList<>(matches.size());
+		for (int i = 0; i < matches.size(); i++) {
+			Food food = foods.get(matches.get(i).getFdcId());
+			planned.add(plannerFood(allowed.get(i), matches.get(i),
+					food == null ? -1L : Allergen.parse(food.getAllergenFlags())));
+		}
+		return planned;
+	}
+
+	/**
+	 * Nutrient rows whose food name contains the allow-list name earliest
+	 * first, then shorter names, then lower fdcIds
+	 */
+	private static Comparator<Nutrient> closeness(String name) {
+		String lowerName = name.toLowerCase(Locale.ROOT);
+		return Comparator.<Nutrient>comparingInt(n -> position(n.getFoodName(), lowerName))
+				.thenComparingInt(n -> n.getFoodName().length())
+				.thenComparingInt(Nutrient::getFdcId);
+	}
+
+	private static int position(String foodName, String lowerName) {
+		int at = foodName.toLowerCase(Locale.ROOT).indexOf(lowerName);
+		return at < 0 ? Integer.MAX_VALUE : at;
+	}
+
+	private static PlannerFood plannerFood(DietFood entry, Nutrient nutrient, long allergenMask) {
+		String category = entry.getCategory() == null ? "" : entry.getCategory().toLowerCase(Locale.ROOT);
+		boolean side = SIDE_CATEGORY_WORDS.stream().anyMatch(category::contains);
+		return new PlannerFood(entry.getName(), entry.getCategory(), nutrient.getFdcId(), nutrient.getFoodName(),
+				nutrient.getEnergyKcal(), orZero(nutrient.getCarbohydrateG()), orZero(nutrient.getProteinG()),
+				orZero(nutrient.getTotalFatG()), orZero(nutrient.getFiberG()), allergenMask, side);
+	}
+
+	private static double orZero(Double value) {
+		return value == null ? 0 : value;
+	}
+
+	private static GeneratedMealPlan result(Diet diet, int calories, List<PlannerFood> foods,
+			MealPlanSolver.Solution solution) {
+		List<PlannedMeal> meals = new ArrayList<>();
+		double[] day = new double[5];
+		for (MealTime time : MealTime.values()) {
+			int slot = time.ordinal() * 2;
+			PlannedPortion preMeal = portion(foods.get(solution.foods()[slot]), solution.grams()[slot]);
+			PlannedPortion mainMeal = portion(foods.get(solution.foods()[slot + 1]), solution.grams()[slot + 1]);
+			double[] meal = { preMeal.getCalories() + mainMeal.getCalories(),
+					preMeal.getCarbsG() + mainMeal.getCarbsG(), preMeal.getProteinG() + mainMeal.getProteinG(),
+					preMeal.getFatG() + mainMeal.getFatG(), preMeal.getFiberG() + mainMeal.getFiberG() };
+			for (int i = 0; i < day.length; i++) {
+				day[i] += meal[i];
+			}
+			meals.add(new PlannedMeal(time.getLabel(), time.getPreMealTime(), preMeal, time.getMainMealTime(),
+					mainMeal, round(meal[0]), round(meal[1]), round(meal[2]), round(meal[3]), round(meal[4])));
+		}
+		return new GeneratedMealPlan(diet.name(), calories, round(day[0]), round(day[1]), round(day[2]),
+				round(day[3]), round(day[4]), round(day[3] * 9 * 100 / day[0]), round(day[1] * 4 * 100 / day[0]),
+				solution.feasible(), meals);
+	}
+
+	private static PlannedPortion portion(PlannerFood food, int grams) {
+		double scale = grams / 100.0;
+		return new PlannedPortion(food.name(), food.category(), food.fdcId(), food.foodName(), grams,
+				round(food.kcal() * scale), round(food.carbsG() * scale), round(food.proteinG() * scale),
+				round(food.fatG() * scale), round(food.fiberG() * scale));
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+}
@@ -0,0 +1,41 @@
+package com.ninja.planner;
+
+/**
+ * The meals of a day plan in serving order, each with its share of the daily
+ * calories and the times of its pre-meal and main meal
+ */
+public enum MealTime {
+
+	BREAKFAST("breakfast", 0.25, "7:00 AM", "7:30 AM"),
+	LUNCH("lunch", 0.35, "12:30 PM", "1:00 PM"),
+	SNACKS("snacks", 0.10, "4:00 PM", "4:30 PM"),
+	DINNER("dinner", 0.30, "7:30 PM", "8:00 PM");
+
+	private final String label;
+	private final double share;
+	private final String preMealTime;
+	private final String mainMealTime;
+
+	MealTime(String label, double share, String preMealTime, String mainMealTime) {
+		this.label = label;
+		this.share = share;
+		this.preMealTime = preMealTime;
+		this.mainMealTime = mainMealTime;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public double getShare() {
+		return share;
+	}
+
+	public String getPreMealTime() {
+		return preMealTime;
+	}
+
+	public String getMainMealTime() {
+		return mainMealTime;
+	}
+}
@@ -0,0 +1,12 @@
+package com.ninja.planner;
+
+/**
+ * A food the meal planner can portion: an allow-list entry and the nutrient
+ * row matched to it, with nutrient amounts per 100g (0 when unknown).
+ * allergenMask is the food row's {@link com.ninja.store.Allergen} mask, or
+ * every bit when there is no food row. side marks foods suited to a pre-meal
+ * (vegetables, fruits, salads).
+ */
+public record PlannerFood(String name, String category, int fdcId, String foodName, double kcal, double carbsG,
+		double proteinG, double fatG, double fiberG, long allergenMask, boolean side) {
+}
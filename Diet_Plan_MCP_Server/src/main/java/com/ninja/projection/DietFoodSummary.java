@@ -0,0 +1,16 @@
+package com.ninja.projection;
+
+/**
+ * Closed projection shared by LfvFood and LchfFood listings; leaves out the
+ * free-text notes column.
+ */
+public interface DietFoodSummary {
+
+	Long getId();
+
+	String getName();
+
+	String getCategory();
+
+	String getLimitation();
+}
@@ -0,0 +1,14 @@
+package com.ninja.projection;
+
+/**
+ * Closed projection of a food for listings: Spring Data selects only these
+ * columns, so no Food entity is instantiated or tracked.
+ */
+public interface FoodSummary {
+
+	Integer getFdcId();
+
+	String getFoodName();
+
+	String getFoodCategory();
+}
@@ -0,0 +1,20 @@
+package com.ninja.projection;
+
+/**
+ * Closed projection of a nutrient row for listings: identity plus the four
+ * macronutrient columns, instead of all twenty columns of the entity.
+ */
+public interface NutrientSummary {
+
+	Integer getFdcId();
+
+	String getFoodName();
+
+	Double getEnergyKcal();
+
+	Double getProteinG();
+
+	Double getTotalFatG();
+
+	Double getCarbohydrateG();
+}
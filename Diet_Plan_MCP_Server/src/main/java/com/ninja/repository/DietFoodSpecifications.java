@@ -0,0 +1,84 @@
+package com.ninja.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ninja.entity.LchfFood;
+import com.ninja.entity.LfvFood;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Criteria equivalents of the LfvFoodRepository and LchfFoodRepository list
+ * queries. Both entities have the same name, category and limitation
+ * attributes, so one set of specifications serves both.
+ */
+public final class DietFoodSpecifications {
+
+	/**
+	 * Every column of the lfv_foods table, copied into detached entities, for
+	 * pages read without hydrating managed ones
+	 */
+	public static final ProjectedScroll<LfvFood, LfvFood> LFV_ROWS = ProjectedScroll.of(LfvFood.class, LfvFood::new)
+			.column("id", Long.class, LfvFood::setId)
+			.column("name", String.class, LfvFood::setName)
+			.column("category", String.class, LfvFood::setCategory)
+			.column("limitation", String.class, LfvFood::setLimitation)
+			.column("notes", String.class, LfvFood::setNotes);
+
+	/**
+	 * Same for the lchf_foods table
+	 */
+	public static final ProjectedScroll<LchfFood, LchfFood> LCHF_ROWS = ProjectedScroll
+			.of(LchfFood.class, LchfFood::new)
+			.column("id", Long.class, LchfFood::setId)
+			.column("name", String.class, LchfFood::setName)
+			.column("category", String.class, LchfFood::setCategory)
+			.column("limitation", String.class, LchfFood::setLimitation)
+			.column("notes", String.class, LchfFood::setNotes);
+
+	private DietFoodSpecifications() {
+	}
+
+	public static <T> Specification<T> nameContains(String name) {
+		String pattern = "%" + name.toUpperCase(Locale.ROOT) + "%";
+		return (root, query, cb) -> cb.like(cb.upper(root.get("name")), pattern);
+	}
+
+	public static <T> Specification<T> categoryIs(String category) {
+		return (root, query, cb) -> cb.equal(cb.upper(root.get("category")), category.toUpperCase(Locale.ROOT));
+	}
+
+	public static <T> Specification<T> limitationIs(String limitation) {
+		return (root, query, cb) -> cb.equal(cb.upper(root.get("limitation")), limitation.toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Limitation in any of the given upper-case statuses
+	 */
+	public static <T> Specification<T> limitationIn(String... limitations) {
+		return (root, query, cb) -> cb.upper(root.get("limitation")).in((Object[]) limitations);
+	}
+
+	/**
+	 * Same match as findByMultipleCriteria: null criteria are ignored
+	 */
+	public static <T> Specification<T> matching(String name, String category, String limitation) {
+		return (root, query, cb) -> {
+			List<Predicate> predicates = new ArrayList<>();
+			if (name != null) {
+				predicates.add(DietFoodSpecifications.<T>nameContains(name).toPredicate(root, query, cb));
+			}
+			if (category != null) {
+				predicates.add(DietFoodSpecifications.<T>categoryIs(category).toPredicate(root, query, cb));
+			}
+			if (limitation != null) {
+				predicates.add(DietFoodSpecifications.<T>limitationIs(limitation).toPredicate(root, query, cb));
+			}
+			return cb.and(predicates.toArray(new Predicate[0]));
+		};
+	}
+}
@@ -1,23 +1,67 @@
 package com.ninja.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ninja.entity.Food;
+import com.ninja.projection.FoodSummary;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
  * Repository interface for Food entity.
  * Provides data access methods for the foods table.
+ * Every method, declared or inherited, runs in a read-only transaction.
  */
 @Repository
-public interface FoodRepository extends JpaRepository<Food, Long> {
+@Transactional(readOnly = true)
+public interface FoodRepository extends JpaRepository<Food, Integer>, JpaSpecificationExecutor<Food> {
+
+    /**
+     * All foods, one slice at a time (no count query)
+     */
+    Slice<FoodSummary> findAllBy(Pageable pageable);
+
+    /**
+     * Every food as a read-only stream, fetched from the JDBC cursor in batches.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+    Stream<Food> streamAllBy();
+
+    /**
+     * Foods for a set of fdcIds in one IN query, in no particular order
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Food> findByFdcIdIn(Collection<Integer> fdcIds);
+
+    /**
+     * Foods whose name contains the search term, each paired with its nutrient
+     * row (null when there is none) in one joined query, in fdcId order after
+     * afterFdcId
+     */
+    @Query("SELECT f, n FROM Food f LEFT JOIN Nutrient n ON n.fdcId = f.fdcId "
+            + "WHERE LOWER(f.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) AND f.fdcId > :afterFdcId "
+            + "ORDER BY f.fdcId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Object[]> searchWithNutrients(@Param("searchTerm") String searchTerm, @Param("afterFdcId") int afterFdcId,
+            Limit limit);
 
     /**
      * Find foods by name containing the search term (case-insensitive)
@@ -28,8 +72,9 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     /**
      * Find foods by name containing the search term with pagination
      */
-    @Query("SELECT f FROM Food f WHERE LOWER(f.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    Page<Food> findByFoodNameContainingIgnoreCase(@Param("searchTerm") String searchTerm, Pageable pageable);
+    @Query("SELECT f.fdcId AS fdcId, f.foodName AS foodName, f.foodCategory AS foodCategory FROM Food f "
+            + "WHERE LOWER(f.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    Slice<FoodSummary> findByFoodNameContainingIgnoreCase(@Param("searchTerm") String searchTerm, Pageable pageable);
 
     /**
      * Find foods by category
@@ -39,7 +84,7 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     /**
      * Find foods by category with pagination
      */
-    Page<Food> findByFoodCategoryIgnoreCase(String category, Pageable pageable);
+    Slice<Food> findByFoodCategoryIgnoreCase(String category, Pageable pageable);
 
     /**
      * Find foods by data type
@@ -73,7 +118,7 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     @Query("SELECT f FROM Food f WHERE " +
            "(:category IS NULL OR LOWER(f.foodCategory) = LOWER(:category)) AND " +
            "(:searchTerm IS NULL OR LOWER(f.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-    Page<Food> findByCategoryAndNameSearch(@Param("category") String category, 
+    Slice<Food> findByCategoryAndNameSearch(@Param("category") String category, 
                                          @Param("searchTerm") String searchTerm, 
                                          Pageable pageable);
 
@@ -94,4 +139,24 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
      */
     @Query("SELECT f FROM Food f WHERE f.allergenFlags IS NULL OR f.allergenFlags = '' OR f.allergenFlags = 'NaN'")
     List<Food> findFoodsWithoutAllergens();
+
+    /**
+     * Same rule as findFoodsWithAllergens, in fdcId order, fetched from the
+     * JDBC cursor in batches. Must be consumed inside a transaction and closed.
+     */
+    @Query("SELECT f FROM Food f WHERE f.allergenFlags IS NOT NULL AND f.allergenFlags != '' AND f.allergenFlags != 'NaN' "
+            + "ORDER BY f.fdcId")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+    Stream<Food> streamFoodsWithAllergens();
+
+    /**
+     * Same rule as findFoodsWithoutAllergens, in fdcId order, fetched from the
+     * JDBC cursor in batches. Must be consumed inside a transaction and closed.
+     */
+    @Query("SELECT f FROM Food f WHERE f.allergenFlags IS NULL OR f.allergenFlags = '' OR f.allergenFlags = 'NaN' "
+            + "ORDER BY f.fdcId")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+    Stream<Food> streamFoodsWithoutAllergens();
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.ninja.repository;
+
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ninja.entity.Food;
+
+import jakarta.persistence.criteria.Path;
+
+/**
+ * Criteria equivalents of the FoodRepository list queries, for keyset
+ * scrolling through {@link FoodRepository#findBy}.
+ */
+public final class FoodSpecifications {
+
+	/**
+	 * Every column of the foods table, copied into detached entities, for pages
+	 * read without hydrating managed ones
+	 */
+	public static final ProjectedScroll<Food, Food> ROWS = ProjectedScroll.of(Food.class, Food::new)
+			.column("fdcId", Integer.class, Food::setFdcId)
+			.column("foodName", String.class, Food::setFoodName)
+			.column("dataType", String.class, Food::setDataType)
+			.column("foodCategory", String.class, Food::setFoodCategory)
+			.column("publicationDate", String.class, Food::setPublicationDate)
+			.column("allergenFlags", String.class, Food::setAllergenFlags);
+
+	private FoodSpecifications() {
+	}
+
+	/**
+	 * Same match as FoodRepository.findByFoodNameContainingIgnoreCase
+	 */
+	public static Specification<Food> nameContains(String term) {
+		String pattern = "%" + term.toLowerCase(Locale.ROOT) + "%";
+		return (root, query, cb) -> cb.like(cb.lower(root.get("foodName")), pattern);
+	}
+
+	/**
+	 * Same match as FoodRepository.findByFoodCategoryIgnoreCase
+	 */
+	public static Specification<Food> categoryIs(String category) {
+		return (root, query, cb) -> cb.equal(cb.upper(root.get("foodCategory")), category.toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Same rule as FoodRepository.findFoodsWithAllergens
+	 */
+	public static Specification<Food> withAllergens() {
+		return (root, query, cb) -> {
+			Path<String> flags = root.get("allergenFlags");
+			return cb.and(cb.isNotNull(flags), cb.notEqual(flags, ""), cb.notEqual(flags, "NaN"));
+		};
+	}
+
+	/**
+	 * Same rule as FoodRepository.findFoodsWithoutAllergens
+	 */
+	public static Specification<Food> withoutAllergens() {
+		return (root, query, cb) -> {
+			Path<String> flags = root.get("allergenFlags");
+			return cb.or(cb.isNull(flags), cb.equal(flags, ""), cb.equal(flags, "NaN"));
+		};
+	}
+}
@@ -1,33 +1,41 @@
 package com.ninja.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ninja.entity.LchfFood;
+import com.ninja.projection.DietFoodSummary;
 
 import java.util.List;
 
 /**
- * Repository interface for LCHF (Low Carb High Fat) diet food operations
+ * Repository interface for LCHF (Low Carb High Fat) diet food operations, all
+ * read-only
  */
 @Repository
-public interface LchfFoodRepository extends JpaRepository<LchfFood, Long> {
+@Transactional(readOnly = true)
+public interface LchfFoodRepository extends JpaRepository<LchfFood, Long>, JpaSpecificationExecutor<LchfFood> {
+
+    // All foods, one slice at a time (no count query)
+    Slice<DietFoodSummary> findAllBy(Pageable pageable);
 
     // Search by food name
     List<LchfFood> findByNameContainingIgnoreCase(String name);
-    Page<LchfFood> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    Slice<DietFoodSummary> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
     // Find by category
     List<LchfFood> findByCategoryIgnoreCase(String category);
-    Page<LchfFood> findByCategoryIgnoreCase(String category, Pageable pageable);
+    Slice<DietFoodSummary> findByCategoryIgnoreCase(String category, Pageable pageable);
 
     // Find by limitation status
     List<LchfFood> findByLimitationIgnoreCase(String limitation);
-    Page<LchfFood> findByLimitationIgnoreCase(String limitation, Pageable pageable);
+    Slice<DietFoodSummary> findByLimitationIgnoreCase(String limitation, Pageable pageable);
 
     // Find allowed foods (OK and Recommended)
     @Query("SELECT l FROM LchfFood l WHERE UPPER(l.limitation) IN ('OK', 'RECOMMENDED')")
@@ -64,18 +72,18 @@ public interface LchfFoodRepository extends JpaRepository<LchfFood, Long> {
 
     // Advanced search - by name and category
     @Query("SELECT l FROM LchfFood l WHERE " +
-           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', :name, '%'))) AND " +
-           "(:category IS NULL OR UPPER(l.category) = UPPER(:category)) AND " +
-           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(:limitation))")
+           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', CAST(:name AS String), '%'))) AND " +
+           "(:category IS NULL OR UPPER(l.category) = UPPER(CAST(:category AS String))) AND " +
+           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(CAST(:limitation AS String)))")
     List<LchfFood> findByMultipleCriteria(@Param("name") String name, 
                                          @Param("category") String category, 
                                          @Param("limitation") String limitation);
 
     @Query("SELECT l FROM LchfFood l WHERE " +
-           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', :name, '%'))) AND " +
-           "(:category IS NULL OR UPPER(l.category) = UPPER(:category)) AND " +
-           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(:limitation))")
-    Page<LchfFood> findByMultipleCriteria(@Param("name") String name, 
+           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', CAST(:name AS String), '%'))) AND " +
+           "(:category IS NULL OR UPPER(l.category) = UPPER(CAST(:category AS String))) AND " +
+           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(CAST(:limitation AS String)))")
+    Slice<LchfFood> findByMultipleCriteria(@Param("name") String name, 
                                          @Param("category") String category, 
                                          @Param("limitation") String limitation, 
                                          Pageable pageable);
@@ -1,33 +1,41 @@
 package com.ninja.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ninja.entity.LfvFood;
+import com.ninja.projection.DietFoodSummary;
 
 import java.util.List;
 
 /**
- * Repository interface for LFV (Low Fat Vegetarian) diet food operations
+ * Repository interface for LFV (Low Fat Vegetarian) diet food operations, all
+ * read-only
  */
 @Repository
-public interface LfvFoodRepository extends JpaRepository<LfvFood, Long> {
+@Transactional(readOnly = true)
+public interface LfvFoodRepository extends JpaRepository<LfvFood, Long>, JpaSpecificationExecutor<LfvFood> {
+
+    // All foods, one slice at a time (no count query)
+    Slice<DietFoodSummary> findAllBy(Pageable pageable);
 
     // Search by food name
     List<LfvFood> findByNameContainingIgnoreCase(String name);
-    Page<LfvFood> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    Slice<DietFoodSummary> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
     // Find by category
     List<LfvFood> findByCategoryIgnoreCase(String category);
-    Page<LfvFood> findByCategoryIgnoreCase(String category, Pageable pageable);
+    Slice<DietFoodSummary> findByCategoryIgnoreCase(String category, Pageable pageable);
 
     // Find by limitation status
     List<LfvFood> findByLimitationIgnoreCase(String limitation);
-    Page<LfvFood> findByLimitationIgnoreCase(String limitation, Pageable pageable);
+    Slice<DietFoodSummary> findByLimitationIgnoreCase(String limitation, Pageable pageable);
 
     // Find allowed foods (OK and Moderation)
     @Query("SELECT l FROM LfvFood l WHERE UPPER(l.limitation) IN ('OK', 'MODERATION')")
@@ -56,18 +64,18 @@ public interface LfvFoodRepository extends JpaRepository<LfvFood, Long> {
 
     // Advanced search - by name and category
     @Query("SELECT l FROM LfvFood l WHERE " +
-           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', :name, '%'))) AND " +
-           "(:category IS NULL OR UPPER(l.category) = UPPER(:category)) AND " +
-           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(:limitation))")
+           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', CAST(:name AS String), '%'))) AND " +
+           "(:category IS NULL OR UPPER(l.category) = UPPER(CAST(:category AS String))) AND " +
+           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(CAST(:limitation AS String)))")
     List<LfvFood> findByMultipleCriteria(@Param("name") String name, 
                                         @Param("category") String category, 
                                         @Param("limitation") String limitation);
 
     @Query("SELECT l FROM LfvFood l WHERE " +
-           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', :name, '%'))) AND " +
-           "(:category IS NULL OR UPPER(l.category) = UPPER(:category)) AND " +
-           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(:limitation))")
-    Page<LfvFood> findByMultipleCriteria(@Param("name") String name, 
+           "(:name IS NULL OR UPPER(l.name) LIKE UPPER(CONCAT('%', CAST(:name AS String), '%'))) AND " +
+           "(:category IS NULL OR UPPER(l.category) = UPPER(CAST(:category AS String))) AND " +
+           "(:limitation IS NULL OR UPPER(l.limitation) = UPPER(CAST(:limitation AS String)))")
+    Slice<LfvFood> findByMultipleCriteria(@Param("name") String name, 
                                         @Param("category") String category, 
                                         @Param("limitation") String limitation, 
                                         Pageable pageable);
@@ -1,24 +1,55 @@
 package com.ninja.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ninja.entity.Nutrient;
+import com.ninja.projection.NutrientSummary;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
  * Repository interface for Nutrient entity. Provides data access methods for
- * the nutrients table.
+ * the nutrients table. Declared queries run in read-only transactions, like
+ * the CRUD methods inherited from SimpleJpaRepository.
  */
 @Repository
-public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
+@Transactional(readOnly = true)
+public interface NutrientRepository extends JpaRepository<Nutrient, Integer>, JpaSpecificationExecutor<Nutrient> {
+
+	/**
+	 * All nutrients, one slice at a time (no count query)
+	 */
+	Slice<NutrientSummary> findAllBy(Pageable pageable);
+
+	/**
+	 * Every nutrient row as a read-only stream, fetched from the JDBC cursor in
+	 * batches. Must be consumed inside a transaction and closed.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+	Stream<Nutrient> streamAllBy();
+
+	/**
+	 * Nutrients for a set of fdcIds in one IN query, in no particular order
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	List<Nutrient> findByFdcIdIn(Collection<Integer> fdcIds);
 
 	/**
 	 * Find nutrients by food name containing the search term (case-insensitive)
@@ -29,8 +60,10 @@ public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
 	/**
 	 * Find nutrients by food name containing the search term with pagination
 	 */
-	@Query("SELECT n FROM Nutrient n WHERE LOWER(n.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-	Page<Nutrient> findByFoodNameContainingIgnoreCase(@Param("searchTerm") String searchTerm, Pageable pageable);
+	@Query("SELECT n.fdcId AS fdcId, n.foodName AS foodName, n.energyKcal AS energyKcal, n.proteinG AS proteinG, "
+			+ "n.totalFatG AS totalFatG, n.carbohydrateG AS carbohydrateG FROM Nutrient n "
+			+ "WHERE LOWER(n.foodName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+	Slice<NutrientSummary> findByFoodNameContainingIgnoreCase(@Param("searchTerm") String searchTerm, Pageable pageable);
 
 	/**
 	 * Find nutrients by simplified name containing the search term
@@ -50,6 +83,16 @@ public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
 	@Query("SELECT n FROM Nutrient n WHERE n.energyKcal < :maxCalories ORDER BY n.energyKcal ASC")
 	List<Nutrient> findLowCalorieFoods(@Param("maxCalories") BigDecimal maxCalories);
 
+	/**
+	 * Calories below maxCalories, lowest first with ties by fdcId, fetched from
+	 * the JDBC cursor in batches. Must be consumed inside a transaction and
+	 * closed.
+	 */
+	@Query("SELECT n FROM Nutrient n WHERE n.energyKcal < :maxCalories ORDER BY n.energyKcal ASC, n.fdcId ASC")
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+	Stream<Nutrient> streamLowCalorieFoods(@Param("maxCalories") double maxCalories);
+
 	/**
 	 * Find foods with high fiber content
 	 */
@@ -85,19 +128,28 @@ public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
 	 * Find foods within calorie range with pagination
 	 */
 	@Query("SELECT n FROM Nutrient n WHERE n.energyKcal BETWEEN :minCalories AND :maxCalories")
-	Page<Nutrient> findFoodsInCalorieRange(@Param("minCalories") BigDecimal minCalories,
+	Slice<Nutrient> findFoodsInCalorieRange(@Param("minCalories") BigDecimal minCalories,
 			@Param("maxCalories") BigDecimal maxCalories, Pageable pageable);
 
 	/**
 	 * Find foods with balanced macronutrients Balanced means: Protein 10-35%, Fat
 	 * 20-35%, Carbs 45-65% of total calories
 	 */
-	@Query("SELECT n FROM Nutrient n WHERE " + "n.energyKcal > 0 AND "
-			+ "((n.proteinG * 4) / n.energyKcal) BETWEEN 0.10 AND 0.35 AND "
-			+ "((n.totalFatG * 9) / n.energyKcal) BETWEEN 0.20 AND 0.35 AND "
-			+ "((n.carbohydrateG * 4) / n.energyKcal) BETWEEN 0.45 AND 0.65")
+	@Query("SELECT n FROM Nutrient n WHERE n.proteinEnergyPct BETWEEN 10 AND 35 AND "
+			+ "n.fatEnergyPct BETWEEN 20 AND 35 AND n.carbEnergyPct BETWEEN 45 AND 65")
 	List<Nutrient> findBalancedMacronutrientFoods();
 
+	/**
+	 * Same rule as findBalancedMacronutrientFoods, in fdcId order, fetched from
+	 * the JDBC cursor in batches. Must be consumed inside a transaction and
+	 * closed.
+	 */
+	@Query("SELECT n FROM Nutrient n WHERE n.proteinEnergyPct BETWEEN 10 AND 35 AND "
+			+ "n.fatEnergyPct BETWEEN 20 AND 35 AND n.carbEnergyPct BETWEEN 45 AND 65 ORDER BY n.fdcId")
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500") })
+	Stream<Nutrient> streamBalancedMacronutrientFoods();
+
 	/**
 	 * Search foods by name, simplified name, or synonyms
 	 */
@@ -106,14 +158,6 @@ public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
 			+ "LOWER(n.synonyms) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
 	List<Nutrient> searchFoodsByAllNames(@Param("searchTerm") String searchTerm);
 
-	/**
-	 * Get nutritional summary statistics
-	 */
-	@Query("SELECT " + "AVG(n.energyKcal) as avgCalories, " + "AVG(n.proteinG) as avgProtein, "
-			+ "AVG(n.totalFatG) as avgFat, " + "AVG(n.carbohydrateG) as avgCarbs "
-			+ "FROM Nutrient n WHERE n.energyKcal IS NOT NULL")
-	Object[] getNutritionalStatistics();
-
 	/**
 	 * Find foods suitable for specific dietary restrictions
 	 */
@@ -124,20 +168,17 @@ public interface NutrientRepository extends JpaRepository<Nutrient, Long> {
 			@Param("lowFat") boolean lowFat, @Param("highFiber") boolean highFiber,
 			@Param("lowSugar") boolean lowSugar);
 	
-//	@Query("SELECT n FROM Nutrient n WHERE "
-//		     + "(:lowSodium = false OR n.sodiumMg < :sodiumThreshold) AND "
-//		     + "(:lowFat = false OR n.totalFatG < :fatThreshold) AND "
-//		     + "(:highFiber = false OR n.fiberG > :fiberThreshold) AND "
-//		     + "(:lowSugar = false OR n.sugarsG < :sugarThreshold)")
-//		List<Nutrient> findFoodsForDietaryRestrictions(
-//		     @Param("lowSodium") boolean lowSodium,
-//		     @Param("lowFat") boolean lowFat,
-//		     @Param("highFiber") boolean highFiber,
-//		     @Param("lowSugar") boolean lowSugar,
-//		     @Param("sodiumThreshold") double sodiumThreshold,
-//		     @Param("fatThreshold") double fatThreshold,
-//		     @Param("fiberThreshold") double fiberThreshold,
-//		     @Param("sugarThreshold") double sugarThreshold
-//		);
+	/**
+	 * Find foods suitable for dietary restrictions with custom thresholds
+	 */
+	@Query("SELECT n FROM Nutrient n WHERE " + "(:lowSodium = false OR n.sodiumMg < :sodiumThreshold) AND "
+			+ "(:lowFat = false OR n.totalFatG < :fatThreshold) AND "
+			+ "(:highFiber = false OR n.fiberG > :fiberThreshold) AND "
+			+ "(:lowSugar = false OR n.sugarsG < :sugarThreshold)")
+	List<Nutrient> findFoodsForDietaryRestrictions(@Param("lowSodium") boolean lowSodium,
+			@Param("lowFat") boolean lowFat, @Param("highFiber") boolean highFiber,
+			@Param("lowSugar") boolean lowSugar, @Param("sodiumThreshold") double sodiumThreshold,
+			@Param("fatThreshold") double fatThreshold, @Param("fiberThreshold") double fiberThreshold,
+			@Param("sugarThreshold") double sugarThreshold);
 
 }
\ No newline at end of file
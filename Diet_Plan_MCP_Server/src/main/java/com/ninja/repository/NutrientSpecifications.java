@@ -0,0 +1,106 @@
+package com.ninja.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ninja.entity.Nutrient;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Criteria equivalents of the NutrientRepository list queries, for use with
+ * {@link NutrientRepository#findBy} so results can be keyset-scrolled instead
+ * of loaded whole. Columns are addressed by entity property name.
+ */
+public final class NutrientSpecifications {
+
+	/**
+	 * Every column of the nutrients table, copied into detached entities, for
+	 * pages read without hydrating managed ones
+	 */
+	public static final ProjectedScroll<Nutrient, Nutrient> ROWS = ProjectedScroll.of(Nutrient.class, Nutrient::new)
+			.column("fdcId", Integer.class, Nutrient::setFdcId)
+			.column("foodName", String.class, Nutrient::setFoodName)
+			.column("simplifiedName", String.class, Nutrient::setSimplifiedName)
+			.column("synonyms", String.class, Nutrient::setSynonyms)
+			.column("energyKcal", Double.class, Nutrient::setEnergyKcal)
+			.column("totalFatG", Double.class, Nutrient::setTotalFatG)
+			.column("proteinG", Double.class, Nutrient::setProteinG)
+			.column("carbohydrateG", Double.class, Nutrient::setCarbohydrateG)
+			.column("fiberG", Double.class, Nutrient::setFiberG)
+			.column("sugarsG", Double.class, Nutrient::setSugarsG)
+			.column("addedSugarsG", Double.class, Nutrient::setAddedSugarsG)
+			.column("sodiumMg", Double.class, Nutrient::setSodiumMg)
+			.column("potassiumMg", Double.class, Nutrient::setPotassiumMg)
+			.column("calciumMg", Double.class, Nutrient::setCalciumMg)
+			.column("ironMg", Double.class, Nutrient::setIronMg)
+			.column("vitaminCMg", Double.class, Nutrient::setVitaminCMg)
+			.column("cholesterolMg", Double.class, Nutrient::setCholesterolMg)
+			.column("saturatedFatG", Double.class, Nutrient::setSaturatedFatG)
+			.column("vitaminDMcg", Double.class, Nutrient::setVitaminDMcg)
+			.column("magnesiumMg", Double.class, Nutrient::setMagnesiumMg)
+			.column("proteinEnergyPct", Double.class, Nutrient::setProteinEnergyPct)
+			.column("fatEnergyPct", Double.class, Nutrient::setFatEnergyPct)
+			.column("carbEnergyPct", Double.class, Nutrient::setCarbEnergyPct);
+
+	private NutrientSpecifications() {
+	}
+
+	public static Specification<Nutrient> greaterThan(String property, double threshold) {
+		return (root, query, cb) -> cb.greaterThan(root.get(property), threshold);
+	}
+
+	public static Specification<Nutrient> lessThan(String property, double threshold) {
+		return (root, query, cb) -> cb.lessThan(root.get(property), threshold);
+	}
+
+	public static Specification<Nutrient> between(String property, double min, double max) {
+		return (root, query, cb) -> cb.between(root.get(property), min, max);
+	}
+
+	/**
+	 * Same match as NutrientRepository.searchFoodsByAllNames
+	 */
+	public static Specification<Nutrient> nameContains(String term) {
+		String pattern = "%" + term.toLowerCase(Locale.ROOT) + "%";
+		return (root, query, cb) -> cb.or(cb.like(cb.lower(root.get("foodName")), pattern),
+				cb.like(cb.lower(root.get("simplifiedName")), pattern),
+				cb.like(cb.lower(root.get("synonyms")), pattern));
+	}
+
+	/**
+	 * Same rule as NutrientRepository.findBalancedMacronutrientFoods
+	 */
+	public static Specification<Nutrient> balancedMacronutrients() {
+		return (root, query, cb) -> cb.and(cb.between(root.get("proteinEnergyPct"), 10.0, 35.0),
+				cb.between(root.get("fatEnergyPct"), 20.0, 35.0),
+				cb.between(root.get("carbEnergyPct"), 45.0, 65.0));
+	}
+
+	/**
+	 * Same rule as NutrientRepository.findFoodsForDietaryRestrictions; a null
+	 * threshold leaves that restriction off
+	 */
+	public static Specification<Nutrient> dietaryRestrictions(Double maxSodiumMg, Double maxFatGrams,
+			Double minFiberGrams, Double maxSugarGrams) {
+		return (root, query, cb) -> {
+			List<Predicate> predicates = new ArrayList<>();
+			if (maxSodiumMg != null) {
+				predicates.add(cb.lessThan(root.get("sodiumMg"), maxSodiumMg));
+			}
+			if (maxFatGrams != null) {
+				predicates.add(cb.lessThan(root.get("totalFatG"), maxFatGrams));
+			}
+			if (minFiberGrams != null) {
+				predicates.add(cb.greaterThan(root.get("fiberG"), minFiberGrams));
+			}
+			if (maxSugarGrams != null) {
+				predicates.add(cb.lessThan(root.get("sugarsG"), maxSugarGrams));
+			}
+			return cb.and(predicates.toArray(new Predicate[0]));
+		};
+	}
+}
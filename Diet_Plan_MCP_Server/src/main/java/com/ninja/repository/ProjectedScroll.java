@@ -0,0 +1,160 @@
+package com.ninja.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.paging.KeysetCursor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Keyset scroll that selects columns rather than entities. It takes the
+ * specification, sort and cursor of a findBy(spec, q -&gt;
+ * q.sortBy(sort).limit(n).scroll(position)) call but runs a tuple query, so
+ * Hibernate neither instantiates managed entities nor registers them in the
+ * persistence context; each tuple is copied into a detached row. Cursors are
+ * the sort key values of the last row, as with the entity scroll.
+ */
+public final class ProjectedScroll<E, T> {
+
+	private final Class<E> entityType;
+	private final Supplier<T> rowFactory;
+	private final List<Column<T, ?>> columns;
+
+	private ProjectedScroll(Class<E> entityType, Supplier<T> rowFactory, List<Column<T, ?>> columns) {
+		this.entityType = entityType;
+		this.rowFactory = rowFactory;
+		this.columns = columns;
+	}
+
+	/**
+	 * A scroll over entityType selecting no columns yet
+	 */
+	public static <E, T> ProjectedScroll<E, T> of(Class<E> entityType, Supplier<T> rowFactory) {
+		return new ProjectedScroll<>(entityType, rowFactory, List.of());
+	}
+
+	/**
+	 * This scroll also selecting property, copied into each row by setter.
+	 * Every property a sort uses must be selected.
+	 */
+	public <V> ProjectedScroll<E, T> column(String property, Class<V> type, BiConsumer<T, V> setter) {
+		List<Column<T, ?>> selected = new ArrayList<>(columns);
+		selected.add(new Column<>(property, type, setter));
+		return new ProjectedScroll<>(entityType, rowFactory, List.copyOf(selected));
+	}
+
+	/**
+	 * One page after the cursor. The sort must end in a unique property so the
+	 * position is unique.
+	 */
+	public CursorPage<T> page(EntityManager entityManager, Specification<E> spec, Sort sort, String cursor,
+			int limit) {
+		List<Tuple> tuples = fetch(entityManager, spec, sort, KeysetCursor.position(cursor).getKeys(), limit + 1);
+		int count = Math.min(tuples.size(), limit);
+		List<T> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			items.add(row(tuples.get(i)));
+		}
+		String next = null;
+		if (tuples.size() > limit && limit > 0) {
+			Tuple last = tuples.get(limit - 1);
+			Map<String, Object> keys = new LinkedHashMap<>();
+			for (Sort.Order order : sort) {
+				keys.put(order.getProperty(), last.get(order.getProperty()));
+			}
+			next = KeysetCursor.encode(keys);
+		}
+		return new CursorPage<>(items, next);
+	}
+
+	/**
+	 * Up to limit tuples, in sort order, past the given sort key values (from
+	 * the start when there are none). Each element is aliased by its property.
+	 */
+	public List<Tuple> fetch(EntityManager entityManager, Specification<E> spec, Sort sort, Map<String, ?> after,
+			int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<E> root = query.from(entityType);
+		List<Selection<?>> selections = new ArrayList<>(columns.size());
+		for (Column<T, ?> column : columns) {
+			selections.add(root.get(column.property()).alias(column.property()));
+		}
+		query.multiselect(selections);
+
+		List<Predicate> where = new ArrayList<>(2);
+		Predicate matches = spec.toPredicate(root, query, cb);
+		if (matches != null) {
+			where.add(matches);
+		}
+		if (!after.isEmpty()) {
+			where.add(after(cb, root, sort, after));
+		}
+		query.where(where.toArray(Predicate[]::new));
+
+		List<Order> orders = new ArrayList<>();
+		for (Sort.Order order : sort) {
+			Expression<?> key = root.get(order.getProperty());
+			orders.add(order.isAscending() ? cb.asc(key) : cb.desc(key));
+		}
+		query.orderBy(orders);
+		return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+
+	/**
+	 * A new row holding the tuple's columns
+	 */
+	public T row(Tuple tuple) {
+		T row = rowFactory.get();
+		for (Column<T, ?> column : columns) {
+			column.copy(tuple, row);
+		}
+		return row;
+	}
+
+	/**
+	 * Rows past the keys in sort order: for (a ASC, b ASC) after (x, y) that is
+	 * a &gt; x OR (a = x AND b &gt; y)
+	 */
+	private static Predicate after(CriteriaBuilder cb, Root<?> root, Sort sort, Map<String, ?> after) {
+		List<Predicate> alternatives = new ArrayList<>();
+		List<Predicate> tied = new ArrayList<>();
+		for (Sort.Order order : sort) {
+			if (!(after.get(order.getProperty()) instanceof Comparable<?> value)) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			Expression<Comparable<Object>> key = root.get(order.getProperty());
+			@SuppressWarnings("unchecked")
+			Comparable<Object> bound = (Comparable<Object>) value;
+			List<Predicate> past = new ArrayList<>(tied);
+			past.add(order.isAscending() ? cb.greaterThan(key, bound) : cb.lessThan(key, bound));
+			alternatives.add(cb.and(past.toArray(Predicate[]::new)));
+			tied.add(cb.equal(key, bound));
+		}
+		return cb.or(alternatives.toArray(Predicate[]::new));
+	}
+
+	private record Column<T, V>(String property, Class<V> type, BiConsumer<T, V> setter) {
+
+		void copy(Tuple tuple, T row) {
+			setter.accept(row, tuple.get(property, type));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.ninja.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ninja.store.DietFoodStore;
+import com.ninja.store.FoodColumnStore;
+import com.ninja.store.NutrientColumnStore;
+import com.ninja.store.NutrientStatisticsStore;
+import com.ninja.store.StoreMode;
+
+/**
+ * Administrative operations after the diet tables have been (re)loaded:
+ * dropping cached tool results and rebuilding the in-memory stores. Served
+ * over HTTP by AdminController, and as JMX operations (MBean
+ * com.ninja:type=CacheAdmin) in every mode, including stdio, which has no web
+ * server.
+ */
+@Service
+@ManagedResource(objectName = "com.ninja:type=CacheAdmin", description = "Diet tool caches and in-memory stores")
+public class CacheAdminService {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheAdminService.class);
+
+	private final CacheManager cacheManager;
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final DietFoodStore dietFoodStore;
+	private final NutrientStatisticsStore statisticsStore;
+
+	@Autowired
+	public CacheAdminService(CacheManager cacheManager, NutrientColumnStore nutrientStore,
+			FoodColumnStore foodStore, DietFoodStore dietFoodStore, NutrientStatisticsStore statisticsStore) {
+		this.cacheManager = cacheManager;
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.dietFoodStore = dietFoodStore;
+		this.statisticsStore = statisticsStore;
+	}
+
+	/**
+	 * Clear every cache and return the names cleared
+	 */
+	@ManagedOperation
+	public List<String> clearAll() {
+		List<String> names = new ArrayList<>(cacheManager.getCacheNames());
+		names.forEach(this::clear);
+		log.info("Cleared caches {}", names);
+		return names;
+	}
+
+	/**
+	 * Clear one cache; false when there is no cache with that name
+	 */
+	@ManagedOperation
+	public boolean clear(String name) {
+		Cache cache = cacheManager.getCache(name);
+		if (cache == null) {
+			return false;
+		}
+		cache.clear();
+		return true;
+	}
+
+	/**
+	 * Rebuild the in-memory stores (from the database, or the snapshot file in
+	 * SNAPSHOT mode) and update the nutrient statistics with the changed rows,
+	 * then drop every cached result so no tool serves pre-load data
+	 */
+	@ManagedOperation
+	public List<String> reload() {
+		if (nutrientStore.getMode() != StoreMode.JPA) {
+			nutrientStore.reload();
+			foodStore.reload();
+			dietFoodStore.reload();
+		}
+		statisticsStore.refresh();
+		return clearAll();
+	}
+
+	/**
+	 * Hit, miss and eviction counts plus current size of each cache
+	 */
+	@ManagedOperation
+	public Map<String, Map<String, Long>> statistics() {
+		Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+		for (String name : cacheManager.getCacheNames()) {
+			if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+				CacheStats stats = cache.getNativeCache().stats();
+				statistics.put(name, Map.of("hits", stats.hitCount(), "misses", stats.missCount(), "evictions",
+						stats.evictionCount(), "size", cache.getNativeCache().estimatedSize()));
+			}
+		}
+		return statistics;
+	}
+}
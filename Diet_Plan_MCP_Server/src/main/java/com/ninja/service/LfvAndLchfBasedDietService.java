@@ -2,35 +2,67 @@ package com.ninja.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.config.CacheConfig;
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.DietFood;
 import com.ninja.entity.LchfFood;
 import com.ninja.entity.LfvFood;
+import com.ninja.paging.KeysetCursor;
+import com.ninja.projection.DietFoodSummary;
+import com.ninja.repository.DietFoodSpecifications;
 import com.ninja.repository.LchfFoodRepository;
 import com.ninja.repository.LfvFoodRepository;
+import com.ninja.store.DietFoodStore;
+import com.ninja.store.DietFoodTable;
+
+import jakarta.persistence.EntityManager;
 
 
 /**
  * Service class for Diet Planning (LFV and LCHF) with MCP tools Provides both
- * programmatic access and MCP tool capabilities for AI assistants
+ * programmatic access and MCP tool capabilities for AI assistants. Methods
+ * join a caller's read-only transaction but do not start one, so answers from
+ * the in-memory store never check out a connection; repository calls run in
+ * their own read-only transactions.
  */
 @Service
+@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 public class LfvAndLchfBasedDietService {
 
+	private static final Sort BY_ID = Sort.by("id");
+
 	private final LfvFoodRepository lfvFoodRepository;
 	private final LchfFoodRepository lchfFoodRepository;
+	private final DietFoodStore dietFoodStore;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
 
 	@Autowired
-    public LfvAndLchfBasedDietService(LfvFoodRepository lfvFoodRepository, LchfFoodRepository lchfFoodRepository) {
+    public LfvAndLchfBasedDietService(LfvFoodRepository lfvFoodRepository, LchfFoodRepository lchfFoodRepository,
+            DietFoodStore dietFoodStore, EntityManager entityManager, PlatformTransactionManager transactionManager) {
         this.lfvFoodRepository = lfvFoodRepository;
         this.lchfFoodRepository = lchfFoodRepository;
+        this.dietFoodStore = dietFoodStore;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
 	// ============ LFV DIET MCP TOOLS ============
@@ -38,59 +70,83 @@ public class LfvAndLchfBasedDietService {
 	/**
 	 * MCP Tool: Search LFV foods by name
 	 */
-	@Tool(description = "Search for Low Fat Vegetarian (LFV) diet foods by name")
-	public List<LfvFood> searchLfvFoodsByName(@ToolParam(description = "food name to search for") String searchTerm) {
+	@Tool(description = "Search for Low Fat Vegetarian (LFV) diet foods by name; a misspelled name falls back to the "
+			+ "closest spellings, listed in didYouMean")
+	public CursorPage<LfvFood> searchLfvFoodsByName(@ToolParam(description = "food name to search for") String searchTerm,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
 			throw new IllegalArgumentException("Search term cannot be empty");
 		}
-		return lfvFoodRepository.findByNameContainingIgnoreCase(searchTerm.trim());
+		DietFoodTable<LfvFood> table = dietFoodStore.lfv();
+		if (table != null) {
+			return table.searchByName(searchTerm.trim(), cursor, KeysetCursor.limit(limit));
+		}
+		return findLfv(DietFoodTable.nameContains(searchTerm.trim()),
+				DietFoodSpecifications.nameContains(searchTerm.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LFV foods by category
 	 */
 	@Tool(description = "Get LFV foods by category (e.g., Whole Grain, Processed Grain)")
-	public List<LfvFood> getLfvFoodsByCategory(@ToolParam(description = "food category") String category) {
+	public CursorPage<LfvFood> getLfvFoodsByCategory(@ToolParam(description = "food category") String category,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (category == null || category.trim().isEmpty()) {
 			throw new IllegalArgumentException("Category cannot be empty");
 		}
-		return lfvFoodRepository.findByCategoryIgnoreCase(category.trim());
+		return findLfv(DietFoodTable.categoryIs(category.trim()),
+				DietFoodSpecifications.categoryIs(category.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LFV foods by limitation status
 	 */
 	@Tool(description = "Get LFV foods by limitation status (OK, Moderation, Restricted, Limited)")
-	public List<LfvFood> getLfvFoodsByLimitation(
-			@ToolParam(description = "limitation status: OK, Moderation, Restricted, Limited") String limitation) {
+	public CursorPage<LfvFood> getLfvFoodsByLimitation(
+			@ToolParam(description = "limitation status: OK, Moderation, Restricted, Limited") String limitation,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (limitation == null || limitation.trim().isEmpty()) {
 			throw new IllegalArgumentException("Limitation cannot be empty");
 		}
-		return lfvFoodRepository.findByLimitationIgnoreCase(limitation.trim());
+		return findLfv(DietFoodTable.limitationIs(limitation.trim()),
+				DietFoodSpecifications.limitationIs(limitation.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get allowed LFV foods
 	 */
+	@Cacheable(CacheConfig.LFV_ALLOWED)
 	@Tool(description = "Get all allowed foods for LFV diet (OK and Moderation)")
-	public List<LfvFood> getAllowedLfvFoods() {
-		return lfvFoodRepository.findAllowedFoods();
+	public CursorPage<LfvFood> getAllowedLfvFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLfv(DietFoodTable.limitationIn("OK", "MODERATION"),
+				DietFoodSpecifications.limitationIn("OK", "MODERATION"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get restricted LFV foods
 	 */
+	@Cacheable(CacheConfig.LFV_RESTRICTED)
 	@Tool(description = "Get all restricted foods for LFV diet (Restricted and Limited)")
-	public List<LfvFood> getRestrictedLfvFoods() {
-		return lfvFoodRepository.findRestrictedFoods();
+	public CursorPage<LfvFood> getRestrictedLfvFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLfv(DietFoodTable.limitationIn("RESTRICTED", "LIMITED"),
+				DietFoodSpecifications.limitationIn("RESTRICTED", "LIMITED"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LFV food categories
 	 */
+	@Cacheable(CacheConfig.LFV_CATEGORIES)
 	@Tool(description = "Get all available LFV food categories")
 	public List<String> getLfvFoodCategories() {
-		return lfvFoodRepository.findDistinctCategories();
+		DietFoodTable<LfvFood> table = dietFoodStore.lfv();
+		return table != null ? table.categories() : lfvFoodRepository.findDistinctCategories();
 	}
 
 	// ============ LCHF DIET MCP TOOLS ============
@@ -98,133 +154,196 @@ public class LfvAndLchfBasedDietService {
 	/**
 	 * MCP Tool: Search LCHF foods by name
 	 */
-	@Tool(description = "Search for Low Carb High Fat (LCHF) diet foods by name")
-	public List<LchfFood> searchLchfFoodsByName(@ToolParam(description = "food name to search for") String searchTerm) {
+	@Tool(description = "Search for Low Carb High Fat (LCHF) diet foods by name; a misspelled name falls back to the "
+			+ "closest spellings, listed in didYouMean")
+	public CursorPage<LchfFood> searchLchfFoodsByName(@ToolParam(description = "food name to search for") String searchTerm,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
 			throw new IllegalArgumentException("Search term cannot be empty");
 		}
-		return lchfFoodRepository.findByNameContainingIgnoreCase(searchTerm.trim());
+		DietFoodTable<LchfFood> table = dietFoodStore.lchf();
+		if (table != null) {
+			return table.searchByName(searchTerm.trim(), cursor, KeysetCursor.limit(limit));
+		}
+		return findLchf(DietFoodTable.nameContains(searchTerm.trim()),
+				DietFoodSpecifications.nameContains(searchTerm.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LCHF foods by category
 	 */
 	@Tool(description = "Get LCHF foods by category (e.g., Fermented Dairy, Cheese, Seafood, Meat)")
-	public List<LchfFood> getLchfFoodsByCategory(@ToolParam(description = "food category") String category) {
+	public CursorPage<LchfFood> getLchfFoodsByCategory(@ToolParam(description = "food category") String category,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (category == null || category.trim().isEmpty()) {
 			throw new IllegalArgumentException("Category cannot be empty");
 		}
-		return lchfFoodRepository.findByCategoryIgnoreCase(category.trim());
+		return findLchf(DietFoodTable.categoryIs(category.trim()),
+				DietFoodSpecifications.categoryIs(category.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LCHF foods by limitation status
 	 */
 	@Tool(description = "Get LCHF foods by limitation status (OK, Restricted, Limit, Avoid, Limited, Recommended)")
-	public List<LchfFood> getLchfFoodsByLimitation(
-			@ToolParam(description = "limitation status: OK, Restricted, Limit, Avoid, Limited, Recommended") String limitation) {
+	public CursorPage<LchfFood> getLchfFoodsByLimitation(
+			@ToolParam(description = "limitation status: OK, Restricted, Limit, Avoid, Limited, Recommended") String limitation,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (limitation == null || limitation.trim().isEmpty()) {
 			throw new IllegalArgumentException("Limitation cannot be empty");
 		}
-		return lchfFoodRepository.findByLimitationIgnoreCase(limitation.trim());
+		return findLchf(DietFoodTable.limitationIs(limitation.trim()),
+				DietFoodSpecifications.limitationIs(limitation.trim()), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get allowed LCHF foods
 	 */
+	@Cacheable(CacheConfig.LCHF_ALLOWED)
 	@Tool(description = "Get all allowed foods for LCHF diet (OK and Recommended)")
-	public List<LchfFood> getAllowedLchfFoods() {
-		return lchfFoodRepository.findAllowedFoods();
+	public CursorPage<LchfFood> getAllowedLchfFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLchf(DietFoodTable.limitationIn("OK", "RECOMMENDED"),
+				DietFoodSpecifications.limitationIn("OK", "RECOMMENDED"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get recommended LCHF foods
 	 */
+	@Cacheable(CacheConfig.LCHF_RECOMMENDED)
 	@Tool(description = "Get all recommended foods for LCHF diet")
-	public List<LchfFood> getRecommendedLchfFoods() {
-		return lchfFoodRepository.findRecommendedFoods();
+	public CursorPage<LchfFood> getRecommendedLchfFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLchf(DietFoodTable.limitationIn("RECOMMENDED"),
+				DietFoodSpecifications.limitationIn("RECOMMENDED"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get restricted LCHF foods
 	 */
+	@Cacheable(CacheConfig.LCHF_RESTRICTED)
 	@Tool(description = "Get all restricted foods for LCHF diet (Restricted, Avoid, Limited)")
-	public List<LchfFood> getRestrictedLchfFoods() {
-		return lchfFoodRepository.findRestrictedFoods();
+	public CursorPage<LchfFood> getRestrictedLchfFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLchf(DietFoodTable.limitationIn("RESTRICTED", "AVOID", "LIMITED"),
+				DietFoodSpecifications.limitationIn("RESTRICTED", "AVOID", "LIMITED"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get foods to avoid on LCHF diet
 	 */
+	@Cacheable(CacheConfig.LCHF_AVOID)
 	@Tool(description = "Get all foods to avoid on LCHF diet")
-	public List<LchfFood> getFoodsToAvoidLchf() {
-		return lchfFoodRepository.findFoodsToAvoid();
+	public CursorPage<LchfFood> getFoodsToAvoidLchf(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLchf(DietFoodTable.limitationIn("AVOID"),
+				DietFoodSpecifications.limitationIn("AVOID"), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Get LCHF food categories
 	 */
+	@Cacheable(CacheConfig.LCHF_CATEGORIES)
 	@Tool(description = "Get all available LCHF food categories")
 	public List<String> getLchfFoodCategories() {
-		return lchfFoodRepository.findDistinctCategories();
+		DietFoodTable<LchfFood> table = dietFoodStore.lchf();
+		return table != null ? table.categories() : lchfFoodRepository.findDistinctCategories();
 	}
 
 	/**
 	 * MCP Tool: Advanced LFV food search
 	 */
 	@Tool(description = "Advanced search for LFV foods by multiple criteria")
-	public List<LfvFood> searchLfvFoodsAdvanced(@ToolParam(description = "food name (optional)") String name,
-			@ToolParam(description = "food category (optional)") String category,
-			@ToolParam(description = "limitation status (optional)") String limitation) {
-		return lfvFoodRepository.findByMultipleCriteria(name, category, limitation);
+	public CursorPage<LfvFood> searchLfvFoodsAdvanced(@ToolParam(description = "food name (optional)", required = false) String name,
+			@ToolParam(description = "food category (optional)", required = false) String category,
+			@ToolParam(description = "limitation status (optional)", required = false) String limitation,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLfv(DietFoodTable.matching(name, category, limitation),
+				DietFoodSpecifications.matching(name, category, limitation), cursor, limit);
 	}
 
 	/**
 	 * MCP Tool: Advanced LCHF food search
 	 */
 	@Tool(description = "Advanced search for LCHF foods by multiple criteria")
-	public List<LchfFood> searchLchfFoodsAdvanced(@ToolParam(description = "food name (optional)") String name,
-			@ToolParam(description = "food category (optional)") String category,
-			@ToolParam(description = "limitation status (optional)") String limitation) {
-		return lchfFoodRepository.findByMultipleCriteria(name, category, limitation);
+	public CursorPage<LchfFood> searchLchfFoodsAdvanced(@ToolParam(description = "food name (optional)", required = false) String name,
+			@ToolParam(description = "food category (optional)", required = false) String category,
+			@ToolParam(description = "limitation status (optional)", required = false) String limitation,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findLchf(DietFoodTable.matching(name, category, limitation),
+				DietFoodSpecifications.matching(name, category, limitation), cursor, limit);
+	}
+
+	/**
+	 * One page in id order, from the diet food store when it is loaded and
+	 * otherwise from the database with the equivalent specification, selected
+	 * as columns rather than managed entities in a read-only transaction
+	 */
+	private CursorPage<LfvFood> findLfv(Predicate<DietFood> filter, Specification<LfvFood> spec, String cursor,
+			Integer limit) {
+		DietFoodTable<LfvFood> table = dietFoodStore.lfv();
+		if (table != null) {
+			return table.find(filter, cursor, KeysetCursor.limit(limit));
+		}
+		return readOnlyTransaction.execute(status -> DietFoodSpecifications.LFV_ROWS.page(entityManager, spec, BY_ID,
+				cursor, KeysetCursor.limit(limit)));
+	}
+
+	private CursorPage<LchfFood> findLchf(Predicate<DietFood> filter, Specification<LchfFood> spec, String cursor,
+			Integer limit) {
+		DietFoodTable<LchfFood> table = dietFoodStore.lchf();
+		if (table != null) {
+			return table.find(filter, cursor, KeysetCursor.limit(limit));
+		}
+		return readOnlyTransaction.execute(status -> DietFoodSpecifications.LCHF_ROWS.page(entityManager, spec, BY_ID,
+				cursor, KeysetCursor.limit(limit)));
 	}
 
 	// ============ NON-MCP SERVICE METHODS ============
 
 	// LFV Pagination methods
-	public Page<LfvFood> searchLfvFoodsPaginated(String searchTerm, int page, int size) {
+	public Slice<DietFoodSummary> searchLfvFoodsPaginated(String searchTerm, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
-			return lfvFoodRepository.findAll(pageable);
+			return lfvFoodRepository.findAllBy(pageable);
 		}
 		return lfvFoodRepository.findByNameContainingIgnoreCase(searchTerm.trim(), pageable);
 	}
 
-	public Page<LfvFood> getLfvFoodsByCategoryPaginated(String category, int page, int size) {
+	public Slice<DietFoodSummary> getLfvFoodsByCategoryPaginated(String category, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		return lfvFoodRepository.findByCategoryIgnoreCase(category, pageable);
 	}
 
-	public Page<LfvFood> getLfvFoodsByLimitationPaginated(String limitation, int page, int size) {
+	public Slice<DietFoodSummary> getLfvFoodsByLimitationPaginated(String limitation, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		return lfvFoodRepository.findByLimitationIgnoreCase(limitation, pageable);
 	}
 
 	// LCHF Pagination methods
-	public Page<LchfFood> searchLchfFoodsPaginated(String searchTerm, int page, int size) {
+	public Slice<DietFoodSummary> searchLchfFoodsPaginated(String searchTerm, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
-			return lchfFoodRepository.findAll(pageable);
+			return lchfFoodRepository.findAllBy(pageable);
 		}
 		return lchfFoodRepository.findByNameContainingIgnoreCase(searchTerm.trim(), pageable);
 	}
 
-	public Page<LchfFood> getLchfFoodsByCategoryPaginated(String category, int page, int size) {
+	public Slice<DietFoodSummary> getLchfFoodsByCategoryPaginated(String category, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		return lchfFoodRepository.findByCategoryIgnoreCase(category, pageable);
 	}
 
-	public Page<LchfFood> getLchfFoodsByLimitationPaginated(String limitation, int page, int size) {
+	public Slice<DietFoodSummary> getLchfFoodsByLimitationPaginated(String limitation, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		return lchfFoodRepository.findByLimitationIgnoreCase(limitation, pageable);
 	}
@@ -256,11 +375,15 @@ public class LfvAndLchfBasedDietService {
 	}
 
 	// Get distinct values
+	@Cacheable(CacheConfig.LFV_LIMITATIONS)
 	public List<String> getLfvLimitations() {
-		return lfvFoodRepository.findDistinctLimitations();
+		DietFoodTable<LfvFood> table = dietFoodStore.lfv();
+		return table != null ? table.limitations() : lfvFoodRepository.findDistinctLimitations();
 	}
 
+	@Cacheable(CacheConfig.LCHF_LIMITATIONS)
 	public List<String> getLchfLimitations() {
-		return lchfFoodRepository.findDistinctLimitations();
+		DietFoodTable<LchfFood> table = dietFoodStore.lchf();
+		return table != null ? table.limitations() : lchfFoodRepository.findDistinctLimitations();
 	}
 }
\ No newline at end of file
@@ -1,53 +1,212 @@
 package com.ninja.service;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ninja.config.CacheConfig;
+import com.ninja.dto.CursorPage;
+import com.ninja.dto.FdcIdLookup;
+import com.ninja.dto.FoodNutrition;
+import com.ninja.dto.GeneratedMealPlan;
+import com.ninja.dto.NutrientRange;
+import com.ninja.dto.NutritionStatistics;
+import com.ninja.dto.SimilarFood;
 import com.ninja.entity.Food;
 import com.ninja.entity.Nutrient;
+import com.ninja.paging.KeysetCursor;
+import com.ninja.planner.MealPlanner;
+import com.ninja.projection.FoodSummary;
+import com.ninja.projection.NutrientSummary;
 import com.ninja.repository.FoodRepository;
+import com.ninja.repository.FoodSpecifications;
 import com.ninja.repository.NutrientRepository;
+import com.ninja.repository.NutrientSpecifications;
+import com.ninja.store.Allergen;
+import com.ninja.store.DietaryRestriction;
+import com.ninja.store.FoodColumnStore;
+import com.ninja.store.FoodTable;
+import com.ninja.store.NutrientColumn;
+import com.ninja.store.NutrientColumnStore;
+import com.ninja.store.NutrientSimilarityStore;
+import com.ninja.store.NutrientStatisticsStore;
+import com.ninja.store.NutrientTable;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 
 
 /**
  * Service class containing meal planning business logic and MCP tools. This
  * service provides both programmatic access and MCP tool capabilities for AI
- * assistants to interact with the meal planning database.
+ * assistants to interact with the meal planning database. All methods only
+ * read. They join a caller's read-only transaction but do not start one:
+ * tools answered from the in-memory stores never check out a connection, and
+ * each repository call runs in its own read-only transaction, where Hibernate
+ * loads entities without dirty-checking snapshots and never flushes.
  */
 @Service
+@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 public class MealPlanningService {
 
+	private static final List<NutrientColumn> CORE_MACROS = List.of(NutrientColumn.ENERGY_KCAL,
+			NutrientColumn.PROTEIN_G, NutrientColumn.TOTAL_FAT_G, NutrientColumn.CARBOHYDRATE_G, NutrientColumn.FIBER_G);
+	private static final Sort BY_FDC_ID = Sort.by("fdcId");
+	// Cursor keys of the name searches: ranked by match position in memory,
+	// by fdcId from the database
+	private static final String[] RANKED = { "rank", "fdcId" };
+	private static final String FDC_ID = "fdcId";
+	private static final int FILTER_BATCH = 500;
+	private static final int DEFAULT_SIMILAR = 10;
+	private static final int MAX_SIMILAR = 100;
+	private static final int DEFAULT_PLAN_CALORIES = 1800;
+	private static final int MIN_PLAN_CALORIES = 1000;
+	private static final int MAX_PLAN_CALORIES = 4000;
+
 	private final FoodRepository foodRepository;
 	private final NutrientRepository nutrientRepository;
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final NutrientStatisticsStore statisticsStore;
+	private final NutrientSimilarityStore similarityStore;
+	private final MealPlanner mealPlanner;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
 
 	@Autowired
-	public MealPlanningService(FoodRepository foodRepository, NutrientRepository nutrientRepository) {
+	public MealPlanningService(FoodRepository foodRepository, NutrientRepository nutrientRepository,
+			NutrientColumnStore nutrientStore, FoodColumnStore foodStore, NutrientStatisticsStore statisticsStore,
+			NutrientSimilarityStore similarityStore, MealPlanner mealPlanner, EntityManager entityManager,
+			PlatformTransactionManager transactionManager) {
 		this.foodRepository = foodRepository;
 		this.nutrientRepository = nutrientRepository;
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.statisticsStore = statisticsStore;
+		this.similarityStore = similarityStore;
+		this.mealPlanner = mealPlanner;
+		this.entityManager = entityManager;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
 	}
 
 	/**
 	 * MCP Tool: Search for foods by name This tool allows AI assistants to search
 	 * for foods in the database
 	 */
-	@Tool(name="searchByFoodName", description = "Search for foods by name or partial name match")
+	@Tool(name="searchByFoodName", description = "Search for foods by name or partial name match. When nothing "
+			+ "matches as typed, foods matching the closest spellings are returned and listed in didYouMean")
 	public ResponseEntity<?> searchFoodsByName(
-			@ToolParam(description = "one word - food by name") String searchTerm) {
+			@ToolParam(description = "one word - food by name") String searchTerm,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
 			throw new IllegalArgumentException("Search term cannot be empty");
 		}
-		return ResponseEntity.ok(Map.of("response ", foodRepository.findByFoodNameContainingIgnoreCase(searchTerm.trim())));
+		int pageSize = KeysetCursor.limit(limit);
+		if (foodStore.isAvailable()) {
+			return ResponseEntity.ok(Map.of("response ",
+					foodStore.searchByName(searchTerm.trim(), KeysetCursor.ifKeyedBy(cursor, RANKED), pageSize)));
+		}
+		return ResponseEntity.ok(Map.of("response ", scrollFoods(FoodSpecifications.nameContains(searchTerm.trim()),
+				BY_FDC_ID, KeysetCursor.ifKeyedBy(cursor, FDC_ID), pageSize)));
+	}
+
+	/**
+	 * MCP Tool: Search foods together with their nutrients, so a name search no
+	 * longer needs a getNutrientsByFdcId call per hit
+	 */
+	@Tool(description = "Search foods by name and return each match with its category, allergen flags and "
+			+ "nutrients per 100g in one call. By default the nutrients are energyKcal, proteinG, totalFatG, "
+			+ "carbohydrateG and fiberG. A misspelled name falls back to the closest spellings, listed in "
+			+ "didYouMean")
+	public CursorPage<FoodNutrition> searchFoodsWithNutrients(
+			@ToolParam(description = "one word - food by name") String searchTerm,
+			@ToolParam(description = "nutrient names to include, e.g. [\"proteinG\", \"sodiumMg\"]; omit for the "
+					+ "core macronutrients", required = false) List<String> nutrients,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		if (searchTerm == null || searchTerm.trim().isEmpty()) {
+			throw new IllegalArgumentException("Search term cannot be empty");
+		}
+		List<NutrientColumn> columns = nutrients == null || nutrients.isEmpty() ? CORE_MACROS
+				: nutrients.stream().map(NutrientColumn::fromProperty).distinct().toList();
+		int pageSize = KeysetCursor.limit(limit);
+
+		if (foodStore.isAvailable() && nutrientStore.isAvailable()) {
+			// Hash join in memory: page the name matches, then probe the nutrient
+			// table by fdcId for each food on the page
+			CursorPage<Food> foods = foodStore.searchByName(searchTerm.trim(), KeysetCursor.ifKeyedBy(cursor, RANKED),
+					pageSize);
+			NutrientTable table = nutrientStore.table();
+			List<FoodNutrition> items = new ArrayList<>(foods.getItems().size());
+			for (Food food : foods.getItems()) {
+				int ordinal = table.ordinalOf(food.getFdcId());
+				items.add(foodNutrition(food, ordinal < 0 ? null : table.row(ordinal), columns));
+			}
+			return new CursorPage<>(items, foods.getNextCursor(), foods.getDidYouMean());
+		}
+
+		Object after = KeysetCursor.decode(KeysetCursor.ifKeyedBy(cursor, FDC_ID)).get(FDC_ID);
+		int afterFdcId = after instanceof Number number ? number.intValue() : 0;
+		List<Object[]> rows = foodRepository.searchWithNutrients(searchTerm.trim(), afterFdcId,
+				Limit.of(pageSize + 1));
+		List<FoodNutrition> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+		for (int i = 0; i < rows.size() && i < pageSize; i++) {
+			items.add(foodNutrition((Food) rows.get(i)[0], (Nutrient) rows.get(i)[1], columns));
+		}
+		String nextCursor = rows.size() > pageSize
+				? KeysetCursor.encode(Map.of(FDC_ID, items.get(pageSize - 1).getFdcId()))
+				: null;
+		return new CursorPage<>(items, nextCursor);
+	}
+
+	private static FoodNutrition foodNutrition(Food food, Nutrient nutrient, List<NutrientColumn> columns) {
+		Map<String, Double> values = null;
+		if (nutrient != null) {
+			values = new LinkedHashMap<>();
+			for (NutrientColumn column : columns) {
+				double value = column.valueOf(nutrient);
+				values.put(column.getProperty(), Double.isNaN(value) ? null : value);
+			}
+		}
+		return new FoodNutrition(food.getFdcId(), food.getFoodName(), food.getFoodCategory(), food.getAllergenFlags(),
+				values);
 	}
 
 	/**
@@ -60,28 +219,43 @@ public class MealPlanningService {
 		if (fdcId == null || fdcId <= 0) {
 			throw new IllegalArgumentException("FDC ID must be a positive number");
 		}
-		return foodRepository.findById(fdcId);
+		if (fdcId > Integer.MAX_VALUE) {
+			return Optional.empty(); // fdc_id is an integer column
+		}
+		if (foodStore.isAvailable()) {
+			return foodStore.findByFdcId(fdcId.intValue());
+		}
+		return foodRepository.findById(fdcId.intValue());
 	}
 
 	/**
 	 * MCP Tool: Get all food categories Returns list of all available food
 	 * categories for meal planning
 	 */
+	@Cacheable(CacheConfig.FOOD_CATEGORIES)
 	@Tool(description = "Get all available food categories")
 	public ResponseEntity<?> getAllFoodCategories() {
-		return ResponseEntity.ok(Map.of("response ", foodRepository.findDistinctFoodCategories()));
+		FoodTable table = foodStore.table();
+		return ResponseEntity.ok(Map.of("response ",
+				table != null ? table.categories() : foodRepository.findDistinctFoodCategories()));
 	}
 
 	/**
 	 * MCP Tool: Get foods by category Find all foods in a specific category
 	 */
 	@Tool(description = "Get all foods in a specific category")
-	public List<Food> getFoodsByCategory(
-			@ToolParam(description = "category of the food") String category) {
+	public CursorPage<Food> getFoodsByCategory(
+			@ToolParam(description = "category of the food") String category,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (category == null || category.trim().isEmpty()) {
 			throw new IllegalArgumentException("Category cannot be empty");
 		}
-		return foodRepository.findByFoodCategoryIgnoreCase(category.trim());
+		int pageSize = KeysetCursor.limit(limit);
+		if (foodStore.isAvailable()) {
+			return foodStore.findByCategory(category.trim(), cursor, pageSize);
+		}
+		return scrollFoods(FoodSpecifications.categoryIs(category.trim()), BY_FDC_ID, cursor, pageSize);
 	}
 
 	/**
@@ -94,20 +268,58 @@ public class MealPlanningService {
 		if (fdcId == null || fdcId <= 0) {
 			throw new IllegalArgumentException("FDC ID must be a positive number");
 		}
-		return nutrientRepository.findById(fdcId);
+		if (fdcId > Integer.MAX_VALUE) {
+			return Optional.empty(); // fdc_id is an integer column
+		}
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findByFdcId(fdcId.intValue());
+		}
+		return nutrientRepository.findById(fdcId.intValue());
+	}
+
+	/**
+	 * MCP Tool: Get foods for several FDC IDs in one call
+	 */
+	@Tool(description = "Get food information for several FDC IDs at once. Results follow the input order; "
+			+ "an ID with no food is returned with found=false")
+	public List<FdcIdLookup<Food>> getFoodsByIds(
+			@ToolParam(description = "list of positive FDC IDs, at most 500") List<Long> fdcIds) {
+		validateFdcIds(fdcIds);
+		return lookup(fdcIds, foodStore.isAvailable() ? foodStore::findByFdcId : null, foodRepository::findByFdcIdIn,
+				Food::getFdcId);
+	}
+
+	/**
+	 * MCP Tool: Get nutritional information for several FDC IDs in one call
+	 */
+	@Tool(description = "Get nutritional information for several FDC IDs at once. Results follow the input order; "
+			+ "an ID with no nutrient row is returned with found=false")
+	public List<FdcIdLookup<Nutrient>> getNutrientsByFdcIds(
+			@ToolParam(description = "list of positive FDC IDs, at most 500") List<Long> fdcIds) {
+		validateFdcIds(fdcIds);
+		return lookup(fdcIds, nutrientStore.isAvailable() ? nutrientStore::findByFdcId : null,
+				nutrientRepository::findByFdcIdIn, Nutrient::getFdcId);
 	}
 
 	/**
 	 * MCP Tool: Search nutrients by food name Find nutritional information by
 	 * searching food names
 	 */
-	@Tool(description = "Search nutritional information by food name")
-	public List<Nutrient> searchNutrientsByFoodName(
-			@ToolParam(description = "one word - food by name") String searchTerm) {
+	@Tool(description = "Search nutritional information by food name, simplified name or synonyms. A misspelled "
+			+ "name falls back to the closest spellings, listed in didYouMean")
+	public CursorPage<Nutrient> searchNutrientsByFoodName(
+			@ToolParam(description = "one word - food by name") String searchTerm,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
 			throw new IllegalArgumentException("Search term cannot be empty");
 		}
-		return nutrientRepository.searchFoodsByAllNames(searchTerm.trim());
+		int pageSize = KeysetCursor.limit(limit);
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.searchByName(searchTerm.trim(), KeysetCursor.ifKeyedBy(cursor, RANKED), pageSize);
+		}
+		return scrollNutrients(NutrientSpecifications.nameContains(searchTerm.trim()), BY_FDC_ID,
+				KeysetCursor.ifKeyedBy(cursor, FDC_ID), pageSize);
 	}
 
 	/**
@@ -115,12 +327,14 @@ public class MealPlanningService {
 	 * specified threshold
 	 */
 	@Tool(description = "Find foods with high protein content (minimum grams of protein per 100g)")
-	public List<Nutrient> findHighProteinFoods(
-			@ToolParam(description = "a positive decimal number specifying minimum grams of protein per 100g ")  Double minProteinGrams) {
+	public CursorPage<Nutrient> findHighProteinFoods(
+			@ToolParam(description = "a positive decimal number specifying minimum grams of protein per 100g ")  Double minProteinGrams,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (minProteinGrams == null || minProteinGrams < 0) {
 			minProteinGrams = 10.0; // Default minimum protein
 		}
-		return nutrientRepository.findHighProteinFoods(BigDecimal.valueOf(minProteinGrams));
+		return findGreaterThan(NutrientColumn.PROTEIN_G, minProteinGrams, cursor, KeysetCursor.limit(limit));
 	}
 
 	/**
@@ -128,12 +342,14 @@ public class MealPlanningService {
 	 * specified threshold
 	 */
 	@Tool(description = "Find foods with low calorie content (maximum calories per 100g)")
-	public List<Nutrient> findLowCalorieFoods(
-			@ToolParam(description = "a positive decimal number specifying maximum calories per 100g ") Double maxCalories) {
+	public CursorPage<Nutrient> findLowCalorieFoods(
+			@ToolParam(description = "a positive decimal number specifying maximum calories per 100g ") Double maxCalories,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (maxCalories == null || maxCalories <= 0) {
 			maxCalories = 100.0; // Default maximum calories
 		}
-		return nutrientRepository.findLowCalorieFoods(BigDecimal.valueOf(maxCalories));
+		return findLessThan(NutrientColumn.ENERGY_KCAL, maxCalories, cursor, KeysetCursor.limit(limit));
 	}
 
 	/**
@@ -141,17 +357,24 @@ public class MealPlanningService {
 	 * range for meal planning
 	 */
 	@Tool(description = "Find foods within a specific calorie range per 100g")
-	public List<Nutrient> findFoodsInCalorieRange(
+	public CursorPage<Nutrient> findFoodsInCalorieRange(
 			@ToolParam(description = "a positive decimal number specifying calorie per 100g ") Double minCalories, 
-			@ToolParam(description = "a positive decimal number specifying calorie per 100g ") Double maxCalories) {
+			@ToolParam(description = "a positive decimal number specifying calorie per 100g ") Double maxCalories,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (minCalories == null || minCalories < 0) {
 			minCalories = 0.0;
 		}
 		if (maxCalories == null || maxCalories <= minCalories) {
 			maxCalories = minCalories + 500.0; // Default range
 		}
-		return nutrientRepository.findFoodsInCalorieRange(BigDecimal.valueOf(minCalories),
-				BigDecimal.valueOf(maxCalories));
+		int pageSize = KeysetCursor.limit(limit);
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findBetween(NutrientColumn.ENERGY_KCAL, minCalories, maxCalories, cursor, pageSize);
+		}
+		String property = NutrientColumn.ENERGY_KCAL.getProperty();
+		return scrollNutrients(NutrientSpecifications.between(property, minCalories, maxCalories),
+				Sort.by(property, "fdcId"), cursor, pageSize);
 	}
 
 	/**
@@ -159,12 +382,14 @@ public class MealPlanningService {
 	 * digestive health
 	 */
 	@Tool(description = "Find foods with high fiber content (minimum grams of fiber per 100g)")
-	public List<Nutrient> findHighFiberFoods(
-			@ToolParam(description = "a positive decimal number specifying minimum grams of fiber per 100g ") Double minFiberGrams) {
+	public CursorPage<Nutrient> findHighFiberFoods(
+			@ToolParam(description = "a positive decimal number specifying minimum grams of fiber per 100g ") Double minFiberGrams,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (minFiberGrams == null || minFiberGrams < 0) {
 			minFiberGrams = 3.0; // Default minimum fiber
 		}
-		return nutrientRepository.findHighFiberFoods(BigDecimal.valueOf(minFiberGrams));
+		return findGreaterThan(NutrientColumn.FIBER_G, minFiberGrams, cursor, KeysetCursor.limit(limit));
 	}
 
 	/**
@@ -172,12 +397,14 @@ public class MealPlanningService {
 	 * heart-healthy diets
 	 */
 	@Tool(description = "Find foods with low sodium content (maximum milligrams of sodium per 100g)")
-	public List<Nutrient> findLowSodiumFoods(
-			@ToolParam(description = "a positive decimal number specifying maximum milligrams of sodium per 100g ") Double maxSodiumMg) {
+	public CursorPage<Nutrient> findLowSodiumFoods(
+			@ToolParam(description = "a positive decimal number specifying maximum milligrams of sodium per 100g ") Double maxSodiumMg,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (maxSodiumMg == null || maxSodiumMg < 0) {
 			maxSodiumMg = 140.0; // Default maximum sodium (low sodium threshold)
 		}
-		return nutrientRepository.findLowSodiumFoods(BigDecimal.valueOf(maxSodiumMg));
+		return findLessThan(NutrientColumn.SODIUM_MG, maxSodiumMg, cursor, KeysetCursor.limit(limit));
 	}
 
 	/**
@@ -185,9 +412,11 @@ public class MealPlanningService {
 	 * minerals
 	 */
 	@Tool(description = "Find foods rich in specific vitamins or minerals. Options: C, D, CALCIUM, IRON, POTASSIUM, MAGNESIUM")
-	public List<Nutrient> findVitaminRichFoods(
+	public CursorPage<Nutrient> findVitaminRichFoods(
 			@ToolParam(description = "vitamins or minerals. Options: C, D, CALCIUM, IRON, POTASSIUM, MAGNESIUM") String vitaminType,
-			@ToolParam(description = "a positive decimal number specifying minAmount ") Double minAmount) {
+			@ToolParam(description = "a positive decimal number specifying minAmount ") Double minAmount,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
 		if (vitaminType == null || vitaminType.trim().isEmpty()) {
 			throw new IllegalArgumentException("Vitamin type must be specified");
 		}
@@ -211,7 +440,8 @@ public class MealPlanningService {
 			};
 		}
 
-		return nutrientRepository.findFoodsRichInVitaminMineral(normalizedType, BigDecimal.valueOf(minAmount));
+		return findGreaterThan(NutrientColumn.forVitaminType(normalizedType), minAmount, cursor,
+				KeysetCursor.limit(limit));
 	}
 
 	/**
@@ -219,13 +449,71 @@ public class MealPlanningService {
 	 * dietary needs
 	 */
 	@Tool(description = "Find foods suitable for dietary restrictions (lowSodium, lowFat, highFiber, lowSugar)")
-	public List<Nutrient> findFoodsForDiet(
+	public CursorPage<Nutrient> findFoodsForDiet(
 			@ToolParam(description = "true or false value for lowSodium") Boolean lowSodium, 
 			@ToolParam(description = "true or false value for lowFat") Boolean lowFat, 
 			@ToolParam(description = "true or false value for highFiber") Boolean highFiber, 
-			@ToolParam(description = "true or false value for lowSugar") Boolean lowSugar) {
-		return nutrientRepository.findFoodsForDietaryRestrictions(lowSodium != null && lowSodium,
-				lowFat != null && lowFat, highFiber != null && highFiber, lowSugar != null && lowSugar);
+			@ToolParam(description = "true or false value for lowSugar") Boolean lowSugar,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findForDietaryRestrictions(restrictions(lowSodium, lowFat, highFiber, lowSugar, null, null, null, null),
+				cursor, KeysetCursor.limit(limit));
+	}
+
+	/**
+	 * MCP Tool: Find foods for dietary restrictions with custom thresholds Same as
+	 * findFoodsForDiet, but each enabled restriction can override its cut-off
+	 */
+	@Tool(description = "Find foods suitable for dietary restrictions with custom thresholds per 100g "
+			+ "(lowSodium: sodium below maxSodiumMg, lowFat: fat below maxFatGrams, "
+			+ "highFiber: fiber above minFiberGrams, lowSugar: sugars below maxSugarGrams)")
+	public CursorPage<Nutrient> findFoodsForDietWithThresholds(
+			@ToolParam(description = "true or false value for lowSodium") Boolean lowSodium,
+			@ToolParam(description = "true or false value for lowFat") Boolean lowFat,
+			@ToolParam(description = "true or false value for highFiber") Boolean highFiber,
+			@ToolParam(description = "true or false value for lowSugar") Boolean lowSugar,
+			@ToolParam(description = "maximum milligrams of sodium per 100g, default 140", required = false) Double maxSodiumMg,
+			@ToolParam(description = "maximum grams of fat per 100g, default 3", required = false) Double maxFatGrams,
+			@ToolParam(description = "minimum grams of fiber per 100g, default 3", required = false) Double minFiberGrams,
+			@ToolParam(description = "maximum grams of sugars per 100g, default 5", required = false) Double maxSugarGrams,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		return findForDietaryRestrictions(restrictions(lowSodium, lowFat, highFiber, lowSugar, maxSodiumMg,
+				maxFatGrams, minFiberGrams, maxSugarGrams), cursor, KeysetCursor.limit(limit));
+	}
+
+	private CursorPage<Nutrient> findForDietaryRestrictions(Map<DietaryRestriction, Double> restrictions,
+			String cursor, int limit) {
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findForDietaryRestrictions(restrictions, cursor, limit);
+		}
+		return scrollNutrients(NutrientSpecifications.dietaryRestrictions(
+				restrictions.get(DietaryRestriction.LOW_SODIUM), restrictions.get(DietaryRestriction.LOW_FAT),
+				restrictions.get(DietaryRestriction.HIGH_FIBER), restrictions.get(DietaryRestriction.LOW_SUGAR)),
+				BY_FDC_ID, cursor, limit);
+	}
+
+	/**
+	 * Enabled restrictions mapped to their threshold, falling back to the default
+	 * threshold when none (or a negative one) is given
+	 */
+	private static Map<DietaryRestriction, Double> restrictions(Boolean lowSodium, Boolean lowFat,
+			Boolean highFiber, Boolean lowSugar, Double maxSodiumMg, Double maxFatGrams, Double minFiberGrams,
+			Double maxSugarGrams) {
+		Map<DietaryRestriction, Double> restrictions = new EnumMap<>(DietaryRestriction.class);
+		putRestriction(restrictions, DietaryRestriction.LOW_SODIUM, lowSodium, maxSodiumMg);
+		putRestriction(restrictions, DietaryRestriction.LOW_FAT, lowFat, maxFatGrams);
+		putRestriction(restrictions, DietaryRestriction.HIGH_FIBER, highFiber, minFiberGrams);
+		putRestriction(restrictions, DietaryRestriction.LOW_SUGAR, lowSugar, maxSugarGrams);
+		return restrictions;
+	}
+
+	private static void putRestriction(Map<DietaryRestriction, Double> restrictions,
+			DietaryRestriction restriction, Boolean enabled, Double threshold) {
+		if (enabled != null && enabled) {
+			restrictions.put(restriction,
+					threshold == null || threshold < 0 ? restriction.getDefaultThreshold() : threshold);
+		}
 	}
 
 	/**
@@ -233,8 +521,98 @@ public class MealPlanningService {
 	 * fat, and carbohydrate ratios
 	 */
 	@Tool(description = "Find foods with balanced macronutrient ratios (good protein, fat, carb balance)")
-	public List<Nutrient> findBalancedFoods() {
-		return nutrientRepository.findBalancedMacronutrientFoods();
+	public CursorPage<Nutrient> findBalancedFoods(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		int pageSize = KeysetCursor.limit(limit);
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findBalanced(cursor, pageSize);
+		}
+		return scrollNutrients(NutrientSpecifications.balancedMacronutrients(), BY_FDC_ID, cursor, pageSize);
+	}
+
+	/**
+	 * MCP Tool: Find foods by the share of energy from protein, fat and carbs,
+	 * e.g. fat at most 5% for LFV or carbs at most 20% for LCHF. Each bound is a
+	 * range over a precomputed ratio column, so no per-row division is needed.
+	 */
+	@Tool(description = "Find foods by the percentage of their calories from protein, fat and carbohydrate, "
+			+ "e.g. maxFatPct 5 for low-fat vegan (LFV) or maxCarbPct 20 for low-carb high-fat (LCHF). "
+			+ "Bounds are inclusive; give at least one")
+	public CursorPage<Nutrient> findFoodsByEnergyRatios(
+			@ToolParam(description = "minimum % of calories from protein", required = false) Double minProteinPct,
+			@ToolParam(description = "maximum % of calories from protein", required = false) Double maxProteinPct,
+			@ToolParam(description = "minimum % of calories from fat", required = false) Double minFatPct,
+			@ToolParam(description = "maximum % of calories from fat", required = false) Double maxFatPct,
+			@ToolParam(description = "minimum % of calories from carbohydrate", required = false) Double minCarbPct,
+			@ToolParam(description = "maximum % of calories from carbohydrate", required = false) Double maxCarbPct,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		List<NutrientRange> ranges = new ArrayList<>(3);
+		addRange(ranges, NutrientColumn.PROTEIN_ENERGY_PCT, minProteinPct, maxProteinPct);
+		addRange(ranges, NutrientColumn.FAT_ENERGY_PCT, minFatPct, maxFatPct);
+		addRange(ranges, NutrientColumn.CARB_ENERGY_PCT, minCarbPct, maxCarbPct);
+		if (ranges.isEmpty()) {
+			throw new IllegalArgumentException("At least one energy percentage bound must be specified");
+		}
+		return findFoodsByNutrientRanges(ranges, limit, cursor);
+	}
+
+	private static void addRange(List<NutrientRange> ranges, NutrientColumn column, Double min, Double max) {
+		if (min != null || max != null) {
+			ranges.add(new NutrientRange(column.getProperty(), min, max));
+		}
+	}
+
+	/**
+	 * MCP Tool: Find foods within several nutrient ranges at once Answers compound
+	 * filters such as calories 100-300, protein over 15 and sodium under 200 in
+	 * a single call
+	 */
+	@Tool(description = "Find foods matching several nutrient ranges at once (per 100g), e.g. energyKcal 100-300, "
+			+ "proteinG min 15 and sodiumMg max 200. Nutrients: energyKcal, totalFatG, proteinG, carbohydrateG, "
+			+ "fiberG, sugarsG, addedSugarsG, sodiumMg, potassiumMg, calciumMg, ironMg, vitaminCMg, "
+			+ "cholesterolMg, saturatedFatG, vitaminDMcg, magnesiumMg, and the % of calories from each macronutrient: "
+			+ "proteinEnergyPct, fatEnergyPct, carbEnergyPct")
+	public CursorPage<Nutrient> findFoodsByNutrientRanges(
+			@ToolParam(description = "list of ranges, each with a nutrient name and an inclusive min and/or max") List<NutrientRange> ranges,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		if (ranges == null || ranges.isEmpty()) {
+			throw new IllegalArgumentException("At least one nutrient range must be specified");
+		}
+		for (NutrientRange range : ranges) {
+			NutrientColumn.fromProperty(range.getNutrient());
+			if (range.getMin() != null && range.getMax() != null && range.getMin() > range.getMax()) {
+				throw new IllegalArgumentException("Minimum must not exceed maximum for " + range.getNutrient());
+			}
+		}
+		int pageSize = KeysetCursor.limit(limit);
+
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findWithinRanges(ranges, cursor, pageSize);
+		}
+		return scrollNutrients(withinRanges(ranges), BY_FDC_ID, cursor, pageSize);
+	}
+
+	/**
+	 * JPA criteria equivalent of NutrientColumnStore.findWithinRanges
+	 */
+	private static Specification<Nutrient> withinRanges(List<NutrientRange> ranges) {
+		return (root, query, cb) -> {
+			List<Predicate> predicates = new ArrayList<>();
+			for (NutrientRange range : ranges) {
+				Path<Double> value = root.get(NutrientColumn.fromProperty(range.getNutrient()).getProperty());
+				predicates.add(cb.isNotNull(value));
+				if (range.getMin() != null) {
+					predicates.add(cb.greaterThanOrEqualTo(value, range.getMin()));
+				}
+				if (range.getMax() != null) {
+					predicates.add(cb.lessThanOrEqualTo(value, range.getMax()));
+				}
+			}
+			return cb.and(predicates.toArray(new Predicate[0]));
+		};
 	}
 
 	/**
@@ -242,8 +620,14 @@ public class MealPlanningService {
 	 * allergens
 	 */
 	@Tool(description = "Find foods without allergen flags (safer for people with allergies)")
-	public List<Food> findFoodsWithoutAllergens() {
-		return foodRepository.findFoodsWithoutAllergens();
+	public CursorPage<Food> findFoodsWithoutAllergens(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		int pageSize = KeysetCursor.limit(limit);
+		if (foodStore.isAvailable()) {
+			return foodStore.findByAllergens(false, cursor, pageSize);
+		}
+		return scrollFoods(FoodSpecifications.withoutAllergens(), BY_FDC_ID, cursor, pageSize);
 	}
 
 	/**
@@ -251,19 +635,295 @@ public class MealPlanningService {
 	 * information
 	 */
 	@Tool(description = "Find foods with allergen information")
-	public List<Food> findFoodsWithAllergens() {
-		return foodRepository.findFoodsWithAllergens();
+	public CursorPage<Food> findFoodsWithAllergens(
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		int pageSize = KeysetCursor.limit(limit);
+		if (foodStore.isAvailable()) {
+			return foodStore.findByAllergens(true, cursor, pageSize);
+		}
+		return scrollFoods(FoodSpecifications.withAllergens(), BY_FDC_ID, cursor, pageSize);
+	}
+
+	/**
+	 * MCP Tool: Get foods safe for a set of allergies, optionally within one
+	 * category
+	 */
+	@Tool(description = "Find foods that contain none of the given allergens, optionally only in one category. "
+			+ "Allergens: MILK, EGGS, FISH, SHELLFISH, MOLLUSCS, TREE_NUTS, PEANUTS, WHEAT, GLUTEN, SOY, SESAME, "
+			+ "MUSTARD, CELERY, LUPIN, SULPHITES, OTHER (flags naming none of these); common names such as "
+			+ "\"Dairy\" also work, and \"nuts\" excludes both TREE_NUTS and PEANUTS")
+	public CursorPage<Food> findFoodsExcludingAllergens(
+			@ToolParam(description = "allergens to exclude, e.g. [\"Dairy\", \"PEANUTS\"]") List<String> allergens,
+			@ToolParam(description = "only foods in this category", required = false) String category,
+			@ToolParam(description = "maximum number of foods to return, default 50, at most 500", required = false) Integer limit,
+			@ToolParam(description = "nextCursor from the previous page; omit for the first page", required = false) String cursor) {
+		if (allergens == null || allergens.isEmpty()) {
+			throw new IllegalArgumentException("Allergens cannot be empty");
+		}
+		long excluded = Allergen.maskOf(allergens);
+		String inCategory = category == null || category.isBlank() ? null : category.trim();
+		int pageSize = KeysetCursor.limit(limit);
+		if (foodStore.isAvailable()) {
+			return foodStore.findExcludingAllergens(excluded, inCategory, cursor, pageSize);
+		}
+		Specification<Food> spec = inCategory == null ? Specification.where(null)
+				: FoodSpecifications.categoryIs(inCategory);
+		return scrollFoodsExcludingAllergens(spec, excluded, cursor, pageSize);
+	}
+
+	/**
+	 * MCP Tool: Find substitutes for a food by nutrient profile
+	 */
+	@Tool(description = "Find the foods whose nutrient profile per 100g (energy, protein, fat, saturated fat, "
+			+ "carbohydrate, fiber, sugars, sodium, potassium, calcium, iron, magnesium) is most similar to a given "
+			+ "food, e.g. to replace a food the user is allergic to or restricted from. Nearest first; distance 0 "
+			+ "means an identical profile. With a diet type, only foods on its allow-list (the foods generateMealPlan "
+			+ "uses) within its caps: at most 5% of energy from fat for LFV, at most 20% from carbohydrate for LCHF")
+	public List<SimilarFood> findSimilarFoods(
+			@ToolParam(description = "a positive number - FDC ID of the food to replace") Long fdcId,
+			@ToolParam(description = "number of foods to return, default 10, at most 100", required = false) Integer k,
+			@ToolParam(description = "allergens the substitutes must not contain, e.g. [\"milk\", \"PEANUTS\"]",
+					required = false) List<String> excludeAllergens,
+			@ToolParam(description = "diet type the substitutes must fit: LFV (low fat vegan) or LCHF (low carb high "
+					+ "fat)", required = false) String dietType,
+			@ToolParam(description = "additional dietary restriction the substitutes must fit: LOW_SODIUM, LOW_FAT, "
+					+ "HIGH_FIBER or LOW_SUGAR", required = false) String restriction) {
+		if (fdcId == null || fdcId <= 0) {
+			throw new IllegalArgumentException("FDC ID must be a positive number");
+		}
+		int count = k == null || k <= 0 ? DEFAULT_SIMILAR : Math.min(k, MAX_SIMILAR);
+		long excluded = excludeAllergens == null || excludeAllergens.isEmpty() ? 0
+				: Allergen.maskOf(excludeAllergens);
+		MealPlanner.Diet diet = dietType == null || dietType.isBlank() ? null : MealPlanner.Diet.of(dietType);
+		DietaryRestriction fitting = restriction == null || restriction.isBlank() ? null
+				: DietaryRestriction.of(restriction);
+		if (fdcId > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("No nutrient data for FDC ID " + fdcId);
+		}
+		// A diet allows the foods its allow-list is matched to, as the planner
+		// does, within its caps; a cap of 100% leaves the share unchecked
+		int[] allowed = diet == null ? null : mealPlanner.allowedFdcIds(diet);
+		double maxFatEnergyPct = diet == null ? 100 : diet.getMaxFatEnergyPct();
+		double maxCarbEnergyPct = diet == null ? 100 : diet.getMaxCarbEnergyPct();
+		Optional<List<SimilarFood>> similar = similarityStore.findSimilar(fdcId.intValue(), count, excluded, allowed,
+				maxFatEnergyPct, maxCarbEnergyPct, fitting);
+		return similar.orElseThrow(() -> new IllegalArgumentException("No nutrient data for FDC ID " + fdcId));
+	}
+
+	/**
+	 * MCP Tool: Plan a day of meals without the LLM
+	 */
+	@Tool(description = "Generate a one-day diabetes-friendly meal plan (breakfast, lunch, snacks, dinner, each a "
+			+ "pre-meal and a main meal with portions in grams) from the LFV or LCHF allow-list, computed in "
+			+ "milliseconds. Meets the calorie target within 5%, keeps fat at most 5% of calories for LFV or carbs "
+			+ "at most 20% for LCHF, and never repeats a food; constraintsMet is false when the available foods "
+			+ "cannot. Name the dishes and write recipes from the result rather than planning from scratch")
+	public GeneratedMealPlan generateMealPlan(
+			@ToolParam(description = "diet type: LFV (low fat vegan) or LCHF (low carb high fat)") String dietType,
+			@ToolParam(description = "daily calories, default 1800, between 1000 and 4000", required = false) Integer calories,
+			@ToolParam(description = "allergens the foods must not contain, e.g. [\"milk\", \"PEANUTS\"]",
+					required = false) List<String> excludeAllergens,
+			@ToolParam(description = "food names to leave out, e.g. foods eaten in the last days", required = false)
+			List<String> excludeFoods,
+			@ToolParam(description = "another number for an alternative plan, default 0", required = false) Integer variant) {
+		if (dietType == null || dietType.isBlank()) {
+			throw new IllegalArgumentException("Diet type cannot be empty");
+		}
+		int target = calories == null ? DEFAULT_PLAN_CALORIES : calories;
+		if (target < MIN_PLAN_CALORIES || target > MAX_PLAN_CALORIES) {
+			throw new IllegalArgumentException(
+					"Calories must be between " + MIN_PLAN_CALORIES + " and " + MAX_PLAN_CALORIES);
+		}
+		long excluded = excludeAllergens == null || excludeAllergens.isEmpty() ? 0
+				: Allergen.maskOf(excludeAllergens);
+		Set<String> excludedFoods = excludeFoods == null ? Set.of()
+				: excludeFoods.stream().filter(Objects::nonNull).map(food -> food.trim().toLowerCase(Locale.ROOT))
+						.collect(Collectors.toSet());
+		return mealPlanner.plan(MealPlanner.Diet.of(dietType), target, excluded, excludedFoods,
+				variant == null ? 0 : variant);
+	}
+
+	private static void validateFdcIds(List<Long> fdcIds) {
+		if (fdcIds == null || fdcIds.isEmpty()) {
+			throw new IllegalArgumentException("FDC IDs cannot be empty");
+		}
+		if (fdcIds.size() > KeysetCursor.MAX_LIMIT) {
+			throw new IllegalArgumentException("At most " + KeysetCursor.MAX_LIMIT + " FDC IDs per call");
+		}
+		for (Long fdcId : fdcIds) {
+			if (fdcId == null || fdcId <= 0) {
+				throw new IllegalArgumentException("FDC ID must be a positive number");
+			}
+		}
+	}
+
+	/**
+	 * Resolve fdcIds in input order (duplicates included) with one probe per id
+	 * of the in-memory store when memory is not null, otherwise with a single
+	 * IN query over the distinct ids. IDs beyond the int range cannot exist.
+	 */
+	private static <T> List<FdcIdLookup<T>> lookup(List<Long> fdcIds, IntFunction<Optional<T>> memory,
+			Function<Collection<Integer>, List<T>> query, ToIntFunction<T> fdcIdOf) {
+		IntFunction<Optional<T>> resolve = memory;
+		if (resolve == null) {
+			Set<Integer> distinct = new LinkedHashSet<>();
+			for (Long fdcId : fdcIds) {
+				if (fdcId <= Integer.MAX_VALUE) {
+					distinct.add(fdcId.intValue());
+				}
+			}
+			Map<Integer, T> rows = new HashMap<>(distinct.size() * 2);
+			if (!distinct.isEmpty()) {
+				for (T row : query.apply(distinct)) {
+					rows.put(fdcIdOf.applyAsInt(row), row);
+				}
+			}
+			resolve = fdcId -> Optional.ofNullable(rows.get(fdcId));
+		}
+
+		List<FdcIdLookup<T>> result = new ArrayList<>(fdcIds.size());
+		for (Long fdcId : fdcIds) {
+			Optional<T> row = fdcId > Integer.MAX_VALUE ? Optional.empty() : resolve.apply(fdcId.intValue());
+			result.add(new FdcIdLookup<>(fdcId, row.isPresent(), row.orElse(null)));
+		}
+		return result;
+	}
+
+	/**
+	 * Rows with column &gt; threshold, highest value first, from memory or as a
+	 * keyset scroll over (column DESC, fdcId DESC)
+	 */
+	private CursorPage<Nutrient> findGreaterThan(NutrientColumn column, double threshold, String cursor, int limit) {
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findGreaterThan(column, threshold, cursor, limit);
+		}
+		return scrollNutrients(NutrientSpecifications.greaterThan(column.getProperty(), threshold),
+				Sort.by(Sort.Direction.DESC, column.getProperty(), "fdcId"), cursor, limit);
+	}
+
+	/**
+	 * Rows with column &lt; threshold, lowest value first
+	 */
+	private CursorPage<Nutrient> findLessThan(NutrientColumn column, double threshold, String cursor, int limit) {
+		if (nutrientStore.isAvailable()) {
+			return nutrientStore.findLessThan(column, threshold, cursor, limit);
+		}
+		return scrollNutrients(NutrientSpecifications.lessThan(column.getProperty(), threshold),
+				Sort.by(column.getProperty(), "fdcId"), cursor, limit);
+	}
+
+	/**
+	 * One keyset page from the database in a read-only transaction, selected
+	 * as columns into detached entities rather than hydrated as managed ones.
+	 * The sort must end in fdcId so the position is unique.
+	 */
+	private CursorPage<Nutrient> scrollNutrients(Specification<Nutrient> spec, Sort sort, String cursor, int limit) {
+		return readOnlyTransaction
+				.execute(status -> NutrientSpecifications.ROWS.page(entityManager, spec, sort, cursor, limit));
+	}
+
+	private CursorPage<Food> scrollFoods(Specification<Food> spec, Sort sort, String cursor, int limit) {
+		return readOnlyTransaction
+				.execute(status -> FoodSpecifications.ROWS.page(entityManager, spec, sort, cursor, limit));
+	}
+
+	/**
+	 * One page of the foods matching spec whose parsed allergen flags miss the
+	 * excluded mask, in fdcId order. The flags are parsed here rather than in
+	 * SQL, so batches are scrolled until the page and one further match are
+	 * found, and nextCursor is only set when there is more.
+	 */
+	private CursorPage<Food> scrollFoodsExcludingAllergens(Specification<Food> spec, long excluded, String cursor,
+			int limit) {
+		return readOnlyTransaction.execute(status -> scanFoodsExcludingAllergens(spec, excluded, cursor, limit));
+	}
+
+	private CursorPage<Food> scanFoodsExcludingAllergens(Specification<Food> spec, long excluded, String cursor,
+			int limit) {
+		List<Food> items = new ArrayList<>(Math.min(limit, 64));
+		Map<String, ?> after = KeysetCursor.position(cursor).getKeys();
+		while (true) {
+			List<Tuple> batch = FoodSpecifications.ROWS.fetch(entityManager, spec, BY_FDC_ID, after, FILTER_BATCH);
+			for (Tuple row : batch) {
+				if ((Allergen.parse(row.get("allergenFlags", String.class)) & excluded) != 0) {
+					continue;
+				}
+				if (items.size() == limit) {
+					return new CursorPage<>(items,
+							KeysetCursor.encode(Map.of("fdcId", items.get(limit - 1).getFdcId())));
+				}
+				items.add(FoodSpecifications.ROWS.row(row));
+			}
+			if (batch.size() < FILTER_BATCH) {
+				return new CursorPage<>(items, null);
+			}
+			after = Map.of("fdcId", batch.get(batch.size() - 1).get("fdcId"));
+		}
 	}
 
 	// Non-MCP service methods for REST API and internal use
 
+	/**
+	 * Every food with (or without) allergen flags, in fdcId order, handed to the
+	 * action one row at a time so a response can be written while rows are read
+	 */
+	public void forEachFoodByAllergens(boolean withAllergens, Consumer<? super Food> action) {
+		if (foodStore.isAvailable()) {
+			foodStore.forEachByAllergens(withAllergens, action);
+			return;
+		}
+		stream(withAllergens ? foodRepository::streamFoodsWithAllergens
+				: foodRepository::streamFoodsWithoutAllergens, action);
+	}
+
+	/**
+	 * Every food below maxCalories (default 100), lowest first, one row at a
+	 * time
+	 */
+	public void forEachLowCalorieFood(Double maxCalories, Consumer<? super Nutrient> action) {
+		double max = maxCalories == null || maxCalories <= 0 ? 100.0 : maxCalories;
+		if (nutrientStore.isAvailable()) {
+			nutrientStore.forEachLessThan(NutrientColumn.ENERGY_KCAL, max, action);
+			return;
+		}
+		stream(() -> nutrientRepository.streamLowCalorieFoods(max), action);
+	}
+
+	/**
+	 * Every food with balanced macronutrients, in fdcId order, one row at a time
+	 */
+	public void forEachBalancedFood(Consumer<? super Nutrient> action) {
+		if (nutrientStore.isAvailable()) {
+			nutrientStore.forEachBalanced(action);
+			return;
+		}
+		stream(nutrientRepository::streamBalancedMacronutrientFoods, action);
+	}
+
+	/**
+	 * Consume a repository stream in its own read-only transaction. Each row is
+	 * detached once handed on, so the persistence context does not grow with
+	 * the result.
+	 */
+	private <T> void stream(Supplier<Stream<T>> query, Consumer<? super T> action) {
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<T> rows = query.get()) {
+				rows.forEach(row -> {
+					action.accept(row);
+					entityManager.detach(row);
+				});
+			}
+		});
+	}
+
 	/**
 	 * Get paginated food search results
 	 */
-	public Page<Food> searchFoodsPaginated(String searchTerm, int page, int size) {
+	public Slice<FoodSummary> searchFoodsPaginated(String searchTerm, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
-			return foodRepository.findAll(pageable);
+			return foodRepository.findAllBy(pageable);
 		}
 		return foodRepository.findByFoodNameContainingIgnoreCase(searchTerm.trim(), pageable);
 	}
@@ -271,10 +931,10 @@ public class MealPlanningService {
 	/**
 	 * Get paginated nutrient search results
 	 */
-	public Page<Nutrient> searchNutrientsPaginated(String searchTerm, int page, int size) {
+	public Slice<NutrientSummary> searchNutrientsPaginated(String searchTerm, int page, int size) {
 		Pageable pageable = PageRequest.of(page, size);
 		if (searchTerm == null || searchTerm.trim().isEmpty()) {
-			return nutrientRepository.findAll(pageable);
+			return nutrientRepository.findAllBy(pageable);
 		}
 		return nutrientRepository.findByFoodNameContainingIgnoreCase(searchTerm.trim(), pageable);
 	}
@@ -287,9 +947,27 @@ public class MealPlanningService {
 	}
 
 	/**
-	 * Get nutritional statistics
+	 * MCP Tool: Nutrient statistics over all foods or one category, answered
+	 * from precomputed summaries
 	 */
-	public Object[] getNutritionalStatistics() {
-		return nutrientRepository.getNutritionalStatistics();
+	@Tool(description = "Nutrient statistics per 100g: count, mean, min, max and 10th/50th/90th percentile of each "
+			+ "nutrient, over all foods or the foods of one category")
+	public NutritionStatistics getNutritionStatistics(
+			@ToolParam(description = "food category; omit for all foods", required = false) String category,
+			@ToolParam(description = "only these nutrients, e.g. [\"energyKcal\", \"proteinG\"]; omit for all", required = false) List<String> nutrients) {
+		String inCategory = category == null || category.isBlank() ? null : category.trim();
+		NutritionStatistics statistics = statisticsStore.statistics(inCategory)
+				.orElseThrow(() -> new IllegalArgumentException("Unknown food category: " + inCategory));
+		if (nutrients == null || nutrients.isEmpty()) {
+			return statistics;
+		}
+		Set<String> selected = new LinkedHashSet<>();
+		for (String nutrient : nutrients) {
+			selected.add(NutrientColumn.fromProperty(nutrient.trim()).getProperty());
+		}
+		return new NutritionStatistics(statistics.getCategory(), statistics.getFoods(), statistics.getNutrients()
+				.stream()
+				.filter(column -> selected.contains(column.getNutrient()))
+				.toList());
 	}
-}
\ No newline at end of file
+}
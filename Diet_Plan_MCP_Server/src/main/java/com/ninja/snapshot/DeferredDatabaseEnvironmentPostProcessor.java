@@ -0,0 +1,48 @@
+package com.ninja.snapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import com.ninja.store.StoreMode;
+
+/**
+ * In MEMORY mode with a readable snapshot file, the stores start from the file
+ * and the database is only needed by the background refresh. This keeps
+ * startup off the database: Hibernate neither validates the schema nor reads
+ * JDBC metadata, the repositories are bootstrapped lazily, and Flyway's
+ * migration is left to {@link SnapshotRefresh}, which runs it before reloading
+ * the stores. diet.snapshot.defer-database=false keeps the usual startup.
+ */
+public class DeferredDatabaseEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	/**
+	 * Set when startup leaves the database to the snapshot refresh
+	 */
+	public static final String DEFERRED = "diet.database.deferred";
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		StoreMode mode = environment.getProperty("diet.store.mode", StoreMode.class, StoreMode.MEMORY);
+		String path = environment.getProperty("diet.snapshot.path", "");
+		if (mode != StoreMode.MEMORY || path.isBlank() || !Files.isReadable(Path.of(path))
+				|| !environment.getProperty("diet.snapshot.refresh", Boolean.class, true)
+				|| !environment.getProperty("diet.snapshot.defer-database", Boolean.class, true)) {
+			return;
+		}
+		Map<String, Object> properties = new LinkedHashMap<>();
+		properties.put("spring.jpa.hibernate.ddl-auto", "none");
+		properties.put("spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access", "false");
+		properties.put("spring.data.jpa.repositories.bootstrap-mode", "lazy");
+		// Spring Data JDBC otherwise opens a connection to detect the dialect
+		properties.put("spring.data.jdbc.dialect", "postgresql");
+		properties.put(DEFERRED, "true");
+		environment.getPropertySources().addFirst(new MapPropertySource("dietDeferredDatabase", properties));
+	}
+}
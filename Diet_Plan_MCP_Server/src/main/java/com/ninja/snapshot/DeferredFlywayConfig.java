@@ -0,0 +1,31 @@
+package com.ninja.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flyway migrates at startup as usual, unless startup leaves the database to
+ * the snapshot refresh (see {@link DeferredDatabaseEnvironmentPostProcessor}),
+ * in which case {@link SnapshotRefresh} migrates in the background.
+ */
+@Configuration
+public class DeferredFlywayConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(DeferredFlywayConfig.class);
+
+	@Bean
+	public FlywayMigrationStrategy flywayMigrationStrategy(
+			@Value("${" + DeferredDatabaseEnvironmentPostProcessor.DEFERRED + ":false}") boolean deferred) {
+		return flyway -> {
+			if (deferred) {
+				log.info("Started from the snapshot, migrating the database in the background");
+			} else {
+				flyway.migrate();
+			}
+		};
+	}
+}
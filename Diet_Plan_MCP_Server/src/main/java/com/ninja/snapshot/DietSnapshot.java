@@ -0,0 +1,296 @@
+package com.ninja.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.ninja.entity.DietFood;
+import com.ninja.entity.Food;
+import com.ninja.entity.LchfFood;
+import com.ninja.entity.LfvFood;
+import com.ninja.entity.Nutrient;
+import com.ninja.store.FoodRows;
+import com.ninja.store.NutrientColumn;
+import com.ninja.store.NutrientRows;
+
+/**
+ * Point-in-time copy of the foods, nutrients, lfv_tbl and lchf_tbl tables in
+ * a compact binary file, so the server can start serving without a database.
+ *
+ * Layout (big-endian): magic "DIETSNAP", int format version, long creation
+ * time (epoch millis), int CRC32 of the payload, then the payload: one
+ * section per table, each an int row count followed by the rows. Strings are
+ * an int UTF-8 byte length (-1 for NULL) and the bytes; nutrient values are
+ * doubles in {@link NutrientColumn} order, NaN for NULL, preceded by the
+ * column count so a column change is detected as a format mismatch.
+ *
+ * Foods and nutrients are read into columns ({@link FoodRows},
+ * {@link NutrientRows}) rather than an entity per row.
+ */
+public final class DietSnapshot {
+
+	public static final int VERSION = 2;
+
+	private static final long MAGIC = 0x44494554534E4150L; // "DIETSNAP"
+	private static final int HEADER_BYTES = 8 + 4 + 8 + 4;
+
+	private final long createdAt;
+	private final FoodRows foods;
+	private final NutrientRows nutrients;
+	private final List<LfvFood> lfvFoods;
+	private final List<LchfFood> lchfFoods;
+
+	public DietSnapshot(long createdAt, List<Food> foods, List<Nutrient> nutrients, List<LfvFood> lfvFoods,
+			List<LchfFood> lchfFoods) {
+		this(createdAt, FoodRows.of(foods), NutrientRows.of(nutrients), lfvFoods, lchfFoods);
+	}
+
+	public DietSnapshot(long createdAt, FoodRows foods, NutrientRows nutrients, List<LfvFood> lfvFoods,
+			List<LchfFood> lchfFoods) {
+		this.createdAt = createdAt;
+		this.foods = foods;
+		this.nutrients = nutrients;
+		this.lfvFoods = lfvFoods;
+		this.lchfFoods = lchfFoods;
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public FoodRows getFoods() {
+		return foods;
+	}
+
+	public NutrientRows getNutrients() {
+		return nutrients;
+	}
+
+	public List<LfvFood> getLfvFoods() {
+		return lfvFoods;
+	}
+
+	public List<LchfFood> getLchfFoods() {
+		return lchfFoods;
+	}
+
+	/**
+	 * Write the snapshot to a uniquely named temporary file next to path and
+	 * move it into place, so a reader never maps a half-written file
+	 */
+	public void write(Path path) throws IOException {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream(1 << 20);
+		DataOutputStream out = new DataOutputStream(payload);
+		writePayload(out);
+		out.flush();
+		byte[] bytes = payload.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+
+		Path absolute = path.toAbsolutePath();
+		// A unique name, so concurrent exports to the same path never share it
+		Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			// createTempFile makes it owner-only (0600) where POSIX applies
+			if (Files.getFileAttributeView(temp, PosixFileAttributeView.class) != null) {
+				Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+			}
+			try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				DataOutputStream header = new DataOutputStream(file);
+				header.writeLong(MAGIC);
+				header.writeInt(VERSION);
+				header.writeLong(createdAt);
+				header.writeInt((int) crc.getValue());
+				header.write(bytes);
+				header.flush();
+			}
+			Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void writePayload(DataOutputStream out) throws IOException {
+		out.writeInt(foods.size());
+		for (int row = 0; row < foods.size(); row++) {
+			out.writeInt(foods.fdcId(row));
+			writeString(out, foods.foodName(row));
+			writeString(out, foods.dataType(row));
+			writeString(out, foods.foodCategory(row));
+			writeString(out, foods.publicationDate(row));
+			writeString(out, foods.allergenFlags(row));
+		}
+
+		NutrientColumn[] columns = NutrientColumn.values();
+		out.writeInt(columns.length);
+		out.writeInt(nutrients.size());
+		for (int row = 0; row < nutrients.size(); row++) {
+			out.writeInt(nutrients.fdcId(row));
+			writeString(out, nutrients.foodName(row));
+			writeString(out, nutrients.simplifiedName(row));
+			writeString(out, nutrients.synonyms(row));
+			for (NutrientColumn column : columns) {
+				out.writeDouble(nutrients.value(column, row));
+			}
+		}
+
+		writeDietFoods(out, lfvFoods);
+		writeDietFoods(out, lchfFoods);
+	}
+
+	private static void writeDietFoods(DataOutputStream out, List<? extends DietFood> foods) throws IOException {
+		out.writeInt(foods.size());
+		for (DietFood food : foods) {
+			out.writeLong(food.getId());
+			writeString(out, food.getName());
+			writeString(out, food.getCategory());
+			writeString(out, food.getLimitation());
+			writeString(out, food.getNotes());
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Memory-map a snapshot file and decode it. Throws IOException when the
+	 * file is not a snapshot, was written by another format version, or is
+	 * corrupt.
+	 */
+	public static DietSnapshot read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException("Not a diet snapshot: " + path);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return decode(buffer, path);
+		}
+	}
+
+	private static DietSnapshot decode(ByteBuffer buffer, Path path) throws IOException {
+		if (buffer.getLong() != MAGIC) {
+			throw new IOException("Not a diet snapshot: " + path);
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Snapshot format " + version + " is not supported, expected " + VERSION);
+		}
+		long createdAt = buffer.getLong();
+		int expectedCrc = buffer.getInt();
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		if ((int) crc.getValue() != expectedCrc) {
+			throw new IOException("Snapshot checksum mismatch: " + path);
+		}
+
+		try {
+			FoodRows foods = readFoods(buffer);
+			if (buffer.getInt() != NutrientColumn.values().length) {
+				throw new IOException("Snapshot nutrient columns do not match this server");
+			}
+			NutrientRows nutrients = readNutrients(buffer);
+
+			List<LfvFood> lfvFoods = readDietFoods(buffer, (id, name, category, limitation, notes) -> {
+				LfvFood food = new LfvFood(name, category, limitation, notes);
+				food.setId(id);
+				return food;
+			});
+			List<LchfFood> lchfFoods = readDietFoods(buffer, (id, name, category, limitation, notes) -> {
+				LchfFood food = new LchfFood(name, category, limitation, notes);
+				food.setId(id);
+				return food;
+			});
+			return new DietSnapshot(createdAt, foods, nutrients, lfvFoods, lchfFoods);
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt diet snapshot: " + path, e);
+		}
+	}
+
+	private static FoodRows readFoods(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		int[] fdcIds = new int[count];
+		String[] foodNames = new String[count];
+		String[] dataTypes = new String[count];
+		String[] foodCategories = new String[count];
+		String[] publicationDates = new String[count];
+		String[] allergenFlags = new String[count];
+		for (int row = 0; row < count; row++) {
+			fdcIds[row] = buffer.getInt();
+			foodNames[row] = readString(buffer);
+			dataTypes[row] = readString(buffer);
+			foodCategories[row] = readString(buffer);
+			publicationDates[row] = readString(buffer);
+			allergenFlags[row] = readString(buffer);
+		}
+		return new FoodRows(fdcIds, foodNames, dataTypes, foodCategories, publicationDates, allergenFlags);
+	}
+
+	/**
+	 * Nutrient values go straight into one double[] per column, with no
+	 * entity or boxed Double per value
+	 */
+	private static NutrientRows readNutrients(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		int[] fdcIds = new int[count];
+		String[] foodNames = new String[count];
+		String[] simplifiedNames = new String[count];
+		String[] synonyms = new String[count];
+		double[][] columns = new double[NutrientColumn.values().length][count];
+		for (int row = 0; row < count; row++) {
+			fdcIds[row] = buffer.getInt();
+			foodNames[row] = readString(buffer);
+			simplifiedNames[row] = readString(buffer);
+			synonyms[row] = readString(buffer);
+			for (double[] column : columns) {
+				column[row] = buffer.getDouble();
+			}
+		}
+		return new NutrientRows(fdcIds, foodNames, simplifiedNames, synonyms, columns);
+	}
+
+	private interface DietFoodFactory<T> {
+		T create(long id, String name, String category, String limitation, String notes);
+	}
+
+	private static <T extends DietFood> List<T> readDietFoods(ByteBuffer buffer, DietFoodFactory<T> factory) {
+		int count = buffer.getInt();
+		List<T> foods = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			foods.add(factory.create(buffer.getLong(), readString(buffer), readString(buffer), readString(buffer),
+					readString(buffer)));
+		}
+		return foods;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,40 @@
+package com.ninja.snapshot;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Build-time export: started with --diet.snapshot.export=&lt;file&gt;, the
+ * server writes the snapshot and exits instead of serving MCP requests. The
+ * property is checked at run time rather than with a bean condition so it
+ * also works against an AOT-processed build.
+ */
+@Component
+public class SnapshotExportRunner implements ApplicationRunner {
+
+	private final SnapshotExporter exporter;
+	private final ConfigurableApplicationContext context;
+	private final String target;
+
+	public SnapshotExportRunner(SnapshotExporter exporter, ConfigurableApplicationContext context,
+			@Value("${diet.snapshot.export:}") String target) {
+		this.exporter = exporter;
+		this.context = context;
+		this.target = target;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (target.isBlank()) {
+			return;
+		}
+		exporter.export(Path.of(target));
+		System.exit(SpringApplication.exit(context, () -> 0));
+	}
+}
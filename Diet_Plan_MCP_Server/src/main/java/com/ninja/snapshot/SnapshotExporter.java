@@ -0,0 +1,76 @@
+package com.ninja.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.entity.Food;
+import com.ninja.entity.Nutrient;
+import com.ninja.repository.FoodRepository;
+import com.ninja.repository.LchfFoodRepository;
+import com.ninja.repository.LfvFoodRepository;
+import com.ninja.repository.NutrientRepository;
+
+/**
+ * Writes the four diet tables from the database into a {@link DietSnapshot}
+ * file.
+ */
+@Service
+public class SnapshotExporter {
+
+	private static final Logger log = LoggerFactory.getLogger(SnapshotExporter.class);
+
+	private final FoodRepository foodRepository;
+	private final NutrientRepository nutrientRepository;
+	private final LfvFoodRepository lfvFoodRepository;
+	private final LchfFoodRepository lchfFoodRepository;
+	private final TransactionTemplate readOnlyTransaction;
+
+	@Autowired
+	public SnapshotExporter(FoodRepository foodRepository, NutrientRepository nutrientRepository,
+			LfvFoodRepository lfvFoodRepository, LchfFoodRepository lchfFoodRepository,
+			PlatformTransactionManager transactionManager) {
+		this.foodRepository = foodRepository;
+		this.nutrientRepository = nutrientRepository;
+		this.lfvFoodRepository = lfvFoodRepository;
+		this.lchfFoodRepository = lchfFoodRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Read every table in one read-only transaction, so the snapshot is
+	 * consistent, and write it to path
+	 */
+	public DietSnapshot export(Path path) {
+		DietSnapshot snapshot = readOnlyTransaction.execute(status -> {
+			List<Food> foods;
+			try (Stream<Food> rows = foodRepository.streamAllBy()) {
+				foods = rows.toList();
+			}
+			List<Nutrient> nutrients;
+			try (Stream<Nutrient> rows = nutrientRepository.streamAllBy()) {
+				nutrients = rows.toList();
+			}
+			return new DietSnapshot(System.currentTimeMillis(), foods, nutrients, lfvFoodRepository.findAll(),
+					lchfFoodRepository.findAll());
+		});
+		try {
+			snapshot.write(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write snapshot " + path, e);
+		}
+		log.info("Exported {} foods, {} nutrients, {} lfv and {} lchf rows to {}", snapshot.getFoods().size(),
+				snapshot.getNutrients().size(), snapshot.getLfvFoods().size(), snapshot.getLchfFoods().size(), path);
+		return snapshot;
+	}
+}
@@ -0,0 +1,85 @@
+package com.ninja.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The snapshot file named by diet.snapshot.path. Blank disables snapshots; a
+ * missing or unreadable file is logged and treated as absent, so callers fall
+ * back to the database.
+ */
+@Component
+public class SnapshotFile {
+
+	private static final Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+
+	private final Path path;
+
+	private boolean startupRead;
+	private boolean startedFromSnapshot;
+	private DietSnapshot startupSnapshot;
+
+	public SnapshotFile(@Value("${diet.snapshot.path:}") String path) {
+		this.path = path.isBlank() ? null : Path.of(path);
+	}
+
+	public boolean isConfigured() {
+		return path != null;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * The snapshot as read during startup, shared by every store so the file is
+	 * mapped and decoded once; empty once {@link #releaseStartup()} has run
+	 */
+	public synchronized Optional<DietSnapshot> atStartup() {
+		if (!startupRead) {
+			startupSnapshot = read().orElse(null);
+			startedFromSnapshot = startupSnapshot != null;
+			startupRead = true;
+		}
+		return Optional.ofNullable(startupSnapshot);
+	}
+
+	/**
+	 * Drop the startup snapshot once the stores hold their own tables, so it
+	 * is not kept alive after they reload. Returns whether startup read one.
+	 */
+	public synchronized boolean releaseStartup() {
+		startupSnapshot = null;
+		startupRead = true;
+		return startedFromSnapshot;
+	}
+
+	/**
+	 * Map and decode the file now
+	 */
+	public Optional<DietSnapshot> read() {
+		if (path == null) {
+			return Optional.empty();
+		}
+		if (!Files.isRegularFile(path)) {
+			log.warn("Snapshot file {} does not exist", path);
+			return Optional.empty();
+		}
+		try {
+			long start = System.nanoTime();
+			DietSnapshot snapshot = DietSnapshot.read(path);
+			log.info("Read snapshot {} in {} ms", path, (System.nanoTime() - start) / 1_000_000);
+			return Optional.of(snapshot);
+		} catch (IOException e) {
+			log.warn("Could not read snapshot {}", path, e);
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.ninja.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.ninja.service.CacheAdminService;
+import com.ninja.store.StoreMode;
+
+/**
+ * In MEMORY mode the stores start from the snapshot file; once the server is
+ * up they are reloaded from the database on the application task executor (a
+ * virtual thread when spring.threads.virtual.enabled is set), so a stale
+ * snapshot is only served until that load completes. When startup left the
+ * database alone (see {@link DeferredDatabaseEnvironmentPostProcessor}) this
+ * is also where Flyway migrates, so tools answer before the database is
+ * reachable; until the refresh succeeds, tools the stores cannot answer go to
+ * the database as it is.
+ */
+@Component
+public class SnapshotRefresh {
+
+	private static final Logger log = LoggerFactory.getLogger(SnapshotRefresh.class);
+
+	private final SnapshotFile snapshotFile;
+	private final CacheAdminService cacheAdminService;
+	private final TaskExecutor taskExecutor;
+	private final StoreMode mode;
+	private final boolean enabled;
+	private final boolean databaseDeferred;
+	private final ObjectProvider<Flyway> flyway;
+
+	public SnapshotRefresh(SnapshotFile snapshotFile, CacheAdminService cacheAdminService,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+			@Value("${diet.store.mode:MEMORY}") StoreMode mode,
+			@Value("${diet.snapshot.refresh:true}") boolean enabled,
+			@Value("${" + DeferredDatabaseEnvironmentPostProcessor.DEFERRED + ":false}") boolean databaseDeferred,
+			ObjectProvider<Flyway> flyway) {
+		this.snapshotFile = snapshotFile;
+		this.cacheAdminService = cacheAdminService;
+		this.taskExecutor = taskExecutor;
+		this.mode = mode;
+		this.enabled = enabled;
+		this.databaseDeferred = databaseDeferred;
+		this.flyway = flyway;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void refresh() {
+		// Every store has taken its tables by now
+		boolean startedFromSnapshot = snapshotFile.releaseStartup();
+		if (!enabled || mode != StoreMode.MEMORY || !startedFromSnapshot) {
+			return;
+		}
+		taskExecutor.execute(() -> {
+			if (databaseDeferred) {
+				try {
+					flyway.ifAvailable(Flyway::migrate);
+				} catch (RuntimeException e) {
+					log.warn("Could not migrate the database, still serving snapshot {}",
+							snapshotFile.getPath(), e);
+					return;
+				}
+			}
+			log.info("Refreshing stores started from snapshot {}", snapshotFile.getPath());
+			cacheAdminService.reload();
+		});
+	}
+}
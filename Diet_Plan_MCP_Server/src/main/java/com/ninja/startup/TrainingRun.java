@@ -0,0 +1,88 @@
+package com.ninja.startup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class-data-sharing training run, used by the "startup" Maven profile. With
+ * diet.training.run=true the server calls a representative set of its own
+ * tools through the same callbacks the MCP transport uses, then exits, so the
+ * JVM archives every class a real first request would load.
+ *
+ * Deliberately not a conditional bean: AOT processing fixes conditions at
+ * build time, and the flag has to work against the AOT-processed jar.
+ */
+@Component
+public class TrainingRun implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(TrainingRun.class);
+
+	// Tool name -> JSON arguments, covering text search, id lookup, threshold,
+	// range, compound-filter and cached diet-list tools
+	private static final Map<String, String> CALLS = new LinkedHashMap<>();
+	static {
+		CALLS.put("searchByFoodName", "{\"searchTerm\":\"apple\"}");
+		CALLS.put("getFoodById", "{\"fdcId\":167512}");
+		CALLS.put("getAllFoodCategories", "{}");
+		CALLS.put("getNutrientsByFdcId", "{\"fdcId\":167512}");
+		CALLS.put("searchNutrientsByFoodName", "{\"searchTerm\":\"rice\",\"limit\":20}");
+		CALLS.put("findHighProteinFoods", "{\"minProteinGrams\":20}");
+		CALLS.put("findFoodsInCalorieRange", "{\"minCalories\":100,\"maxCalories\":200}");
+		CALLS.put("findFoodsForDiet", "{\"lowSodium\":true,\"highFiber\":true}");
+		CALLS.put("findFoodsWithoutAllergens", "{}");
+		CALLS.put("getAllowedLfvFoods", "{}");
+		CALLS.put("searchLchfFoodsByName", "{\"searchTerm\":\"cheese\"}");
+		CALLS.put("getLchfFoodCategories", "{}");
+	}
+
+	private final List<ToolCallbackProvider> providers;
+	private final ConfigurableApplicationContext context;
+	private final boolean enabled;
+
+	public TrainingRun(List<ToolCallbackProvider> providers, ConfigurableApplicationContext context,
+			@Value("${diet.training.run:false}") boolean enabled) {
+		this.providers = providers;
+		this.context = context;
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			return;
+		}
+		Map<String, ToolCallback> tools = new LinkedHashMap<>();
+		for (ToolCallbackProvider provider : providers) {
+			for (ToolCallback callback : provider.getToolCallbacks()) {
+				tools.put(callback.getToolDefinition().name(), callback);
+			}
+		}
+		CALLS.forEach((name, arguments) -> {
+			ToolCallback tool = tools.get(name);
+			if (tool == null) {
+				log.warn("Training run: no tool named {}", name);
+				return;
+			}
+			try {
+				tool.call(arguments);
+			} catch (RuntimeException e) {
+				// An empty or unreachable database still exercises the call path
+				log.info("Training run: {} failed: {}", name, e.getMessage());
+			}
+		});
+		log.info("Training run called {} tools", CALLS.size());
+		System.exit(SpringApplication.exit(context, () -> 0));
+	}
+}
@@ -0,0 +1,122 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical allergens, one bit each in a food's allergen mask. The free-text
+ * allergen_flags column is parsed once when a {@link FoodTable} is built: an
+ * allergen's bit is set when any of its keywords appears in the text as a
+ * whole word, singular or plural ("Peanuts" sets PEANUTS but not TREE_NUTS,
+ * "nutmeg" sets nothing). A bare "nut" or "nuts" could mean either, so it sets
+ * both TREE_NUTS and PEANUTS. Flags that are present but match no keyword set
+ * OTHER, so they can still be excluded.
+ */
+public enum Allergen {
+
+	MILK("milk", "dairy", "lactose", "casein", "whey", "cheese", "yogurt", "yoghurt"),
+	EGGS("egg"),
+	FISH("fish"),
+	SHELLFISH("shellfish", "crustacean", "shrimp", "prawn", "crab", "lobster", "crayfish"),
+	MOLLUSCS("mollusc", "mollusk", "clam", "mussel", "oyster", "scallop", "squid", "octopus"),
+	TREE_NUTS("tree nut", "tree-nut", "almond", "cashew", "walnut", "pecan", "pistachio", "hazelnut", "macadamia",
+			"brazil nut"),
+	PEANUTS("peanut", "groundnut"),
+	WHEAT("wheat", "spelt"),
+	GLUTEN("gluten", "wheat", "spelt", "barley", "rye"),
+	SOY("soy", "soya", "soybean"),
+	SESAME("sesame", "tahini"),
+	MUSTARD("mustard"),
+	CELERY("celery", "celeriac"),
+	LUPIN("lupin", "lupine"),
+	SULPHITES("sulphite", "sulfite", "sulphur dioxide", "sulfur dioxide"),
+	OTHER();
+
+	private static final Allergen[] VALUES = values();
+
+	private static final Pattern NUTS = Pattern.compile("(?<!tree[ -])(?<!brazil )\\bnuts?\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	private final Pattern keywords;
+
+	Allergen(String... keywords) {
+		this.keywords = keywords.length == 0 ? null
+				: Pattern.compile("\\b(?:" + String.join("|", keywords) + ")(?:e?s)?\\b", Pattern.CASE_INSENSITIVE);
+	}
+
+	public long bit() {
+		return 1L << ordinal();
+	}
+
+	/**
+	 * Mask of the allergens named in an allergen_flags value. null, '' and
+	 * 'NaN' mean no flags, the same rule as FoodRepository.findFoodsWithAllergens.
+	 */
+	public static long parse(String flags) {
+		if (flags == null || flags.isEmpty() || flags.equals("NaN")) {
+			return 0;
+		}
+		long mask = keywordMask(flags);
+		return mask == 0 ? OTHER.bit() : mask;
+	}
+
+	/**
+	 * Mask of allergens named by a caller: canonical names ("TREE_NUTS", "tree
+	 * nuts") or any keyword ("Dairy", "Peanuts"); "nuts" names both kinds
+	 *
+	 * @throws IllegalArgumentException for a name that matches no allergen
+	 */
+	public static long maskOf(Collection<String> names) {
+		long mask = 0;
+		for (String name : names) {
+			if (name == null || name.isBlank()) {
+				continue;
+			}
+			String canonical = name.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+			long named = 0;
+			for (Allergen allergen : VALUES) {
+				if (allergen.name().equals(canonical)) {
+					named = allergen.bit();
+				}
+			}
+			if (named == 0) {
+				named = keywordMask(name);
+			}
+			if (named == 0) {
+				throw new IllegalArgumentException("Unknown allergen '" + name.trim() + "', expected one of "
+						+ List.of(VALUES));
+			}
+			mask |= named;
+		}
+		return mask;
+	}
+
+	/**
+	 * Allergens whose bits are set in a mask, in declaration order
+	 */
+	public static List<Allergen> of(long mask) {
+		List<Allergen> allergens = new ArrayList<>();
+		for (Allergen allergen : VALUES) {
+			if ((mask & allergen.bit()) != 0) {
+				allergens.add(allergen);
+			}
+		}
+		return allergens;
+	}
+
+	private static long keywordMask(String text) {
+		long mask = 0;
+		for (Allergen allergen : VALUES) {
+			if (allergen.keywords != null && allergen.keywords.matcher(text).find()) {
+				mask |= allergen.bit();
+			}
+		}
+		if (NUTS.matcher(text).find()) {
+			mask |= TREE_NUTS.bit() | PEANUTS.bit();
+		}
+		return mask;
+	}
+}
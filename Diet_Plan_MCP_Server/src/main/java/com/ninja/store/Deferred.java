@@ -0,0 +1,32 @@
+package com.ninja.store;
+
+import java.util.function.Supplier;
+
+/**
+ * A table index built on first use, once: the first caller builds it and
+ * callers arriving meanwhile wait for that build. Tables defer their secondary
+ * indexes this way so a table can answer its first query before they exist.
+ */
+final class Deferred<T> {
+
+	private Supplier<T> builder;
+	private volatile T value;
+
+	Deferred(Supplier<T> builder) {
+		this.builder = builder;
+	}
+
+	T get() {
+		T current = value;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (value == null) {
+				value = builder.get();
+				builder = null;
+			}
+			return value;
+		}
+	}
+}
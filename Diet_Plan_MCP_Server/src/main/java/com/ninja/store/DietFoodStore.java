@@ -0,0 +1,119 @@
+package com.ninja.store;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.entity.LchfFood;
+import com.ninja.entity.LfvFood;
+import com.ninja.repository.LchfFoodRepository;
+import com.ninja.repository.LfvFoodRepository;
+import com.ninja.snapshot.DietSnapshot;
+import com.ninja.snapshot.SnapshotFile;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory store for the LFV and LCHF diet lists, loaded and swapped the same
+ * way as {@link NutrientColumnStore}. Both lists are replaced together.
+ */
+@Component
+public class DietFoodStore {
+
+	private static final Logger log = LoggerFactory.getLogger(DietFoodStore.class);
+
+	private final LfvFoodRepository lfvFoodRepository;
+	private final LchfFoodRepository lchfFoodRepository;
+	private final StoreMode mode;
+	private final SnapshotFile snapshotFile;
+	private final TransactionTemplate readOnlyTransaction;
+
+	private volatile Tables tables;
+
+	private record Tables(DietFoodTable<LfvFood> lfv, DietFoodTable<LchfFood> lchf) {
+	}
+
+	@Autowired
+	public DietFoodStore(LfvFoodRepository lfvFoodRepository, LchfFoodRepository lchfFoodRepository,
+			@Value("${diet.store.mode:MEMORY}") StoreMode mode, PlatformTransactionManager transactionManager,
+			SnapshotFile snapshotFile) {
+		this.lfvFoodRepository = lfvFoodRepository;
+		this.lchfFoodRepository = lchfFoodRepository;
+		this.mode = mode;
+		this.snapshotFile = snapshotFile;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@PostConstruct
+	void load() {
+		if (mode == StoreMode.JPA) {
+			return;
+		}
+		Optional<DietSnapshot> snapshot = snapshotFile.atStartup();
+		if (snapshot.isPresent()) {
+			install(snapshot.get().getLfvFoods(), snapshot.get().getLchfFoods(), "snapshot");
+		} else if (mode == StoreMode.MEMORY) {
+			reload();
+		}
+	}
+
+	/**
+	 * Rebuild the store from the database, or from the snapshot file in
+	 * SNAPSHOT mode
+	 */
+	public void reload() {
+		if (mode == StoreMode.SNAPSHOT) {
+			snapshotFile.read()
+					.ifPresent(snapshot -> install(snapshot.getLfvFoods(), snapshot.getLchfFoods(), "snapshot"));
+			return;
+		}
+		try {
+			Tables loaded = readOnlyTransaction.execute(status -> new Tables(
+					DietFoodTable.of(lfvFoodRepository.findAll()), DietFoodTable.of(lchfFoodRepository.findAll())));
+			install(loaded, "database");
+		} catch (RuntimeException e) {
+			log.warn("Could not load diet food store", e);
+		}
+	}
+
+	private void install(List<LfvFood> lfv, List<LchfFood> lchf, String source) {
+		install(new Tables(DietFoodTable.of(lfv), DietFoodTable.of(lchf)), source);
+	}
+
+	private void install(Tables loaded, String source) {
+		tables = loaded;
+		log.info("Loaded {} lfv and {} lchf rows into the diet food store from the {}", loaded.lfv().size(),
+				loaded.lchf().size(), source);
+	}
+
+	/**
+	 * True when queries can be answered from memory
+	 */
+	public boolean isAvailable() {
+		return tables != null;
+	}
+
+	/**
+	 * Current LFV snapshot, or null when the store is not available
+	 */
+	public DietFoodTable<LfvFood> lfv() {
+		Tables current = tables;
+		return current == null ? null : current.lfv();
+	}
+
+	/**
+	 * Current LCHF snapshot, or null when the store is not available
+	 */
+	public DietFoodTable<LchfFood> lchf() {
+		Tables current = tables;
+		return current == null ? null : current.lchf();
+	}
+}
@@ -0,0 +1,146 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.DietFood;
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.TrigramIndex;
+import com.ninja.paging.KeysetCursor;
+
+/**
+ * Immutable snapshot of one diet food list (LFV or LCHF), ordered by id. The
+ * tables are small, so queries are filtered scans; the filters mirror
+ * DietFoodSpecifications so memory and database answers agree. Names are
+ * also held in a typo-tolerant word index for the name search fallback.
+ */
+public final class DietFoodTable<T extends DietFood> {
+
+	private final List<T> rows;
+	private final List<String> categories;
+	private final List<String> limitations;
+	private final FuzzyIndex nameIndex;
+
+	private DietFoodTable(List<T> rows, List<String> categories, List<String> limitations) {
+		this.rows = rows;
+		this.categories = categories;
+		this.limitations = limitations;
+		String[][] names = new String[rows.size()][];
+		for (int row = 0; row < names.length; row++) {
+			names[row] = new String[] { rows.get(row).getName() };
+		}
+		this.nameIndex = FuzzyIndex.build(names);
+	}
+
+	public static <T extends DietFood> DietFoodTable<T> of(List<T> foods) {
+		List<T> rows = new ArrayList<>(foods);
+		rows.sort(Comparator.comparing(DietFood::getId));
+		return new DietFoodTable<>(List.copyOf(rows), distinct(rows, DietFood::getCategory),
+				distinct(rows, DietFood::getLimitation));
+	}
+
+	private static <T extends DietFood> List<String> distinct(List<T> rows,
+			Function<DietFood, String> attribute) {
+		Set<String> values = new TreeSet<>();
+		rows.stream().map(attribute).filter(Objects::nonNull).forEach(values::add);
+		return List.copyOf(values);
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * All rows, in id order
+	 */
+	public List<T> rows() {
+		return rows;
+	}
+
+	/**
+	 * One page of the rows matching the filter, in id order
+	 */
+	public CursorPage<T> find(Predicate<? super T> filter, String cursor, int limit) {
+		return KeysetCursor.scan("id", rows.size(), row -> rows.get(row).getId(),
+				row -> filter.test(rows.get(row)), rows::get, cursor, limit);
+	}
+
+	/**
+	 * One page of the rows whose name contains the term, in id order. When no
+	 * name contains it, the rows whose name words are within a few edits of
+	 * the term's are paged instead, fewest edits first and then in id order,
+	 * and its closest spellings are returned as didYouMean.
+	 */
+	public CursorPage<T> searchByName(String name, String cursor, int limit) {
+		Predicate<DietFood> contains = nameContains(name);
+		if (rows.stream().anyMatch(contains)) {
+			return find(contains, cursor, limit);
+		}
+		FuzzyIndex.Matches fuzzy = nameIndex.search(name);
+		// Ranked by (edits, ordinal), and ordinals follow ids
+		long[] ranked = fuzzy.ranked();
+		int[] ordinals = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ordinals[i] = TrigramIndex.document(ranked[i]);
+		}
+		CursorPage<T> page = KeysetCursor.page(ordinals, ordinals.length, "rank", i -> TrigramIndex.rank(ranked[i]),
+				false, "id", row -> rows.get(row).getId(), rows::get, cursor, limit);
+		page.setDidYouMean(fuzzy.suggestions());
+		return page;
+	}
+
+	public List<String> categories() {
+		return categories;
+	}
+
+	public List<String> limitations() {
+		return limitations;
+	}
+
+	public static Predicate<DietFood> nameContains(String name) {
+		String needle = name.toUpperCase(Locale.ROOT);
+		return food -> food.getName() != null && food.getName().toUpperCase(Locale.ROOT).contains(needle);
+	}
+
+	public static Predicate<DietFood> categoryIs(String category) {
+		return food -> category.equalsIgnoreCase(food.getCategory());
+	}
+
+	public static Predicate<DietFood> limitationIs(String limitation) {
+		return food -> limitation.equalsIgnoreCase(food.getLimitation());
+	}
+
+	/**
+	 * Limitation in any of the given upper-case statuses
+	 */
+	public static Predicate<DietFood> limitationIn(String... limitations) {
+		Set<String> accepted = Set.of(limitations);
+		return food -> food.getLimitation() != null
+				&& accepted.contains(food.getLimitation().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Same match as findByMultipleCriteria: null criteria are ignored
+	 */
+	public static Predicate<DietFood> matching(String name, String category, String limitation) {
+		Predicate<DietFood> filter = food -> true;
+		if (name != null) {
+			filter = filter.and(nameContains(name));
+		}
+		if (category != null) {
+			filter = filter.and(categoryIs(category));
+		}
+		if (limitation != null) {
+			filter = filter.and(limitationIs(limitation));
+		}
+		return filter;
+	}
+}
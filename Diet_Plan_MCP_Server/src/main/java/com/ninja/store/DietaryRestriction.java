@@ -0,0 +1,58 @@
+package com.ninja.store;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Dietary restriction predicates of the findFoodsForDiet tool. Each one is a
+ * strict comparison of one nutrient column against a threshold; the default
+ * thresholds match NutrientRepository.findFoodsForDietaryRestrictions.
+ */
+public enum DietaryRestriction {
+
+	LOW_SODIUM(NutrientColumn.SODIUM_MG, false, 140),
+	LOW_FAT(NutrientColumn.TOTAL_FAT_G, false, 3),
+	HIGH_FIBER(NutrientColumn.FIBER_G, true, 3),
+	LOW_SUGAR(NutrientColumn.SUGARS_G, false, 5);
+
+	private final NutrientColumn column;
+	private final boolean minimum;
+	private final double defaultThreshold;
+
+	DietaryRestriction(NutrientColumn column, boolean minimum, double defaultThreshold) {
+		this.column = column;
+		this.minimum = minimum;
+		this.defaultThreshold = defaultThreshold;
+	}
+
+	public NutrientColumn getColumn() {
+		return column;
+	}
+
+	/**
+	 * True for "column &gt; threshold", false for "column &lt; threshold"
+	 */
+	public boolean isMinimum() {
+		return minimum;
+	}
+
+	public double getDefaultThreshold() {
+		return defaultThreshold;
+	}
+
+	/**
+	 * The restriction named e.g. "LOW_SODIUM", "low-sodium" or "low sodium"
+	 *
+	 * @throws IllegalArgumentException for an unknown name
+	 */
+	public static DietaryRestriction of(String name) {
+		String key = name.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+		for (DietaryRestriction restriction : values()) {
+			if (restriction.name().equals(key)) {
+				return restriction;
+			}
+		}
+		throw new IllegalArgumentException(
+				"Unknown dietary restriction '" + name + "', expected one of " + Arrays.toString(values()));
+	}
+}
@@ -0,0 +1,72 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ninja.index.RowBitmap;
+
+/**
+ * One bitmap per dietary restriction over the row ordinals of a
+ * {@link NutrientTable}. Bitmaps for the default thresholds are built with the
+ * index, which the table defers to first use; bitmaps for custom thresholds
+ * are built on first use and cached per distinct (restriction, threshold) pair
+ * in a Caffeine cache bounded by their size in bytes, so rarely used
+ * thresholds are evicted rather than kept forever.
+ */
+final class DietaryRestrictionIndex {
+
+	private static final long MAX_CUSTOM_BYTES = 16L << 20;
+
+	private record Key(DietaryRestriction restriction, double threshold) {
+	}
+
+	private final NutrientTable table;
+	private final Map<DietaryRestriction, RowBitmap> defaults = new EnumMap<>(DietaryRestriction.class);
+	private final Cache<Key, RowBitmap> custom = Caffeine.newBuilder()
+			.maximumWeight(MAX_CUSTOM_BYTES)
+			.weigher((Key key, RowBitmap bitmap) -> bitmap.sizeInBytes())
+			.build();
+
+	DietaryRestrictionIndex(NutrientTable table) {
+		this.table = table;
+		for (DietaryRestriction restriction : DietaryRestriction.values()) {
+			defaults.put(restriction, build(restriction, restriction.getDefaultThreshold()));
+		}
+	}
+
+	/**
+	 * Bitmap of rows satisfying the restriction at the given threshold
+	 */
+	RowBitmap bitmap(DietaryRestriction restriction, double threshold) {
+		if (threshold == restriction.getDefaultThreshold()) {
+			return defaults.get(restriction);
+		}
+		return custom.get(new Key(restriction, threshold), key -> build(restriction, threshold));
+	}
+
+	/**
+	 * Up to out.length ordinals greater than after that match every restriction
+	 * whose threshold is not NaN, in row order; returns how many were written.
+	 * thresholds is indexed by DietaryRestriction ordinal.
+	 */
+	int matchingAfter(double[] thresholds, int after, int[] out) {
+		List<RowBitmap> bitmaps = new ArrayList<>();
+		for (DietaryRestriction restriction : DietaryRestriction.values()) {
+			double threshold = thresholds[restriction.ordinal()];
+			if (!Double.isNaN(threshold)) {
+				bitmaps.add(bitmap(restriction, threshold));
+			}
+		}
+		return RowBitmap.firstAfter(table.size(), bitmaps.toArray(RowBitmap[]::new), after, out);
+	}
+
+	private RowBitmap build(DietaryRestriction restriction, double threshold) {
+		int[] ordinals = restriction.isMinimum() ? table.greaterThan(restriction.getColumn(), threshold)
+				: table.lessThan(restriction.getColumn(), threshold);
+		return RowBitmap.of(table.size(), ordinals);
+	}
+}
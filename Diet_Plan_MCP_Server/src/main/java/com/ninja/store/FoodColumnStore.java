@@ -0,0 +1,218 @@
+package com.ninja.store;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.Food;
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.TrigramIndex;
+import com.ninja.paging.KeysetCursor;
+import com.ninja.repository.FoodRepository;
+import com.ninja.snapshot.DietSnapshot;
+import com.ninja.snapshot.SnapshotFile;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory store for the read-only foods table, loaded and swapped the same
+ * way as {@link NutrientColumnStore}.
+ */
+@Component
+public class FoodColumnStore {
+
+	private static final Logger log = LoggerFactory.getLogger(FoodColumnStore.class);
+
+	private final FoodRepository foodRepository;
+	private final StoreMode mode;
+	private final SnapshotFile snapshotFile;
+	private final TransactionTemplate readOnlyTransaction;
+
+	private volatile FoodTable table;
+
+	@Autowired
+	public FoodColumnStore(FoodRepository foodRepository, @Value("${diet.store.mode:MEMORY}") StoreMode mode,
+			PlatformTransactionManager transactionManager, SnapshotFile snapshotFile) {
+		this.foodRepository = foodRepository;
+		this.mode = mode;
+		this.snapshotFile = snapshotFile;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@PostConstruct
+	void load() {
+		if (mode == StoreMode.JPA) {
+			return;
+		}
+		Optional<DietSnapshot> snapshot = snapshotFile.atStartup();
+		if (snapshot.isPresent()) {
+			install(FoodTable.of(snapshot.get().getFoods()), "snapshot", false);
+		} else if (mode == StoreMode.MEMORY) {
+			load(false);
+		}
+	}
+
+	/**
+	 * Rebuild the store from the database, or from the snapshot file in
+	 * SNAPSHOT mode. The new table's indexes are built before it replaces the
+	 * current one, so queries never wait for them.
+	 */
+	public void reload() {
+		load(true);
+	}
+
+	/**
+	 * Load a table, with its indexes built or left to {@link #buildIndexes()}
+	 * and first use
+	 */
+	private void load(boolean withIndexes) {
+		if (mode == StoreMode.SNAPSHOT) {
+			snapshotFile.read()
+					.ifPresent(snapshot -> install(FoodTable.of(snapshot.getFoods()), "snapshot", withIndexes));
+			return;
+		}
+		try {
+			// Streamed read-only: no dirty-checking snapshot per row, and the
+			// driver fetches in batches instead of buffering the whole result
+			List<Food> foods = readOnlyTransaction.execute(status -> {
+				try (Stream<Food> rows = foodRepository.streamAllBy()) {
+					return rows.toList();
+				}
+			});
+			install(FoodTable.of(foods), "database", withIndexes);
+		} catch (RuntimeException e) {
+			log.warn("Could not load food column store", e);
+		}
+	}
+
+	private void install(FoodTable loaded, String source, boolean withIndexes) {
+		if (withIndexes) {
+			loaded.buildIndexes();
+		}
+		table = loaded;
+		log.info("Loaded {} food rows into the column store from the {}", loaded.size(), source);
+	}
+
+	/**
+	 * Build the indexes the current table deferred at startup
+	 */
+	public void buildIndexes() {
+		FoodTable current = table;
+		if (current != null) {
+			current.buildIndexes();
+		}
+	}
+
+	/**
+	 * True when queries can be answered from memory
+	 */
+	public boolean isAvailable() {
+		return table != null;
+	}
+
+	/**
+	 * Current snapshot, or null when the store is not available
+	 */
+	public FoodTable table() {
+		return table;
+	}
+
+	/**
+	 * The row with this fdcId
+	 */
+	public Optional<Food> findByFdcId(int fdcId) {
+		FoodTable snapshot = table;
+		int ordinal = snapshot.ordinalOf(fdcId);
+		return ordinal < 0 ? Optional.empty() : Optional.of(snapshot.row(ordinal));
+	}
+
+	/**
+	 * Foods whose name contains the term (case-insensitive), earliest match
+	 * first. When nothing contains the term, the rows matching its closest
+	 * spellings are paged instead, fewest edits first, and those spellings are
+	 * returned as didYouMean.
+	 */
+	public CursorPage<Food> searchByName(String term, String cursor, int limit) {
+		FoodTable snapshot = table;
+		long[] exact = snapshot.searchByNameRanked(term);
+		FuzzyIndex.Matches fuzzy = exact.length == 0 ? snapshot.searchByNameFuzzy(term) : null;
+		long[] ranked = fuzzy == null ? exact : fuzzy.ranked();
+		int[] ordinals = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ordinals[i] = TrigramIndex.document(ranked[i]);
+		}
+		CursorPage<Food> page = KeysetCursor.page(ordinals, ordinals.length, "rank",
+				i -> TrigramIndex.rank(ranked[i]), false, snapshot::fdcId, snapshot::row, cursor, limit);
+		if (fuzzy != null) {
+			page.setDidYouMean(fuzzy.suggestions());
+		}
+		return page;
+	}
+
+	/**
+	 * Foods in a category (case-insensitive), in fdcId order
+	 */
+	public CursorPage<Food> findByCategory(String category, String cursor, int limit) {
+		FoodTable snapshot = table;
+		return KeysetCursor.scan(snapshot.size(), snapshot::fdcId,
+				row -> category.equalsIgnoreCase(snapshot.foodCategory(row)), snapshot::row, cursor, limit);
+	}
+
+	/**
+	 * Foods with (or without) allergen flags, using the same rule as
+	 * FoodRepository.findFoodsWithAllergens, in fdcId order
+	 */
+	public CursorPage<Food> findByAllergens(boolean withAllergens, String cursor, int limit) {
+		FoodTable snapshot = table;
+		return KeysetCursor.scan(snapshot.size(), snapshot::fdcId,
+				row -> hasAllergenFlags(snapshot.allergenFlags(row)) == withAllergens, snapshot::row, cursor, limit);
+	}
+
+	/**
+	 * Foods none of whose parsed allergens are in the excluded mask, optionally
+	 * only in one category (case-insensitive), in fdcId order. Each row costs
+	 * one mask test and one int compare.
+	 */
+	public CursorPage<Food> findExcludingAllergens(long excluded, String category, String cursor, int limit) {
+		FoodTable snapshot = table;
+		if (category == null) {
+			return KeysetCursor.scan(snapshot.size(), snapshot::fdcId,
+					row -> (snapshot.allergenMask(row) & excluded) == 0, snapshot::row, cursor, limit);
+		}
+		int categoryId = snapshot.categoryIdOf(category);
+		if (categoryId < 0) {
+			return new CursorPage<>(List.of(), null);
+		}
+		return KeysetCursor.scan(snapshot.size(), snapshot::fdcId,
+				row -> snapshot.categoryId(row) == categoryId && (snapshot.allergenMask(row) & excluded) == 0,
+				snapshot::row, cursor, limit);
+	}
+
+	/**
+	 * Every food with (or without) allergen flags, in fdcId order, handed to the
+	 * action one at a time instead of collected
+	 */
+	public void forEachByAllergens(boolean withAllergens, Consumer<? super Food> action) {
+		FoodTable snapshot = table;
+		for (int row = 0; row < snapshot.size(); row++) {
+			if (hasAllergenFlags(snapshot.allergenFlags(row)) == withAllergens) {
+				action.accept(snapshot.row(row));
+			}
+		}
+	}
+
+	private static boolean hasAllergenFlags(String flags) {
+		return flags != null && !flags.isEmpty() && !flags.equals("NaN");
+	}
+}
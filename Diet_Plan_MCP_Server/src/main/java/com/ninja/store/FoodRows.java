@@ -0,0 +1,117 @@
+package com.ninja.store;
+
+import java.util.List;
+
+import com.ninja.entity.Food;
+
+/**
+ * Rows of the foods table as columns, the way {@link NutrientRows} holds the
+ * nutrients: a snapshot decodes into these and {@link FoodTable} is built from
+ * them, and {@link #row(int)} makes an entity when a response needs one.
+ */
+public final class FoodRows {
+
+	private final int[] fdcIds;
+	private final String[] foodNames;
+	private final String[] dataTypes;
+	private final String[] foodCategories;
+	private final String[] publicationDates;
+	private final String[] allergenFlags;
+
+	/**
+	 * Takes ownership of the arrays, which hold one entry per row
+	 */
+	public FoodRows(int[] fdcIds, String[] foodNames, String[] dataTypes, String[] foodCategories,
+			String[] publicationDates, String[] allergenFlags) {
+		this.fdcIds = fdcIds;
+		this.foodNames = foodNames;
+		this.dataTypes = dataTypes;
+		this.foodCategories = foodCategories;
+		this.publicationDates = publicationDates;
+		this.allergenFlags = allergenFlags;
+	}
+
+	public static FoodRows of(List<Food> foods) {
+		int size = foods.size();
+		int[] fdcIds = new int[size];
+		String[] foodNames = new String[size];
+		String[] dataTypes = new String[size];
+		String[] foodCategories = new String[size];
+		String[] publicationDates = new String[size];
+		String[] allergenFlags = new String[size];
+		for (int row = 0; row < size; row++) {
+			Food food = foods.get(row);
+			fdcIds[row] = food.getFdcId();
+			foodNames[row] = food.getFoodName();
+			dataTypes[row] = food.getDataType();
+			foodCategories[row] = food.getFoodCategory();
+			publicationDates[row] = food.getPublicationDate();
+			allergenFlags[row] = food.getAllergenFlags();
+		}
+		return new FoodRows(fdcIds, foodNames, dataTypes, foodCategories, publicationDates, allergenFlags);
+	}
+
+	public int size() {
+		return fdcIds.length;
+	}
+
+	public int fdcId(int row) {
+		return fdcIds[row];
+	}
+
+	public String foodName(int row) {
+		return foodNames[row];
+	}
+
+	public String dataType(int row) {
+		return dataTypes[row];
+	}
+
+	public String foodCategory(int row) {
+		return foodCategories[row];
+	}
+
+	public String publicationDate(int row) {
+		return publicationDates[row];
+	}
+
+	public String allergenFlags(int row) {
+		return allergenFlags[row];
+	}
+
+	/**
+	 * A detached entity for the row, new on every call
+	 */
+	public Food row(int row) {
+		return new Food(fdcIds[row], foodNames[row], dataTypes[row], foodCategories[row], publicationDates[row],
+				allergenFlags[row]);
+	}
+
+	int[] fdcIds() {
+		return fdcIds;
+	}
+
+	/**
+	 * Food name of every row, for the name indexes
+	 */
+	String[][] names() {
+		String[][] names = new String[size()][];
+		for (int row = 0; row < names.length; row++) {
+			names[row] = new String[] { foodNames[row] };
+		}
+		return names;
+	}
+
+	/**
+	 * These rows ordered by fdcId; this when they already are
+	 */
+	FoodRows sortedByFdcId() {
+		int[] order = RowOrder.byKey(fdcIds);
+		if (order == null) {
+			return this;
+		}
+		return new FoodRows(RowOrder.permute(fdcIds, order), RowOrder.permute(foodNames, order),
+				RowOrder.permute(dataTypes, order), RowOrder.permute(foodCategories, order),
+				RowOrder.permute(publicationDates, order), RowOrder.permute(allergenFlags, order));
+	}
+}
@@ -0,0 +1,199 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.ninja.entity.Food;
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.IntIntHashMap;
+import com.ninja.index.TrigramIndex;
+
+/**
+ * Immutable snapshot of the foods table: the columns by row ordinal
+ * ({@link FoodRows}), an int[] of fdcIds with an open-addressing fdcId index
+ * for point lookups, trigram and edit-distance indexes over food names, and
+ * per row the parsed {@link Allergen} mask and a category id, so allergen and
+ * category filters are integer tests. The name indexes are built on first
+ * use, or by {@link #buildIndexes()}, as in {@link NutrientTable}.
+ */
+public final class FoodTable {
+
+	private final FoodRows rows;
+	private final int[] fdcIds;
+	private final IntIntHashMap fdcIndex;
+	private final Deferred<TrigramIndex> nameIndex;
+	private final Deferred<FuzzyIndex> fuzzyNameIndex;
+	private final List<String> categories;
+	private final long[] allergenMasks;
+	// Index into categoryKeys, -1 for no category
+	private final int[] categoryIds;
+	private final Map<String, Integer> categoryKeys;
+
+	private FoodTable(FoodRows rows, List<String> categories, long[] allergenMasks, int[] categoryIds,
+			Map<String, Integer> categoryKeys) {
+		this.rows = rows;
+		this.fdcIds = rows.fdcIds();
+		this.fdcIndex = IntIntHashMap.ofOrdinals(fdcIds);
+		this.nameIndex = new Deferred<>(() -> TrigramIndex.build(rows.names()));
+		this.fuzzyNameIndex = new Deferred<>(() -> FuzzyIndex.build(rows.names()));
+		this.categories = categories;
+		this.allergenMasks = allergenMasks;
+		this.categoryIds = categoryIds;
+		this.categoryKeys = categoryKeys;
+	}
+
+	/**
+	 * Build a snapshot from loaded entities. Rows are ordered by fdcId, so a scan
+	 * in ordinal order yields fdcId order.
+	 */
+	public static FoodTable of(List<Food> foods) {
+		return of(FoodRows.of(foods));
+	}
+
+	/**
+	 * Build a snapshot from decoded columns, ordering the rows by fdcId
+	 */
+	public static FoodTable of(FoodRows foods) {
+		FoodRows rows = foods.sortedByFdcId();
+		int size = rows.size();
+		Set<String> categories = new TreeSet<>();
+		long[] allergenMasks = new long[size];
+		int[] categoryIds = new int[size];
+		Map<String, Integer> categoryKeys = new HashMap<>();
+		// Rows share a handful of distinct flag texts, so each is parsed once
+		Map<String, Long> parsedFlags = new HashMap<>();
+
+		for (int row = 0; row < size; row++) {
+			String flags = rows.allergenFlags(row);
+			allergenMasks[row] = flags == null ? 0 : parsedFlags.computeIfAbsent(flags, Allergen::parse);
+			String category = rows.foodCategory(row);
+			if (category != null) {
+				categories.add(category);
+				categoryIds[row] = categoryKeys.computeIfAbsent(categoryKey(category), key -> categoryKeys.size());
+			} else {
+				categoryIds[row] = -1;
+			}
+		}
+		return new FoodTable(rows, List.copyOf(categories), allergenMasks, categoryIds, categoryKeys);
+	}
+
+	/**
+	 * Build the name indexes now, e.g. off the request path before a reloaded
+	 * table is swapped in
+	 */
+	public void buildIndexes() {
+		nameIndex.get();
+		fuzzyNameIndex.get();
+	}
+
+	private static String categoryKey(String category) {
+		return category.toLowerCase(Locale.ROOT);
+	}
+
+	public int size() {
+		return fdcIds.length;
+	}
+
+	public int fdcId(int ordinal) {
+		return fdcIds[ordinal];
+	}
+
+	/**
+	 * A detached entity for the row, new on every call
+	 */
+	public Food row(int ordinal) {
+		return rows.row(ordinal);
+	}
+
+	public String foodCategory(int ordinal) {
+		return rows.foodCategory(ordinal);
+	}
+
+	public String allergenFlags(int ordinal) {
+		return rows.allergenFlags(ordinal);
+	}
+
+	/**
+	 * Ordinal of the row with this fdcId, or -1
+	 */
+	public int ordinalOf(int fdcId) {
+		return fdcIndex.get(fdcId);
+	}
+
+	/**
+	 * Distinct non-null food categories, sorted
+	 */
+	public List<String> categories() {
+		return categories;
+	}
+
+	/**
+	 * Parsed allergen_flags of a row, see {@link Allergen#parse(String)}
+	 */
+	public long allergenMask(int ordinal) {
+		return allergenMasks[ordinal];
+	}
+
+	/**
+	 * Category id of a row, -1 when it has no category
+	 */
+	public int categoryId(int ordinal) {
+		return categoryIds[ordinal];
+	}
+
+	/**
+	 * Id of a category (case-insensitive), -1 when no row has it
+	 */
+	public int categoryIdOf(String category) {
+		Integer id = categoryKeys.get(categoryKey(category));
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Ordinals whose food name contains the term, earliest match first
+	 */
+	public int[] searchByName(String term) {
+		return nameIndex.get().search(term);
+	}
+
+	/**
+	 * Name matches packed as (rank &lt;&lt; 32 | ordinal), best first; see
+	 * {@link TrigramIndex#searchRanked(String)}
+	 */
+	public long[] searchByNameRanked(String term) {
+		return nameIndex.get().searchRanked(term);
+	}
+
+	/**
+	 * Rows whose food name words are all within a few edits of the words of
+	 * the term, for when {@link #searchByNameRanked(String)} finds nothing; see
+	 * {@link FuzzyIndex#search(String)}
+	 */
+	public FuzzyIndex.Matches searchByNameFuzzy(String term) {
+		return fuzzyNameIndex.get().search(term);
+	}
+
+	/**
+	 * Materialize entities for a list of ordinals, preserving order
+	 */
+	public List<Food> rows(int[] ordinals, int count) {
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<Food> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(rows.row(ordinals[i]));
+		}
+		return result;
+	}
+
+	public List<Food> rows(int[] ordinals) {
+		return rows(ordinals, ordinals.length);
+	}
+}
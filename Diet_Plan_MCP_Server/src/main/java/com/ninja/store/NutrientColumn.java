@@ -0,0 +1,109 @@
+package com.ninja.store;
+
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.ninja.entity.Nutrient;
+
+/**
+ * Numeric columns of the nutrients table held by the in-memory column store.
+ * Each constant knows how to read and write its value on a {@link Nutrient}
+ * entity.
+ */
+public enum NutrientColumn {
+
+	ENERGY_KCAL("energyKcal", Nutrient::getEnergyKcal, Nutrient::setEnergyKcal),
+	TOTAL_FAT_G("totalFatG", Nutrient::getTotalFatG, Nutrient::setTotalFatG),
+	PROTEIN_G("proteinG", Nutrient::getProteinG, Nutrient::setProteinG),
+	CARBOHYDRATE_G("carbohydrateG", Nutrient::getCarbohydrateG, Nutrient::setCarbohydrateG),
+	FIBER_G("fiberG", Nutrient::getFiberG, Nutrient::setFiberG),
+	SUGARS_G("sugarsG", Nutrient::getSugarsG, Nutrient::setSugarsG),
+	ADDED_SUGARS_G("addedSugarsG", Nutrient::getAddedSugarsG, Nutrient::setAddedSugarsG),
+	SODIUM_MG("sodiumMg", Nutrient::getSodiumMg, Nutrient::setSodiumMg),
+	POTASSIUM_MG("potassiumMg", Nutrient::getPotassiumMg, Nutrient::setPotassiumMg),
+	CALCIUM_MG("calciumMg", Nutrient::getCalciumMg, Nutrient::setCalciumMg),
+	IRON_MG("ironMg", Nutrient::getIronMg, Nutrient::setIronMg),
+	VITAMIN_C_MG("vitaminCMg", Nutrient::getVitaminCMg, Nutrient::setVitaminCMg),
+	CHOLESTEROL_MG("cholesterolMg", Nutrient::getCholesterolMg, Nutrient::setCholesterolMg),
+	SATURATED_FAT_G("saturatedFatG", Nutrient::getSaturatedFatG, Nutrient::setSaturatedFatG),
+	VITAMIN_D_MCG("vitaminDMcg", Nutrient::getVitaminDMcg, Nutrient::setVitaminDMcg),
+	MAGNESIUM_MG("magnesiumMg", Nutrient::getMagnesiumMg, Nutrient::setMagnesiumMg),
+	// Generated in the database, see V4__add_macro_energy_ratios.sql
+	PROTEIN_ENERGY_PCT("proteinEnergyPct", Nutrient::getProteinEnergyPct, Nutrient::setProteinEnergyPct),
+	FAT_ENERGY_PCT("fatEnergyPct", Nutrient::getFatEnergyPct, Nutrient::setFatEnergyPct),
+	CARB_ENERGY_PCT("carbEnergyPct", Nutrient::getCarbEnergyPct, Nutrient::setCarbEnergyPct);
+
+	private final String property;
+	private final String columnName;
+	private final Function<Nutrient, Double> accessor;
+	private final BiConsumer<Nutrient, Double> mutator;
+
+	NutrientColumn(String property, Function<Nutrient, Double> accessor, BiConsumer<Nutrient, Double> mutator) {
+		this.property = property;
+		// vitaminCMg -> vitamin_c_mg: a capital also starts a word before a capitalized one
+		this.columnName = property.replaceAll("([a-z])([A-Z])", "$1_$2")
+				.replaceAll("([A-Z])([A-Z][a-z])", "$1_$2")
+				.toLowerCase(Locale.ROOT);
+		this.accessor = accessor;
+		this.mutator = mutator;
+	}
+
+	/**
+	 * Entity property name, as used in JPQL and JSON
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+	/**
+	 * SQL column name in the nutrients table, e.g. vitamin_c_mg
+	 */
+	public String getColumnName() {
+		return columnName;
+	}
+
+	/**
+	 * Read this column from an entity, mapping SQL NULL to NaN
+	 */
+	public double valueOf(Nutrient nutrient) {
+		Double value = accessor.apply(nutrient);
+		return value == null ? Double.NaN : value;
+	}
+
+	/**
+	 * Write this column to an entity, mapping NaN back to SQL NULL
+	 */
+	public void setValue(Nutrient nutrient, double value) {
+		mutator.accept(nutrient, Double.isNaN(value) ? null : value);
+	}
+
+	/**
+	 * Resolve the column for a vitamin/mineral type accepted by the
+	 * findVitaminRichFoods tool (C, D, CALCIUM, IRON, POTASSIUM, MAGNESIUM)
+	 */
+	public static NutrientColumn forVitaminType(String vitaminType) {
+		return switch (vitaminType) {
+		case "C" -> VITAMIN_C_MG;
+		case "D" -> VITAMIN_D_MCG;
+		case "CALCIUM" -> CALCIUM_MG;
+		case "IRON" -> IRON_MG;
+		case "POTASSIUM" -> POTASSIUM_MG;
+		case "MAGNESIUM" -> MAGNESIUM_MG;
+		default -> throw new IllegalArgumentException(
+				"Invalid vitamin type. Options: C, D, CALCIUM, IRON, POTASSIUM, MAGNESIUM");
+		};
+	}
+
+	/**
+	 * Resolve a column by its entity property name (case-insensitive)
+	 */
+	public static NutrientColumn fromProperty(String property) {
+		for (NutrientColumn column : values()) {
+			if (column.property.equalsIgnoreCase(property) || column.name().equalsIgnoreCase(property)) {
+				return column;
+			}
+		}
+		throw new IllegalArgumentException("Unknown nutrient column: " + property);
+	}
+}
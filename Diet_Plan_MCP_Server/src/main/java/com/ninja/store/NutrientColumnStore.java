@@ -0,0 +1,318 @@
+package com.ninja.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.dto.NutrientRange;
+import com.ninja.entity.Nutrient;
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.TrigramIndex;
+import com.ninja.paging.KeysetCursor;
+import com.ninja.repository.NutrientRepository;
+import com.ninja.snapshot.DietSnapshot;
+import com.ninja.snapshot.SnapshotFile;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory columnar store for the read-only nutrients table. Loaded once at
+ * startup and swapped atomically on reload, so readers never see a partially
+ * built table. The first load comes from the snapshot file when one is
+ * configured (see {@link SnapshotFile}), otherwise from the database. When
+ * diet.store.mode=JPA (or the first load fails) the store stays empty and
+ * callers fall back to {@link NutrientRepository}; a failed reload keeps
+ * serving the previous snapshot.
+ */
+@Component
+public class NutrientColumnStore {
+
+	private static final Logger log = LoggerFactory.getLogger(NutrientColumnStore.class);
+
+	private static final List<NutrientRange> BALANCED = List.of(
+			new NutrientRange(NutrientColumn.PROTEIN_ENERGY_PCT.getProperty(), 10.0, 35.0),
+			new NutrientRange(NutrientColumn.FAT_ENERGY_PCT.getProperty(), 20.0, 35.0),
+			new NutrientRange(NutrientColumn.CARB_ENERGY_PCT.getProperty(), 45.0, 65.0));
+
+	private final NutrientRepository nutrientRepository;
+	private final StoreMode mode;
+	private final SnapshotFile snapshotFile;
+	private final TransactionTemplate readOnlyTransaction;
+
+	private volatile NutrientTable table;
+
+	@Autowired
+	public NutrientColumnStore(NutrientRepository nutrientRepository,
+			@Value("${diet.store.mode:MEMORY}") StoreMode mode, PlatformTransactionManager transactionManager,
+			SnapshotFile snapshotFile) {
+		this.nutrientRepository = nutrientRepository;
+		this.mode = mode;
+		this.snapshotFile = snapshotFile;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@PostConstruct
+	void load() {
+		if (mode == StoreMode.JPA) {
+			return;
+		}
+		Optional<DietSnapshot> snapshot = snapshotFile.atStartup();
+		if (snapshot.isPresent()) {
+			install(NutrientTable.of(snapshot.get().getNutrients()), "snapshot", false);
+		} else if (mode == StoreMode.MEMORY) {
+			load(false);
+		}
+	}
+
+	/**
+	 * Rebuild the store from the database, or from the snapshot file in
+	 * SNAPSHOT mode. The new table's indexes are built before it replaces the
+	 * current one, so queries never wait for them.
+	 */
+	public void reload() {
+		load(true);
+	}
+
+	/**
+	 * Load a table, with its indexes built or left to {@link #buildIndexes()}
+	 * and first use
+	 */
+	private void load(boolean withIndexes) {
+		if (mode == StoreMode.SNAPSHOT) {
+			snapshotFile.read()
+					.ifPresent(snapshot -> install(NutrientTable.of(snapshot.getNutrients()), "snapshot", withIndexes));
+			return;
+		}
+		try {
+			// Streamed read-only: no dirty-checking snapshot per row, and the
+			// driver fetches in batches instead of buffering the whole result
+			List<Nutrient> nutrients = readOnlyTransaction.execute(status -> {
+				try (Stream<Nutrient> rows = nutrientRepository.streamAllBy()) {
+					return rows.toList();
+				}
+			});
+			install(NutrientTable.of(nutrients), "database", withIndexes);
+		} catch (RuntimeException e) {
+			log.warn("Could not load nutrient column store", e);
+		}
+	}
+
+	private void install(NutrientTable loaded, String source, boolean withIndexes) {
+		if (withIndexes) {
+			loaded.buildIndexes();
+		}
+		table = loaded;
+		log.info("Loaded {} nutrient rows into the column store from the {}", loaded.size(), source);
+	}
+
+	/**
+	 * Build the indexes the current table deferred at startup
+	 */
+	public void buildIndexes() {
+		NutrientTable current = table;
+		if (current != null) {
+			current.buildIndexes();
+		}
+	}
+
+	/**
+	 * True when queries can be answered from memory
+	 */
+	public boolean isAvailable() {
+		return table != null;
+	}
+
+	public StoreMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Current snapshot, or null when the store is not available
+	 */
+	public NutrientTable table() {
+		return table;
+	}
+
+	/**
+	 * The row with this fdcId
+	 */
+	public Optional<Nutrient> findByFdcId(int fdcId) {
+		NutrientTable snapshot = table;
+		int ordinal = snapshot.ordinalOf(fdcId);
+		return ordinal < 0 ? Optional.empty() : Optional.of(snapshot.row(ordinal));
+	}
+
+	/**
+	 * Rows whose food name, simplified name or synonyms contain the term
+	 * (case-insensitive), earliest match first. When nothing contains the term,
+	 * the rows matching its closest spellings are paged instead, fewest edits
+	 * first, and those spellings are returned as didYouMean.
+	 */
+	public CursorPage<Nutrient> searchByName(String term, String cursor, int limit) {
+		NutrientTable snapshot = table;
+		long[] exact = snapshot.searchByNameRanked(term);
+		FuzzyIndex.Matches fuzzy = exact.length == 0 ? snapshot.searchByNameFuzzy(term) : null;
+		long[] ranked = fuzzy == null ? exact : fuzzy.ranked();
+		int[] ordinals = new int[ranked.length];
+		for (int i = 0; i < ranked.length; i++) {
+			ordinals[i] = TrigramIndex.document(ranked[i]);
+		}
+		CursorPage<Nutrient> page = KeysetCursor.page(ordinals, ordinals.length, "rank",
+				i -> TrigramIndex.rank(ranked[i]), false, snapshot::fdcId, snapshot::row, cursor, limit);
+		if (fuzzy != null) {
+			page.setDidYouMean(fuzzy.suggestions());
+		}
+		return page;
+	}
+
+	/**
+	 * Rows within every given range, in fdcId order. The k-d tree keeps only
+	 * the first matches past the cursor, so a page of a broad range costs a
+	 * page-sized buffer rather than one per row.
+	 */
+	public CursorPage<Nutrient> findWithinRanges(List<NutrientRange> ranges, String cursor, int limit) {
+		NutrientTable snapshot = table;
+		Bounds bounds = Bounds.of(ranges);
+		return KeysetCursor.seek(snapshot.size(), snapshot::fdcId, (after, out) -> snapshot
+				.withinRangesAfter(bounds.min(), bounds.max(), bounds.constrained(), after, out), snapshot::row,
+				cursor, limit);
+	}
+
+	/**
+	 * Every ordinal within the ranges, in fdcId order: counted first, so the
+	 * buffer holds the matches rather than the whole table
+	 */
+	private static int[] withinRanges(NutrientTable snapshot, List<NutrientRange> ranges) {
+		Bounds bounds = Bounds.of(ranges);
+		int count = snapshot.withinRanges(bounds.min(), bounds.max(), bounds.constrained(), new int[0]);
+		int[] hits = new int[count];
+		snapshot.withinRanges(bounds.min(), bounds.max(), bounds.constrained(), hits);
+		// Rows are stored in fdcId order, so sorting ordinals sorts by fdcId
+		Arrays.sort(hits);
+		return hits;
+	}
+
+	/**
+	 * Per-column bounds of a set of ranges, indexed by NutrientColumn ordinal
+	 */
+	private record Bounds(double[] min, double[] max, boolean[] constrained) {
+
+		static Bounds of(List<NutrientRange> ranges) {
+			int columnCount = NutrientColumn.values().length;
+			double[] min = new double[columnCount];
+			double[] max = new double[columnCount];
+			boolean[] constrained = new boolean[columnCount];
+			Arrays.fill(min, Double.NEGATIVE_INFINITY);
+			Arrays.fill(max, Double.POSITIVE_INFINITY);
+			for (NutrientRange range : ranges) {
+				int column = NutrientColumn.fromProperty(range.getNutrient()).ordinal();
+				constrained[column] = true;
+				if (range.getMin() != null) {
+					min[column] = Math.max(min[column], range.getMin());
+				}
+				if (range.getMax() != null) {
+					max[column] = Math.min(max[column], range.getMax());
+				}
+			}
+			return new Bounds(min, max, constrained);
+		}
+	}
+
+	/**
+	 * Rows with column &gt; threshold, highest value first
+	 */
+	public CursorPage<Nutrient> findGreaterThan(NutrientColumn column, double threshold, String cursor, int limit) {
+		NutrientTable snapshot = table;
+		return page(snapshot, column, snapshot.sliceGreaterThan(column, threshold), cursor, limit);
+	}
+
+	/**
+	 * Rows with column &lt; threshold, lowest value first
+	 */
+	public CursorPage<Nutrient> findLessThan(NutrientColumn column, double threshold, String cursor, int limit) {
+		NutrientTable snapshot = table;
+		return page(snapshot, column, snapshot.sliceLessThan(column, threshold), cursor, limit);
+	}
+
+	/**
+	 * Rows with min &lt;= column &lt;= max, lowest value first
+	 */
+	public CursorPage<Nutrient> findBetween(NutrientColumn column, double min, double max, String cursor,
+			int limit) {
+		NutrientTable snapshot = table;
+		return page(snapshot, column, snapshot.sliceBetween(column, min, max), cursor, limit);
+	}
+
+	/**
+	 * Same rule as NutrientRepository.findBalancedMacronutrientFoods: protein
+	 * 10-35%, fat 20-35% and carbs 45-65% of total calories, as ranges over the
+	 * energy ratio columns. In fdcId order.
+	 */
+	public CursorPage<Nutrient> findBalanced(String cursor, int limit) {
+		return findWithinRanges(BALANCED, cursor, limit);
+	}
+
+	/**
+	 * Every row with column &lt; threshold, lowest value first, handed to the
+	 * action one at a time instead of collected
+	 */
+	public void forEachLessThan(NutrientColumn column, double threshold, Consumer<? super Nutrient> action) {
+		NutrientTable snapshot = table;
+		NutrientTable.Slice matches = snapshot.sliceLessThan(column, threshold);
+		for (int i = 0; i < matches.size(); i++) {
+			action.accept(snapshot.row(matches.ordinal(i)));
+		}
+	}
+
+	/**
+	 * Every row matching {@link #findBalanced}, in fdcId order, handed to the
+	 * action one at a time
+	 */
+	public void forEachBalanced(Consumer<? super Nutrient> action) {
+		NutrientTable snapshot = table;
+		for (int ordinal : withinRanges(snapshot, BALANCED)) {
+			action.accept(snapshot.row(ordinal));
+		}
+	}
+
+	/**
+	 * Rows satisfying every restriction present in the map, each compared
+	 * against its mapped threshold, in fdcId order. An empty map matches every
+	 * row.
+	 */
+	public CursorPage<Nutrient> findForDietaryRestrictions(Map<DietaryRestriction, Double> restrictions,
+			String cursor, int limit) {
+		double[] thresholds = new double[DietaryRestriction.values().length];
+		Arrays.fill(thresholds, Double.NaN);
+		restrictions.forEach((restriction, threshold) -> thresholds[restriction.ordinal()] = threshold);
+
+		NutrientTable snapshot = table;
+		return KeysetCursor.seek(snapshot.size(), snapshot::fdcId,
+				(after, out) -> snapshot.matchingRestrictionsAfter(thresholds, after, out), snapshot::row, cursor,
+				limit);
+	}
+
+	/**
+	 * Page of a sorted slice, ordered by (column value, fdcId) and read in
+	 * place; the cursor carries the column's property name, as the JPA keyset
+	 * scroll does
+	 */
+	private static CursorPage<Nutrient> page(NutrientTable snapshot, NutrientColumn column,
+			NutrientTable.Slice matches, String cursor, int limit) {
+		return KeysetCursor.page(matches.size(), matches::ordinal, column.getProperty(), matches::value,
+				matches.descending(), "fdcId", snapshot::fdcId, snapshot::row, cursor, limit);
+	}
+}
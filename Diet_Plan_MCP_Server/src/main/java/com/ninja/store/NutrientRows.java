@@ -0,0 +1,133 @@
+package com.ninja.store;
+
+import java.util.List;
+
+import com.ninja.entity.Nutrient;
+
+/**
+ * Rows of the nutrients table as primitive columns: the fdcIds, the three name
+ * columns and one double[] per {@link NutrientColumn} (NaN for SQL NULL). A
+ * snapshot decodes straight into these and {@link NutrientTable} is built from
+ * them, so neither keeps an entity per row; {@link #row(int)} makes one when a
+ * response needs it.
+ */
+public final class NutrientRows {
+
+	private final int[] fdcIds;
+	private final String[] foodNames;
+	private final String[] simplifiedNames;
+	private final String[] synonyms;
+	private final double[][] columns;
+
+	/**
+	 * Takes ownership of the arrays; columns is indexed by NutrientColumn
+	 * ordinal, and every array holds one entry per row
+	 */
+	public NutrientRows(int[] fdcIds, String[] foodNames, String[] simplifiedNames, String[] synonyms,
+			double[][] columns) {
+		if (columns.length != NutrientColumn.values().length) {
+			throw new IllegalArgumentException("Expected " + NutrientColumn.values().length + " columns");
+		}
+		this.fdcIds = fdcIds;
+		this.foodNames = foodNames;
+		this.simplifiedNames = simplifiedNames;
+		this.synonyms = synonyms;
+		this.columns = columns;
+	}
+
+	public static NutrientRows of(List<Nutrient> nutrients) {
+		int size = nutrients.size();
+		NutrientColumn[] allColumns = NutrientColumn.values();
+		int[] fdcIds = new int[size];
+		String[] foodNames = new String[size];
+		String[] simplifiedNames = new String[size];
+		String[] synonyms = new String[size];
+		double[][] columns = new double[allColumns.length][size];
+		for (int row = 0; row < size; row++) {
+			Nutrient nutrient = nutrients.get(row);
+			fdcIds[row] = nutrient.getFdcId();
+			foodNames[row] = nutrient.getFoodName();
+			simplifiedNames[row] = nutrient.getSimplifiedName();
+			synonyms[row] = nutrient.getSynonyms();
+			for (NutrientColumn column : allColumns) {
+				columns[column.ordinal()][row] = column.valueOf(nutrient);
+			}
+		}
+		return new NutrientRows(fdcIds, foodNames, simplifiedNames, synonyms, columns);
+	}
+
+	public int size() {
+		return fdcIds.length;
+	}
+
+	public int fdcId(int row) {
+		return fdcIds[row];
+	}
+
+	public String foodName(int row) {
+		return foodNames[row];
+	}
+
+	public String simplifiedName(int row) {
+		return simplifiedNames[row];
+	}
+
+	public String synonyms(int row) {
+		return synonyms[row];
+	}
+
+	public double value(NutrientColumn column, int row) {
+		return columns[column.ordinal()][row];
+	}
+
+	/**
+	 * A detached entity for the row, new on every call
+	 */
+	public Nutrient row(int row) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcIds[row]);
+		nutrient.setFoodName(foodNames[row]);
+		nutrient.setSimplifiedName(simplifiedNames[row]);
+		nutrient.setSynonyms(synonyms[row]);
+		for (NutrientColumn column : NutrientColumn.values()) {
+			column.setValue(nutrient, columns[column.ordinal()][row]);
+		}
+		return nutrient;
+	}
+
+	int[] fdcIds() {
+		return fdcIds;
+	}
+
+	double[][] columns() {
+		return columns;
+	}
+
+	/**
+	 * Food name, simplified name and synonyms of every row, for the name
+	 * indexes
+	 */
+	String[][] names() {
+		String[][] names = new String[size()][];
+		for (int row = 0; row < names.length; row++) {
+			names[row] = new String[] { foodNames[row], simplifiedNames[row], synonyms[row] };
+		}
+		return names;
+	}
+
+	/**
+	 * These rows ordered by fdcId; this when they already are
+	 */
+	NutrientRows sortedByFdcId() {
+		int[] order = RowOrder.byKey(fdcIds);
+		if (order == null) {
+			return this;
+		}
+		double[][] sortedColumns = new double[columns.length][];
+		for (int column = 0; column < columns.length; column++) {
+			sortedColumns[column] = RowOrder.permute(columns[column], order);
+		}
+		return new NutrientRows(RowOrder.permute(fdcIds, order), RowOrder.permute(foodNames, order),
+				RowOrder.permute(simplifiedNames, order), RowOrder.permute(synonyms, order), sortedColumns);
+	}
+}
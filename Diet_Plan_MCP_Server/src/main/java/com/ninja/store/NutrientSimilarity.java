@@ -0,0 +1,105 @@
+package com.ninja.store;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import com.ninja.index.HnswIndex;
+
+/**
+ * Nutrient profile vectors of every row of a {@link NutrientTable} and an
+ * {@link HnswIndex} over them. The vectors take one pass over the table; the
+ * graph takes seconds at FDC scale, so it is built separately by
+ * {@link #buildIndex()} and searches compare with every vector until it is
+ * published. Each feature is log(1 + value), since nutrient
+ * amounts are heavily skewed, then standardized to mean 0 and standard
+ * deviation 1 over the table; an unknown value is the mean, 0. The Euclidean
+ * distance between two rows weighs every feature equally.
+ */
+final class NutrientSimilarity {
+
+	static final List<NutrientColumn> FEATURES = List.of(NutrientColumn.ENERGY_KCAL, NutrientColumn.PROTEIN_G,
+			NutrientColumn.TOTAL_FAT_G, NutrientColumn.SATURATED_FAT_G, NutrientColumn.CARBOHYDRATE_G,
+			NutrientColumn.FIBER_G, NutrientColumn.SUGARS_G, NutrientColumn.SODIUM_MG, NutrientColumn.POTASSIUM_MG,
+			NutrientColumn.CALCIUM_MG, NutrientColumn.IRON_MG, NutrientColumn.MAGNESIUM_MG);
+
+	private static final int LINKS = 16;
+	private static final int EF_CONSTRUCTION = 100;
+	private static final int EF_SEARCH = 64;
+	private static final long SEED = 42;
+
+	private final float[][] vectors;
+	private volatile HnswIndex index;
+
+	private NutrientSimilarity(float[][] vectors) {
+		this.vectors = vectors;
+	}
+
+	static NutrientSimilarity of(NutrientTable table) {
+		int size = table.size();
+		float[][] vectors = new float[size][FEATURES.size()];
+		for (int feature = 0; feature < FEATURES.size(); feature++) {
+			NutrientColumn column = FEATURES.get(feature);
+			double sum = 0;
+			double sumOfSquares = 0;
+			int count = 0;
+			for (int row = 0; row < size; row++) {
+				double value = table.value(column, row);
+				if (!Double.isNaN(value)) {
+					double scaled = scale(value);
+					sum += scaled;
+					sumOfSquares += scaled * scaled;
+					count++;
+				}
+			}
+			double mean = count == 0 ? 0 : sum / count;
+			double deviation = count == 0 ? 0 : Math.sqrt(Math.max(sumOfSquares / count - mean * mean, 0));
+			for (int row = 0; row < size; row++) {
+				double value = table.value(column, row);
+				vectors[row][feature] = Double.isNaN(value) || deviation == 0 ? 0
+						: (float) ((scale(value) - mean) / deviation);
+			}
+		}
+		return new NutrientSimilarity(vectors);
+	}
+
+	/**
+	 * log(1 + value), negative values counting as 0; PostgreSQL's
+	 * ln(1 + greatest(value, 0)) in the JPA-mode query
+	 */
+	static double scale(double value) {
+		return Math.log1p(Math.max(value, 0));
+	}
+
+	int size() {
+		return vectors.length;
+	}
+
+	/**
+	 * Build the graph and publish it to later searches
+	 */
+	void buildIndex() {
+		index = HnswIndex.build(vectors, LINKS, EF_CONSTRUCTION, SEED);
+	}
+
+	/**
+	 * The k accepted rows nearest to row, nearest first. The graph search is
+	 * approximate; when the filter leaves it fewer than k rows, or the graph is
+	 * not built yet, the rows are compared exhaustively instead, so a
+	 * selective filter still gets its k.
+	 */
+	int[] nearest(int row, int k, IntPredicate accept) {
+		HnswIndex graph = index;
+		int[] found = graph == null ? null : graph.search(vectors[row], k, Math.max(EF_SEARCH, k), accept);
+		if (found == null || found.length < k) {
+			found = HnswIndex.exactSearch(vectors, vectors[row], k, accept);
+		}
+		return found;
+	}
+
+	/**
+	 * Euclidean distance between the profiles of two rows
+	 */
+	double distance(int a, int b) {
+		return Math.sqrt(HnswIndex.distance(vectors[a], vectors[b]));
+	}
+}
@@ -0,0 +1,304 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.dto.SimilarFood;
+import com.ninja.entity.Food;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Nearest neighbours by nutrient profile, for finding substitutes of a food.
+ * When the column stores are loaded, the profiles are computed on the first
+ * request for each loaded nutrient table and searched in memory; their
+ * {@link NutrientSimilarity} graph is built on the application task executor
+ * meanwhile, and requests compare with every profile until it is done. In JPA
+ * mode one query ranks every row by the same distance, computed in SQL.
+ */
+@Component
+public class NutrientSimilarityStore {
+
+	private static final Logger log = LoggerFactory.getLogger(NutrientSimilarityStore.class);
+
+	// Rows fetched from the cursor at a time in JPA mode while allergen
+	// filtering drops rows
+	private static final int QUERY_BATCH = 200;
+
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
+	private final TaskExecutor taskExecutor;
+
+	private volatile Built built;
+
+	private record Built(NutrientTable table, NutrientSimilarity similarity) {
+	}
+
+	@Autowired
+	public NutrientSimilarityStore(NutrientColumnStore nutrientStore, FoodColumnStore foodStore,
+			EntityManager entityManager, PlatformTransactionManager transactionManager,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor) {
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.entityManager = entityManager;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * The k foods whose nutrient profile is closest to the food with this fdcId,
+	 * nearest first, leaving out foods flagged with any excluded allergen (and,
+	 * when allergens are excluded, foods without a food row, whose flags are
+	 * unknown), foods not in allowedFdcIds (ascending) when it is not null,
+	 * foods getting more than maxFatEnergyPct or maxCarbEnergyPct of their
+	 * energy from fat or carbohydrate (a cap of 100 or more leaves the share
+	 * unchecked, any lower one also leaves out foods without it) and foods
+	 * failing the dietary restriction at its default threshold when restriction
+	 * is not null. Empty when fdcId has no nutrient row.
+	 */
+	public Optional<List<SimilarFood>> findSimilar(int fdcId, int k, long excludedAllergens, int[] allowedFdcIds,
+			double maxFatEnergyPct, double maxCarbEnergyPct, DietaryRestriction restriction) {
+		NutrientTable table = nutrientStore.table();
+		if (table == null) {
+			return query(fdcId, k, excludedAllergens, allowedFdcIds, maxFatEnergyPct, maxCarbEnergyPct,
+					restriction);
+		}
+		int ordinal = table.ordinalOf(fdcId);
+		if (ordinal < 0) {
+			return Optional.empty();
+		}
+		FoodTable foods = foodStore.table();
+		IntPredicate accept = row -> row != ordinal
+				&& withinCap(table, NutrientColumn.FAT_ENERGY_PCT, row, maxFatEnergyPct)
+				&& withinCap(table, NutrientColumn.CARB_ENERGY_PCT, row, maxCarbEnergyPct)
+				&& allowed(table, row, restriction)
+				&& (excludedAllergens == 0 || (allergenMask(foods, table.fdcId(row)) & excludedAllergens) == 0);
+
+		NutrientSimilarity similarity = similarity(table);
+		int[] nearest = allowedFdcIds == null ? similarity.nearest(ordinal, k, accept)
+				: nearestOf(table, similarity, ordinal, k, allowedFdcIds, accept);
+		List<SimilarFood> similar = new ArrayList<>(k);
+		for (int row : nearest) {
+			Food food = food(foods, table.fdcId(row));
+			similar.add(similarFood(table.fdcId(row), table.foodName(row), food, similarity.distance(ordinal, row),
+					column -> table.value(column, row)));
+		}
+		return Optional.of(similar);
+	}
+
+	/**
+	 * The k accepted rows among an allow-list nearest to the target, compared
+	 * one by one: an allow-list is a few hundred rows, too selective a filter
+	 * for the graph search
+	 */
+	static int[] nearestOf(NutrientTable table, NutrientSimilarity similarity, int ordinal, int k,
+			int[] allowedFdcIds, IntPredicate accept) {
+		return Arrays.stream(allowedFdcIds)
+				.map(table::ordinalOf)
+				.filter(row -> row >= 0 && accept.test(row))
+				.boxed()
+				.sorted(Comparator.<Integer>comparingDouble(row -> similarity.distance(ordinal, row))
+						.thenComparingInt(table::fdcId))
+				.limit(k)
+				.mapToInt(Integer::intValue)
+				.toArray();
+	}
+
+	private NutrientSimilarity similarity(NutrientTable table) {
+		Built current = built;
+		if (current != null && current.table() == table) {
+			return current.similarity();
+		}
+		synchronized (this) {
+			current = built;
+			if (current == null || current.table() != table) {
+				NutrientSimilarity similarity = NutrientSimilarity.of(table);
+				current = new Built(table, similarity);
+				built = current;
+				taskExecutor.execute(() -> {
+					long started = System.nanoTime();
+					similarity.buildIndex();
+					log.info("Built nutrient similarity index over {} rows in {} ms", similarity.size(),
+							(System.nanoTime() - started) / 1_000_000);
+				});
+			}
+			return current.similarity();
+		}
+	}
+
+	/**
+	 * Whether the energy share in the column is known and at most maxPct, or
+	 * maxPct does not cap it
+	 */
+	static boolean withinCap(NutrientTable table, NutrientColumn column, int row, double maxPct) {
+		// NaN for an unknown share fails the comparison
+		return maxPct >= 100 || table.value(column, row) <= maxPct;
+	}
+
+	private static boolean allowed(NutrientTable table, int row, DietaryRestriction restriction) {
+		if (restriction == null) {
+			return true;
+		}
+		double value = table.value(restriction.getColumn(), row);
+		return restriction.isMinimum() ? value > restriction.getDefaultThreshold()
+				: value < restriction.getDefaultThreshold();
+	}
+
+	/**
+	 * Allergen mask of the food row, or every bit when there is none
+	 */
+	private static long allergenMask(FoodTable foods, int fdcId) {
+		int ordinal = foods == null ? -1 : foods.ordinalOf(fdcId);
+		return ordinal < 0 ? -1L : foods.allergenMask(ordinal);
+	}
+
+	private static Food food(FoodTable foods, int fdcId) {
+		int ordinal = foods == null ? -1 : foods.ordinalOf(fdcId);
+		return ordinal < 0 ? null : foods.row(ordinal);
+	}
+
+	private static SimilarFood similarFood(int fdcId, String foodName, Food food, double distance,
+			ToDoubleFunction<NutrientColumn> values) {
+		Map<String, Double> nutrients = new LinkedHashMap<>();
+		for (NutrientColumn column : NutrientSimilarity.FEATURES) {
+			double value = values.applyAsDouble(column);
+			nutrients.put(column.getProperty(), Double.isNaN(value) ? null : value);
+		}
+		return new SimilarFood(fdcId, foodName, food == null ? null : food.getFoodCategory(),
+				food == null ? null : food.getAllergenFlags(), Math.round(distance * 1000) / 1000.0, nutrients);
+	}
+
+	/**
+	 * JPA mode: the standardized profiles are computed in SQL from one pass of
+	 * statistics, and every other row is ordered by its distance to the target
+	 */
+	private Optional<List<SimilarFood>> query(int fdcId, int k, long excludedAllergens, int[] allowedFdcIds,
+			double maxFatEnergyPct, double maxCarbEnergyPct, DietaryRestriction restriction) {
+		String sql = similaritySql(allowedFdcIds != null, maxFatEnergyPct, maxCarbEnergyPct, restriction,
+				excludedAllergens != 0);
+		return readOnlyTransaction.execute(status -> {
+			Query exists = entityManager.createNativeQuery("SELECT count(*) FROM nutrients WHERE fdc_id = :fdcId");
+			exists.setParameter("fdcId", fdcId);
+			if (((Number) exists.getSingleResult()).longValue() == 0) {
+				return Optional.empty();
+			}
+			if (allowedFdcIds != null && allowedFdcIds.length == 0) {
+				return Optional.of(List.of());
+			}
+			Query query = entityManager.createNativeQuery(sql);
+			query.setParameter("fdcId", fdcId);
+			if (allowedFdcIds != null) {
+				query.setParameter("allowed", Arrays.stream(allowedFdcIds).boxed().toList());
+			}
+			if (excludedAllergens == 0) {
+				query.setMaxResults(k);
+			} else {
+				// Run once and read the ranking from the JDBC cursor until k rows
+				// pass the allergen filter, rather than ranking again per page
+				query.setHint(HibernateHints.HINT_FETCH_SIZE, QUERY_BATCH);
+			}
+			List<SimilarFood> similar = new ArrayList<>(k);
+			try (@SuppressWarnings("unchecked")
+			Stream<Object[]> rows = query.getResultStream()) {
+				Iterator<Object[]> ranked = rows.iterator();
+				while (similar.size() < k && ranked.hasNext()) {
+					Object[] row = ranked.next();
+					String allergenFlags = (String) row[4];
+					if (excludedAllergens != 0 && (Allergen.parse(allergenFlags) & excludedAllergens) != 0) {
+						continue;
+					}
+					Food food = null;
+					if (row[3] != null || allergenFlags != null) {
+						food = new Food();
+						food.setFoodCategory((String) row[3]);
+						food.setAllergenFlags(allergenFlags);
+					}
+					similar.add(similarFood(((Number) row[0]).intValue(), (String) row[1], food,
+							((Number) row[2]).doubleValue(), column -> {
+								Object value = row[5 + NutrientSimilarity.FEATURES.indexOf(column)];
+								return value == null ? Double.NaN : ((Number) value).doubleValue();
+							}));
+				}
+			}
+			return Optional.of(similar);
+		});
+	}
+
+	/**
+	 * fdc_id, food_name, distance, food_category, allergen_flags and the raw
+	 * feature values of every row but the target, nearest first. Foods are
+	 * inner joined when allergens are excluded, so rows without flags to check
+	 * are left out as in memory. With allowList, only rows whose fdc_id is in
+	 * the :allowed parameter.
+	 */
+	private static String similaritySql(boolean allowList, double maxFatEnergyPct, double maxCarbEnergyPct,
+			DietaryRestriction restriction, boolean requireFood) {
+		List<NutrientColumn> features = NutrientSimilarity.FEATURES;
+		StringBuilder stats = new StringBuilder("SELECT ");
+		StringBuilder profile = new StringBuilder("SELECT n.fdc_id");
+		StringBuilder distance = new StringBuilder();
+		StringBuilder raw = new StringBuilder();
+		for (int i = 0; i < features.size(); i++) {
+			String scaled = "ln(1 + greatest(n." + features.get(i).getColumnName() + ", 0))";
+			stats.append(i == 0 ? "" : ", ").append("avg(").append(scaled).append(") AS m").append(i)
+					.append(", stddev_pop(").append(scaled).append(") AS s").append(i);
+			profile.append(", coalesce((").append(scaled).append(" - s.m").append(i).append(") / nullif(s.s")
+					.append(i).append(", 0), 0) AS z").append(i);
+			distance.append(i == 0 ? "" : " + ").append("power(c.z").append(i).append(" - t.z").append(i)
+					.append(", 2)");
+			raw.append(", n.").append(features.get(i).getColumnName());
+		}
+		stats.append(" FROM nutrients n");
+		profile.append(" FROM nutrients n CROSS JOIN stats s");
+
+		StringBuilder sql = new StringBuilder("WITH stats AS (").append(stats).append("), profiles AS (")
+				.append(profile).append(") SELECT c.fdc_id, n.food_name, sqrt(").append(distance)
+				.append(") AS distance, f.food_category, f.allergen_flags").append(raw)
+				.append(" FROM profiles c JOIN profiles t ON t.fdc_id = :fdcId")
+				.append(" JOIN nutrients n ON n.fdc_id = c.fdc_id")
+				.append(requireFood ? " JOIN" : " LEFT JOIN").append(" foods f ON f.fdc_id = c.fdc_id")
+				.append(" WHERE c.fdc_id <> :fdcId");
+		if (allowList) {
+			sql.append(" AND c.fdc_id IN (:allowed)");
+		}
+		// A NULL share fails the comparison, as NaN does in memory
+		if (maxFatEnergyPct < 100) {
+			sql.append(" AND n.").append(NutrientColumn.FAT_ENERGY_PCT.getColumnName()).append(" <= ")
+					.append(maxFatEnergyPct);
+		}
+		if (maxCarbEnergyPct < 100) {
+			sql.append(" AND n.").append(NutrientColumn.CARB_ENERGY_PCT.getColumnName()).append(" <= ")
+					.append(maxCarbEnergyPct);
+		}
+		if (restriction != null) {
+			sql.append(" AND n.").append(restriction.getColumn().getColumnName())
+					.append(restriction.isMinimum() ? " > " : " < ").append(restriction.getDefaultThreshold());
+		}
+		return sql.append(" ORDER BY distance, c.fdc_id").toString();
+	}
+}
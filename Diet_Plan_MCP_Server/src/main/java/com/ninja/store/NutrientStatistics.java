@@ -0,0 +1,311 @@
+package com.ninja.store;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.ninja.dto.ColumnStatistics;
+import com.ninja.dto.NutritionStatistics;
+import com.ninja.index.QuantileSketch;
+
+/**
+ * Running count, sum, min, max and a {@link QuantileSketch} for every nutrient
+ * column, over all rows and per food category (the category of the food with
+ * the same fdcId). Built once from a table, then kept current by
+ * {@link #update} with only the rows that changed between two tables.
+ *
+ * Not thread-safe: {@link NutrientStatisticsStore} serializes updates and
+ * publishes the immutable summaries.
+ */
+final class NutrientStatistics {
+
+	static final double ACCURACY = 0.01;
+
+	private static final NutrientColumn[] COLUMNS = NutrientColumn.values();
+	private static final MathContext DIGITS = new MathContext(4);
+
+	// Group of every row
+	private final Group all = new Group(null);
+	// Category groups by lower-cased name
+	private final Map<String, Group> categories = new HashMap<>();
+	private final Map<String, NutritionStatistics> summaries = new HashMap<>();
+
+	private NutrientStatistics() {
+	}
+
+	/**
+	 * Statistics of every row of nutrients; foods gives the categories and may
+	 * be null
+	 */
+	static NutrientStatistics build(NutrientTable nutrients, FoodTable foods) {
+		NutrientStatistics statistics = new NutrientStatistics();
+		Group uncategorized = new Group(null);
+		for (int row = 0; row < nutrients.size(); row++) {
+			String category = categoryOf(foods, nutrients.fdcId(row));
+			Group group = category == null ? uncategorized : statistics.group(category);
+			group.add(nutrients, row);
+		}
+		// The overall figures are the merge of the disjoint category groups
+		statistics.all.merge(uncategorized);
+		for (Group group : statistics.categories.values()) {
+			statistics.all.merge(group);
+		}
+		statistics.summarizeAll();
+		return statistics;
+	}
+
+	/**
+	 * Apply the differences between two tables: rows that were removed, added,
+	 * or whose values or category changed. Returns the number of rows that
+	 * changed.
+	 */
+	int update(NutrientTable before, FoodTable foodsBefore, NutrientTable after, FoodTable foodsAfter) {
+		Set<Group> touched = new HashSet<>();
+		int changed = 0;
+		for (int row = 0; row < before.size(); row++) {
+			int fdcId = before.fdcId(row);
+			int now = after.ordinalOf(fdcId);
+			String category = categoryOf(foodsBefore, fdcId);
+			String newCategory = now < 0 ? null : categoryOf(foodsAfter, fdcId);
+			if (now >= 0 && sameValues(before, row, after, now) && sameCategory(category, newCategory)) {
+				continue;
+			}
+			remove(before, row, category, touched);
+			if (now >= 0) {
+				add(after, now, newCategory, touched);
+			}
+			changed++;
+		}
+		for (int row = 0; row < after.size(); row++) {
+			if (before.ordinalOf(after.fdcId(row)) < 0) {
+				add(after, row, categoryOf(foodsAfter, after.fdcId(row)), touched);
+				changed++;
+			}
+		}
+
+		for (Group group : touched) {
+			if (group.rows == 0 && group.name != null) {
+				categories.remove(key(group.name));
+				summaries.remove(key(group.name));
+			} else {
+				group.refreshExtremes(after, foodsAfter);
+				summaries.put(group.name == null ? null : key(group.name), group.summary());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Summaries by lower-cased category, and under the null key for all rows
+	 */
+	Map<String, NutritionStatistics> summaries() {
+		return new HashMap<>(summaries);
+	}
+
+	static String key(String category) {
+		return category.toLowerCase(Locale.ROOT);
+	}
+
+	private void add(NutrientTable table, int row, String category, Set<Group> touched) {
+		all.add(table, row);
+		touched.add(all);
+		if (category != null) {
+			Group group = group(category);
+			group.add(table, row);
+			touched.add(group);
+		}
+	}
+
+	private void remove(NutrientTable table, int row, String category, Set<Group> touched) {
+		all.remove(table, row);
+		touched.add(all);
+		if (category != null) {
+			Group group = categories.get(key(category));
+			group.remove(table, row);
+			touched.add(group);
+		}
+	}
+
+	private Group group(String category) {
+		return categories.computeIfAbsent(key(category), key -> new Group(category));
+	}
+
+	private void summarizeAll() {
+		summaries.put(null, all.summary());
+		for (Map.Entry<String, Group> category : categories.entrySet()) {
+			summaries.put(category.getKey(), category.getValue().summary());
+		}
+	}
+
+	private static String categoryOf(FoodTable foods, int fdcId) {
+		if (foods == null) {
+			return null;
+		}
+		int ordinal = foods.ordinalOf(fdcId);
+		if (ordinal < 0) {
+			return null;
+		}
+		return foods.foodCategory(ordinal);
+	}
+
+	private static boolean sameCategory(String before, String after) {
+		return before == null ? after == null : after != null && key(before).equals(key(after));
+	}
+
+	private static boolean sameValues(NutrientTable before, int row, NutrientTable after, int now) {
+		for (NutrientColumn column : COLUMNS) {
+			// Compared as bits so that NaN equals NaN
+			if (Double.doubleToLongBits(before.value(column, row)) != Double.doubleToLongBits(
+					after.value(column, now))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Double rounded(double value) {
+		return Double.isNaN(value) ? null : new BigDecimal(value).round(DIGITS).doubleValue();
+	}
+
+	/**
+	 * Rows of one category, or of all rows when name is null
+	 */
+	private static final class Group {
+
+		private final String name;
+		private final Column[] columns = new Column[COLUMNS.length];
+		private long rows;
+
+		Group(String name) {
+			this.name = name;
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = new Column();
+			}
+		}
+
+		void add(NutrientTable table, int row) {
+			rows++;
+			for (NutrientColumn column : COLUMNS) {
+				columns[column.ordinal()].add(table.value(column, row));
+			}
+		}
+
+		void remove(NutrientTable table, int row) {
+			rows--;
+			for (NutrientColumn column : COLUMNS) {
+				columns[column.ordinal()].remove(table.value(column, row));
+			}
+		}
+
+		void merge(Group other) {
+			rows += other.rows;
+			for (int i = 0; i < columns.length; i++) {
+				columns[i].merge(other.columns[i]);
+			}
+		}
+
+		/**
+		 * A removed value may have been the min or max; those columns are
+		 * rescanned over the rows of this group in the current table
+		 */
+		void refreshExtremes(NutrientTable table, FoodTable foods) {
+			List<Column> stale = new ArrayList<>();
+			List<NutrientColumn> staleColumns = new ArrayList<>();
+			for (NutrientColumn column : COLUMNS) {
+				Column values = columns[column.ordinal()];
+				if (values.extremesStale) {
+					values.min = Double.POSITIVE_INFINITY;
+					values.max = Double.NEGATIVE_INFINITY;
+					values.extremesStale = false;
+					stale.add(values);
+					staleColumns.add(column);
+				}
+			}
+			if (stale.isEmpty()) {
+				return;
+			}
+			for (int row = 0; row < table.size(); row++) {
+				if (name != null && !sameCategory(name, categoryOf(foods, table.fdcId(row)))) {
+					continue;
+				}
+				for (int i = 0; i < stale.size(); i++) {
+					stale.get(i).extend(table.value(staleColumns.get(i), row));
+				}
+			}
+		}
+
+		NutritionStatistics summary() {
+			List<ColumnStatistics> nutrients = new ArrayList<>(COLUMNS.length);
+			for (NutrientColumn column : COLUMNS) {
+				nutrients.add(columns[column.ordinal()].summary(column));
+			}
+			return new NutritionStatistics(name, rows, nutrients);
+		}
+	}
+
+	/**
+	 * Running figures of one column within a group. NaN (SQL NULL) values are
+	 * not counted.
+	 */
+	private static final class Column {
+
+		private long count;
+		private double sum;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+		private boolean extremesStale;
+		private final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+		void add(double value) {
+			if (Double.isNaN(value)) {
+				return;
+			}
+			count++;
+			sum += value;
+			extend(value);
+			sketch.add(value);
+		}
+
+		void remove(double value) {
+			if (Double.isNaN(value)) {
+				return;
+			}
+			count--;
+			sum -= value;
+			sketch.remove(value);
+			if (value <= min || value >= max) {
+				extremesStale = true;
+			}
+		}
+
+		void merge(Column other) {
+			count += other.count;
+			sum += other.sum;
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+			sketch.merge(other.sketch);
+		}
+
+		void extend(double value) {
+			if (Double.isNaN(value)) {
+				return;
+			}
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		ColumnStatistics summary(NutrientColumn column) {
+			if (count == 0) {
+				return new ColumnStatistics(column.getProperty(), 0, null, null, null, null, null, null);
+			}
+			return new ColumnStatistics(column.getProperty(), count, rounded(sum / count), rounded(min), rounded(max),
+					rounded(sketch.quantile(0.10)), rounded(sketch.quantile(0.50)), rounded(sketch.quantile(0.90)));
+		}
+	}
+}
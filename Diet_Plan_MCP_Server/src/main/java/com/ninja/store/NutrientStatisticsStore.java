@@ -0,0 +1,168 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.config.CacheConfig;
+import com.ninja.dto.ColumnStatistics;
+import com.ninja.dto.NutritionStatistics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Nutrient statistics (count, mean, min, max, p10/p50/p90 per column) over all
+ * foods and per food category. When the column stores are loaded, the figures
+ * are computed once at startup and then updated with only the rows that
+ * changed whenever either store installs a new table, and every summary is
+ * precomputed, so a lookup is a map read. In JPA mode each summary is one
+ * aggregate query (exact percentiles), kept in the bounded
+ * nutritionStatistics cache until {@link #refresh()}; unknown categories are
+ * not cached.
+ */
+@Component
+public class NutrientStatisticsStore {
+
+	private static final Logger log = LoggerFactory.getLogger(NutrientStatisticsStore.class);
+
+	private static final double[] PERCENTILES = { 0.10, 0.50, 0.90 };
+	// Stands in for the null key of the overall summary in the JPA-mode cache,
+	// which holds no null keys
+	private static final String ALL_FOODS = "\0all";
+
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final EntityManager entityManager;
+	private final TransactionTemplate readOnlyTransaction;
+	private final Cache queried;
+
+	// Tables the statistics reflect, written under the lock
+	private volatile NutrientTable nutrients;
+	private volatile FoodTable foods;
+	private NutrientStatistics statistics;
+
+	private volatile Map<String, NutritionStatistics> summaries;
+
+	@Autowired
+	public NutrientStatisticsStore(NutrientColumnStore nutrientStore, FoodColumnStore foodStore,
+			EntityManager entityManager, PlatformTransactionManager transactionManager, CacheManager cacheManager) {
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.entityManager = entityManager;
+		this.queried = cacheManager.getCache(CacheConfig.NUTRITION_STATISTICS);
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@PostConstruct
+	void load() {
+		refresh();
+	}
+
+	/**
+	 * Bring the statistics up to date with the current store tables: a full
+	 * build the first time, afterwards an update with the changed rows. Also
+	 * forgets summaries queried in JPA mode.
+	 */
+	public synchronized void refresh() {
+		queried.clear();
+		NutrientTable currentNutrients = nutrientStore.table();
+		FoodTable currentFoods = foodStore.table();
+		if (currentNutrients == null || (currentNutrients == nutrients && currentFoods == foods)) {
+			return;
+		}
+		long started = System.nanoTime();
+		if (statistics == null) {
+			statistics = NutrientStatistics.build(currentNutrients, currentFoods);
+			log.info("Computed nutrient statistics for {} rows in {} ms", currentNutrients.size(),
+					(System.nanoTime() - started) / 1_000_000);
+		} else {
+			int changed = statistics.update(nutrients, foods, currentNutrients, currentFoods);
+			log.info("Updated nutrient statistics with {} changed rows in {} ms", changed,
+					(System.nanoTime() - started) / 1_000_000);
+		}
+		nutrients = currentNutrients;
+		foods = currentFoods;
+		summaries = statistics.summaries();
+	}
+
+	/**
+	 * Statistics of every food when category is null, otherwise of the foods in
+	 * that category (case-insensitive); empty for an unknown category
+	 */
+	public Optional<NutritionStatistics> statistics(String category) {
+		if (nutrientStore.table() != null) {
+			if (nutrientStore.table() != nutrients || foodStore.table() != foods) {
+				refresh();
+			}
+			return Optional.ofNullable(summaries.get(category == null ? null : NutrientStatistics.key(category)));
+		}
+		String key = category == null ? ALL_FOODS : NutrientStatistics.key(category);
+		NutritionStatistics cached = queried.get(key, NutritionStatistics.class);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		Optional<NutritionStatistics> result = query(category);
+		result.ifPresent(summary -> queried.put(key, summary));
+		return result;
+	}
+
+	/**
+	 * One pass over the nutrients table (joined to foods for a category) with
+	 * count, avg, min, max and percentile_cont for every column
+	 */
+	private Optional<NutritionStatistics> query(String category) {
+		StringBuilder sql = new StringBuilder("SELECT count(*)");
+		sql.append(category == null ? ", NULL" : ", min(f.food_category)");
+		for (NutrientColumn column : NutrientColumn.values()) {
+			String name = "n." + column.getColumnName();
+			sql.append(", count(").append(name).append("), avg(").append(name).append("), min(").append(name)
+					.append("), max(").append(name).append(')');
+			for (double percentile : PERCENTILES) {
+				sql.append(", percentile_cont(").append(percentile).append(") WITHIN GROUP (ORDER BY ").append(name)
+						.append(')');
+			}
+		}
+		sql.append(" FROM nutrients n");
+		if (category != null) {
+			sql.append(" JOIN foods f ON f.fdc_id = n.fdc_id WHERE lower(f.food_category) = lower(:category)");
+		}
+
+		Object[] row = readOnlyTransaction.execute(status -> {
+			Query query = entityManager.createNativeQuery(sql.toString());
+			if (category != null) {
+				query.setParameter("category", category);
+			}
+			return (Object[]) query.getSingleResult();
+		});
+		long foodCount = ((Number) row[0]).longValue();
+		if (category != null && foodCount == 0) {
+			return Optional.empty();
+		}
+		List<ColumnStatistics> columns = new ArrayList<>();
+		int i = 2;
+		for (NutrientColumn column : NutrientColumn.values()) {
+			columns.add(new ColumnStatistics(column.getProperty(), ((Number) row[i]).longValue(), number(row[i + 1]),
+					number(row[i + 2]), number(row[i + 3]), number(row[i + 4]), number(row[i + 5]),
+					number(row[i + 6])));
+			i += 4 + PERCENTILES.length;
+		}
+		return Optional.of(new NutritionStatistics((String) row[1], foodCount, columns));
+	}
+
+	private static Double number(Object value) {
+		return value == null ? null : ((Number) value).doubleValue();
+	}
+}
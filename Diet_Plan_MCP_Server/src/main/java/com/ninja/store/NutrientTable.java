@@ -0,0 +1,338 @@
+package com.ninja.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.ninja.entity.Nutrient;
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.IntIntHashMap;
+import com.ninja.index.KdTree;
+import com.ninja.index.TrigramIndex;
+
+/**
+ * Immutable columnar snapshot of the nutrients table. Every numeric column is
+ * held as a primitive double[] indexed by row ordinal (NaN for SQL NULL), next
+ * to an int[] of fdcIds and the name columns ({@link NutrientRows}); entities
+ * are made only for the rows a response returns. An open-addressing fdcId
+ * index answers point lookups without boxing the key.
+ *
+ * For each column a sorted permutation of the non-null ordinals gives a
+ * threshold query as a binary search for the matching slice, paged in place.
+ * Food names, simplified names and synonyms are covered by a trigram index
+ * and a typo-tolerant word index, and all numeric columns together by a k-d
+ * tree for compound range filters.
+ *
+ * Only the columns and the fdcId index are built with the table. The sorted
+ * permutations and the other indexes are built on first use, or all at once
+ * by {@link #buildIndexes()}, so a table loaded at startup answers its first
+ * query without waiting for indexes that query does not need.
+ */
+public final class NutrientTable {
+
+	private final NutrientRows rows;
+	private final int[] fdcIds;
+	private final IntIntHashMap fdcIndex;
+	private final double[][] columns;
+	private final List<Deferred<Sorted>> sorted;
+	private final Deferred<TrigramIndex> nameIndex;
+	private final Deferred<FuzzyIndex> fuzzyNameIndex;
+	private final Deferred<DietaryRestrictionIndex> restrictionIndex;
+	private final Deferred<KdTree> rangeIndex;
+
+	/**
+	 * Non-null ordinals of a column sorted ascending by (value, fdcId), and
+	 * their values in the same order
+	 */
+	private record Sorted(int[] ordinals, double[] values) {
+	}
+
+	private NutrientTable(NutrientRows rows) {
+		this.rows = rows;
+		this.fdcIds = rows.fdcIds();
+		this.fdcIndex = IntIntHashMap.ofOrdinals(fdcIds);
+		this.columns = rows.columns();
+		this.sorted = Arrays.stream(columns)
+				.map(values -> new Deferred<>(() -> sort(values)))
+				.toList();
+		this.nameIndex = new Deferred<>(() -> TrigramIndex.build(rows.names()));
+		this.fuzzyNameIndex = new Deferred<>(() -> FuzzyIndex.build(rows.names()));
+		this.restrictionIndex = new Deferred<>(() -> new DietaryRestrictionIndex(this));
+		this.rangeIndex = new Deferred<>(() -> KdTree.build(columns));
+	}
+
+	/**
+	 * Build a snapshot from loaded entities. Rows are ordered by fdcId, so a scan
+	 * in ordinal order yields fdcId order.
+	 */
+	public static NutrientTable of(List<Nutrient> nutrients) {
+		return of(NutrientRows.of(nutrients));
+	}
+
+	/**
+	 * Build a snapshot from decoded columns, ordering the rows by fdcId
+	 */
+	public static NutrientTable of(NutrientRows rows) {
+		return new NutrientTable(rows.sortedByFdcId());
+	}
+
+	/**
+	 * Build every deferred index now, e.g. off the request path before a
+	 * reloaded table is swapped in
+	 */
+	public void buildIndexes() {
+		sorted.forEach(Deferred::get);
+		nameIndex.get();
+		fuzzyNameIndex.get();
+		restrictionIndex.get();
+		rangeIndex.get();
+	}
+
+	private static Sorted sort(double[] values) {
+		double[] sortedValues = RowOrder.sortedValues(values);
+		// Rows are in fdcId order, so ties in row order are ties by fdcId
+		return new Sorted(RowOrder.byValue(values, sortedValues), sortedValues);
+	}
+
+	public int size() {
+		return fdcIds.length;
+	}
+
+	public int fdcId(int ordinal) {
+		return fdcIds[ordinal];
+	}
+
+	/**
+	 * A detached entity for the row, new on every call
+	 */
+	public Nutrient row(int ordinal) {
+		return rows.row(ordinal);
+	}
+
+	public String foodName(int ordinal) {
+		return rows.foodName(ordinal);
+	}
+
+	/**
+	 * Ordinal of the row with this fdcId, or -1
+	 */
+	public int ordinalOf(int fdcId) {
+		return fdcIndex.get(fdcId);
+	}
+
+	public double value(NutrientColumn column, int ordinal) {
+		return columns[column.ordinal()][ordinal];
+	}
+
+	/**
+	 * Raw column array. Callers must treat it as read-only.
+	 */
+	public double[] column(NutrientColumn column) {
+		return columns[column.ordinal()];
+	}
+
+	/**
+	 * Non-null ordinals of a column sorted ascending by (value, fdcId). Callers
+	 * must treat it as read-only.
+	 */
+	public int[] sortedOrdinals(NutrientColumn column) {
+		return sorted(column).ordinals();
+	}
+
+	private Sorted sorted(NutrientColumn column) {
+		return sorted.get(column.ordinal()).get();
+	}
+
+	/**
+	 * Ordinals whose food name, simplified name or synonyms contain the term,
+	 * earliest match first
+	 */
+	public int[] searchByName(String term) {
+		return nameIndex.get().search(term);
+	}
+
+	/**
+	 * Name matches packed as (rank &lt;&lt; 32 | ordinal), best first; see
+	 * {@link TrigramIndex#searchRanked(String)}
+	 */
+	public long[] searchByNameRanked(String term) {
+		return nameIndex.get().searchRanked(term);
+	}
+
+	/**
+	 * Rows whose food name, simplified name or synonyms words are all within a
+	 * few edits of the words of the term, for when
+	 * {@link #searchByNameRanked(String)} finds nothing; see
+	 * {@link FuzzyIndex#search(String)}
+	 */
+	public FuzzyIndex.Matches searchByNameFuzzy(String term) {
+		return fuzzyNameIndex.get().search(term);
+	}
+
+	/**
+	 * The first out.length ordinals greater than after that satisfy every
+	 * dietary restriction whose threshold is not NaN, in row order. Returns how
+	 * many were written; fewer than out.length means there are no more.
+	 * thresholds is indexed by DietaryRestriction ordinal.
+	 */
+	public int matchingRestrictionsAfter(double[] thresholds, int after, int[] out) {
+		return restrictionIndex.get().matchingAfter(thresholds, after, out);
+	}
+
+	/**
+	 * Rows with min[c] &lt;= value &lt;= max[c] for every column c (indexed by
+	 * NutrientColumn ordinal) where constrained[c] is set. Writes at most
+	 * out.length ordinals and returns the total number of matches.
+	 */
+	public int withinRanges(double[] min, double[] max, boolean[] constrained, int[] out) {
+		return rangeIndex.get().search(min, max, constrained, out);
+	}
+
+	/**
+	 * The first out.length ordinals greater than after, ascending (so in fdcId
+	 * order), among the rows {@link #withinRanges} matches. Returns how many
+	 * were written; fewer than out.length means there are no more.
+	 */
+	public int withinRangesAfter(double[] min, double[] max, boolean[] constrained, int after, int[] out) {
+		return rangeIndex.get().searchAfter(min, max, constrained, after, out);
+	}
+
+	/**
+	 * Matching positions [from, to) of a column's sorted ordinals, read in
+	 * value order or reversed, so a threshold query is two binary searches and
+	 * pages are read from the sorted arrays without copying the matches
+	 */
+	public record Slice(int[] sortedOrdinals, double[] sortedValues, int from, int to, boolean descending) {
+
+		public int size() {
+			return to - from;
+		}
+
+		/**
+		 * Ordinal of the i-th match in query order
+		 */
+		public int ordinal(int i) {
+			return sortedOrdinals[descending ? to - 1 - i : from + i];
+		}
+
+		/**
+		 * Column value of the i-th match in query order
+		 */
+		public double value(int i) {
+			return sortedValues[descending ? to - 1 - i : from + i];
+		}
+
+		public int[] toArray() {
+			int[] result = new int[size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = ordinal(i);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Rows with column &gt; threshold, highest value first
+	 */
+	public Slice sliceGreaterThan(NutrientColumn column, double threshold) {
+		Sorted sorted = sorted(column);
+		double[] values = sorted.values();
+		return new Slice(sorted.ordinals(), values, upperBound(values, threshold), values.length, true);
+	}
+
+	/**
+	 * Rows with column &lt; threshold, lowest value first
+	 */
+	public Slice sliceLessThan(NutrientColumn column, double threshold) {
+		Sorted sorted = sorted(column);
+		double[] values = sorted.values();
+		return new Slice(sorted.ordinals(), values, 0, lowerBound(values, threshold), false);
+	}
+
+	/**
+	 * Rows with min &lt;= column &lt;= max, lowest value first
+	 */
+	public Slice sliceBetween(NutrientColumn column, double min, double max) {
+		Sorted sorted = sorted(column);
+		double[] values = sorted.values();
+		int from = lowerBound(values, min);
+		return new Slice(sorted.ordinals(), values, from, Math.max(from, upperBound(values, max)), false);
+	}
+
+	/**
+	 * Ordinals with column &gt; threshold, highest value first, copied out of
+	 * {@link #sliceGreaterThan}
+	 */
+	public int[] greaterThan(NutrientColumn column, double threshold) {
+		return sliceGreaterThan(column, threshold).toArray();
+	}
+
+	/**
+	 * Ordinals with column &lt; threshold, lowest value first, copied out of
+	 * {@link #sliceLessThan}
+	 */
+	public int[] lessThan(NutrientColumn column, double threshold) {
+		return sliceLessThan(column, threshold).toArray();
+	}
+
+	/**
+	 * Ordinals with min &lt;= column &lt;= max, lowest value first, copied out of
+	 * {@link #sliceBetween}
+	 */
+	public int[] between(NutrientColumn column, double min, double max) {
+		return sliceBetween(column, min, max).toArray();
+	}
+
+	/**
+	 * Materialize entities for a list of ordinals, preserving order
+	 */
+	public List<Nutrient> rows(int[] ordinals, int count) {
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<Nutrient> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(rows.row(ordinals[i]));
+		}
+		return result;
+	}
+
+	public List<Nutrient> rows(int[] ordinals) {
+		return rows(ordinals, ordinals.length);
+	}
+
+	/**
+	 * First index whose value is &gt;= key
+	 */
+	private static int lowerBound(double[] values, double key) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * First index whose value is &gt; key
+	 */
+	private static int upperBound(double[] values, double key) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] <= key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,100 @@
+package com.ninja.store;
+
+import java.util.Arrays;
+
+/**
+ * Sorting helpers for the column arrays of {@link NutrientRows} and
+ * {@link FoodRows}, working on primitives so a table of a few hundred thousand
+ * rows sorts without boxing an ordinal per row
+ */
+final class RowOrder {
+
+	private RowOrder() {
+	}
+
+	/**
+	 * Row order by ascending key, ties in row order, or null when the rows are
+	 * already in that order
+	 */
+	static int[] byKey(int[] keys) {
+		boolean sorted = true;
+		for (int row = 1; row < keys.length && sorted; row++) {
+			sorted = keys[row - 1] <= keys[row];
+		}
+		if (sorted) {
+			return null;
+		}
+		long[] packed = new long[keys.length];
+		for (int row = 0; row < keys.length; row++) {
+			packed[row] = (long) keys[row] << 32 | row;
+		}
+		Arrays.sort(packed);
+		int[] order = new int[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = (int) packed[i];
+		}
+		return order;
+	}
+
+	/**
+	 * Rows whose value is not NaN, by ascending value (as Double.compare orders
+	 * them), ties in row order. Each value is replaced by its position among
+	 * the sorted values, so (position, row) pairs pack into longs and one
+	 * primitive sort orders them.
+	 */
+	static int[] byValue(double[] values, double[] sortedValues) {
+		int[] order = new int[sortedValues.length];
+		long[] packed = new long[sortedValues.length];
+		int count = 0;
+		for (int row = 0; row < values.length; row++) {
+			if (!Double.isNaN(values[row])) {
+				packed[count++] = (long) Arrays.binarySearch(sortedValues, values[row]) << 32 | row;
+			}
+		}
+		Arrays.sort(packed);
+		for (int i = 0; i < order.length; i++) {
+			order[i] = (int) packed[i];
+		}
+		return order;
+	}
+
+	/**
+	 * The values that are not NaN, ascending
+	 */
+	static double[] sortedValues(double[] values) {
+		double[] sorted = new double[values.length];
+		int count = 0;
+		for (double value : values) {
+			if (!Double.isNaN(value)) {
+				sorted[count++] = value;
+			}
+		}
+		sorted = Arrays.copyOf(sorted, count);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	static int[] permute(int[] values, int[] order) {
+		int[] result = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+
+	static double[] permute(double[] values, int[] order) {
+		double[] result = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+
+	static String[] permute(String[] values, int[] order) {
+		String[] result = new String[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,26 @@
+package com.ninja.store;
+
+/**
+ * Where the read-only diet tables are answered from, selected with the
+ * diet.store.mode property.
+ */
+public enum StoreMode {
+
+	/**
+	 * Load the tables into the in-memory stores at startup and answer from
+	 * memory. When diet.snapshot.path names a snapshot file the stores start
+	 * from it and are refreshed from the database in the background.
+	 */
+	MEMORY,
+
+	/**
+	 * Serve only from the snapshot file named by diet.snapshot.path; the
+	 * database is not read at startup or on reload
+	 */
+	SNAPSHOT,
+
+	/**
+	 * Send every query to PostgreSQL through the JPA repositories
+	 */
+	JPA
+}
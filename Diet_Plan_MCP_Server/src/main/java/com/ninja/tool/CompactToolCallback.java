@@ -0,0 +1,144 @@
+package com.ninja.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.util.json.JsonParser;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Wraps a list tool with two extra optional arguments, "fields" and "format".
+ * They are taken out of the arguments before the tool runs, and the tool's
+ * JSON result is reshaped with {@link ToolResultShaper}.
+ */
+class CompactToolCallback implements ToolCallback {
+
+	static final String FIELDS = "fields";
+	static final String FORMAT = "format";
+
+	private static final ObjectMapper JSON = JsonParser.getObjectMapper();
+
+	private final ToolCallback delegate;
+	private final ToolDefinition definition;
+	private final ToolResultFormat defaultFormat;
+	private final int precision;
+
+	CompactToolCallback(ToolCallback delegate, ToolResultFormat defaultFormat, int precision) {
+		this.delegate = delegate;
+		this.definition = withShapingArguments(delegate.getToolDefinition(), defaultFormat);
+		this.defaultFormat = defaultFormat;
+		this.precision = precision;
+	}
+
+	@Override
+	public ToolDefinition getToolDefinition() {
+		return definition;
+	}
+
+	@Override
+	public ToolMetadata getToolMetadata() {
+		return delegate.getToolMetadata();
+	}
+
+	@Override
+	public String call(String toolInput) {
+		return call(toolInput, null);
+	}
+
+	@Override
+	public String call(String toolInput, ToolContext toolContext) {
+		ObjectNode arguments = parseArguments(toolInput);
+		JsonNode format = arguments.remove(FORMAT);
+		JsonNode fields = arguments.remove(FIELDS);
+		ToolResultFormat resultFormat = format == null || format.isNull() ? defaultFormat
+				: ToolResultFormat.fromValue(format.asText());
+		List<String> selected = fields(fields);
+
+		String input = arguments.toString();
+		String result = toolContext == null ? delegate.call(input) : delegate.call(input, toolContext);
+		if (resultFormat == ToolResultFormat.JSON && selected.isEmpty() && precision == 0) {
+			return result;
+		}
+		try {
+			return JSON.writeValueAsString(ToolResultShaper.shape(JSON.readTree(result), resultFormat, selected,
+					precision));
+		} catch (JsonProcessingException e) {
+			// Not JSON (e.g. a plain string result): pass it through unchanged
+			return result;
+		}
+	}
+
+	private static ObjectNode parseArguments(String toolInput) {
+		if (toolInput == null || toolInput.isBlank()) {
+			return JSON.createObjectNode();
+		}
+		try {
+			JsonNode arguments = JSON.readTree(toolInput);
+			if (arguments.isObject()) {
+				return (ObjectNode) arguments;
+			}
+		} catch (JsonProcessingException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Tool arguments must be a JSON object");
+	}
+
+	/**
+	 * Field names from a JSON array, or from one comma-separated string
+	 */
+	private static List<String> fields(JsonNode fields) {
+		List<String> names = new ArrayList<>();
+		if (fields == null || fields.isNull()) {
+			return names;
+		}
+		if (fields.isArray()) {
+			fields.forEach(field -> names.add(field.asText().trim()));
+		} else {
+			for (String field : fields.asText().split(",")) {
+				names.add(field.trim());
+			}
+		}
+		names.removeIf(String::isEmpty);
+		return names;
+	}
+
+	private static ToolDefinition withShapingArguments(ToolDefinition definition, ToolResultFormat defaultFormat) {
+		ObjectNode schema;
+		try {
+			schema = (ObjectNode) JSON.readTree(definition.inputSchema());
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Invalid input schema for tool " + definition.name(), e);
+		}
+		ObjectNode properties = schema.has("properties") ? (ObjectNode) schema.get("properties")
+				: schema.putObject("properties");
+
+		ObjectNode fields = properties.putObject(FIELDS);
+		fields.put("type", "array");
+		fields.putObject("items").put("type", "string");
+		fields.put("description", "only return these fields of each result, e.g. [\"fdcId\", \"foodName\", "
+				+ "\"energyKcal\"]; omit for all fields");
+
+		ObjectNode format = properties.putObject(FORMAT);
+		format.put("type", "string");
+		ArrayNode values = format.putArray("enum");
+		values.add("json").add("table");
+		format.put("description", "json for one object per result, table for {columns, rows} with the field "
+				+ "names sent once (fewer tokens); default " + defaultFormat.name().toLowerCase(Locale.ROOT));
+
+		return ToolDefinition.builder()
+				.name(definition.name())
+				.description(definition.description())
+				.inputSchema(schema.toString())
+				.build();
+	}
+}
@@ -0,0 +1,80 @@
+package com.ninja.tool;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import com.ninja.dto.CursorPage;
+
+/**
+ * Adds the "fields" and "format" arguments to every list tool (see
+ * {@link CompactToolCallback}). A list tool is one that returns a CursorPage
+ * or a collection of objects, or takes a limit. Lists of plain strings
+ * (categories, limitations) are already compact and are left alone.
+ *
+ * diet.tools.format sets the format used when a call does not ask for one,
+ * and diet.tools.precision the decimal places kept in floating-point values in
+ * list results (0 keeps them as stored).
+ */
+@Component
+public class CompactToolResults {
+
+	private final ToolResultFormat defaultFormat;
+	private final int precision;
+
+	public CompactToolResults(@Value("${diet.tools.format:json}") String defaultFormat,
+			@Value("${diet.tools.precision:0}") int precision) {
+		if (precision < 0) {
+			throw new IllegalArgumentException("diet.tools.precision must not be negative");
+		}
+		this.defaultFormat = ToolResultFormat.fromValue(defaultFormat);
+		this.precision = precision;
+	}
+
+	/**
+	 * The provider's callbacks, with the list tools declared on toolObjects
+	 * wrapped
+	 */
+	public ToolCallbackProvider wrap(ToolCallbackProvider provider, Object... toolObjects) {
+		Set<String> listTools = new HashSet<>();
+		for (Object toolObject : toolObjects) {
+			for (Method method : ReflectionUtils.getDeclaredMethods(AopUtils.getTargetClass(toolObject))) {
+				if (method.isAnnotationPresent(Tool.class) && isListTool(method)) {
+					listTools.add(ToolUtils.getToolName(method));
+				}
+			}
+		}
+		ToolCallback[] callbacks = Arrays.stream(provider.getToolCallbacks())
+				.map(callback -> listTools.contains(callback.getToolDefinition().name())
+						? new CompactToolCallback(callback, defaultFormat, precision)
+						: callback)
+				.toArray(ToolCallback[]::new);
+		return ToolCallbackProvider.from(callbacks);
+	}
+
+	static boolean isListTool(Method method) {
+		if (CursorPage.class.isAssignableFrom(method.getReturnType())) {
+			return true;
+		}
+		if (Collection.class.isAssignableFrom(method.getReturnType())) {
+			Type returnType = method.getGenericReturnType();
+			return !(returnType instanceof ParameterizedType parameterized)
+					|| parameterized.getActualTypeArguments()[0] != String.class;
+		}
+		return Arrays.stream(method.getParameters()).map(Parameter::getName).anyMatch("limit"::equals);
+	}
+}
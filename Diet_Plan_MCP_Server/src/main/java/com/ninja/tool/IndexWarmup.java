@@ -0,0 +1,110 @@
+package com.ninja.tool;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.ninja.store.FoodColumnStore;
+import com.ninja.store.NutrientColumnStore;
+
+/**
+ * Builds the indexes the column stores defer at startup (sorted columns, name
+ * search, k-d tree, dietary restriction bitmaps) once the first tool call has
+ * been answered, on the application task executor. Startup and that first
+ * call only pay for the columns; a call that needs an index before the
+ * warm-up reaches it builds that one index itself.
+ */
+@Component
+public class IndexWarmup {
+
+	private static final Logger log = LoggerFactory.getLogger(IndexWarmup.class);
+
+	private final NutrientColumnStore nutrientStore;
+	private final FoodColumnStore foodStore;
+	private final TaskExecutor taskExecutor;
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	public IndexWarmup(NutrientColumnStore nutrientStore, FoodColumnStore foodStore,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor) {
+		this.nutrientStore = nutrientStore;
+		this.foodStore = foodStore;
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * The provider's callbacks, each starting the warm-up after it returns
+	 */
+	public ToolCallbackProvider wrap(ToolCallbackProvider provider) {
+		return ToolCallbackProvider.from(Arrays.stream(provider.getToolCallbacks())
+				.map(WarmingToolCallback::new)
+				.toArray(ToolCallback[]::new));
+	}
+
+	/**
+	 * Start building the deferred indexes, the first time only
+	 */
+	void afterToolCall() {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+		taskExecutor.execute(() -> {
+			long start = System.nanoTime();
+			try {
+				nutrientStore.buildIndexes();
+				foodStore.buildIndexes();
+				log.info("Built the deferred store indexes in {} ms", (System.nanoTime() - start) / 1_000_000);
+			} catch (RuntimeException e) {
+				// Each index is still built by the first query that needs it
+				log.warn("Could not build the deferred store indexes", e);
+			}
+		});
+	}
+
+	private final class WarmingToolCallback implements ToolCallback {
+
+		private final ToolCallback delegate;
+
+		WarmingToolCallback(ToolCallback delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public ToolDefinition getToolDefinition() {
+			return delegate.getToolDefinition();
+		}
+
+		@Override
+		public ToolMetadata getToolMetadata() {
+			return delegate.getToolMetadata();
+		}
+
+		@Override
+		public String call(String toolInput) {
+			try {
+				return delegate.call(toolInput);
+			} finally {
+				afterToolCall();
+			}
+		}
+
+		@Override
+		public String call(String toolInput, ToolContext toolContext) {
+			try {
+				return delegate.call(toolInput, toolContext);
+			} finally {
+				afterToolCall();
+			}
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.ninja.tool;
+
+import java.util.Locale;
+
+/**
+ * Output format of list tool results. JSON is the plain object-per-row shape;
+ * TABLE sends the column names once and every row as an array of values, so
+ * keys like "foodName" and "vitaminDMcg" are not repeated on every row.
+ */
+public enum ToolResultFormat {
+
+	JSON, TABLE;
+
+	public static ToolResultFormat fromValue(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown format '" + value + "', expected json or table");
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package com.ninja.tool;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reshapes the JSON result of a list tool: keeps only the selected fields,
+ * rounds floating-point numbers to a fixed number of decimal places, and in
+ * TABLE format turns the rows into {"columns": [...], "rows": [[...], ...]}.
+ *
+ * Rows are found in the shapes the tools return: a bare array, a CursorPage
+ * ("items" next to "nextCursor"), or either of those wrapped in a
+ * ResponseEntity body. Nested objects (FdcIdLookup.item, FoodNutrition
+ * nutrients) are flattened into dotted column names, and a field selects
+ * every column whose name is the field or ends in "." + field.
+ */
+public final class ToolResultShaper {
+
+	private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+	private ToolResultShaper() {
+	}
+
+	/**
+	 * @param fields    columns to keep, in output order; empty keeps all
+	 * @param precision decimal places kept in floating-point values, 0 to keep
+	 *                  them as they are
+	 */
+	public static JsonNode shape(JsonNode result, ToolResultFormat format, List<String> fields, int precision) {
+		return new Shaping(format, fields, precision).reshape(result);
+	}
+
+	private record Shaping(ToolResultFormat format, List<String> fields, int precision) {
+
+		JsonNode reshape(JsonNode node) {
+			if (node.isArray()) {
+				return isRows(node) ? rows(node, null) : round(node);
+			}
+			if (!node.isObject()) {
+				return round(node);
+			}
+			ObjectNode object = (ObjectNode) node;
+			JsonNode items = object.get("items");
+			if (items != null && isRows(items)) {
+				return rows(items, object);
+			}
+			if (object.has("body")) {
+				object.set("body", reshape(object.get("body")));
+				return object;
+			}
+			if (object.size() == 1) {
+				Map.Entry<String, JsonNode> only = object.fields().next();
+				object.set(only.getKey(), reshape(only.getValue()));
+				return object;
+			}
+			return round(object);
+		}
+
+		/**
+		 * Shaped rows. page holds the fields next to "items" (nextCursor) and is
+		 * null for a bare array.
+		 */
+		private JsonNode rows(JsonNode items, ObjectNode page) {
+			List<Map<String, JsonNode>> rows = new ArrayList<>(items.size());
+			Set<String> paths = new LinkedHashSet<>();
+			for (JsonNode item : items) {
+				Map<String, JsonNode> row = new LinkedHashMap<>();
+				flatten("", item, row);
+				paths.addAll(row.keySet());
+				rows.add(row);
+			}
+			List<String> columns = columns(paths, rows);
+
+			ObjectNode shaped = NODES.objectNode();
+			if (format == ToolResultFormat.TABLE) {
+				ArrayNode header = shaped.putArray("columns");
+				columns.forEach(header::add);
+				ArrayNode values = shaped.putArray("rows");
+				for (Map<String, JsonNode> row : rows) {
+					ArrayNode value = values.addArray();
+					for (String column : columns) {
+						value.add(round(row.getOrDefault(column, NODES.nullNode())));
+					}
+				}
+			} else {
+				ArrayNode values = shaped.putArray("items");
+				for (Map<String, JsonNode> row : rows) {
+					ObjectNode value = values.addObject();
+					for (String column : columns) {
+						if (row.containsKey(column)) {
+							put(value, column, round(row.get(column)));
+						}
+					}
+				}
+			}
+
+			if (page == null) {
+				return format == ToolResultFormat.TABLE ? shaped : shaped.get("items");
+			}
+			Iterator<Map.Entry<String, JsonNode>> others = page.fields();
+			while (others.hasNext()) {
+				Map.Entry<String, JsonNode> other = others.next();
+				if (!other.getKey().equals("items")) {
+					shaped.set(other.getKey(), other.getValue());
+				}
+			}
+			return shaped;
+		}
+
+		/**
+		 * Selected columns in request order, or every column. In TABLE format,
+		 * unselected columns that are null in every row are left out.
+		 */
+		private List<String> columns(Set<String> paths, List<Map<String, JsonNode>> rows) {
+			if (fields.isEmpty()) {
+				List<String> columns = new ArrayList<>(paths);
+				if (format == ToolResultFormat.TABLE) {
+					columns.removeIf(column -> rows.stream()
+							.allMatch(row -> row.getOrDefault(column, NODES.nullNode()).isNull()));
+				}
+				return columns;
+			}
+			Set<String> columns = new LinkedHashSet<>();
+			for (String field : fields) {
+				boolean found = false;
+				for (String path : paths) {
+					if (path.equals(field) || path.endsWith("." + field)) {
+						columns.add(path);
+						found = true;
+					}
+				}
+				if (!found && !rows.isEmpty()) {
+					throw new IllegalArgumentException("Unknown field '" + field + "', available: " + paths);
+				}
+			}
+			return new ArrayList<>(columns);
+		}
+
+		private JsonNode round(JsonNode node) {
+			if (precision > 0 && node.isFloatingPointNumber()) {
+				double value = node.doubleValue();
+				if (!Double.isFinite(value)) {
+					return node;
+				}
+				// Decimal places, not significant digits, so large values keep their
+				// integer part (12345.678 becomes 12345.678 at 3, not 12300)
+				double rounded = BigDecimal.valueOf(value).setScale(precision, RoundingMode.HALF_UP).doubleValue();
+				// Whole numbers print without the trailing ".0"
+				return rounded == Math.rint(rounded) && Math.abs(rounded) < 1e15 ? NODES.numberNode((long) rounded)
+						: NODES.numberNode(rounded);
+			}
+			if (node.isArray()) {
+				ArrayNode array = NODES.arrayNode(node.size());
+				node.forEach(element -> array.add(round(element)));
+				return array;
+			}
+			if (node.isObject()) {
+				ObjectNode object = NODES.objectNode();
+				node.fields().forEachRemaining(field -> object.set(field.getKey(), round(field.getValue())));
+				return object;
+			}
+			return node;
+		}
+	}
+
+	private static boolean isRows(JsonNode array) {
+		if (!array.isArray()) {
+			return false;
+		}
+		for (JsonNode element : array) {
+			if (!element.isObject()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void flatten(String prefix, JsonNode node, Map<String, JsonNode> row) {
+		Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String path = prefix + field.getKey();
+			if (field.getValue().isObject()) {
+				flatten(path + ".", field.getValue(), row);
+			} else {
+				row.put(path, field.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Set a dotted path on an object, creating the nested objects
+	 */
+	private static void put(ObjectNode object, String path, JsonNode value) {
+		int dot = path.indexOf('.');
+		if (dot < 0) {
+			object.set(path, value);
+			return;
+		}
+		String head = path.substring(0, dot);
+		JsonNode child = object.get(head);
+		ObjectNode nested = child != null && child.isObject() ? (ObjectNode) child : object.putObject(head);
+		put(nested, path.substring(dot + 1), value);
+	}
+}
@@ -0,0 +1,223 @@
+package com.ninja.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * MCP stdio transport that pipelines requests. A reader thread parses one
+ * JSON-RPC message per line and keeps reading while earlier requests run:
+ * each request is handed to the session on a bounded dispatch pool, at most
+ * maxConcurrency at a time (beyond that the reader waits for a slot, so a
+ * flooding client is held back by the pipe), and its response is written as
+ * soon as it completes. Responses may therefore leave in a different order
+ * than their requests arrived; clients match them by id, as JSON-RPC intends.
+ * Everything else (initialize, notifications and responses to the server's
+ * own requests) is handled in arrival order before the next line is read, so
+ * no request is dispatched ahead of the handshake.
+ *
+ * Writes are serialized on one lock. The SDK's stdio transport emits
+ * responses into a sink that drops a message when two calls complete at the
+ * same moment, which concurrent tool calls do.
+ */
+public class PipelinedStdioServerTransportProvider implements McpServerTransportProvider {
+
+	private static final Logger log = LoggerFactory.getLogger(PipelinedStdioServerTransportProvider.class);
+
+	// How long in-flight requests may still answer once the input has closed
+	private static final long DRAIN_SECONDS = 30;
+
+	private final ObjectMapper objectMapper;
+	private final InputStream input;
+	private final OutputStream output;
+	private final int maxConcurrency;
+	private final Semaphore slots;
+	private final ThreadPoolExecutor dispatchPool;
+	private final Scheduler dispatcher;
+	private final Object writeLock = new Object();
+	private final AtomicBoolean closing = new AtomicBoolean();
+
+	private volatile McpServerSession session;
+
+	public PipelinedStdioServerTransportProvider(ObjectMapper objectMapper, int maxConcurrency) {
+		this(objectMapper, System.in, System.out, maxConcurrency);
+	}
+
+	public PipelinedStdioServerTransportProvider(ObjectMapper objectMapper, InputStream input, OutputStream output,
+			int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be at least 1, was " + maxConcurrency);
+		}
+		this.objectMapper = objectMapper;
+		this.input = input;
+		this.output = output;
+		this.maxConcurrency = maxConcurrency;
+		this.slots = new Semaphore(maxConcurrency);
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("mcp-dispatch-");
+		threads.setDaemon(true);
+		this.dispatchPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), threads);
+		this.dispatchPool.allowCoreThreadTimeOut(true);
+		this.dispatcher = Schedulers.fromExecutorService(dispatchPool, "mcp-dispatch");
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	@Override
+	public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+		session = sessionFactory.create(new SessionTransport());
+		// Not a daemon: with no web server, the reader keeps a stdio server alive
+		new Thread(this::read, "mcp-stdio-reader").start();
+	}
+
+	@Override
+	public Mono<Void> notifyClients(String method, Object params) {
+		McpServerSession current = session;
+		if (current == null) {
+			return Mono.error(new IllegalStateException("No MCP session to notify"));
+		}
+		return current.sendNotification(method, params);
+	}
+
+	@Override
+	public Mono<Void> closeGracefully() {
+		return Mono.defer(() -> {
+			closing.set(true);
+			McpServerSession current = session;
+			return current == null ? Mono.<Void>empty() : current.closeGracefully();
+		}).doFinally(signal -> shutdown());
+	}
+
+	private void read() {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			String line;
+			while (!closing.get() && (line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				McpSchema.JSONRPCMessage message;
+				try {
+					message = McpSchema.deserializeJsonRpcMessage(objectMapper, line);
+				} catch (IOException | IllegalArgumentException e) {
+					log.warn("Skipping unreadable MCP message: {}", e.getMessage());
+					continue;
+				}
+				dispatch(message);
+			}
+		} catch (IOException e) {
+			if (!closing.get()) {
+				log.error("Reading MCP messages from stdin failed", e);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			drain();
+			McpServerSession current = session;
+			if (current != null && !closing.get()) {
+				current.closeGracefully().block();
+			}
+			shutdown();
+		}
+	}
+
+	private void dispatch(McpSchema.JSONRPCMessage message) throws InterruptedException {
+		if (!(message instanceof McpSchema.JSONRPCRequest request)
+				|| McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+			session.handle(message)
+					.onErrorResume(error -> {
+						log.error("Handling MCP message failed", error);
+						return Mono.empty();
+					})
+					.block();
+			return;
+		}
+		slots.acquire();
+		session.handle(message)
+				.subscribeOn(dispatcher)
+				.doFinally(signal -> slots.release())
+				.subscribe(null, error -> log.error("Handling MCP request {} failed", request.id(), error));
+	}
+
+	/**
+	 * Wait for the requests still in flight, so their responses are written
+	 * before the session closes
+	 */
+	private void drain() {
+		try {
+			if (!slots.tryAcquire(maxConcurrency, DRAIN_SECONDS, TimeUnit.SECONDS)) {
+				log.warn("Closing the MCP session with requests still in flight");
+				return;
+			}
+			slots.release(maxConcurrency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void shutdown() {
+		dispatcher.dispose();
+		dispatchPool.shutdown();
+	}
+
+	private void write(McpSchema.JSONRPCMessage message) {
+		try {
+			// Jackson escapes line breaks inside strings, so a message is one line
+			byte[] line = (objectMapper.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8);
+			synchronized (writeLock) {
+				output.write(line);
+				output.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private final class SessionTransport implements McpServerTransport {
+
+		@Override
+		public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+			return Mono.fromRunnable(() -> write(message));
+		}
+
+		@Override
+		public <T> T unmarshalFrom(Object data, TypeReference<T> type) {
+			return objectMapper.convertValue(data, type);
+		}
+
+		@Override
+		public Mono<Void> closeGracefully() {
+			return Mono.fromRunnable(() -> closing.set(true));
+		}
+
+		@Override
+		public void close() {
+			closing.set(true);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.ninja.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import reactor.core.publisher.Mono;
+
+/**
+ * A session transport whose sends happen one at a time. Concurrent tool calls
+ * of one session complete on different threads, and the SDK's transports
+ * either interleave their writes (HTTP/SSE) or drop a message that is emitted
+ * while another one is (stdio).
+ */
+final class SerializedServerTransport implements McpServerTransport {
+
+	private final McpServerTransport delegate;
+
+	SerializedServerTransport(McpServerTransport delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+		// The SDK's sends complete as soon as the message is written or queued
+		return Mono.fromRunnable(() -> {
+			synchronized (this) {
+				delegate.sendMessage(message).block();
+			}
+		});
+	}
+
+	@Override
+	public <T> T unmarshalFrom(Object data, TypeReference<T> type) {
+		return delegate.unmarshalFrom(data, type);
+	}
+
+	@Override
+	public Mono<Void> closeGracefully() {
+		return delegate.closeGracefully();
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
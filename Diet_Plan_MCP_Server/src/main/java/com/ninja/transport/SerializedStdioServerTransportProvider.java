@@ -0,0 +1,32 @@
+package com.ninja.transport;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerSession;
+
+/**
+ * The SDK's stdio transport, with each session's sends serialized. Its
+ * session emits responses into a unicast sink that rejects, and so loses, a
+ * message emitted while another one is, which concurrent tool calls do.
+ * Requests are still handled the SDK's way; see
+ * PipelinedStdioServerTransportProvider for the default transport.
+ */
+public class SerializedStdioServerTransportProvider extends StdioServerTransportProvider {
+
+	public SerializedStdioServerTransportProvider(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	public SerializedStdioServerTransportProvider(ObjectMapper objectMapper, InputStream input, OutputStream output) {
+		super(objectMapper, input, output);
+	}
+
+	@Override
+	public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+		super.setSessionFactory(transport -> sessionFactory.create(new SerializedServerTransport(transport)));
+	}
+}
@@ -0,0 +1,30 @@
+package com.ninja.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerSession;
+
+/**
+ * MCP over HTTP with Server-Sent Events, as a servlet: each client opens an
+ * event stream at the SSE endpoint, gets its own session, and posts its
+ * requests to the message endpoint; responses come back as events on its
+ * stream. Many clients share one server, and so one set of column stores,
+ * caches and database connections.
+ *
+ * The SDK servlet writes an event in two separate writes, so concurrent tool
+ * calls of one client could interleave on its stream; each session's sends
+ * are serialized (see SerializedServerTransport).
+ */
+public class SseServerTransportProvider extends HttpServletSseServerTransportProvider {
+
+	public SseServerTransportProvider(ObjectMapper objectMapper, String baseUrl, String messageEndpoint,
+			String sseEndpoint) {
+		super(objectMapper, baseUrl, messageEndpoint, sseEndpoint);
+	}
+
+	@Override
+	public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+		super.setSessionFactory(transport -> sessionFactory.create(new SerializedServerTransport(transport)));
+	}
+}
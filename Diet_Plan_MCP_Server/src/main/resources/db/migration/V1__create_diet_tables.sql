@@ -0,0 +1,51 @@
+-- Baseline schema for the diet plan reference tables.
+-- The tables are normally created and loaded outside the application, so every
+-- statement is IF NOT EXISTS and this script is a no-op on an existing database.
+
+CREATE TABLE IF NOT EXISTS foods (
+    fdc_id           integer PRIMARY KEY,
+    food_name        text NOT NULL,
+    data_type        text,
+    food_category    text,
+    publication_date text,
+    allergen_flags   text
+);
+
+CREATE TABLE IF NOT EXISTS nutrients (
+    fdc_id           integer PRIMARY KEY,
+    food_name        text NOT NULL,
+    simplified_name  text,
+    synonyms         text,
+    energy_kcal      double precision,
+    total_fat_g      double precision,
+    protein_g        double precision,
+    carbohydrate_g   double precision,
+    fiber_g          double precision,
+    sugars_g         double precision,
+    added_sugars_g   double precision,
+    sodium_mg        double precision,
+    potassium_mg     double precision,
+    calcium_mg       double precision,
+    iron_mg          double precision,
+    vitamin_c_mg     double precision,
+    cholesterol_mg   double precision,
+    saturated_fat_g  double precision,
+    vitamin_d_mcg    double precision,
+    magnesium_mg     double precision
+);
+
+CREATE TABLE IF NOT EXISTS lfv_tbl (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       text NOT NULL,
+    category   text NOT NULL,
+    limitation text NOT NULL,
+    notes      text
+);
+
+CREATE TABLE IF NOT EXISTS lchf_tbl (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       text NOT NULL,
+    category   text NOT NULL,
+    limitation text NOT NULL,
+    notes      text
+);
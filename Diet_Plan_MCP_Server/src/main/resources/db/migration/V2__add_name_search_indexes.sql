@@ -0,0 +1,62 @@
+-- Indexes for the case-insensitive name, category and limitation predicates.
+-- FoodRepository and NutrientRepository use LOWER(...) in their @Query methods;
+-- Spring Data derived *IgnoreCase methods and the LFV/LCHF @Query methods use
+-- UPPER(...), so each expression is indexed the way it is queried.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- foods: LOWER(food_name) LIKE '%term%'
+CREATE INDEX IF NOT EXISTS idx_foods_food_name_lower_trgm
+    ON foods USING gin (lower(food_name) gin_trgm_ops);
+-- foods: LOWER(food_category) = LOWER(:category), countByFoodCategory
+CREATE INDEX IF NOT EXISTS idx_foods_food_category_lower
+    ON foods (lower(food_category));
+-- foods: findByFoodCategoryIgnoreCase, findByDataTypeIgnoreCase
+CREATE INDEX IF NOT EXISTS idx_foods_food_category_upper
+    ON foods (upper(food_category));
+CREATE INDEX IF NOT EXISTS idx_foods_data_type_upper
+    ON foods (upper(data_type));
+-- foods: SELECT DISTINCT ... ORDER BY food_category / data_type
+CREATE INDEX IF NOT EXISTS idx_foods_food_category
+    ON foods (food_category);
+CREATE INDEX IF NOT EXISTS idx_foods_data_type
+    ON foods (data_type);
+-- foods: findFoodsWithAllergens / findFoodsWithoutAllergens
+CREATE INDEX IF NOT EXISTS idx_foods_with_allergens
+    ON foods (fdc_id)
+    WHERE allergen_flags IS NOT NULL AND allergen_flags <> '' AND allergen_flags <> 'NaN';
+CREATE INDEX IF NOT EXISTS idx_foods_without_allergens
+    ON foods (fdc_id)
+    WHERE allergen_flags IS NULL OR allergen_flags = '' OR allergen_flags = 'NaN';
+
+-- nutrients: LOWER(food_name | simplified_name | synonyms) LIKE '%term%'
+CREATE INDEX IF NOT EXISTS idx_nutrients_food_name_lower_trgm
+    ON nutrients USING gin (lower(food_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_nutrients_simplified_name_lower_trgm
+    ON nutrients USING gin (lower(simplified_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_nutrients_synonyms_lower_trgm
+    ON nutrients USING gin (lower(synonyms) gin_trgm_ops);
+
+-- lfv_tbl / lchf_tbl: UPPER(name) LIKE UPPER('%term%')
+CREATE INDEX IF NOT EXISTS idx_lfv_name_upper_trgm
+    ON lfv_tbl USING gin (upper(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_lchf_name_upper_trgm
+    ON lchf_tbl USING gin (upper(name) gin_trgm_ops);
+-- UPPER(category) = ..., UPPER(limitation) = / IN (...), and both together
+CREATE INDEX IF NOT EXISTS idx_lfv_category_limitation_upper
+    ON lfv_tbl (upper(category), upper(limitation));
+CREATE INDEX IF NOT EXISTS idx_lfv_limitation_upper
+    ON lfv_tbl (upper(limitation));
+CREATE INDEX IF NOT EXISTS idx_lchf_category_limitation_upper
+    ON lchf_tbl (upper(category), upper(limitation));
+CREATE INDEX IF NOT EXISTS idx_lchf_limitation_upper
+    ON lchf_tbl (upper(limitation));
+-- SELECT DISTINCT ... ORDER BY, countByCategory, countByLimitation
+CREATE INDEX IF NOT EXISTS idx_lfv_category
+    ON lfv_tbl (category);
+CREATE INDEX IF NOT EXISTS idx_lfv_limitation
+    ON lfv_tbl (limitation);
+CREATE INDEX IF NOT EXISTS idx_lchf_category
+    ON lchf_tbl (category);
+CREATE INDEX IF NOT EXISTS idx_lchf_limitation
+    ON lchf_tbl (limitation);
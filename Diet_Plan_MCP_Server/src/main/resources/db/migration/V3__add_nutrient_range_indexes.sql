@@ -0,0 +1,20 @@
+-- B-tree indexes for the nutrient threshold queries. Each serves both the
+-- range predicate and the ORDER BY of the matching NutrientRepository method
+-- (a backward index scan for the DESC orderings).
+
+CREATE INDEX IF NOT EXISTS idx_nutrients_energy_kcal ON nutrients (energy_kcal);
+CREATE INDEX IF NOT EXISTS idx_nutrients_protein_g ON nutrients (protein_g);
+CREATE INDEX IF NOT EXISTS idx_nutrients_fiber_g ON nutrients (fiber_g);
+CREATE INDEX IF NOT EXISTS idx_nutrients_sodium_mg ON nutrients (sodium_mg);
+
+-- findFoodsForDietaryRestrictions
+CREATE INDEX IF NOT EXISTS idx_nutrients_total_fat_g ON nutrients (total_fat_g);
+CREATE INDEX IF NOT EXISTS idx_nutrients_sugars_g ON nutrients (sugars_g);
+
+-- findFoodsRichInVitaminMineral
+CREATE INDEX IF NOT EXISTS idx_nutrients_vitamin_c_mg ON nutrients (vitamin_c_mg);
+CREATE INDEX IF NOT EXISTS idx_nutrients_vitamin_d_mcg ON nutrients (vitamin_d_mcg);
+CREATE INDEX IF NOT EXISTS idx_nutrients_calcium_mg ON nutrients (calcium_mg);
+CREATE INDEX IF NOT EXISTS idx_nutrients_iron_mg ON nutrients (iron_mg);
+CREATE INDEX IF NOT EXISTS idx_nutrients_potassium_mg ON nutrients (potassium_mg);
+CREATE INDEX IF NOT EXISTS idx_nutrients_magnesium_mg ON nutrients (magnesium_mg);
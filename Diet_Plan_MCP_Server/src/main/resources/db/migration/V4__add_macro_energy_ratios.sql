@@ -0,0 +1,18 @@
+-- Share of a food's energy from protein, fat and carbohydrate, in percent
+-- (4, 9 and 4 kcal per gram). Stored generated columns keep them in step with
+-- the gram columns, and the B-tree indexes turn ratio filters such as
+-- "fat energy % <= 5" (LFV) or "carb energy % <= 20" (LCHF) into index range
+-- scans instead of a per-row division. NULL when energy is missing or zero.
+
+-- One ALTER TABLE, so the table is rewritten once for all three columns.
+ALTER TABLE nutrients
+    ADD COLUMN IF NOT EXISTS protein_energy_pct double precision
+        GENERATED ALWAYS AS (CASE WHEN energy_kcal > 0 THEN protein_g * 400 / energy_kcal END) STORED,
+    ADD COLUMN IF NOT EXISTS fat_energy_pct double precision
+        GENERATED ALWAYS AS (CASE WHEN energy_kcal > 0 THEN total_fat_g * 900 / energy_kcal END) STORED,
+    ADD COLUMN IF NOT EXISTS carb_energy_pct double precision
+        GENERATED ALWAYS AS (CASE WHEN energy_kcal > 0 THEN carbohydrate_g * 400 / energy_kcal END) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_nutrients_protein_energy_pct ON nutrients (protein_energy_pct);
+CREATE INDEX IF NOT EXISTS idx_nutrients_fat_energy_pct ON nutrients (fat_energy_pct);
+CREATE INDEX IF NOT EXISTS idx_nutrients_carb_energy_pct ON nutrients (carb_energy_pct);
@@ -0,0 +1,144 @@
+package com.ninja.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.ninja.DietPlanMcpServerApplication;
+import com.ninja.entity.Food;
+import com.ninja.index.IntIntHashMap;
+import com.ninja.projection.FoodSummary;
+import com.ninja.repository.FoodRepository;
+
+/**
+ * fdcId point lookups: the open-addressing IntIntHashMap behind
+ * FoodTable.ordinalOf against binary search over the sorted fdcIds, a boxed
+ * HashMap&lt;Long, Integer&gt; and, with --jpa, FoodRepository.findById on the
+ * database configured in application.properties.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.FdcIdLookupBenchmark [-Dexec.args=--jpa]
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FdcIdLookupBenchmark {
+
+	private static final int PROBES = 1 << 12;
+
+	@Param({ "10000", "400000" })
+	int rows;
+
+	private int[] sortedFdcIds;
+	private IntIntHashMap hashIndex;
+	private Map<Long, Integer> boxedIndex;
+	private int[] probes;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		// fdcIds are sparse and clustered; three quarters of the probes hit
+		Random random = new Random(5);
+		sortedFdcIds = random.ints(100_000, 2_700_000).distinct().limit(rows).sorted().toArray();
+		hashIndex = IntIntHashMap.ofOrdinals(sortedFdcIds);
+		boxedIndex = new HashMap<>(rows * 2);
+		for (int i = 0; i < rows; i++) {
+			boxedIndex.put((long) sortedFdcIds[i], i);
+		}
+		probes = new int[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = i % 4 == 3 ? random.nextInt(100_000) : sortedFdcIds[random.nextInt(rows)];
+		}
+	}
+
+	private int nextProbe() {
+		return probes[next++ & (PROBES - 1)];
+	}
+
+	@Benchmark
+	public int openAddressing() {
+		return hashIndex.get(nextProbe());
+	}
+
+	@Benchmark
+	public int binarySearch() {
+		return Arrays.binarySearch(sortedFdcIds, nextProbe());
+	}
+
+	@Benchmark
+	public Integer boxedHashMap() {
+		return boxedIndex.get((long) nextProbe());
+	}
+
+	/**
+	 * The JPA path the store replaces: one findById per lookup against the
+	 * configured PostgreSQL
+	 */
+	@State(Scope.Benchmark)
+	public static class Database {
+
+		ConfigurableApplicationContext context;
+		FoodRepository foodRepository;
+		int[] fdcIds;
+
+		@Setup(Level.Trial)
+		public void start() {
+			context = new SpringApplicationBuilder(DietPlanMcpServerApplication.class)
+					.web(WebApplicationType.NONE)
+					.run("--diet.store.mode=JPA", "--spring.ai.mcp.server.stdio=false");
+			foodRepository = context.getBean(FoodRepository.class);
+			List<FoodSummary> sample = foodRepository.findAllBy(PageRequest.of(0, PROBES)).getContent();
+			fdcIds = sample.stream().mapToInt(FoodSummary::getFdcId).toArray();
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			context.close();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Food jpaFindById(Database database) {
+		return database.foodRepository.findById(database.fdcIds[next++ % database.fdcIds.length]).orElse(null);
+	}
+
+	public static void main(String[] args) throws Exception {
+		boolean jpa = Arrays.asList(args).contains("--jpa");
+		OptionsBuilder options = new OptionsBuilder();
+		options.include(FdcIdLookupBenchmark.class.getSimpleName());
+		if (!jpa) {
+			options.exclude("jpaFindById");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,174 @@
+package com.ninja.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ninja.index.FuzzyIndex;
+import com.ninja.index.TrigramIndex;
+
+/**
+ * "Did you mean" fallback latency: FuzzyIndex.search for misspelled one- and
+ * two-word queries over synthetic FDC-like names (three fields per row, as in
+ * NutrientTable), against a linear scan that computes the edit distance to
+ * every distinct word. The trigram search that runs first and finds nothing is
+ * measured alongside. The target is under 2 ms per query at 400k rows.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.FuzzySearchBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FuzzySearchBenchmark {
+
+	private static final String[] FOODS = { "broccoli", "chicken", "breast", "mung", "beans", "sprouted", "chickpeas",
+			"garbanzo", "spinach", "cheddar", "cheese", "yogurt", "almonds", "walnuts", "lentils", "quinoa", "oatmeal",
+			"salmon", "sardines", "tomatoes", "potatoes", "carrots", "cauliflower", "zucchini", "avocado", "banana",
+			"raw", "cooked", "boiled", "roasted", "fried", "canned", "frozen", "dried", "salted", "unsalted", "whole",
+			"skim", "milk", "butter", "olive", "oil", "brown", "rice", "white", "bread", "wheat", "flour" };
+	private static final String LETTERS = "abcdefghiklmnoprstuy";
+	private static final int QUERIES = 1 << 8;
+
+	@Param({ "10000", "400000" })
+	int rows;
+
+	private FuzzyIndex fuzzyIndex;
+	private TrigramIndex trigramIndex;
+	private char[][] vocabulary;
+	private String[] queries;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		// Real food words plus brand-like invented words, so the vocabulary
+		// grows with the row count as it does in the branded FDC data
+		Random random = new Random(9);
+		List<String> words = new ArrayList<>(List.of(FOODS));
+		for (int i = 0; i < rows / 8; i++) {
+			StringBuilder word = new StringBuilder();
+			int length = 4 + random.nextInt(7);
+			for (int c = 0; c < length; c++) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			words.add(word.toString());
+		}
+		String[][] fields = new String[rows][];
+		for (int row = 0; row < rows; row++) {
+			fields[row] = new String[] { name(random, words, 4), name(random, words, 1), name(random, words, 2) };
+		}
+		fuzzyIndex = FuzzyIndex.build(fields);
+		trigramIndex = TrigramIndex.build(fields);
+		vocabulary = words.stream().distinct().map(String::toCharArray).toArray(char[][]::new);
+
+		queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String query = typo(random, FOODS[random.nextInt(FOODS.length)]);
+			queries[i] = i % 2 == 0 ? query : query + " " + typo(random, FOODS[random.nextInt(FOODS.length)]);
+		}
+	}
+
+	private static String name(Random random, List<String> words, int maxWords) {
+		StringBuilder name = new StringBuilder();
+		int count = 1 + random.nextInt(maxWords);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				name.append(", ");
+			}
+			// Food words are far more frequent than invented ones
+			name.append(random.nextInt(3) == 0 ? words.get(random.nextInt(words.size()))
+					: FOODS[random.nextInt(FOODS.length)]);
+		}
+		return name.toString();
+	}
+
+	/**
+	 * The word with one character dropped, doubled or replaced
+	 */
+	private static String typo(Random random, String word) {
+		int at = random.nextInt(word.length());
+		return switch (random.nextInt(3)) {
+		case 0 -> word.substring(0, at) + word.substring(at + 1);
+		case 1 -> word.substring(0, at) + word.charAt(at) + word.substring(at);
+		default -> word.substring(0, at) + LETTERS.charAt(random.nextInt(LETTERS.length())) + word.substring(at + 1);
+		};
+	}
+
+	private String nextQuery() {
+		return queries[next++ & (QUERIES - 1)];
+	}
+
+	@Benchmark
+	public FuzzyIndex.Matches fuzzyIndex() {
+		return fuzzyIndex.search(nextQuery());
+	}
+
+	@Benchmark
+	public long[] trigramThenFuzzy() {
+		String query = nextQuery();
+		long[] exact = trigramIndex.searchRanked(query);
+		return exact.length > 0 ? exact : fuzzyIndex.search(query).ranked();
+	}
+
+	/**
+	 * Words of the first query word's length class found by comparing with the
+	 * whole vocabulary; the baseline
+	 */
+	@Benchmark
+	public int linearScan() {
+		String query = nextQuery();
+		int end = query.indexOf(' ');
+		char[] word = (end < 0 ? query : query.substring(0, end)).toCharArray();
+		int tolerance = FuzzyIndex.tolerance(word.length);
+		int[] previous = new int[word.length + 1];
+		int[] current = new int[word.length + 1];
+		int found = 0;
+		for (char[] candidate : vocabulary) {
+			if (levenshtein(word, candidate, previous, current) <= tolerance) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private static int levenshtein(char[] a, char[] b, int[] previous, int[] current) {
+		for (int i = 0; i <= a.length; i++) {
+			previous[i] = i;
+		}
+		for (int j = 1; j <= b.length; j++) {
+			current[0] = j;
+			for (int i = 1; i <= a.length; i++) {
+				current[i] = Math.min(previous[i - 1] + (a[i - 1] == b[j - 1] ? 0 : 1),
+						Math.min(previous[i], current[i - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[a.length];
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(FuzzySearchBenchmark.class.getSimpleName()).build()).run();
+	}
+}
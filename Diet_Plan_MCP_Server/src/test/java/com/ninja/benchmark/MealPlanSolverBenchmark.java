@@ -0,0 +1,119 @@
+package com.ninja.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ninja.planner.MealPlanSolver;
+import com.ninja.planner.PlannerFood;
+
+/**
+ * generateMealPlan latency without the LLM: MealPlanSolver.solve for an LFV
+ * (fat at most 5% of calories) and an LCHF (carbs at most 20%) day over
+ * synthetic allow-lists of the size of lfv_tbl and lchf_tbl and larger. The
+ * budget is the one MealPlanner uses, so this is the worst case; main prints
+ * how many plans met the targets.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.MealPlanSolverBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MealPlanSolverBenchmark {
+
+	private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final MealPlanSolver.Targets LFV = new MealPlanSolver.Targets(1800, 5, 100);
+	private static final MealPlanSolver.Targets LCHF = new MealPlanSolver.Targets(1800, 100, 20);
+
+	@Param({ "200", "1000" })
+	int foods;
+
+	private List<PlannerFood> lfvFoods;
+	private List<PlannerFood> lchfFoods;
+	private long seed;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(17);
+		lfvFoods = allowList(random, foods, false);
+		lchfFoods = allowList(random, foods, true);
+	}
+
+	/**
+	 * Vegetables, fruits and grains for LFV; vegetables, meat, fish, dairy and
+	 * nuts for LCHF, with macros per 100g in the usual ranges
+	 */
+	static List<PlannerFood> allowList(Random random, int count, boolean lowCarb) {
+		List<PlannerFood> allowList = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			boolean side = i % 3 == 0;
+			double carbs;
+			double protein;
+			double fat;
+			if (side) {
+				carbs = 2 + random.nextDouble() * (lowCarb ? 6 : 15);
+				protein = random.nextDouble() * 3;
+				fat = random.nextDouble() * 0.6;
+			} else if (lowCarb) {
+				carbs = random.nextDouble() * 8;
+				protein = 5 + random.nextDouble() * 25;
+				fat = 5 + random.nextDouble() * 45;
+			} else {
+				carbs = 15 + random.nextDouble() * 60;
+				protein = 3 + random.nextDouble() * 12;
+				fat = random.nextDouble() * 4;
+			}
+			double kcal = carbs * 4 + protein * 4 + fat * 9;
+			allowList.add(new PlannerFood("food " + i, side ? "Vegetables" : "Mains", i, "food " + i, kcal, carbs,
+					protein, fat, random.nextDouble() * 6, 0, side));
+		}
+		return allowList;
+	}
+
+	@Benchmark
+	public MealPlanSolver.Solution lfv() {
+		return MealPlanSolver.solve(lfvFoods, LFV, seed++, BUDGET_NANOS);
+	}
+
+	@Benchmark
+	public MealPlanSolver.Solution lchf() {
+		return MealPlanSolver.solve(lchfFoods, LCHF, seed++, BUDGET_NANOS);
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (int foods : new int[] { 200, 1000 }) {
+			MealPlanSolverBenchmark benchmark = new MealPlanSolverBenchmark();
+			benchmark.foods = foods;
+			benchmark.setUp();
+			int lfvMet = 0;
+			int lchfMet = 0;
+			for (int i = 0; i < 20; i++) {
+				lfvMet += benchmark.lfv().feasible() ? 1 : 0;
+				lchfMet += benchmark.lchf().feasible() ? 1 : 0;
+			}
+			System.out.printf("foods=%d targets met: lfv %d/20, lchf %d/20%n", foods, lfvMet, lchfMet);
+		}
+		new Runner(new OptionsBuilder().include(MealPlanSolverBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,106 @@
+package com.ninja.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ninja.DietPlanMcpServerApplication;
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.Nutrient;
+import com.ninja.paging.KeysetCursor;
+import com.ninja.repository.NutrientRepository;
+import com.ninja.repository.NutrientSpecifications;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Allocation of one JPA keyset page of a CursorPage&lt;Nutrient&gt; tool: the
+ * entity scroll (findBy with a specification, managed entities in a
+ * read-only transaction) against the NutrientSpecifications.ROWS tuple
+ * scroll, on the database configured in application.properties. main runs
+ * JMH's GC profiler, so next to the time per page it reports
+ * gc.alloc.rate.norm (bytes allocated per page) and the collections during
+ * measurement.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.ProjectedScrollBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectedScrollBenchmark {
+
+	// findHighProteinFoods' page: protein above a threshold, highest first
+	private static final Specification<Nutrient> SPEC = NutrientSpecifications.greaterThan("proteinG", 1.0);
+	private static final Sort SORT = Sort.by(Sort.Direction.DESC, "proteinG", "fdcId");
+
+	@Param({ "50", "500" })
+	int limit;
+
+	private ConfigurableApplicationContext context;
+	private NutrientRepository nutrientRepository;
+	private EntityManager entityManager;
+	private TransactionTemplate readOnlyTransaction;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(DietPlanMcpServerApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--diet.store.mode=JPA", "--spring.ai.mcp.server.stdio=false");
+		nutrientRepository = context.getBean(NutrientRepository.class);
+		entityManager = context.getBean(EntityManager.class);
+		readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTransaction.setReadOnly(true);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	@Benchmark
+	public CursorPage<Nutrient> entityScroll() {
+		return readOnlyTransaction.execute(status -> KeysetCursor.page(nutrientRepository.findBy(SPEC,
+				query -> query.sortBy(SORT).limit(limit).scroll(ScrollPosition.keyset()))));
+	}
+
+	@Benchmark
+	public CursorPage<Nutrient> projectedScroll() {
+		return readOnlyTransaction
+				.execute(status -> NutrientSpecifications.ROWS.page(entityManager, SPEC, SORT, null, limit));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ProjectedScrollBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
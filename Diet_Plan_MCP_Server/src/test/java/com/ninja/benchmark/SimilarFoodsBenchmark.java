@@ -0,0 +1,132 @@
+package com.ninja.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.ninja.index.HnswIndex;
+
+/**
+ * findSimilarFoods latency: HnswIndex.search for the 10 nearest of 12-feature
+ * standardized nutrient profiles (clustered like food categories), unfiltered
+ * and with a filter rejecting two rows in three as an allergen exclusion
+ * would, against the exhaustive exactSearch. main also prints recall@10 of
+ * the graph search and the time to build the graph.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.SimilarFoodsBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimilarFoodsBenchmark {
+
+	private static final int FEATURES = 12;
+	private static final int K = 10;
+	private static final int EF = 64;
+	private static final int QUERIES = 1 << 8;
+
+	@Param({ "10000", "400000" })
+	int rows;
+
+	private float[][] vectors;
+	private HnswIndex index;
+	private int[] queries;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		vectors = profiles(rows, new Random(21));
+		index = HnswIndex.build(vectors, 16, 100, 42);
+		Random random = new Random(5);
+		queries = new int[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = random.nextInt(rows);
+		}
+	}
+
+	static float[][] profiles(int rows, Random random) {
+		float[][] centres = new float[200][FEATURES];
+		for (float[] centre : centres) {
+			for (int f = 0; f < FEATURES; f++) {
+				centre[f] = (float) random.nextGaussian();
+			}
+		}
+		float[][] vectors = new float[rows][FEATURES];
+		for (int r = 0; r < rows; r++) {
+			float[] centre = centres[random.nextInt(centres.length)];
+			for (int f = 0; f < FEATURES; f++) {
+				vectors[r][f] = centre[f] + (float) (random.nextGaussian() * 0.4);
+			}
+		}
+		return vectors;
+	}
+
+	private int nextQuery() {
+		return queries[next++ & (QUERIES - 1)];
+	}
+
+	@Benchmark
+	public int[] hnsw() {
+		int query = nextQuery();
+		return index.search(vectors[query], K, EF, node -> node != query);
+	}
+
+	@Benchmark
+	public int[] hnswFiltered() {
+		int query = nextQuery();
+		return index.search(vectors[query], K, EF, node -> node != query && node % 3 == 0);
+	}
+
+	@Benchmark
+	public int[] exact() {
+		int query = nextQuery();
+		return index.exactSearch(vectors[query], K, node -> node != query);
+	}
+
+	private double recall() {
+		int found = 0;
+		for (int query : queries) {
+			int[] exact = index.exactSearch(vectors[query], K, node -> node != query);
+			for (int node : index.search(vectors[query], K, EF, n -> n != query)) {
+				for (int e : exact) {
+					if (e == node) {
+						found++;
+						break;
+					}
+				}
+			}
+		}
+		return found / (double) (queries.length * K);
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (int rows : new int[] { 10_000, 400_000 }) {
+			SimilarFoodsBenchmark benchmark = new SimilarFoodsBenchmark();
+			benchmark.rows = rows;
+			long started = System.nanoTime();
+			benchmark.setUp();
+			System.out.printf("rows=%d build=%d ms recall@%d=%.3f%n", rows,
+					(System.nanoTime() - started) / 1_000_000, K, benchmark.recall());
+		}
+		new Runner(new OptionsBuilder().include(SimilarFoodsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
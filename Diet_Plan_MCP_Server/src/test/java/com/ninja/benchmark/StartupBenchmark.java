@@ -0,0 +1,140 @@
+package com.ninja.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Time from process start to the first tools/call response over stdio, for the
+ * plain jar and for the "startup" profile launcher (AOT + CDS archive). Each
+ * run spawns a fresh server, sends initialize, notifications/initialized and
+ * one tools/call, and stops the server once the response arrives.
+ *
+ * <pre>
+ * mvn -Pstartup package
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.StartupBenchmark \
+ *   -Dexec.args="target/Diet_Plan_MCP_Server-0.0.1-SNAPSHOT.jar target/application/diet-mcp-server.sh 10 --diet.snapshot.path=$PWD/diet.snapshot"
+ * </pre>
+ *
+ * Arguments: plain jar, launcher, runs per variant (default 5), then any
+ * server arguments passed to both. The plain jar is started with the same
+ * profile as the launcher (snapshot), so only the startup optimizations
+ * differ.
+ */
+public class StartupBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final String TOOL = "getAllFoodCategories";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("usage: StartupBenchmark <jar> <launcher> [runs] [server args...]");
+			System.exit(2);
+		}
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		List<String> serverArgs = args.length > 3 ? Arrays.asList(args).subList(3, args.length) : List.of();
+
+		Map<String, List<String>> variants = new LinkedHashMap<>();
+		List<String> plain = new ArrayList<>(List.of("java", "-jar", args[0], "--spring.profiles.active=snapshot"));
+		plain.addAll(serverArgs);
+		variants.put("plain jar", plain);
+		List<String> optimized = new ArrayList<>(List.of(args[1]));
+		optimized.addAll(serverArgs);
+		variants.put("AOT + CDS", optimized);
+
+		Map<String, long[]> initialize = new LinkedHashMap<>();
+		Map<String, long[]> firstTool = new LinkedHashMap<>();
+		variants.keySet().forEach(name -> {
+			initialize.put(name, new long[runs]);
+			firstTool.put(name, new long[runs]);
+		});
+
+		// One untimed run each to warm the OS page cache, then alternate
+		for (List<String> command : variants.values()) {
+			measure(command);
+		}
+		for (int run = 0; run < runs; run++) {
+			for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+				long[] times = measure(variant.getValue());
+				initialize.get(variant.getKey())[run] = times[0];
+				firstTool.get(variant.getKey())[run] = times[1];
+			}
+		}
+
+		System.out.printf("%-10s %12s %12s %12s %12s%n", "variant", "init p50 ms", "tool min ms", "tool p50 ms",
+				"tool max ms");
+		for (String name : variants.keySet()) {
+			long[] init = initialize.get(name);
+			long[] tool = firstTool.get(name);
+			Arrays.sort(init);
+			Arrays.sort(tool);
+			System.out.printf("%-10s %12d %12d %12d %12d%n", name, init[runs / 2], tool[0], tool[runs / 2],
+					tool[runs - 1]);
+		}
+	}
+
+	/**
+	 * Milliseconds from spawn to the initialize response and to the first
+	 * tools/call response
+	 */
+	private static long[] measure(List<String> command) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		try (OutputStream in = process.getOutputStream();
+				BufferedReader out = new BufferedReader(
+						new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			send(in, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":"
+					+ "\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"startup-benchmark\","
+					+ "\"version\":\"1\"}}}");
+			awaitResponse(out, 1);
+			long initialized = System.nanoTime();
+
+			send(in, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+			send(in, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"" + TOOL
+					+ "\",\"arguments\":{}}}");
+			JsonNode response = awaitResponse(out, 2);
+			long answered = System.nanoTime();
+			if (response.has("error") || response.path("result").path("isError").asBoolean()) {
+				throw new IllegalStateException("Tool call failed: " + response);
+			}
+			return new long[] { TimeUnit.NANOSECONDS.toMillis(initialized - start),
+					TimeUnit.NANOSECONDS.toMillis(answered - start) };
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private static void send(OutputStream in, String message) throws IOException {
+		in.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+		in.flush();
+	}
+
+	private static JsonNode awaitResponse(BufferedReader out, int id) throws IOException {
+		String line;
+		while ((line = out.readLine()) != null) {
+			if (!line.startsWith("{")) {
+				continue;
+			}
+			JsonNode message = JSON.readTree(line);
+			if (message.path("id").asInt(-1) == id) {
+				return message;
+			}
+		}
+		throw new IOException("Server exited before answering request " + id);
+	}
+}
@@ -0,0 +1,188 @@
+package com.ninja.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tool-call throughput and latency over one stdio pipe with 1, 4, 16, 64 and
+ * 256 requests outstanding. The server runs as a child process; a writer
+ * thread keeps that many tools/call requests in flight for the window, and
+ * every response is matched to its request by id. Requests still unanswered
+ * a few seconds after the window closes are reported as lost.
+ *
+ * <pre>
+ * mvn package -DskipTests
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.StdioPipelineBenchmark \
+ *   -Dexec.args="target/Diet_Plan_MCP_Server-0.0.1-SNAPSHOT.jar 10 --spring.profiles.active=snapshot --diet.snapshot.path=$PWD/diet.snapshot"
+ * </pre>
+ *
+ * Arguments: server jar, seconds per level (default 10), then server
+ * arguments. Add --diet.mcp.stdio.max-concurrency=1 for one request at a
+ * time, or --diet.mcp.stdio.pipelined=false for the MCP SDK's transport.
+ */
+public class StdioPipelineBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final int[] OUTSTANDING = { 1, 4, 16, 64, 256 };
+	private static final long GRACE_SECONDS = 5;
+
+	// Tool name -> JSON arguments, as in ToolConcurrencyBenchmark
+	private static final String[][] CALLS = {
+			{ "searchFoodsWithNutrients", "{\"searchTerm\":\"rice\",\"limit\":20}" },
+			{ "findHighProteinFoods", "{\"minProteinGrams\":20}" },
+			{ "findFoodsInCalorieRange", "{\"minCalories\":100,\"maxCalories\":200}" },
+			{ "getAllFoodCategories", "{}" } };
+
+	// A response line, or END when the server's output closed
+	private static final JsonNode END = JSON.createObjectNode();
+
+	private static long nextId = 1;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("usage: StdioPipelineBenchmark <jar> [seconds] [server args...]");
+			System.exit(2);
+		}
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		List<String> command = new ArrayList<>(List.of("java", "-jar", args[0]));
+		command.addAll(Arrays.asList(args).subList(Math.min(2, args.length), args.length));
+
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		BlockingQueue<JsonNode> responses = new LinkedBlockingQueue<>();
+		Thread reader = new Thread(() -> readResponses(process, responses), "responses");
+		reader.setDaemon(true);
+		reader.start();
+		try (OutputStream in = process.getOutputStream()) {
+			send(in, "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"initialize\",\"params\":{\"protocolVersion\":"
+					+ "\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"pipeline-benchmark\","
+					+ "\"version\":\"1\"}}}");
+			if (responses.poll(120, TimeUnit.SECONDS) == null) {
+				throw new IllegalStateException("No initialize response");
+			}
+			send(in, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+
+			run(in, responses, 16, seconds); // warm-up
+			System.out.printf("%11s %12s %10s %10s %8s%n", "outstanding", "calls/s", "p50 ms", "p99 ms", "lost");
+			for (int outstanding : OUTSTANDING) {
+				Result result = run(in, responses, outstanding, seconds);
+				System.out.printf("%11d %12.0f %10.2f %10.2f %8d%n", outstanding, result.callsPerSecond(),
+						result.p50(), result.p99(), result.lost());
+			}
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private record Result(double callsPerSecond, double p50, double p99, int lost) {
+	}
+
+	/**
+	 * Keep outstanding requests in flight for the window, then wait for the
+	 * stragglers
+	 */
+	private static Result run(OutputStream in, BlockingQueue<JsonNode> responses, int outstanding, int seconds)
+			throws Exception {
+		Semaphore window = new Semaphore(outstanding);
+		Map<Long, Long> sent = new ConcurrentHashMap<>();
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		long firstId = nextId;
+		Thread writer = new Thread(() -> {
+			try {
+				for (long id = firstId; System.nanoTime() < deadline; id++) {
+					if (!window.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+						break;
+					}
+					String[] call = CALLS[(int) (id % CALLS.length)];
+					sent.put(id, System.nanoTime());
+					send(in, "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\""
+							+ call[0] + "\",\"arguments\":" + call[1] + "}}");
+					nextId = id + 1;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				throw new IllegalStateException("Server input closed", e);
+			}
+		}, "requests");
+		writer.start();
+
+		long[] latencies = new long[1024];
+		int count = 0;
+		long giveUp = deadline + TimeUnit.SECONDS.toNanos(GRACE_SECONDS);
+		while (writer.isAlive() || !sent.isEmpty()) {
+			JsonNode response = responses.poll(Math.max(1, giveUp - System.nanoTime()), TimeUnit.NANOSECONDS);
+			if (response == null || response == END) {
+				break;
+			}
+			Long sentAt = sent.remove(response.path("id").asLong(-1));
+			if (sentAt == null) {
+				continue; // answered after an earlier level gave up on it
+			}
+			if (response.has("error") || response.path("result").path("isError").asBoolean()) {
+				throw new IllegalStateException("Tool call failed: " + response);
+			}
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = System.nanoTime() - sentAt;
+			window.release();
+		}
+		writer.join();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		int lost = sent.size();
+
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return new Result(count / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.99), lost);
+	}
+
+	private static void readResponses(Process process, BlockingQueue<JsonNode> responses) {
+		try (BufferedReader out = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = out.readLine()) != null) {
+				if (line.startsWith("{")) {
+					responses.add(JSON.readTree(line));
+				}
+			}
+		} catch (IOException e) {
+			// Reported as lost responses
+		} finally {
+			responses.add(END);
+		}
+	}
+
+	private static void send(OutputStream in, String message) throws IOException {
+		synchronized (in) {
+			in.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+			in.flush();
+		}
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return Double.NaN;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1e6;
+	}
+}
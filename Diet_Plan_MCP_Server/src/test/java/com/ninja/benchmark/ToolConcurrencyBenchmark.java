@@ -0,0 +1,153 @@
+package com.ninja.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ninja.DietPlanMcpServerApplication;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Tool-call throughput with 1, 16, 256 and 1024 concurrent callers. The server
+ * boots in-process and every call is dispatched the way the MCP server
+ * dispatches a synchronous tool: the callback runs on Reactor's bounded-elastic
+ * scheduler while the caller waits for the result. That scheduler is a bounded
+ * platform-thread pool by default and one virtual thread per call with
+ * spring.threads.virtual.enabled=true, so running the benchmark once with each
+ * setting compares the two modes.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.ToolConcurrencyBenchmark \
+ *   -Dexec.args="10 --spring.threads.virtual.enabled=true --spring.profiles.active=snapshot --diet.snapshot.path=$PWD/diet.snapshot"
+ * </pre>
+ *
+ * Arguments: seconds per level (default 10), then server arguments, e.g.
+ * --diet.store.mode=JPA to measure against the database. Virtual threads need
+ * Java 21 or later. From the in-memory stores the tools are CPU-bound; against
+ * the database they block on JDBC with at most maximum-pool-size connections,
+ * so the pool rather than the thread count bounds the calls in flight.
+ */
+public class ToolConcurrencyBenchmark {
+
+	private static final int[] CALLERS = { 1, 16, 256, 1024 };
+
+	// Tool name -> JSON arguments, a mix of text search, threshold, range and
+	// cached distinct-value tools
+	private static final String[][] CALLS = {
+			{ "searchFoodsWithNutrients", "{\"searchTerm\":\"rice\",\"limit\":20}" },
+			{ "findHighProteinFoods", "{\"minProteinGrams\":20}" },
+			{ "findFoodsInCalorieRange", "{\"minCalories\":100,\"maxCalories\":200}" },
+			{ "getAllFoodCategories", "{}" } };
+
+	public static void main(String[] args) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		// Command-line arguments, because they take precedence over application.properties
+		List<String> serverArgs = new ArrayList<>(List.of("--spring.ai.mcp.server.stdio=false"));
+		serverArgs.addAll(Arrays.asList(args).subList(Math.min(1, args.length), args.length));
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DietPlanMcpServerApplication.class)
+				.run(serverArgs.toArray(new String[0]))) {
+			Map<String, ToolCallback> tools = new LinkedHashMap<>();
+			for (ToolCallbackProvider provider : context.getBeansOfType(ToolCallbackProvider.class).values()) {
+				for (ToolCallback callback : provider.getToolCallbacks()) {
+					tools.put(callback.getToolDefinition().name(), callback);
+				}
+			}
+			ToolCallback[] callbacks = new ToolCallback[CALLS.length];
+			for (int i = 0; i < CALLS.length; i++) {
+				callbacks[i] = tools.get(CALLS[i][0]);
+				if (callbacks[i] == null) {
+					throw new IllegalStateException("No tool named " + CALLS[i][0]);
+				}
+			}
+
+			// Report what the scheduler actually runs on, not what was asked for
+			boolean virtual = Mono.fromCallable(() -> Thread.currentThread().toString().startsWith("VirtualThread"))
+					.subscribeOn(Schedulers.boundedElastic())
+					.block();
+			String mode = virtual ? "virtual" : "platform";
+			run(callbacks, 16, seconds); // warm-up
+			System.out.printf("%-9s %8s %12s %10s %10s%n", "dispatch", "callers", "calls/s", "p50 ms", "p99 ms");
+			for (int callers : CALLERS) {
+				double[] result = run(callbacks, callers, seconds);
+				System.out.printf("%-9s %8d %12.0f %10.2f %10.2f%n", mode, callers, result[0], result[1], result[2]);
+			}
+		}
+		// The caller threads are daemons; stop Reactor's schedulers so the JVM
+		// can exit once the context is closed
+		Schedulers.shutdownNow();
+	}
+
+	/**
+	 * Calls per second, p50 and p99 latency in milliseconds for the given
+	 * number of callers, each issuing calls back to back for the window
+	 */
+	private static double[] run(ToolCallback[] callbacks, int callers, int seconds) throws InterruptedException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		List<long[]> latencies = new ArrayList<>(callers);
+		int[] counts = new int[callers];
+		CountDownLatch done = new CountDownLatch(callers);
+
+		for (int caller = 0; caller < callers; caller++) {
+			long[] own = new long[1024];
+			latencies.add(own);
+			int index = caller;
+			Thread thread = new Thread(() -> {
+				long[] samples = own;
+				int count = 0;
+				try {
+					for (int call = index; System.nanoTime() < deadline; call++) {
+						String[] spec = CALLS[call % CALLS.length];
+						ToolCallback callback = callbacks[call % callbacks.length];
+						long sent = System.nanoTime();
+						Mono.fromCallable(() -> callback.call(spec[1]))
+								.subscribeOn(Schedulers.boundedElastic())
+								.block();
+						if (count == samples.length) {
+							samples = Arrays.copyOf(samples, count * 2);
+						}
+						samples[count++] = System.nanoTime() - sent;
+					}
+				} finally {
+					latencies.set(index, samples);
+					counts[index] = count;
+					done.countDown();
+				}
+			}, "caller-" + caller);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		done.await();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		int total = Arrays.stream(counts).sum();
+		long[] all = new long[total];
+		int offset = 0;
+		for (int caller = 0; caller < callers; caller++) {
+			System.arraycopy(latencies.get(caller), 0, all, offset, counts[caller]);
+			offset += counts[caller];
+		}
+		Arrays.sort(all);
+		return new double[] { total / elapsed, percentile(all, 0.50), percentile(all, 0.99) };
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return Double.NaN;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1e6;
+	}
+}
@@ -0,0 +1,127 @@
+package com.ninja.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninja.DietPlanMcpServerApplication;
+import com.ninja.tool.ToolResultFormat;
+import com.ninja.tool.ToolResultShaper;
+
+/**
+ * Size of list tool results in each output format: bytes, and approximate
+ * LLM input tokens. The server boots in-process with rounding off, so each
+ * tool's plain JSON result is the baseline; the other variants apply the same
+ * shaping the tool callbacks apply for the format and fields arguments.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.ToolResultFormatBenchmark \
+ *   -Dexec.args="--spring.profiles.active=snapshot --diet.snapshot.path=$PWD/diet.snapshot"
+ * </pre>
+ *
+ * Tokens are estimated the way BPE tokenizers split JSON: every run of
+ * letters, every group of up to three digits and every other non-space
+ * character counts as one token. That overstates long common words slightly
+ * but tracks the repeated keys and punctuation the formats differ in.
+ */
+public class ToolResultFormatBenchmark {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final Pattern TOKEN = Pattern.compile("[A-Za-z]+|[0-9]{1,3}|[^\\sA-Za-z0-9]");
+	private static final int PRECISION = 4;
+
+	// Tool name -> JSON arguments, and the fields a caller would typically ask for
+	private static final Map<String, String> CALLS = new LinkedHashMap<>();
+	private static final Map<String, List<String>> FIELDS = new LinkedHashMap<>();
+	static {
+		CALLS.put("findHighProteinFoods", "{\"minProteinGrams\":20}");
+		FIELDS.put("findHighProteinFoods", List.of("fdcId", "foodName", "proteinG", "energyKcal"));
+		CALLS.put("findFoodsInCalorieRange", "{\"minCalories\":100,\"maxCalories\":200}");
+		FIELDS.put("findFoodsInCalorieRange", List.of("fdcId", "foodName", "energyKcal"));
+		CALLS.put("searchByFoodName", "{\"searchTerm\":\"food\"}");
+		FIELDS.put("searchByFoodName", List.of("fdcId", "foodName", "foodCategory"));
+		CALLS.put("searchFoodsWithNutrients", "{\"searchTerm\":\"food\"}");
+		FIELDS.put("searchFoodsWithNutrients", List.of("fdcId", "foodName", "energyKcal", "proteinG"));
+		CALLS.put("findFoodsWithoutAllergens", "{}");
+		FIELDS.put("findFoodsWithoutAllergens", List.of("fdcId", "foodName"));
+		CALLS.put("getNutrientsByFdcIds", "{\"fdcIds\":[1,2,3,4,5,6,7,8,9,10]}");
+		FIELDS.put("getNutrientsByFdcIds", List.of("fdcId", "found", "energyKcal", "proteinG"));
+		CALLS.put("getAllowedLfvFoods", "{}");
+		FIELDS.put("getAllowedLfvFoods", List.of("name", "category"));
+		CALLS.put("getAllowedLchfFoods", "{}");
+		FIELDS.put("getAllowedLchfFoods", List.of("name", "category"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		// Command-line arguments, because they take precedence over application.properties
+		List<String> serverArgs = new ArrayList<>(List.of("--spring.ai.mcp.server.stdio=false",
+				"--diet.tools.precision=0"));
+		serverArgs.addAll(Arrays.asList(args));
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DietPlanMcpServerApplication.class)
+				.run(serverArgs.toArray(new String[0]))) {
+			Map<String, ToolCallback> tools = new LinkedHashMap<>();
+			for (ToolCallbackProvider provider : context.getBeansOfType(ToolCallbackProvider.class).values()) {
+				for (ToolCallback callback : provider.getToolCallbacks()) {
+					tools.put(callback.getToolDefinition().name(), callback);
+				}
+			}
+
+			System.out.printf("%-26s %-22s %9s %9s %7s%n", "tool", "format", "bytes", "~tokens", "tokens");
+			long[] totals = new long[4];
+			for (Map.Entry<String, String> call : CALLS.entrySet()) {
+				ToolCallback tool = tools.get(call.getKey());
+				if (tool == null) {
+					throw new IllegalStateException("No tool named " + call.getKey());
+				}
+				String raw = tool.call(call.getValue());
+				JsonNode result = JSON.readTree(raw);
+
+				Map<String, String> variants = new LinkedHashMap<>();
+				variants.put("json", raw);
+				variants.put("json, rounded", shape(result, ToolResultFormat.JSON, List.of()));
+				variants.put("table, rounded", shape(result, ToolResultFormat.TABLE, List.of()));
+				variants.put("table, rounded, fields", shape(result, ToolResultFormat.TABLE,
+						FIELDS.get(call.getKey())));
+
+				long baseline = tokens(raw);
+				int variant = 0;
+				for (Map.Entry<String, String> output : variants.entrySet()) {
+					long tokens = tokens(output.getValue());
+					totals[variant++] += tokens;
+					System.out.printf("%-26s %-22s %9d %9d %6.0f%%%n", call.getKey(), output.getKey(),
+							output.getValue().getBytes(StandardCharsets.UTF_8).length, tokens,
+							baseline == 0 ? 100.0 : 100.0 * tokens / baseline);
+				}
+			}
+			System.out.printf("%nTotal ~tokens: json %d, json rounded %d, table %d, table with fields %d%n",
+					totals[0], totals[1], totals[2], totals[3]);
+		}
+		System.exit(0);
+	}
+
+	private static String shape(JsonNode result, ToolResultFormat format, List<String> fields) throws Exception {
+		return JSON.writeValueAsString(ToolResultShaper.shape(result.deepCopy(), format, fields, PRECISION));
+	}
+
+	static long tokens(String text) {
+		Matcher matcher = TOKEN.matcher(text);
+		long count = 0;
+		while (matcher.find()) {
+			count++;
+		}
+		return count;
+	}
+}
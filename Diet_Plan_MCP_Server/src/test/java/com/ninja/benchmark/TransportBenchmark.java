@@ -0,0 +1,207 @@
+package com.ninja.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+
+/**
+ * Server memory per client and first-call latency for N clients over stdio,
+ * where every client spawns its own server, and over HTTP/SSE, where they all
+ * connect to one server started with the "http" profile. First-call latency
+ * is from the moment a client starts connecting to its first tools/call
+ * response: a JVM start plus the first call over stdio, a handshake and the
+ * call against the warm server over HTTP. Memory is the resident set size of
+ * the server processes (Linux /proc) with every client connected, divided by
+ * the number of clients.
+ *
+ * <pre>
+ * mvn package -DskipTests
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.ninja.benchmark.TransportBenchmark \
+ *   -Dexec.args="target/Diet_Plan_MCP_Server-0.0.1-SNAPSHOT.jar 8 --spring.profiles.active=snapshot --diet.snapshot.path=$PWD/diet.snapshot"
+ * </pre>
+ *
+ * Arguments: server jar, number of clients (default 4), then server
+ * arguments passed in both modes. The HTTP server listens on 8090 unless the
+ * arguments set --server.port.
+ */
+public class TransportBenchmark {
+
+	private static final String TOOL = "getAllFoodCategories";
+	private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("usage: TransportBenchmark <jar> [clients] [server args...]");
+			System.exit(2);
+		}
+		String jar = args[0];
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		List<String> serverArgs = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+		int port = serverArgs.stream()
+				.filter(arg -> arg.startsWith("--server.port="))
+				.map(arg -> Integer.parseInt(arg.substring("--server.port=".length())))
+				.findFirst()
+				.orElse(8090);
+
+		System.out.printf("%-6s %8s %14s %14s %16s%n", "mode", "clients", "first p50 ms", "first max ms",
+				"server MB/client");
+		report("stdio", clients, stdio(jar, clients, serverArgs));
+		report("http", clients, http(jar, clients, serverArgs, port));
+		System.exit(0);
+	}
+
+	private record Result(long[] firstCallMillis, long serverRssKb) {
+	}
+
+	private static void report(String mode, int clients, Result result) {
+		long[] first = result.firstCallMillis();
+		Arrays.sort(first);
+		System.out.printf("%-6s %8d %14d %14d %16.1f%n", mode, clients, first[first.length / 2],
+				first[first.length - 1], result.serverRssKb() / 1024.0 / clients);
+	}
+
+	/**
+	 * Every client spawns and connects to its own server, one after another
+	 */
+	private static Result stdio(String jar, int clients, List<String> serverArgs) throws IOException {
+		List<String> command = new ArrayList<>(List.of("-jar", jar));
+		command.addAll(serverArgs);
+		List<McpSyncClient> connected = new ArrayList<>(clients);
+		long[] first = new long[clients];
+		try {
+			for (int i = 0; i < clients; i++) {
+				long start = System.nanoTime();
+				McpSyncClient client = McpClient
+						.sync(new StdioClientTransport(ServerParameters.builder("java").args(command).build()))
+						.requestTimeout(TIMEOUT)
+						.initializationTimeout(TIMEOUT)
+						.build();
+				connected.add(client);
+				firstCall(client);
+				first[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			}
+			long rss = ProcessHandle.current().children().mapToLong(TransportBenchmark::rssKb).sum();
+			return new Result(first, rss);
+		} finally {
+			connected.forEach(McpSyncClient::closeGracefully);
+		}
+	}
+
+	/**
+	 * One server with the http profile; once it answers, every client connects
+	 * to it, one after another
+	 */
+	private static Result http(String jar, int clients, List<String> serverArgs, int port) throws Exception {
+		List<String> command = new ArrayList<>(List.of("java", "-jar", jar));
+		command.addAll(serverArgs);
+		command.add(withHttpProfile(serverArgs));
+		Process server = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		String baseUrl = "http://localhost:" + port;
+		List<McpSyncClient> connected = new ArrayList<>(clients);
+		try {
+			awaitListening(baseUrl, server);
+			// A first client warms the server up, as the stdio runs each had to
+			McpSyncClient warmUp = connect(baseUrl);
+			firstCall(warmUp);
+			warmUp.closeGracefully();
+
+			long[] first = new long[clients];
+			for (int i = 0; i < clients; i++) {
+				long start = System.nanoTime();
+				McpSyncClient client = connect(baseUrl);
+				connected.add(client);
+				firstCall(client);
+				first[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			}
+			return new Result(first, rssKb(server.toHandle()));
+		} finally {
+			connected.forEach(McpSyncClient::closeGracefully);
+			server.destroy();
+			if (!server.waitFor(10, TimeUnit.SECONDS)) {
+				server.destroyForcibly();
+			}
+		}
+	}
+
+	/**
+	 * --spring.profiles.active with http added to any profiles already given
+	 */
+	private static String withHttpProfile(List<String> serverArgs) {
+		String prefix = "--spring.profiles.active=";
+		return serverArgs.stream()
+				.filter(arg -> arg.startsWith(prefix))
+				.map(arg -> arg + ",http")
+				.findFirst()
+				.orElse(prefix + "http");
+	}
+
+	private static McpSyncClient connect(String baseUrl) {
+		return McpClient.sync(HttpClientSseClientTransport.builder(baseUrl).build())
+				.requestTimeout(TIMEOUT)
+				.initializationTimeout(TIMEOUT)
+				.build();
+	}
+
+	private static void firstCall(McpSyncClient client) {
+		client.initialize();
+		McpSchema.CallToolResult result = client.callTool(new McpSchema.CallToolRequest(TOOL, Map.of()));
+		if (Boolean.TRUE.equals(result.isError())) {
+			throw new IllegalStateException("Tool call failed: " + result.content());
+		}
+	}
+
+	private static void awaitListening(String baseUrl, Process server) throws InterruptedException {
+		HttpClient http = HttpClient.newHttpClient();
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (System.nanoTime() < deadline) {
+			if (!server.isAlive()) {
+				throw new IllegalStateException("HTTP server exited with " + server.exitValue());
+			}
+			try {
+				// Any response means Tomcat is up; the MCP server is created before it starts
+				http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/info")).build(),
+						HttpResponse.BodyHandlers.discarding());
+				return;
+			} catch (IOException e) {
+				Thread.sleep(200);
+			}
+		}
+		throw new IllegalStateException("HTTP server did not start listening");
+	}
+
+	/**
+	 * Resident set size of a process, 0 where /proc is not available
+	 */
+	private static long rssKb(ProcessHandle process) {
+		try {
+			for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.replaceAll("\\D", ""));
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			// Not Linux, or the process is gone
+		}
+		return 0;
+	}
+}
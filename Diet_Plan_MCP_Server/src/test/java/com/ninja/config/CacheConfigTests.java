@@ -0,0 +1,48 @@
+package com.ninja.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.mock.env.MockEnvironment;
+
+class CacheConfigTests {
+
+	private static long maximumSize(CacheManager cacheManager, String name) {
+		CaffeineCache cache = (CaffeineCache) cacheManager.getCache(name);
+		return cache.getNativeCache().policy().eviction().orElseThrow().getMaximum();
+	}
+
+	@Test
+	void everyCacheIsBoundedAndUnknownNamesAreRejected() {
+		CacheManager cacheManager = new CacheConfig().cacheManager(new MockEnvironment());
+
+		assertThat(cacheManager.getCacheNames()).contains(CacheConfig.LFV_ALLOWED, CacheConfig.FOOD_CATEGORIES);
+		assertThat(maximumSize(cacheManager, CacheConfig.LFV_ALLOWED)).isEqualTo(200);
+		assertThat(maximumSize(cacheManager, CacheConfig.NUTRITION_STATISTICS)).isEqualTo(100);
+		assertThat(cacheManager.getCache("unknown")).isNull();
+	}
+
+	@Test
+	void specCanBeOverriddenPerCache() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("diet.cache.spec." + CacheConfig.LCHF_AVOID, "maximumSize=7,expireAfterWrite=1m");
+		CacheManager cacheManager = new CacheConfig().cacheManager(environment);
+
+		assertThat(maximumSize(cacheManager, CacheConfig.LCHF_AVOID)).isEqualTo(7);
+		assertThat(maximumSize(cacheManager, CacheConfig.LCHF_ALLOWED)).isEqualTo(200);
+	}
+
+	@Test
+	void statisticsAreRecorded() {
+		CaffeineCache cache = (CaffeineCache) new CacheConfig().cacheManager(new MockEnvironment())
+				.getCache(CacheConfig.LFV_CATEGORIES);
+		cache.get("key");
+		cache.put("key", "value");
+		cache.get("key");
+
+		assertThat(cache.getNativeCache().stats().hitCount()).isEqualTo(1);
+		assertThat(cache.getNativeCache().stats().missCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,191 @@
+package com.ninja.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ninja.entity.Food;
+import com.ninja.entity.Nutrient;
+import com.ninja.exception.GlobalExceptionHandler;
+import com.ninja.planner.MealPlanner;
+import com.ninja.repository.FoodRepository;
+import com.ninja.repository.NutrientRepository;
+import com.ninja.service.MealPlanningService;
+import com.ninja.store.FoodColumnStore;
+import com.ninja.store.NutrientColumnStore;
+import com.ninja.store.NutrientSimilarityStore;
+import com.ninja.store.NutrientStatisticsStore;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * The /stream endpoints over the real service, with the column stores
+ * unavailable so rows come from (mocked) repository streams
+ */
+@WebMvcTest
+class MealPlannerControllerStreamTests {
+
+	private static final String ALLERGEN_FREE = "/api/v1/diet_plan/foods/allergen-free/stream";
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@MockitoBean
+	FoodRepository foodRepository;
+
+	@MockitoBean
+	NutrientRepository nutrientRepository;
+
+	@MockitoBean
+	FoodColumnStore foodStore;
+
+	@MockitoBean
+	NutrientColumnStore nutrientStore;
+
+	@MockitoBean
+	NutrientStatisticsStore statisticsStore;
+
+	@MockitoBean
+	NutrientSimilarityStore similarityStore;
+
+	@MockitoBean
+	MealPlanner mealPlanner;
+
+	@MockitoBean
+	EntityManager entityManager;
+
+	@MockitoBean
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void jsonArrayFramesEmptyAndMultiRowResults() throws Exception {
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(Stream.empty());
+		assertThat(body(get(ALLERGEN_FREE), MediaType.APPLICATION_JSON)).isEqualTo("[]");
+
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(Stream.of(food(1, "Apple"), food(2, "Kale")));
+		String body = body(get(ALLERGEN_FREE).accept(MediaType.APPLICATION_JSON), MediaType.APPLICATION_JSON);
+
+		assertThat(body).startsWith("[{\"fdcId\":1,").contains("},{\"fdcId\":2,").endsWith("}]")
+				.doesNotContain("\n");
+	}
+
+	@Test
+	void ndjsonFramesEmptyAndMultiRowResults() throws Exception {
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(Stream.empty());
+		assertThat(body(get(ALLERGEN_FREE).accept(JsonRowStream.NDJSON), JsonRowStream.NDJSON)).isEmpty();
+
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(Stream.of(food(1, "Apple"), food(2, "Kale")));
+		String body = body(get(ALLERGEN_FREE).accept(JsonRowStream.NDJSON), JsonRowStream.NDJSON);
+
+		assertThat(body.split("\n", -1)).hasSize(3).satisfies(lines -> {
+			assertThat(lines[0]).startsWith("{\"fdcId\":1,").endsWith("}");
+			assertThat(lines[1]).startsWith("{\"fdcId\":2,").endsWith("}");
+			assertThat(lines[2]).isEmpty();
+		});
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/foods/allergen-free/stream", "/foods/with-allergens/stream",
+			"/nutrients/low-calorie/stream", "/nutrients/balanced/stream" })
+	void everyStreamEndpointAnswersInTheAcceptedFormat(String path) throws Exception {
+		String uri = "/api/v1/diet_plan" + path;
+
+		oneRowEach();
+		assertThat(body(get(uri), MediaType.APPLICATION_JSON)).startsWith("[{\"fdcId\":1,").endsWith("}]");
+
+		oneRowEach();
+		assertThat(body(get(uri).accept(JsonRowStream.NDJSON), JsonRowStream.NDJSON))
+				.startsWith("{\"fdcId\":1,").endsWith("}\n");
+	}
+
+	@Test
+	void rowSourceIsClosedAndTheArrayLeftOpenAfterAnError() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<Food> failing = Stream.of(1, 2, 3).map(fdcId -> {
+			if (fdcId == 3) {
+				throw new DataAccessResourceFailureException("Connection lost");
+			}
+			return food(fdcId, "food " + fdcId);
+		}).onClose(() -> closed.set(true));
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(failing);
+
+		MvcResult result = mockMvc.perform(get(ALLERGEN_FREE)).andExpect(request().asyncStarted()).andReturn();
+
+		assertThat(result.getAsyncResult(5000)).isInstanceOf(DataAccessResourceFailureException.class);
+		assertThat(closed).isTrue();
+		verify(transactionManager).rollback(any());
+		// The rows before the error went out, and no closing bracket makes the
+		// truncated body look complete
+		assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+				.startsWith("[{\"fdcId\":1,").contains("{\"fdcId\":2,").doesNotEndWith("]");
+	}
+
+	/**
+	 * A repository stream of one row for every endpoint; a stream is consumed
+	 * by one request
+	 */
+	private void oneRowEach() {
+		when(foodRepository.streamFoodsWithoutAllergens()).thenReturn(Stream.of(food(1, "Apple")));
+		when(foodRepository.streamFoodsWithAllergens()).thenReturn(Stream.of(food(1, "Apple")));
+		when(nutrientRepository.streamLowCalorieFoods(anyDouble())).thenReturn(Stream.of(nutrient(1, "Apple")));
+		when(nutrientRepository.streamBalancedMacronutrientFoods()).thenReturn(Stream.of(nutrient(1, "Apple")));
+	}
+
+	private String body(MockHttpServletRequestBuilder builder, MediaType contentType) throws Exception {
+		MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(contentType))
+				.andReturn()
+				.getResponse()
+				.getContentAsString(StandardCharsets.UTF_8);
+	}
+
+	private static Food food(int fdcId, String name) {
+		return new Food(fdcId, name, "sr_legacy", "Vegetables", null, null);
+	}
+
+	private static Nutrient nutrient(int fdcId, String name) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName(name);
+		nutrient.setEnergyKcal(52.0);
+		return nutrient;
+	}
+
+	/**
+	 * The controller and the real service over the mocks above, without the
+	 * application's MCP tool beans
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@Import({ MealPlannerController.class, JsonRowStream.class, MealPlanningService.class,
+			GlobalExceptionHandler.class })
+	static class StreamEndpoints {
+	}
+}
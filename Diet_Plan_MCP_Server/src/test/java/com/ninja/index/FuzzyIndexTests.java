@@ -0,0 +1,70 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class FuzzyIndexTests {
+
+	private final FuzzyIndex index = FuzzyIndex.build(new String[][] {
+			{ "Broccoli, raw", "broccoli", null },
+			{ "Chicken breast", "chicken", "poultry" },
+			{ "Mung beans, sprouted", "mung", "green gram, broccoli sprouts" },
+			{ "Raw chickpeas", null, "garbanzo" } });
+
+	@Test
+	void findsMisspelledAndTransliteratedWords() {
+		assertThat(documents(index.search("brocoli"))).containsExactly(0, 2);
+		assertThat(documents(index.search("moong"))).containsExactly(2);
+		assertThat(index.search("brocoli").suggestions()).containsExactly("broccoli");
+	}
+
+	@Test
+	void everyQueryWordMustMatchAndRanksByTotalDistance() {
+		FuzzyIndex.Matches matches = index.search("chiken brest");
+		assertThat(documents(matches)).containsExactly(1);
+		assertThat(TrigramIndex.rank(matches.ranked()[0])).isEqualTo(2);
+		assertThat(matches.suggestions()).first().isEqualTo("chicken breast");
+		assertThat(index.search("chiken quinoa").isEmpty()).isTrue();
+	}
+
+	@Test
+	void toleranceGrowsWithWordLength() {
+		// "ra" must match exactly, "rew" is one edit from "raw"
+		assertThat(index.search("ra").isEmpty()).isTrue();
+		assertThat(documents(index.search("rew"))).containsExactly(0, 3);
+		assertThat(index.similarWords("garbonzo", 1)).containsExactly("garbanzo");
+	}
+
+	@Test
+	void deletionIndexAgreesWithExhaustiveSearch() {
+		String[] vocabulary = { "apple", "apricot", "banana", "bandana", "cabbage", "carrot", "celery", "cherry",
+				"chard", "kale", "leek", "lentil", "lettuce", "mango", "melon", "onion", "orange", "pear", "pea",
+				"peach", "pecan", "pepper", "plum", "potato", "radish", "rice", "rye", "spinach", "squash" };
+		String[][] fields = new String[vocabulary.length][];
+		for (int i = 0; i < vocabulary.length; i++) {
+			fields[i] = new String[] { vocabulary[i] };
+		}
+		FuzzyIndex words = FuzzyIndex.build(fields);
+		for (String query : new String[] { "pech", "chery", "lettice", "ryce", "banan", "xyz" }) {
+			for (int distance = 0; distance <= 2; distance++) {
+				int max = distance;
+				String[] expected = Arrays.stream(vocabulary)
+						.filter(word -> levenshtein(query, word) <= max)
+						.toArray(String[]::new);
+				assertThat(words.similarWords(query, distance)).containsExactlyInAnyOrder(expected);
+			}
+		}
+	}
+
+	private static int[] documents(FuzzyIndex.Matches matches) {
+		return Arrays.stream(matches.ranked()).mapToInt(TrigramIndex::document).toArray();
+	}
+
+	private static int levenshtein(String a, String b) {
+		return FuzzyIndex.distance(a.toCharArray(), b.toCharArray(), new int[a.length() + 1],
+				new int[a.length() + 1]);
+	}
+}
@@ -0,0 +1,69 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTests {
+
+	private static float[][] clusteredVectors(Random random, int rows, int dims) {
+		float[][] centres = new float[20][dims];
+		for (float[] centre : centres) {
+			for (int d = 0; d < dims; d++) {
+				centre[d] = (float) (random.nextGaussian() * 3);
+			}
+		}
+		float[][] vectors = new float[rows][dims];
+		for (int r = 0; r < rows; r++) {
+			float[] centre = centres[random.nextInt(centres.length)];
+			for (int d = 0; d < dims; d++) {
+				vectors[r][d] = centre[d] + (float) random.nextGaussian();
+			}
+		}
+		return vectors;
+	}
+
+	@Test
+	void recallAgainstExactSearch() {
+		Random random = new Random(42);
+		float[][] vectors = clusteredVectors(random, 5000, 12);
+		HnswIndex index = HnswIndex.build(vectors, 16, 100, 42);
+
+		int k = 10;
+		int found = 0;
+		for (int q = 0; q < 100; q++) {
+			float[] query = vectors[random.nextInt(vectors.length)];
+			int[] approximate = index.search(query, k, 64, node -> true);
+			int[] exact = index.exactSearch(query, k, node -> true);
+			assertThat(approximate).hasSize(k);
+			assertThat(exact[0]).isEqualTo(approximate[0]);
+			for (int node : approximate) {
+				if (Arrays.stream(exact).anyMatch(e -> e == node)) {
+					found++;
+				}
+			}
+		}
+		assertThat(found / (100.0 * k)).isGreaterThan(0.95);
+	}
+
+	@Test
+	void filterIsRespectedAndOrderIsNearestFirst() {
+		Random random = new Random(7);
+		float[][] vectors = clusteredVectors(random, 2000, 6);
+		HnswIndex index = HnswIndex.build(vectors, 8, 50, 7);
+
+		float[] query = vectors[0];
+		int[] nearest = index.search(query, 20, 64, node -> node % 3 == 0 && node != 0);
+		assertThat(nearest).hasSize(20);
+		assertThat(Arrays.stream(nearest)).allMatch(node -> node % 3 == 0 && node != 0);
+		for (int i = 1; i < nearest.length; i++) {
+			assertThat(HnswIndex.distance(query, vectors[nearest[i]]))
+					.isGreaterThanOrEqualTo(HnswIndex.distance(query, vectors[nearest[i - 1]]));
+		}
+		assertThat(index.search(query, 5, 64, node -> false)).isEmpty();
+		assertThat(index.exactSearch(query, 5, node -> node == 1)).containsExactly(1);
+	}
+}
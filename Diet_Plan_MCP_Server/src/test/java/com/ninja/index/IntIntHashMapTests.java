@@ -0,0 +1,55 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class IntIntHashMapTests {
+
+	@Test
+	void mapsEveryKeyToItsOrdinal() {
+		// Clustered ids like real fdcIds, plus values that collide after masking
+		Random random = new Random(11);
+		Set<Integer> seen = new HashSet<>();
+		int[] keys = new int[5000];
+		for (int i = 0; i < keys.length; i++) {
+			int key;
+			do {
+				key = i % 2 == 0 ? 160_000 + random.nextInt(20_000) : random.nextInt(1 << 16) << 16;
+			} while (!seen.add(key));
+			keys[i] = key;
+		}
+
+		IntIntHashMap map = IntIntHashMap.ofOrdinals(keys);
+
+		assertThat(map.size()).isEqualTo(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			assertThat(map.get(keys[i])).isEqualTo(i);
+		}
+		for (int probe = 0; probe < 10_000; probe++) {
+			int key = random.nextInt();
+			if (!seen.contains(key)) {
+				assertThat(map.get(key)).isEqualTo(-1);
+			}
+		}
+	}
+
+	@Test
+	void handlesEmptyAndZeroKeys() {
+		assertThat(IntIntHashMap.ofOrdinals(new int[0]).get(0)).isEqualTo(-1);
+		IntIntHashMap map = IntIntHashMap.ofOrdinals(new int[] { 0, -7 });
+		assertThat(map.get(0)).isEqualTo(0);
+		assertThat(map.get(-7)).isEqualTo(1);
+		assertThat(map.get(7)).isEqualTo(-1);
+	}
+
+	@Test
+	void rejectsDuplicateKeys() {
+		assertThatIllegalArgumentException().isThrownBy(() -> IntIntHashMap.ofOrdinals(new int[] { 4, 9, 4 }));
+	}
+}
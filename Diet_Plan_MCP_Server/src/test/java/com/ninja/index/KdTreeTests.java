@@ -0,0 +1,85 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class KdTreeTests {
+
+	@Test
+	void matchesBruteForceScan() {
+		Random random = new Random(42);
+		int dims = 5;
+		int rows = 2000;
+		double[][] columns = new double[dims][rows];
+		for (int d = 0; d < dims; d++) {
+			for (int r = 0; r < rows; r++) {
+				// many duplicates and some NULLs, like the real nutrient columns
+				columns[d][r] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(50);
+			}
+		}
+		KdTree tree = KdTree.build(columns);
+
+		for (int q = 0; q < 200; q++) {
+			double[] min = new double[dims];
+			double[] max = new double[dims];
+			boolean[] constrained = new boolean[dims];
+			for (int d = 0; d < dims; d++) {
+				constrained[d] = random.nextBoolean();
+				min[d] = random.nextInt(40);
+				max[d] = min[d] + random.nextInt(30);
+			}
+
+			int[] out = new int[rows];
+			int count = tree.search(min, max, constrained, out);
+			int[] actual = Arrays.copyOf(out, count);
+			Arrays.sort(actual);
+
+			int[] expected = IntStream.range(0, rows).filter(r -> {
+				for (int d = 0; d < dims; d++) {
+					if (constrained[d] && !(columns[d][r] >= min[d] && columns[d][r] <= max[d])) {
+						return false;
+					}
+				}
+				return true;
+			}).toArray();
+
+			assertThat(actual).containsExactly(expected);
+		}
+	}
+
+	@Test
+	void searchAfterKeepsTheSmallestMatchesPastTheCursor() {
+		Random random = new Random(7);
+		int rows = 3000;
+		double[][] columns = new double[2][rows];
+		for (int r = 0; r < rows; r++) {
+			columns[0][r] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(100);
+			columns[1][r] = random.nextInt(100);
+		}
+		KdTree tree = KdTree.build(columns);
+		double[] min = { 20, 0 };
+		double[] max = { 70, 50 };
+		boolean[] constrained = { true, true };
+		int[] all = new int[rows];
+		int[] expected = Arrays.copyOf(all, tree.search(min, max, constrained, all));
+		Arrays.sort(expected);
+
+		int[] page = new int[25];
+		int after = -1;
+		int seen = 0;
+		int count;
+		do {
+			count = tree.searchAfter(min, max, constrained, after, page);
+			assertThat(Arrays.copyOf(page, count))
+					.containsExactly(Arrays.copyOfRange(expected, seen, Math.min(seen + page.length, expected.length)));
+			seen += count;
+			after = count > 0 ? page[count - 1] : after;
+		} while (count == page.length);
+		assertThat(seen).isEqualTo(expected.length);
+	}
+}
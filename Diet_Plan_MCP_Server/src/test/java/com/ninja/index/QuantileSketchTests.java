@@ -0,0 +1,65 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTests {
+
+	private static double exact(double[] sorted, double q) {
+		return sorted[(int) (q * (sorted.length - 1))];
+	}
+
+	@Test
+	void quantilesAreWithinRelativeAccuracy() {
+		Random random = new Random(7);
+		double[] values = new double[10_000];
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 2);
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+		for (double q : new double[] { 0.0, 0.1, 0.5, 0.9, 1.0 }) {
+			double expected = exact(values, q);
+			assertThat(sketch.quantile(q)).isCloseTo(expected, within(expected * 0.01));
+		}
+	}
+
+	@Test
+	void mergeEqualsOneSketchOverBothInputs() {
+		QuantileSketch left = new QuantileSketch(0.01);
+		QuantileSketch right = new QuantileSketch(0.01);
+		QuantileSketch both = new QuantileSketch(0.01);
+		for (int i = 1; i <= 500; i++) {
+			(i % 2 == 0 ? left : right).add(i * 0.37);
+			both.add(i * 0.37);
+		}
+		left.merge(right);
+		assertThat(left.count()).isEqualTo(500);
+		for (double q : new double[] { 0.1, 0.5, 0.9 }) {
+			assertThat(left.quantile(q)).isEqualTo(both.quantile(q));
+		}
+	}
+
+	@Test
+	void removeUndoesAddAndZeroAndNaNAreHandled() {
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		sketch.add(0.0);
+		sketch.add(Double.NaN);
+		sketch.add(-5.0);
+		sketch.add(100.0);
+		assertThat(sketch.count()).isEqualTo(3);
+		assertThat(sketch.quantile(0.0)).isCloseTo(-5.0, within(0.05));
+		assertThat(sketch.quantile(0.5)).isZero();
+
+		sketch.remove(100.0);
+		assertThat(sketch.quantile(1.0)).isZero();
+		assertThatIllegalStateException().isThrownBy(() -> sketch.remove(100.0));
+	}
+}
@@ -0,0 +1,76 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class RowBitmapTests {
+
+	// Three chunks, the last one partial
+	private static final int ROWS = 150_000;
+
+	private static RowBitmap bitmap(IntPredicate set) {
+		return RowBitmap.of(ROWS, IntStream.range(0, ROWS).filter(set).toArray());
+	}
+
+	private static int[] drain(RowBitmap[] bitmaps, int pageSize) {
+		IntStream.Builder matches = IntStream.builder();
+		int[] page = new int[pageSize];
+		int after = -1;
+		int count;
+		do {
+			count = RowBitmap.firstAfter(ROWS, bitmaps, after, page);
+			for (int i = 0; i < count; i++) {
+				matches.add(page[i]);
+			}
+			after = count > 0 ? page[count - 1] : after;
+		} while (count == page.length);
+		return matches.build().toArray();
+	}
+
+	@Test
+	void everyContainerKindAndsLikeAPlainScan() {
+		Random random = new Random(5);
+		boolean[] dense = new boolean[ROWS];
+		for (int row = 0; row < ROWS; row++) {
+			dense[row] = random.nextInt(3) != 0;
+		}
+		// sparse rows become arrays, long stretches runs, the rest bitmaps;
+		// nothing is set in the second chunk
+		IntPredicate sparse = row -> row % 97 == 0 && (row < 65_536 || row >= 131_072);
+		IntPredicate runs = row -> (row / 5_000) % 2 == 0;
+		IntPredicate random50 = row -> dense[row];
+		RowBitmap[] bitmaps = { bitmap(random50), bitmap(runs), bitmap(sparse) };
+
+		assertThat(drain(bitmaps, 10)).containsExactly(IntStream.range(0, ROWS)
+				.filter(row -> sparse.test(row) && runs.test(row) && random50.test(row))
+				.toArray());
+		assertThat(drain(new RowBitmap[] { bitmaps[0], bitmaps[1] }, 1000)).containsExactly(IntStream
+				.range(0, ROWS)
+				.filter(row -> runs.test(row) && random50.test(row))
+				.toArray());
+	}
+
+	@Test
+	void noBitmapsMatchEveryRowOfTheTable() {
+		assertThat(drain(new RowBitmap[0], 4096)).containsExactly(IntStream.range(0, ROWS).toArray());
+	}
+
+	@Test
+	void sparseAndRunChunksAreSmallerThanBitmaps() {
+		RowBitmap sparse = bitmap(row -> row % 1000 == 0);
+		RowBitmap runs = bitmap(row -> row < 100_000);
+		RowBitmap dense = bitmap(row -> row % 2 == 0);
+
+		assertThat(sparse.cardinality()).isEqualTo(150);
+		assertThat(runs.cardinality()).isEqualTo(100_000);
+		assertThat(sparse.sizeInBytes()).isLessThan(1_000);
+		assertThat(runs.sizeInBytes()).isLessThan(1_000);
+		// no smaller than one bit per row
+		assertThat(dense.sizeInBytes()).isGreaterThanOrEqualTo(ROWS / 8);
+	}
+}
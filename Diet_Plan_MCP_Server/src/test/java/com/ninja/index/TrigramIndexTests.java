@@ -0,0 +1,41 @@
+package com.ninja.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTests {
+
+	private final TrigramIndex index = TrigramIndex.build(new String[][] {
+			{ "Broccoli, raw", "broccoli", null },
+			{ "Chicken breast", "chicken", "poultry" },
+			{ "Mung beans, sprouted", "moong", "green gram, broccoli sprouts" },
+			{ "Raw chickpeas", null, "garbanzo" } });
+
+	@Test
+	void ranksByEarliestMatchPosition() {
+		assertThat(index.search("broccoli")).containsExactly(0, 2);
+		assertThat(index.search("CHICK")).containsExactly(1, 3);
+	}
+
+	@Test
+	void verifiesCandidatesAgainstOriginalText() {
+		// every gram of "raw chi" occurs in document 0 or 1, but not contiguously
+		assertThat(index.search("raw chi")).containsExactly(3);
+		assertThat(index.search("quinoa")).isEmpty();
+	}
+
+	@Test
+	void shortTermsFallBackToScan() {
+		assertThat(index.search("ch")).containsExactly(1, 3);
+	}
+
+	@Test
+	void gallopingIntersection() {
+		int[] out = new int[3];
+		int count = TrigramIndex.intersect(new int[] { 2, 40, 41, 99 }, 4,
+				new int[] { 1, 2, 3, 5, 8, 13, 21, 34, 40, 41, 55, 89 }, out);
+		assertThat(count).isEqualTo(3);
+		assertThat(out).containsExactly(2, 40, 41);
+	}
+}
@@ -0,0 +1,141 @@
+package com.ninja.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.Nutrient;
+import com.ninja.store.NutrientColumn;
+import com.ninja.store.NutrientTable;
+
+class KeysetCursorTests {
+
+	// Shuffled fdcIds and only five distinct protein values, so pages must
+	// break ties on fdcId
+	private final NutrientTable table;
+
+	KeysetCursorTests() {
+		List<Integer> ids = new ArrayList<>(IntStream.range(1, 104).boxed().toList());
+		Collections.shuffle(ids, new Random(7));
+		table = NutrientTable.of(ids.stream().map(id -> {
+			Nutrient nutrient = new Nutrient();
+			nutrient.setFdcId(id);
+			nutrient.setFoodName("food " + id);
+			nutrient.setProteinG((double) (id % 5));
+			return nutrient;
+		}).toList());
+	}
+
+	private static List<Integer> drain(Function<String, CursorPage<Nutrient>> fetch) {
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Nutrient> page = fetch.apply(cursor);
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(10);
+			page.getItems().forEach(nutrient -> ids.add(nutrient.getFdcId()));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	@Test
+	void descendingPagesCoverEveryRowOnce() {
+		int[] ordinals = table.greaterThan(NutrientColumn.PROTEIN_G, 0.5);
+		List<Integer> expected = IntStream.of(ordinals).map(table::fdcId).boxed().toList();
+
+		List<Integer> paged = drain(cursor -> KeysetCursor.page(ordinals, ordinals.length, "proteinG",
+				i -> table.value(NutrientColumn.PROTEIN_G, ordinals[i]), true, table::fdcId, table::row, cursor, 10));
+
+		assertThat(paged).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void slicePagesReadTheSortedIndexInPlace() {
+		NutrientTable.Slice slice = table.sliceGreaterThan(NutrientColumn.PROTEIN_G, 0.5);
+		List<Integer> expected = IntStream.of(table.greaterThan(NutrientColumn.PROTEIN_G, 0.5)).map(table::fdcId)
+				.boxed().toList();
+
+		List<Integer> paged = drain(cursor -> KeysetCursor.page(slice.size(), slice::ordinal, "proteinG",
+				slice::value, slice.descending(), "fdcId", table::fdcId, table::row, cursor, 10));
+
+		assertThat(paged).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void seekPagesFollowFdcIdOrder() {
+		List<Integer> paged = drain(cursor -> KeysetCursor.seek(table.size(), table::fdcId, (after, out) -> {
+			int count = 0;
+			for (int row = after + 1; row < table.size() && count < out.length; row++) {
+				if (table.value(NutrientColumn.PROTEIN_G, row) == 3) {
+					out[count++] = row;
+				}
+			}
+			return count;
+		}, table::row, cursor, 10));
+
+		assertThat(paged).containsExactlyElementsOf(IntStream.range(1, 104).filter(id -> id % 5 == 3).boxed().toList());
+	}
+
+	@Test
+	void scanPagesFollowFdcIdOrder() {
+		List<Integer> paged = drain(cursor -> KeysetCursor.scan(table.size(), table::fdcId,
+				row -> table.value(NutrientColumn.PROTEIN_G, row) == 3, table::row, cursor, 10));
+
+		assertThat(paged).containsExactlyElementsOf(IntStream.range(1, 104).filter(id -> id % 5 == 3).boxed().toList());
+	}
+
+	@Test
+	void lastFullPageHasNoCursor() {
+		CursorPage<Nutrient> page = KeysetCursor.scan(table.size(), table::fdcId, row -> row < 10, table::row, null,
+				10);
+
+		assertThat(page.getItems()).hasSize(10);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void positionRestoresIdTypes() {
+		KeysetScrollPosition position = KeysetCursor.position(KeysetCursor.encode(Map.of("proteinG", 3, "fdcId", 42)));
+
+		assertThat(position.getKeys()).containsEntry("proteinG", 3.0).containsEntry("fdcId", 42);
+		assertThat(KeysetCursor.position(null).isInitial()).isTrue();
+	}
+
+	@Test
+	void rejectsMalformedCursor() {
+		assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("not a cursor"));
+		assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.scan(table.size(), table::fdcId,
+				row -> true, table::row, KeysetCursor.encode(Map.of("rank", 1)), 10));
+	}
+
+	@Test
+	void cursorOfAnotherOrderStartsOver() {
+		String ranked = KeysetCursor.encode(Map.of("rank", 3, "fdcId", 42));
+		String byFdcId = KeysetCursor.encode(Map.of("fdcId", 42));
+
+		assertThat(KeysetCursor.ifKeyedBy(ranked, "rank", "fdcId")).isEqualTo(ranked);
+		assertThat(KeysetCursor.ifKeyedBy(byFdcId, "fdcId")).isEqualTo(byFdcId);
+		assertThat(KeysetCursor.ifKeyedBy(byFdcId, "rank", "fdcId")).isNull();
+		assertThat(KeysetCursor.ifKeyedBy(ranked, "fdcId")).isNull();
+		assertThat(KeysetCursor.ifKeyedBy(null, "fdcId")).isNull();
+		assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.ifKeyedBy("not a cursor", "fdcId"));
+	}
+
+	@Test
+	void limitIsDefaultedAndCapped() {
+		assertThat(KeysetCursor.limit(null)).isEqualTo(KeysetCursor.DEFAULT_LIMIT);
+		assertThat(KeysetCursor.limit(0)).isEqualTo(KeysetCursor.DEFAULT_LIMIT);
+		assertThat(KeysetCursor.limit(10_000)).isEqualTo(KeysetCursor.MAX_LIMIT);
+	}
+}
@@ -0,0 +1,82 @@
+package com.ninja.planner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MealPlanSolverTests {
+
+	private static List<PlannerFood> foods(int count, Random random) {
+		List<PlannerFood> foods = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			boolean side = i % 3 == 0;
+			double protein = random.nextDouble() * 25;
+			double fat = random.nextDouble() * (i % 4 == 0 ? 30 : 3);
+			double carbs = random.nextDouble() * 60;
+			double kcal = protein * 4 + fat * 9 + carbs * 4 + 5;
+			foods.add(new PlannerFood("food " + i, side ? "Vegetables" : "Grains", i, "food " + i + ", raw", kcal,
+					carbs, protein, fat, random.nextDouble() * 8, 0, side));
+		}
+		return foods;
+	}
+
+	private static double[] totals(List<PlannerFood> foods, MealPlanSolver.Solution solution) {
+		double[] totals = new double[3];
+		for (int slot = 0; slot < MealPlanSolver.SLOTS; slot++) {
+			PlannerFood food = foods.get(solution.foods()[slot]);
+			double scale = solution.grams()[slot] / 100.0;
+			totals[0] += food.kcal() * scale;
+			totals[1] += food.fatG() * scale;
+			totals[2] += food.carbsG() * scale;
+		}
+		return totals;
+	}
+
+	@Test
+	void planMeetsCaloriesAndFatCapWithDistinctFoods() {
+		List<PlannerFood> foods = foods(120, new Random(1));
+		MealPlanSolver.Solution solution = MealPlanSolver.solve(foods, new MealPlanSolver.Targets(1800, 5, 100), 0,
+				1_000_000_000L);
+
+		assertThat(solution.feasible()).isTrue();
+		assertThat(Arrays.stream(solution.foods()).distinct().count()).isEqualTo(MealPlanSolver.SLOTS);
+		double[] totals = totals(foods, solution);
+		assertThat(totals[0]).isBetween(1800 * 0.95, 1800 * 1.05);
+		assertThat(totals[1] * 9 / totals[0]).isLessThanOrEqualTo(0.05);
+		for (int slot = 0; slot < MealPlanSolver.SLOTS; slot += 2) {
+			assertThat(foods.get(solution.foods()[slot]).side()).isTrue();
+			assertThat(foods.get(solution.foods()[slot + 1]).side()).isFalse();
+		}
+	}
+
+	@Test
+	void sameSeedGivesSamePlanAndCapsAreKept() {
+		List<PlannerFood> foods = foods(80, new Random(2));
+		MealPlanSolver.Targets lowCarb = new MealPlanSolver.Targets(2200, 100, 20);
+		MealPlanSolver.Solution first = MealPlanSolver.solve(foods, lowCarb, 7, 1_000_000_000L);
+		MealPlanSolver.Solution second = MealPlanSolver.solve(foods, lowCarb, 7, 1_000_000_000L);
+
+		assertThat(second.foods()).containsExactly(first.foods());
+		assertThat(second.grams()).containsExactly(first.grams());
+		assertThat(first.feasible()).isTrue();
+		double[] totals = totals(foods, first);
+		assertThat(totals[2] * 4 / totals[0]).isLessThanOrEqualTo(0.20);
+
+		MealPlanSolver.Solution other = MealPlanSolver.solve(foods, lowCarb, 8, 1_000_000_000L);
+		assertThat(other.feasible()).isTrue();
+		assertThat(other.foods()).isNotEqualTo(first.foods());
+	}
+
+	@Test
+	void tooFewFoodsIsRejected() {
+		assertThatThrownBy(() -> MealPlanSolver.solve(foods(5, new Random(3)),
+				new MealPlanSolver.Targets(1800, 5, 100), 0, 1_000_000L))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
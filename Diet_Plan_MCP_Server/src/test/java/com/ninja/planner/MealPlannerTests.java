@@ -0,0 +1,60 @@
+package com.ninja.planner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.entity.DietFood;
+import com.ninja.entity.LchfFood;
+import com.ninja.entity.LfvFood;
+import com.ninja.entity.Nutrient;
+import com.ninja.store.DietFoodTable;
+import com.ninja.store.NutrientTable;
+
+class MealPlannerTests {
+
+	private static Nutrient nutrient(int fdcId, String foodName, Double carbsG, Double fatG) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName(foodName);
+		nutrient.setEnergyKcal(100.0);
+		nutrient.setCarbohydrateG(carbsG);
+		nutrient.setProteinG(5.0);
+		nutrient.setTotalFatG(fatG);
+		return nutrient;
+	}
+
+	private static <T extends DietFood> DietFoodTable<T> dietTable(List<T> foods) {
+		long id = 1;
+		for (T food : foods) {
+			if (food instanceof LfvFood lfv) {
+				lfv.setId(id++);
+			} else {
+				((LchfFood) food).setId(id++);
+			}
+		}
+		return DietFoodTable.of(foods);
+	}
+
+	private final NutrientTable nutrients = NutrientTable.of(List.of(nutrient(1, "Lentils", 20.0, null),
+			nutrient(2, "Lentils, boiled", 20.0, 0.4), nutrient(3, "Spinach", null, 0.4),
+			nutrient(4, "Spinach, raw", 3.6, 0.4)));
+
+	@Test
+	void rowsWithAnUnknownCappedMacroAreNotMatched() {
+		List<PlannerFood> lfv = MealPlanner.match(MealPlanner.Diet.LFV,
+				dietTable(List.of(new LfvFood("Lentils", "Pulses", "OK", null),
+						new LfvFood("Spinach", "Vegetables", "OK", null))),
+				nutrients, null);
+
+		// The closer "Lentils" row has no fat value; "Spinach" without carbs is fine for LFV
+		assertThat(lfv).extracting(PlannerFood::fdcId).containsExactly(2, 3);
+
+		List<PlannerFood> lchf = MealPlanner.match(MealPlanner.Diet.LCHF,
+				dietTable(List.of(new LchfFood("Spinach", "Vegetables", "OK", null))), nutrients, null);
+
+		assertThat(lchf).extracting(PlannerFood::fdcId).containsExactly(4);
+	}
+}
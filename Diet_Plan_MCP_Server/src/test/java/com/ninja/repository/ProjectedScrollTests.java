@@ -0,0 +1,111 @@
+package com.ninja.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.Nutrient;
+import com.ninja.paging.KeysetCursor;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Pages of {@link ProjectedScroll} against the entity keyset scroll they
+ * replace, on a throwaway PostgreSQL: same rows and cursors page by page,
+ * but nothing left in the persistence context.
+ */
+@DataJpaTest(properties = "diet.store.mode=JPA")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ProjectedScrollTests {
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	NutrientRepository nutrients;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@BeforeEach
+	void seed() {
+		List<Nutrient> rows = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			Nutrient nutrient = new Nutrient();
+			nutrient.setFdcId(170000 + i);
+			nutrient.setFoodName("food " + i);
+			// few distinct values, so pages end inside runs of ties
+			nutrient.setProteinG(i % 3 == 0 ? null : (double) (i % 5));
+			nutrient.setEnergyKcal(100.0 + i);
+			rows.add(nutrient);
+		}
+		nutrients.saveAll(rows);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void pagesMatchTheEntityScrollWithoutManagingEntities() {
+		Specification<Nutrient> spec = NutrientSpecifications.greaterThan("proteinG", 0.5);
+		Sort sort = Sort.by(Sort.Direction.DESC, "proteinG", "fdcId");
+		String cursor = null;
+		int pages = 0;
+		do {
+			String position = cursor;
+			CursorPage<Nutrient> projected = NutrientSpecifications.ROWS.page(entityManager, spec, sort, position, 4);
+			assertThat(persistenceContextSize()).isZero();
+
+			Window<Nutrient> window = nutrients.findBy(spec,
+					query -> query.sortBy(sort).limit(4).scroll(KeysetCursor.position(position)));
+			CursorPage<Nutrient> entities = KeysetCursor.page(window);
+			assertThat(persistenceContextSize()).isPositive();
+			entityManager.clear();
+
+			assertThat(projected.getItems()).usingRecursiveFieldByFieldElementComparator()
+					.isEqualTo(entities.getItems());
+			assertThat(projected.getNextCursor()).isEqualTo(entities.getNextCursor());
+			cursor = projected.getNextCursor();
+			pages++;
+		} while (cursor != null);
+		assertThat(pages).isGreaterThan(1);
+	}
+
+	private int persistenceContextSize() {
+		return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+	}
+
+	/**
+	 * Repositories and entities without the application's tool beans
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@AutoConfigurationPackage(basePackages = "com.ninja")
+	static class Repositories {
+	}
+}
@@ -0,0 +1,268 @@
+package com.ninja.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Applies the Flyway migrations to a throwaway PostgreSQL, calls each
+ * repository method and checks that the statement Hibernate sent is answered
+ * from an index. The statement is recorded at the JDBC boundary together with
+ * its bind values and explained with the same values, so the plan is the one
+ * PostgreSQL picks for the real call. Sequential scans are disabled so the
+ * planner picks an index whenever one is usable, which keeps the assertion
+ * independent of table size.
+ *
+ * Not covered: findAllBy and streamAllBy (whole table).
+ */
+@DataJpaTest(properties = "diet.store.mode=JPA")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanIndexTests {
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final List<RecordedStatement> recorded = Collections.synchronizedList(new ArrayList<>());
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	FoodRepository foods;
+
+	@Autowired
+	NutrientRepository nutrients;
+
+	@Autowired
+	LfvFoodRepository lfv;
+
+	@Autowired
+	LchfFoodRepository lchf;
+
+	record Repositories(FoodRepository foods, NutrientRepository nutrients, LfvFoodRepository lfv,
+			LchfFoodRepository lchf) {
+	}
+
+	static Stream<Arguments> repositoryQueries() {
+		return Stream.of(
+				// FoodRepository
+				query("findByFoodNameContainingIgnoreCase", r -> r.foods().findByFoodNameContainingIgnoreCase("chick")),
+				query("findByFoodCategoryIgnoreCase", r -> r.foods().findByFoodCategoryIgnoreCase("Vegetables")),
+				query("findByDataTypeIgnoreCase", r -> r.foods().findByDataTypeIgnoreCase("Foundation")),
+				query("findDistinctFoodCategories", r -> r.foods().findDistinctFoodCategories()),
+				query("findDistinctDataTypes", r -> r.foods().findDistinctDataTypes()),
+				query("findByCategoryAndNameSearch", r -> r.foods().findByCategoryAndNameSearch("Vegetables", "bean")),
+				query("findByCategoryAndNameSearch by name", r -> r.foods().findByCategoryAndNameSearch(null, "bean")),
+				query("countByFoodCategory", r -> r.foods().countByFoodCategory("Vegetables")),
+				query("findFoodsWithAllergens", r -> r.foods().findFoodsWithAllergens()),
+				query("findFoodsWithoutAllergens", r -> r.foods().findFoodsWithoutAllergens()),
+				query("streamFoodsWithAllergens", r -> r.foods().streamFoodsWithAllergens()),
+				query("streamFoodsWithoutAllergens", r -> r.foods().streamFoodsWithoutAllergens()),
+				query("findByFdcIdIn", r -> r.foods().findByFdcIdIn(List.of(171705, 173944, 169910))),
+				query("searchWithNutrients", r -> r.foods().searchWithNutrients("lentil", 0, Limit.of(51))),
+
+				// NutrientRepository
+				query("nutrient findByFoodNameContainingIgnoreCase",
+						r -> r.nutrients().findByFoodNameContainingIgnoreCase("apple")),
+				query("findBySimplifiedNameContainingIgnoreCase",
+						r -> r.nutrients().findBySimplifiedNameContainingIgnoreCase("apple")),
+				query("searchFoodsByAllNames", r -> r.nutrients().searchFoodsByAllNames("moong")),
+				query("nutrient findByFdcIdIn", r -> r.nutrients().findByFdcIdIn(List.of(171705, 173944, 169910))),
+				query("findHighProteinFoods", r -> r.nutrients().findHighProteinFoods(BigDecimal.TEN)),
+				query("findLowCalorieFoods", r -> r.nutrients().findLowCalorieFoods(BigDecimal.valueOf(100))),
+				query("streamLowCalorieFoods", r -> r.nutrients().streamLowCalorieFoods(100)),
+				query("findHighFiberFoods", r -> r.nutrients().findHighFiberFoods(BigDecimal.valueOf(3))),
+				query("findLowSodiumFoods", r -> r.nutrients().findLowSodiumFoods(BigDecimal.valueOf(140))),
+				query("findFoodsRichInVitaminMineral",
+						r -> r.nutrients().findFoodsRichInVitaminMineral("IRON", BigDecimal.valueOf(2))),
+				query("findFoodsInCalorieRange",
+						r -> r.nutrients().findFoodsInCalorieRange(BigDecimal.valueOf(50), BigDecimal.valueOf(200))),
+				query("findFoodsForDietaryRestrictions",
+						r -> r.nutrients().findFoodsForDietaryRestrictions(true, false, false, false)),
+				query("findBalancedMacronutrientFoods", r -> r.nutrients().findBalancedMacronutrientFoods()),
+				query("streamBalancedMacronutrientFoods", r -> r.nutrients().streamBalancedMacronutrientFoods()),
+				// the keyset scroll behind findFoodsByEnergyRatios
+				query("findBy fatEnergyPct",
+						r -> r.nutrients().findBy(NutrientSpecifications.between("fatEnergyPct", 0, 5),
+								q -> q.sortBy(Sort.by("fdcId")).limit(51).scroll(ScrollPosition.keyset()))),
+
+				// LfvFoodRepository
+				query("lfv findByNameContainingIgnoreCase", r -> r.lfv().findByNameContainingIgnoreCase("dal")),
+				query("lfv findByCategoryIgnoreCase", r -> r.lfv().findByCategoryIgnoreCase("Whole Grain")),
+				query("lfv findByLimitationIgnoreCase", r -> r.lfv().findByLimitationIgnoreCase("OK")),
+				query("lfv findAllowedFoods", r -> r.lfv().findAllowedFoods()),
+				query("lfv findRestrictedFoods", r -> r.lfv().findRestrictedFoods()),
+				query("lfv findByCategoryIgnoreCaseAndLimitationIgnoreCase",
+						r -> r.lfv().findByCategoryIgnoreCaseAndLimitationIgnoreCase("Whole Grain", "OK")),
+				query("lfv findDistinctCategories", r -> r.lfv().findDistinctCategories()),
+				query("lfv findDistinctLimitations", r -> r.lfv().findDistinctLimitations()),
+				query("lfv countByCategory", r -> r.lfv().countByCategory("Whole Grain")),
+				query("lfv countByLimitation", r -> r.lfv().countByLimitation("OK")),
+				query("lfv findByMultipleCriteria", r -> r.lfv().findByMultipleCriteria("millet", "Whole Grain", null)),
+
+				// LchfFoodRepository
+				query("lchf findByNameContainingIgnoreCase", r -> r.lchf().findByNameContainingIgnoreCase("cheese")),
+				query("lchf findByCategoryIgnoreCase", r -> r.lchf().findByCategoryIgnoreCase("Seafood")),
+				query("lchf findByLimitationIgnoreCase", r -> r.lchf().findByLimitationIgnoreCase("Avoid")),
+				query("lchf findAllowedFoods", r -> r.lchf().findAllowedFoods()),
+				query("lchf findRestrictedFoods", r -> r.lchf().findRestrictedFoods()),
+				query("lchf findRecommendedFoods", r -> r.lchf().findRecommendedFoods()),
+				query("lchf findFoodsToAvoid", r -> r.lchf().findFoodsToAvoid()),
+				query("lchf findByCategoryIgnoreCaseAndLimitationIgnoreCase",
+						r -> r.lchf().findByCategoryIgnoreCaseAndLimitationIgnoreCase("Seafood", "OK")),
+				query("lchf findDistinctCategories", r -> r.lchf().findDistinctCategories()),
+				query("lchf findDistinctLimitations", r -> r.lchf().findDistinctLimitations()),
+				query("lchf countByCategory", r -> r.lchf().countByCategory("Seafood")),
+				query("lchf countByLimitation", r -> r.lchf().countByLimitation("OK")),
+				query("lchf findByMultipleCriteria", r -> r.lchf().findByMultipleCriteria("paneer", null, "OK")));
+	}
+
+	private static Arguments query(String method, Function<Repositories, Object> call) {
+		return Arguments.of(method, call);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("repositoryQueries")
+	void repositoryQueryUsesIndex(String method, Function<Repositories, Object> call) throws Exception {
+		recorded.clear();
+		Object result = call.apply(new Repositories(foods, nutrients, lfv, lchf));
+		if (result instanceof Stream<?> stream) {
+			try (stream) {
+				stream.findFirst();
+			}
+		}
+		assertThat(recorded).as(method + " statements").hasSize(1);
+
+		RecordedStatement statement = recorded.get(0);
+		String plan = explain(statement);
+		assertThat(plan).as(method + ": %s%nplan:%n%s", statement.sql(), plan)
+				.doesNotContain("Seq Scan")
+				.containsIgnoringCase("Index");
+	}
+
+	private static String explain(RecordedStatement recordedStatement) throws Exception {
+		try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+				postgres.getPassword()); Statement statement = connection.createStatement()) {
+			statement.execute("SET enable_seqscan = off");
+			try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + recordedStatement.sql())) {
+				for (Bind bind : recordedStatement.binds()) {
+					bind.method().invoke(explain, bind.args());
+				}
+				StringBuilder plan = new StringBuilder();
+				try (ResultSet rs = explain.executeQuery()) {
+					while (rs.next()) {
+						plan.append(rs.getString(1)).append('\n');
+					}
+				}
+				return plan.toString();
+			}
+		}
+	}
+
+	record Bind(Method method, Object[] args) {
+	}
+
+	record RecordedStatement(String sql, List<Bind> binds) {
+	}
+
+	/**
+	 * Repositories and entities without the application's tool beans, over a
+	 * DataSource that records every prepared statement's SQL and parameter
+	 * setter calls for replay on the EXPLAIN
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@AutoConfigurationPackage(basePackages = "com.ninja")
+	static class RecordStatements {
+
+		@Bean
+		static BeanPostProcessor recordingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource dataSource)) {
+						return bean;
+					}
+					return proxy(DataSource.class, (proxy, method, args) -> {
+						Object result = invoke(dataSource, method, args);
+						return result instanceof Connection connection ? recording(connection) : result;
+					});
+				}
+			};
+		}
+
+		private static Connection recording(Connection connection) {
+			return proxy(Connection.class, (proxy, method, args) -> {
+				Object result = invoke(connection, method, args);
+				if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+					RecordedStatement recordedStatement = new RecordedStatement((String) args[0], new ArrayList<>());
+					recorded.add(recordedStatement);
+					return recording(statement, recordedStatement);
+				}
+				return result;
+			});
+		}
+
+		private static PreparedStatement recording(PreparedStatement statement, RecordedStatement recordedStatement) {
+			return proxy(PreparedStatement.class, (proxy, method, args) -> {
+				// parameter setters are declared on PreparedStatement, setFetchSize and the like on Statement
+				if (method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")) {
+					recordedStatement.binds().add(new Bind(method, args));
+				}
+				return invoke(statement, method, args);
+			});
+		}
+
+		private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.ninja.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.ninja.repository.QueryPlanIndexTests.Repositories;
+
+/**
+ * Calls each repository query with no surrounding transaction, the way the
+ * SUPPORTS-propagation tool services do, and checks that every statement is
+ * prepared inside a read-only transaction on a read-only connection. Covers
+ * the declared @Query and derived methods, which unlike the CRUD methods
+ * inherited from SimpleJpaRepository only get a transaction from the
+ * interface-level annotation.
+ *
+ * Not covered: the stream methods, which need a surrounding transaction to
+ * keep their cursor open.
+ */
+@DataJpaTest(properties = "diet.store.mode=JPA")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryTransactionTests {
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final List<PreparedIn> prepared = Collections.synchronizedList(new ArrayList<>());
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	FoodRepository foods;
+
+	@Autowired
+	NutrientRepository nutrients;
+
+	@Autowired
+	LfvFoodRepository lfv;
+
+	@Autowired
+	LchfFoodRepository lchf;
+
+	static Stream<Arguments> repositoryQueries() {
+		return QueryPlanIndexTests.repositoryQueries()
+				.filter(query -> !((String) query.get()[0]).startsWith("stream"));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("repositoryQueries")
+	void repositoryQueryRunsInReadOnlyTransaction(String method, Function<Repositories, Object> call) {
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		prepared.clear();
+
+		call.apply(new Repositories(foods, nutrients, lfv, lchf));
+
+		assertThat(prepared).as(method + " statements").isNotEmpty()
+				.allSatisfy(statement -> {
+					assertThat(statement.transactionActive()).as(method + " in a transaction").isTrue();
+					assertThat(statement.transactionReadOnly()).as(method + " read-only transaction").isTrue();
+					assertThat(statement.connectionReadOnly()).as(method + " read-only connection").isTrue();
+				});
+	}
+
+	record PreparedIn(boolean transactionActive, boolean transactionReadOnly, boolean connectionReadOnly) {
+	}
+
+	/**
+	 * Repositories and entities without the application's tool beans, over a
+	 * DataSource that records the transaction state each statement is prepared
+	 * in
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@AutoConfigurationPackage(basePackages = "com.ninja")
+	static class RecordTransactions {
+
+		@Bean
+		static BeanPostProcessor recordingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource dataSource)) {
+						return bean;
+					}
+					return proxy(DataSource.class, (proxy, method, args) -> {
+						Object result = invoke(dataSource, method, args);
+						return result instanceof Connection connection ? recording(connection) : result;
+					});
+				}
+			};
+		}
+
+		private static Connection recording(Connection connection) {
+			return proxy(Connection.class, (proxy, method, args) -> {
+				Object result = invoke(connection, method, args);
+				if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+					prepared.add(new PreparedIn(TransactionSynchronizationManager.isActualTransactionActive(),
+							TransactionSynchronizationManager.isCurrentTransactionReadOnly(), connection.isReadOnly()));
+				}
+				return result;
+			});
+		}
+
+		private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getCause();
+			}
+		}
+	}
+}
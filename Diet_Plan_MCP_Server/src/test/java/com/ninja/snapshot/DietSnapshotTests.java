@@ -0,0 +1,126 @@
+package com.ninja.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.ninja.entity.Food;
+import com.ninja.entity.LchfFood;
+import com.ninja.entity.LfvFood;
+import com.ninja.entity.Nutrient;
+
+class DietSnapshotTests {
+
+	@TempDir
+	Path directory;
+
+	private static DietSnapshot sample() {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(42);
+		nutrient.setFoodName("Crème fraîche");
+		nutrient.setProteinG(2.4);
+		nutrient.setEnergyKcal(292.0);
+		LfvFood lentils = new LfvFood("Lentils", "Legume", "OK", null);
+		lentils.setId(7L);
+		LchfFood cheese = new LchfFood("Cheddar", "Cheese", "Recommended", "aged");
+		cheese.setId(3L);
+		return new DietSnapshot(1234L, List.of(new Food(42, "Crème fraîche", "sr_legacy", "Dairy", null, "milk")),
+				List.of(nutrient), List.of(lentils), List.of(cheese));
+	}
+
+	@Test
+	void roundTripsEveryTableIncludingNulls() throws IOException {
+		Path file = directory.resolve("diet.snapshot");
+		sample().write(file);
+
+		DietSnapshot read = DietSnapshot.read(file);
+
+		assertThat(read.getCreatedAt()).isEqualTo(1234L);
+		Food food = read.getFoods().row(0);
+		assertThat(food.getFoodName()).isEqualTo("Crème fraîche");
+		assertThat(food.getPublicationDate()).isNull();
+		assertThat(food.getAllergenFlags()).isEqualTo("milk");
+		Nutrient nutrient = read.getNutrients().row(0);
+		assertThat(nutrient.getFdcId()).isEqualTo(42);
+		assertThat(nutrient.getProteinG()).isEqualTo(2.4);
+		assertThat(nutrient.getEnergyKcal()).isEqualTo(292.0);
+		assertThat(nutrient.getFiberG()).isNull();
+		assertThat(read.getLfvFoods()).singleElement().satisfies(lfv -> {
+			assertThat(lfv.getId()).isEqualTo(7L);
+			assertThat(lfv.getNotes()).isNull();
+		});
+		assertThat(read.getLchfFoods()).singleElement().satisfies(lchf -> {
+			assertThat(lchf.getId()).isEqualTo(3L);
+			assertThat(lchf.getLimitation()).isEqualTo("Recommended");
+		});
+	}
+
+	@Test
+	void rewriteReplacesTheFileAndLeavesNoTemporaryFile() throws IOException {
+		Path file = directory.resolve("diet.snapshot");
+		// Left by an export that was killed mid-write; not ours to touch
+		Path stray = Files.writeString(directory.resolve("diet.snapshot.tmp"), "partial");
+		sample().write(file);
+		sample().write(file);
+
+		assertThat(DietSnapshot.read(file).getNutrients().size()).isEqualTo(1);
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).containsExactlyInAnyOrder(file, stray);
+		}
+		if (Files.getFileAttributeView(file, PosixFileAttributeView.class) != null) {
+			assertThat(Files.getPosixFilePermissions(file)).contains(PosixFilePermission.OTHERS_READ);
+		}
+	}
+
+	@Test
+	void rejectsCorruptOrForeignFiles() throws IOException {
+		Path file = directory.resolve("diet.snapshot");
+		sample().write(file);
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(file, bytes);
+		assertThatIOException().isThrownBy(() -> DietSnapshot.read(file)).withMessageContaining("checksum");
+
+		Path foreign = directory.resolve("other");
+		Files.writeString(foreign, "definitely not a diet snapshot");
+		assertThatIOException().isThrownBy(() -> DietSnapshot.read(foreign)).withMessageContaining("Not a diet");
+	}
+
+	@Test
+	void startupSnapshotIsReleasedAndDefersTheDatabaseInMemoryModeOnly() throws IOException {
+		Path file = directory.resolve("diet.snapshot");
+		sample().write(file);
+		SnapshotFile snapshotFile = new SnapshotFile(file.toString());
+
+		assertThat(snapshotFile.atStartup()).isPresent();
+		assertThat(snapshotFile.releaseStartup()).isTrue();
+		assertThat(snapshotFile.atStartup()).isEmpty();
+		assertThat(new SnapshotFile("").releaseStartup()).isFalse();
+
+		assertThat(deferred(Map.of("diet.snapshot.path", file.toString()))).isTrue();
+		assertThat(deferred(Map.of("diet.snapshot.path", file.toString(), "diet.store.mode", "JPA"))).isFalse();
+		assertThat(deferred(Map.of("diet.snapshot.path", directory.resolve("missing").toString()))).isFalse();
+		assertThat(deferred(Map.of("diet.snapshot.path", file.toString(), "diet.snapshot.defer-database", "false")))
+				.isFalse();
+	}
+
+	private static boolean deferred(Map<String, Object> properties) {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+		new DeferredDatabaseEnvironmentPostProcessor().postProcessEnvironment(environment, null);
+		return environment.getProperty(DeferredDatabaseEnvironmentPostProcessor.DEFERRED, Boolean.class, false);
+	}
+}
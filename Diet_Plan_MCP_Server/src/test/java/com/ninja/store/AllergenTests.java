@@ -0,0 +1,75 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.entity.Food;
+
+class AllergenTests {
+
+	private static Food food(int fdcId, String category, String allergenFlags) {
+		Food food = new Food();
+		food.setFdcId(fdcId);
+		food.setFoodName("food " + fdcId);
+		food.setFoodCategory(category);
+		food.setAllergenFlags(allergenFlags);
+		return food;
+	}
+
+	@Test
+	void flagsAreParsedAsWholeWords() {
+		assertThat(Allergen.of(Allergen.parse("Contains: Milk, Eggs; Peanuts"))).containsExactly(Allergen.MILK,
+				Allergen.EGGS, Allergen.PEANUTS);
+		assertThat(Allergen.of(Allergen.parse("tree nuts|wheat"))).containsExactly(Allergen.TREE_NUTS,
+				Allergen.WHEAT, Allergen.GLUTEN);
+		assertThat(Allergen.of(Allergen.parse("shellfish"))).containsExactly(Allergen.SHELLFISH);
+		assertThat(Allergen.of(Allergen.parse("tree-nut oil"))).containsExactly(Allergen.TREE_NUTS);
+	}
+
+	@Test
+	void bareNutsMeansTreeNutsAndPeanuts() {
+		assertThat(Allergen.of(Allergen.parse("May contain nuts"))).containsExactly(Allergen.TREE_NUTS,
+				Allergen.PEANUTS);
+		assertThat(Allergen.of(Allergen.maskOf(List.of("nuts")))).containsExactly(Allergen.TREE_NUTS,
+				Allergen.PEANUTS);
+		assertThat(Allergen.of(Allergen.maskOf(List.of("Nut")))).containsExactly(Allergen.TREE_NUTS,
+				Allergen.PEANUTS);
+		assertThat(Allergen.of(Allergen.maskOf(List.of("tree nuts")))).containsExactly(Allergen.TREE_NUTS);
+	}
+
+	@Test
+	void missingFlagsAreEmptyAndUnknownFlagsAreOther() {
+		assertThat(Allergen.parse(null)).isZero();
+		assertThat(Allergen.parse("")).isZero();
+		assertThat(Allergen.parse("NaN")).isZero();
+		assertThat(Allergen.of(Allergen.parse("nutmeg"))).containsExactly(Allergen.OTHER);
+	}
+
+	@Test
+	void callerNamesAcceptCanonicalNamesAndKeywords() {
+		assertThat(Allergen.of(Allergen.maskOf(List.of("Dairy", "tree nuts", "WHEAT")))).containsExactly(
+				Allergen.MILK, Allergen.TREE_NUTS, Allergen.WHEAT);
+		assertThatIllegalArgumentException().isThrownBy(() -> Allergen.maskOf(List.of("chocolate")))
+				.withMessageContaining("chocolate");
+	}
+
+	@Test
+	void foodTableKeepsMaskAndCategoryPerRow() {
+		FoodTable table = FoodTable.of(List.of(
+				food(3, "Snacks", "Peanuts"),
+				food(1, "Dairy and Egg Products", "milk"),
+				food(2, "snacks", null)));
+		long excluded = Allergen.maskOf(List.of("peanut"));
+		int snacks = table.categoryIdOf("SNACKS");
+
+		assertThat(table.allergenMask(0)).isEqualTo(Allergen.MILK.bit());
+		assertThat(table.categoryId(1)).isEqualTo(snacks).isEqualTo(table.categoryId(2));
+		assertThat(table.categoryIdOf("Beverages")).isEqualTo(-1);
+		assertThat((table.allergenMask(1) & excluded) == 0).isTrue();
+		assertThat((table.allergenMask(2) & excluded) == 0).isFalse();
+	}
+}
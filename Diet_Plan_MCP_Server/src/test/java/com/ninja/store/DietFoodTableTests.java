@@ -0,0 +1,46 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.dto.CursorPage;
+import com.ninja.entity.LfvFood;
+
+class DietFoodTableTests {
+
+	private static DietFoodTable<LfvFood> table(String... names) {
+		List<LfvFood> foods = new ArrayList<>();
+		for (int i = 0; i < names.length; i++) {
+			LfvFood food = new LfvFood(names[i], "Vegetables", "OK", null);
+			food.setId(i + 1L);
+			foods.add(food);
+		}
+		return DietFoodTable.of(foods);
+	}
+
+	@Test
+	void fuzzyMatchesArePagedFewestEditsFirst() {
+		// "brocoli" is 2 edits from Bracali and 1 from Broccoli and Brocolo
+		DietFoodTable<LfvFood> table = table("Bracali", "Rice", "Broccoli", "Brocolo");
+
+		CursorPage<LfvFood> first = table.searchByName("brocoli", null, 2);
+		CursorPage<LfvFood> second = table.searchByName("brocoli", first.getNextCursor(), 2);
+
+		assertThat(first.getItems()).extracting(LfvFood::getId).containsExactly(3L, 4L);
+		assertThat(first.getDidYouMean()).contains("broccoli");
+		assertThat(second.getItems()).extracting(LfvFood::getId).containsExactly(1L);
+		assertThat(second.getNextCursor()).isNull();
+	}
+
+	@Test
+	void substringMatchesStayInIdOrder() {
+		DietFoodTable<LfvFood> table = table("Brown rice", "Rice noodles", "Wild rice");
+
+		assertThat(table.searchByName("rice", null, 10).getItems()).extracting(LfvFood::getId)
+				.containsExactly(1L, 2L, 3L);
+	}
+}
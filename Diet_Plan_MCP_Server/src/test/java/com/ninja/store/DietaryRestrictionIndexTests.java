@@ -0,0 +1,79 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.entity.Nutrient;
+
+class DietaryRestrictionIndexTests {
+
+	private static Nutrient nutrient(int fdcId, Double sodiumMg, Double fiberG) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName("food " + fdcId);
+		nutrient.setSodiumMg(sodiumMg);
+		nutrient.setFiberG(fiberG);
+		return nutrient;
+	}
+
+	// 130 rows so the bitmaps span more than two words
+	private final NutrientTable table = NutrientTable.of(IntStream.range(0, 130)
+			.mapToObj(i -> nutrient(i, i % 10 == 0 ? null : (double) i * 2, (double) (i % 7)))
+			.toList());
+
+	private static double[] thresholds(Double sodium, Double fiber) {
+		double[] thresholds = new double[DietaryRestriction.values().length];
+		Arrays.fill(thresholds, Double.NaN);
+		if (sodium != null) {
+			thresholds[DietaryRestriction.LOW_SODIUM.ordinal()] = sodium;
+		}
+		if (fiber != null) {
+			thresholds[DietaryRestriction.HIGH_FIBER.ordinal()] = fiber;
+		}
+		return thresholds;
+	}
+
+	private int[] expected(double maxSodium, double minFiber) {
+		return IntStream.range(0, 130)
+				.filter(i -> i % 10 != 0 && i * 2 < maxSodium && i % 7 > minFiber)
+				.toArray();
+	}
+
+	/**
+	 * Every match, read a few ordinals at a time as the tool pages them
+	 */
+	private int[] matching(double[] thresholds) {
+		IntStream.Builder matches = IntStream.builder();
+		int[] page = new int[7];
+		int after = -1;
+		int count;
+		do {
+			count = table.matchingRestrictionsAfter(thresholds, after, page);
+			for (int i = 0; i < count; i++) {
+				matches.add(page[i]);
+			}
+			after = count > 0 ? page[count - 1] : after;
+		} while (count == page.length);
+		return matches.build().toArray();
+	}
+
+	@Test
+	void noRestrictionsMatchesEveryRow() {
+		assertThat(matching(thresholds(null, null))).containsExactly(IntStream.range(0, 130).toArray());
+	}
+
+	@Test
+	void defaultThresholdsMatchTheRepositoryQuery() {
+		assertThat(matching(thresholds(140.0, 3.0))).containsExactly(expected(140, 3));
+	}
+
+	@Test
+	void customThresholdsAreBuiltOnDemand() {
+		assertThat(matching(thresholds(201.0, 5.0))).containsExactly(expected(201, 5));
+		assertThat(matching(thresholds(201.0, 5.0))).containsExactly(expected(201, 5));
+	}
+}
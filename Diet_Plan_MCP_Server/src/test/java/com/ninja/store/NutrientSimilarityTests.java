@@ -0,0 +1,118 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.entity.Nutrient;
+
+class NutrientSimilarityTests {
+
+	private static Nutrient nutrient(int fdcId, Random random) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName("food " + fdcId);
+		nutrient.setEnergyKcal(random.nextDouble() * 500);
+		nutrient.setProteinG(random.nextDouble() * 30);
+		nutrient.setTotalFatG(random.nextDouble() * 40);
+		nutrient.setCarbohydrateG(random.nextDouble() * 80);
+		nutrient.setSodiumMg(random.nextInt(10) == 0 ? null : random.nextDouble() * 2000);
+		nutrient.setCalciumMg(random.nextDouble() * 300);
+		return nutrient;
+	}
+
+	@Test
+	void graphSearchAgreesWithTheExhaustiveSearchItReplaces() {
+		Random random = new Random(3);
+		List<Nutrient> rows = new ArrayList<>();
+		for (int fdcId = 1; fdcId <= 3000; fdcId++) {
+			rows.add(nutrient(fdcId, random));
+		}
+		NutrientSimilarity similarity = NutrientSimilarity.of(NutrientTable.of(rows));
+
+		int[][] exhaustive = new int[50][];
+		for (int row = 0; row < exhaustive.length; row++) {
+			int self = row;
+			exhaustive[row] = similarity.nearest(row, 5, other -> other != self);
+			assertThat(exhaustive[row]).hasSize(5).doesNotContain(row);
+			for (int i = 1; i < 5; i++) {
+				assertThat(similarity.distance(row, exhaustive[row][i]))
+						.isGreaterThanOrEqualTo(similarity.distance(row, exhaustive[row][i - 1]));
+			}
+		}
+
+		similarity.buildIndex();
+		int agreeing = 0;
+		for (int row = 0; row < exhaustive.length; row++) {
+			int self = row;
+			if (similarity.nearest(row, 5, other -> other != self)[0] == exhaustive[row][0]) {
+				agreeing++;
+			}
+		}
+		assertThat(agreeing).isGreaterThanOrEqualTo(48);
+	}
+
+	@Test
+	void selectiveFilterStillGetsK() {
+		Random random = new Random(4);
+		List<Nutrient> rows = new ArrayList<>();
+		for (int fdcId = 1; fdcId <= 2000; fdcId++) {
+			rows.add(nutrient(fdcId, random));
+		}
+		NutrientSimilarity similarity = NutrientSimilarity.of(NutrientTable.of(rows));
+		similarity.buildIndex();
+
+		int[] nearest = similarity.nearest(0, 10, row -> row % 150 == 1);
+		assertThat(nearest).hasSize(10);
+		assertThat(Arrays.stream(nearest)).allMatch(row -> row % 150 == 1);
+	}
+
+	@Test
+	void dietCapsLeaveOutFoodsOverTheShareOrWithoutIt() {
+		Nutrient lean = new Nutrient();
+		lean.setFdcId(1);
+		lean.setFatEnergyPct(4.0);
+		lean.setCarbEnergyPct(80.0);
+		Nutrient fatty = new Nutrient();
+		fatty.setFdcId(2);
+		fatty.setFatEnergyPct(70.0);
+		fatty.setCarbEnergyPct(10.0);
+		Nutrient unknown = new Nutrient();
+		unknown.setFdcId(3);
+		NutrientTable table = NutrientTable.of(List.of(lean, fatty, unknown));
+
+		// LFV: fat at most 5% of energy
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.FAT_ENERGY_PCT, 0, 5)).isTrue();
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.FAT_ENERGY_PCT, 1, 5)).isFalse();
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.FAT_ENERGY_PCT, 2, 5)).isFalse();
+		// LCHF: carbohydrate at most 20% of energy
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.CARB_ENERGY_PCT, 0, 20)).isFalse();
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.CARB_ENERGY_PCT, 1, 20)).isTrue();
+		// Uncapped, even when unknown
+		assertThat(NutrientSimilarityStore.withinCap(table, NutrientColumn.CARB_ENERGY_PCT, 2, 100)).isTrue();
+	}
+
+	@Test
+	void allowListKeepsTheNearestAllowedFoods() {
+		Random random = new Random(6);
+		List<Nutrient> rows = new ArrayList<>();
+		for (int fdcId = 1; fdcId <= 500; fdcId++) {
+			rows.add(nutrient(fdcId, random));
+		}
+		NutrientTable table = NutrientTable.of(rows);
+		NutrientSimilarity similarity = NutrientSimilarity.of(table);
+		// ascending fdcIds, one without a nutrient row, and the target itself
+		int[] allowed = { 1, 7, 40, 41, 99, 250, 251, 400, 9999 };
+
+		int[] nearest = NutrientSimilarityStore.nearestOf(table, similarity, 0, 4, allowed, row -> row != 0);
+
+		int[] expected = similarity.nearest(0, 4,
+				row -> row != 0 && Arrays.binarySearch(allowed, table.fdcId(row)) >= 0);
+		assertThat(nearest).containsExactly(expected);
+	}
+}
@@ -0,0 +1,81 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.dto.ColumnStatistics;
+import com.ninja.dto.NutritionStatistics;
+import com.ninja.entity.Food;
+import com.ninja.entity.Nutrient;
+
+import jakarta.persistence.Column;
+
+class NutrientStatisticsTests {
+
+	private static Nutrient nutrient(int fdcId, Double energyKcal) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName("food " + fdcId);
+		nutrient.setEnergyKcal(energyKcal);
+		return nutrient;
+	}
+
+	private static FoodTable foods(int count) {
+		List<Food> foods = new ArrayList<>();
+		for (int fdcId = 1; fdcId <= count; fdcId++) {
+			foods.add(new Food(fdcId, "food " + fdcId, "sr", fdcId % 2 == 0 ? "Even" : "Odd", null, null));
+		}
+		return FoodTable.of(foods);
+	}
+
+	private static ColumnStatistics energy(NutritionStatistics statistics) {
+		return statistics.getNutrients().get(NutrientColumn.ENERGY_KCAL.ordinal());
+	}
+
+	@Test
+	void summariesCoverAllFoodsAndEachCategory() {
+		NutrientTable table = NutrientTable.of(List.of(nutrient(1, 100.0), nutrient(2, 200.0), nutrient(3, 300.0),
+				nutrient(4, null)));
+		NutrientStatistics statistics = NutrientStatistics.build(table, foods(4));
+
+		ColumnStatistics all = energy(statistics.summaries().get(null));
+		assertThat(all.getCount()).isEqualTo(3);
+		assertThat(all.getMean()).isEqualTo(200.0);
+		assertThat(all.getMin()).isEqualTo(100.0);
+		assertThat(all.getMax()).isEqualTo(300.0);
+		assertThat(all.getP50()).isBetween(198.0, 202.0);
+
+		NutritionStatistics odd = statistics.summaries().get("odd");
+		assertThat(odd.getCategory()).isEqualTo("Odd");
+		assertThat(odd.getFoods()).isEqualTo(2);
+		assertThat(energy(odd).getMean()).isEqualTo(200.0);
+		assertThat(energy(statistics.summaries().get("even")).getMax()).isEqualTo(200.0);
+	}
+
+	@Test
+	void updateWithChangedRowsMatchesAFreshBuild() {
+		FoodTable foods = foods(4);
+		NutrientTable before = NutrientTable.of(List.of(nutrient(1, 100.0), nutrient(2, 200.0), nutrient(3, 300.0)));
+		// 1 unchanged, 2 removed, 3 lowered (was the max), 4 added
+		NutrientTable after = NutrientTable.of(List.of(nutrient(1, 100.0), nutrient(3, 50.0), nutrient(4, 400.0)));
+
+		NutrientStatistics statistics = NutrientStatistics.build(before, foods);
+		assertThat(statistics.update(before, foods, after, foods)).isEqualTo(3);
+
+		assertThat(statistics.summaries()).isEqualTo(NutrientStatistics.build(after, foods).summaries());
+		assertThat(energy(statistics.summaries().get("odd")).getMin()).isEqualTo(50.0);
+		assertThat(energy(statistics.summaries().get("odd")).getMax()).isEqualTo(100.0);
+	}
+
+	@Test
+	void columnNamesMatchTheEntityForTheJpaModeQuery() throws NoSuchFieldException {
+		for (NutrientColumn column : NutrientColumn.values()) {
+			Column mapped = Nutrient.class.getDeclaredField(column.getProperty()).getAnnotation(Column.class);
+			assertThat(column.getColumnName()).as(column.getProperty()).isEqualTo(mapped.name());
+		}
+	}
+}
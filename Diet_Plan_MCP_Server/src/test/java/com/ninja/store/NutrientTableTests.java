@@ -0,0 +1,92 @@
+package com.ninja.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ninja.entity.Nutrient;
+
+class NutrientTableTests {
+
+	private static Nutrient nutrient(int fdcId, Double energyKcal, Double proteinG) {
+		Nutrient nutrient = new Nutrient();
+		nutrient.setFdcId(fdcId);
+		nutrient.setFoodName("food " + fdcId);
+		nutrient.setEnergyKcal(energyKcal);
+		nutrient.setProteinG(proteinG);
+		return nutrient;
+	}
+
+	private final NutrientTable table = NutrientTable.of(List.of(
+			nutrient(1, 50.0, 20.0),
+			nutrient(2, 150.0, null),
+			nutrient(3, 100.0, 5.0),
+			nutrient(4, null, 30.0),
+			nutrient(5, 100.0, 12.0)));
+
+	private int[] fdcIds(int[] ordinals) {
+		int[] ids = new int[ordinals.length];
+		for (int i = 0; i < ordinals.length; i++) {
+			ids[i] = table.fdcId(ordinals[i]);
+		}
+		return ids;
+	}
+
+	@Test
+	void greaterThanReturnsHighestFirstAndSkipsNulls() {
+		assertThat(fdcIds(table.greaterThan(NutrientColumn.PROTEIN_G, 10.0))).containsExactly(4, 1, 5);
+		assertThat(fdcIds(table.greaterThan(NutrientColumn.PROTEIN_G, 30.0))).isEmpty();
+	}
+
+	@Test
+	void lessThanIsStrict() {
+		assertThat(fdcIds(table.lessThan(NutrientColumn.ENERGY_KCAL, 100.0))).containsExactly(1);
+	}
+
+	@Test
+	void betweenIsInclusiveLikeSql() {
+		assertThat(fdcIds(table.between(NutrientColumn.ENERGY_KCAL, 100.0, 150.0))).containsExactly(3, 5, 2);
+		assertThat(fdcIds(table.between(NutrientColumn.ENERGY_KCAL, 200.0, 100.0))).isEmpty();
+	}
+
+	@Test
+	void nullValuesAreStoredAsNaN() {
+		assertThat(table.value(NutrientColumn.ENERGY_KCAL, 3)).isNaN();
+	}
+
+	@Test
+	void energyRatioColumnsAreRangeIndexed() {
+		Nutrient lowFat = nutrient(6, 200.0, 10.0);
+		lowFat.setFatEnergyPct(4.5);
+		Nutrient highFat = nutrient(7, 300.0, 5.0);
+		highFat.setFatEnergyPct(70.0);
+		NutrientTable ratios = NutrientTable.of(List.of(lowFat, highFat, nutrient(8, null, null)));
+
+		int[] hits = ratios.between(NutrientColumn.FAT_ENERGY_PCT, 0.0, 5.0);
+		assertThat(hits).hasSize(1);
+		assertThat(ratios.fdcId(hits[0])).isEqualTo(6);
+	}
+
+	@Test
+	void columnsInAnyOrderAreServedInFdcIdOrderWithEntitiesMadeOnDemand() {
+		double[][] columns = new double[NutrientColumn.values().length][3];
+		for (double[] column : columns) {
+			Arrays.fill(column, Double.NaN);
+		}
+		columns[NutrientColumn.PROTEIN_G.ordinal()] = new double[] { 7.0, 3.0, 7.0 };
+		NutrientTable shuffled = NutrientTable.of(new NutrientRows(new int[] { 30, 10, 20 },
+				new String[] { "c", "a", "b" }, new String[3], new String[3], columns));
+
+		assertThat(shuffled.fdcId(0)).isEqualTo(10);
+		assertThat(shuffled.row(2).getFoodName()).isEqualTo("c");
+		assertThat(shuffled.row(2).getProteinG()).isEqualTo(7.0);
+		assertThat(shuffled.row(2).getEnergyKcal()).isNull();
+		// Ties are ordered by fdcId, reversed for highest first
+		assertThat(shuffled.greaterThan(NutrientColumn.PROTEIN_G, 5.0)).containsExactly(2, 1);
+		assertThat(shuffled.between(NutrientColumn.PROTEIN_G, 0.0, 7.0)).containsExactly(0, 1, 2);
+		assertThat(shuffled.searchByName("b")).containsExactly(1);
+	}
+}
@@ -0,0 +1,85 @@
+package com.ninja.tool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ninja.service.LfvAndLchfBasedDietService;
+import com.ninja.service.MealPlanningService;
+
+class ToolResultShaperTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	private static final String PAGE = "{\"items\":["
+			+ "{\"fdcId\":1,\"foodName\":\"Lentils\",\"energyKcal\":116.04512,\"vitaminDMcg\":null},"
+			+ "{\"fdcId\":2,\"foodName\":\"Rice\",\"energyKcal\":130.0,\"vitaminDMcg\":null}],"
+			+ "\"nextCursor\":\"abc\"}";
+
+	private static String shape(String result, ToolResultFormat format, List<String> fields, int precision)
+			throws Exception {
+		JsonNode shaped = ToolResultShaper.shape(JSON.readTree(result), format, fields, precision);
+		return JSON.writeValueAsString(shaped);
+	}
+
+	@Test
+	void tableSendsColumnsOnceAndDropsAllNullColumns() throws Exception {
+		assertThat(shape(PAGE, ToolResultFormat.TABLE, List.of(), 1))
+				.isEqualTo("{\"columns\":[\"fdcId\",\"foodName\",\"energyKcal\"],"
+						+ "\"rows\":[[1,\"Lentils\",116],[2,\"Rice\",130]],\"nextCursor\":\"abc\"}");
+	}
+
+	@Test
+	void jsonKeepsSelectedFieldsInRequestOrder() throws Exception {
+		assertThat(shape(PAGE, ToolResultFormat.JSON, List.of("energyKcal", "fdcId"), 0))
+				.isEqualTo("{\"items\":[{\"energyKcal\":116.04512,\"fdcId\":1},{\"energyKcal\":130.0,\"fdcId\":2}],"
+						+ "\"nextCursor\":\"abc\"}");
+	}
+
+	@Test
+	void roundsToDecimalPlaces() throws Exception {
+		String result = "[{\"a\":0.0123456,\"b\":2.3456789,\"c\":12345.678,\"d\":0.0004}]";
+		assertThat(shape(result, ToolResultFormat.JSON, List.of(), 2))
+				.isEqualTo("[{\"a\":0.01,\"b\":2.35,\"c\":12345.68,\"d\":0}]");
+	}
+
+	@Test
+	void nestedObjectsAreFlattenedAndSelectedBySuffix() throws Exception {
+		String result = "[{\"fdcId\":7,\"found\":true,\"item\":{\"fdcId\":7,\"foodName\":\"Oats\"}},"
+				+ "{\"fdcId\":8,\"found\":false,\"item\":null}]";
+		assertThat(shape(result, ToolResultFormat.TABLE, List.of("found", "foodName"), 0))
+				.isEqualTo("{\"columns\":[\"found\",\"item.foodName\"],\"rows\":[[true,\"Oats\"],[false,null]]}");
+		assertThat(shape(result, ToolResultFormat.JSON, List.of("foodName"), 0))
+				.isEqualTo("[{\"item\":{\"foodName\":\"Oats\"}},{}]");
+	}
+
+	@Test
+	void findsRowsInsideResponseEntityBody() throws Exception {
+		String result = "{\"headers\":{},\"body\":{\"response \":" + PAGE + "},\"statusCode\":\"OK\"}";
+		JsonNode shaped = JSON.readTree(shape(result, ToolResultFormat.TABLE, List.of("foodName"), 4));
+		assertThat(shaped.at("/body/response /rows").toString()).isEqualTo("[[\"Lentils\"],[\"Rice\"]]");
+		assertThat(shaped.at("/statusCode").asText()).isEqualTo("OK");
+	}
+
+	@Test
+	void unknownFieldIsRejected() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> shape(PAGE, ToolResultFormat.TABLE, List.of("proteinG"), 4))
+				.withMessageContaining("proteinG");
+	}
+
+	@Test
+	void listToolsAreDetectedFromSignatures() throws Exception {
+		assertThat(CompactToolResults.isListTool(MealPlanningService.class.getMethod("findHighProteinFoods",
+				Double.class, Integer.class, String.class))).isTrue();
+		assertThat(CompactToolResults.isListTool(MealPlanningService.class.getMethod("getFoodsByIds", List.class)))
+				.isTrue();
+		assertThat(CompactToolResults.isListTool(LfvAndLchfBasedDietService.class.getMethod("getLfvFoodCategories")))
+				.isFalse();
+	}
+}
@@ -0,0 +1,109 @@
+package com.ninja.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+
+class PipelinedStdioServerTransportProviderTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final int CALLS = 32;
+	private static final int MAX_CONCURRENCY = 4;
+
+	@Test
+	void answersEveryConcurrentCallWithinTheCap() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostRunning = new AtomicInteger();
+		McpServerFeatures.SyncToolSpecification slow = new McpServerFeatures.SyncToolSpecification(
+				new McpSchema.Tool("slow", "Echoes n after a pause", "{\"type\":\"object\"}"), (exchange, args) -> {
+					mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						running.decrementAndGet();
+					}
+					return new McpSchema.CallToolResult("n=" + args.get("n"), false);
+				});
+
+		StringBuilder input = new StringBuilder();
+		input.append("{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"initialize\",\"params\":{\"protocolVersion\":"
+				+ "\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1\"}}}\n");
+		input.append("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}\n");
+		input.append("not json\n");
+		for (int id = 1; id <= CALLS; id++) {
+			input.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id).append(",\"method\":\"tools/call\",\"params\":")
+					.append("{\"name\":\"slow\",\"arguments\":{\"n\":").append(id).append("}}}\n");
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PipelinedStdioServerTransportProvider transport = new PipelinedStdioServerTransportProvider(JSON,
+				new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), output, MAX_CONCURRENCY);
+		McpSyncServer server = McpServer.sync(transport)
+				.serverInfo("test", "1")
+				.capabilities(McpSchema.ServerCapabilities.builder().tools(false).build())
+				.tools(slow)
+				.build();
+		try {
+			List<JsonNode> responses = awaitResponses(output, CALLS + 1);
+
+			assertThat(responses).extracting(response -> response.path("id").asInt())
+					.containsExactlyInAnyOrderElementsOf(ids(CALLS + 1));
+			for (JsonNode response : responses) {
+				int id = response.path("id").asInt();
+				if (id > 0) {
+					assertThat(response.path("result").path("content").path(0).path("text").asText())
+							.isEqualTo("n=" + id);
+				}
+			}
+			assertThat(mostRunning.get()).isBetween(2, MAX_CONCURRENCY);
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	void rejectsNonPositiveConcurrency() {
+		assertThatThrownBy(() -> new PipelinedStdioServerTransportProvider(JSON, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static List<Integer> ids(int count) {
+		List<Integer> ids = new ArrayList<>(count);
+		for (int id = 0; id < count; id++) {
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	private static List<JsonNode> awaitResponses(ByteArrayOutputStream output, int count) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		String[] lines;
+		do {
+			Thread.sleep(20);
+			lines = output.toString(StandardCharsets.UTF_8).lines().toArray(String[]::new);
+		} while (lines.length < count && System.nanoTime() < deadline);
+		List<JsonNode> responses = new ArrayList<>(lines.length);
+		for (String line : lines) {
+			responses.add(JSON.readTree(line));
+		}
+		return responses;
+	}
+}
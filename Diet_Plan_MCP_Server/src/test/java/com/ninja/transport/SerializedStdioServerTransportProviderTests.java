@@ -0,0 +1,67 @@
+package com.ninja.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+
+class SerializedStdioServerTransportProviderTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final int CALLS = 200;
+
+	@Test
+	void answersEveryConcurrentCall() throws Exception {
+		McpServerFeatures.SyncToolSpecification echo = new McpServerFeatures.SyncToolSpecification(
+				new McpSchema.Tool("echo", "Echoes n", "{\"type\":\"object\"}"),
+				(exchange, args) -> new McpSchema.CallToolResult("n=" + args.get("n"), false));
+
+		// The input stays open: the SDK transport closes the session at end of input
+		PipedOutputStream client = new PipedOutputStream();
+		PipedInputStream input = new PipedInputStream(client, 1 << 16);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		McpSyncServer server = McpServer.sync(new SerializedStdioServerTransportProvider(JSON, input, output))
+				.serverInfo("test", "1")
+				.capabilities(McpSchema.ServerCapabilities.builder().tools(false).build())
+				.tools(echo)
+				.build();
+		try {
+			StringBuilder requests = new StringBuilder();
+			requests.append("{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"initialize\",\"params\":{\"protocolVersion\":"
+					+ "\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1\"}}}\n");
+			requests.append("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}\n");
+			for (int id = 1; id <= CALLS; id++) {
+				requests.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id).append(",\"method\":\"tools/call\",")
+						.append("\"params\":{\"name\":\"echo\",\"arguments\":{\"n\":").append(id).append("}}}\n");
+			}
+			client.write(requests.toString().getBytes(StandardCharsets.UTF_8));
+			client.flush();
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			String[] lines;
+			do {
+				Thread.sleep(20);
+				lines = output.toString(StandardCharsets.UTF_8).lines().toArray(String[]::new);
+			} while (lines.length < CALLS + 1 && System.nanoTime() < deadline);
+
+			assertThat(lines).extracting(line -> JSON.readTree(line).path("id").asInt())
+					.containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(0, CALLS).boxed().toList());
+		} finally {
+			server.close();
+			client.close();
+		}
+	}
+}